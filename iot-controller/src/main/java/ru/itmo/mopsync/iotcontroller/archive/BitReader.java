@@ -0,0 +1,60 @@
+package ru.itmo.mopsync.iotcontroller.archive;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Big-endian bit stream reading a section of a (memory-mapped) segment buffer in place.
+ */
+class BitReader {
+
+    private final ByteBuffer buffer;
+    private long bitPosition;
+
+    /**
+     * Constructor for BitReader.
+     *
+     * @param buffer buffer to read
+     * @param offset byte offset of the first bit
+     */
+    BitReader(ByteBuffer buffer, int offset) {
+        this.buffer = buffer;
+        this.bitPosition = (long) offset * Byte.SIZE;
+    }
+
+    /**
+     * Reads a single bit.
+     *
+     * @return bit value
+     */
+    boolean readBit() {
+        int index = (int) (bitPosition >>> 3);
+        int shift = 7 - (int) (bitPosition & 7);
+        bitPosition++;
+        return ((buffer.get(index) >>> shift) & 1) != 0;
+    }
+
+    /**
+     * Reads an unsigned value of the given number of bits.
+     *
+     * @param count number of bits, 0 to 64
+     * @return value
+     */
+    long readBits(int count) {
+        long value = 0;
+        for (int i = 0; i < count; i++) {
+            value = (value << 1) | (readBit() ? 1 : 0);
+        }
+        return value;
+    }
+
+    /**
+     * Reads a two's complement value of the given number of bits.
+     *
+     * @param count number of bits, 1 to 64
+     * @return sign-extended value
+     */
+    long readSignedBits(int count) {
+        long value = readBits(count);
+        return count == Long.SIZE ? value : (value << (Long.SIZE - count)) >> (Long.SIZE - count);
+    }
+}
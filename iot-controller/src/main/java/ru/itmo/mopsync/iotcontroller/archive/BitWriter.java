@@ -0,0 +1,53 @@
+package ru.itmo.mopsync.iotcontroller.archive;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Growable big-endian bit stream used by the Gorilla encoders of SegmentWriter.
+ */
+class BitWriter {
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private int current;
+    private int filled;
+
+    /**
+     * Writes a single bit.
+     *
+     * @param bit bit value
+     */
+    void writeBit(boolean bit) {
+        current = (current << 1) | (bit ? 1 : 0);
+        if (++filled == Byte.SIZE) {
+            out.write(current);
+            current = 0;
+            filled = 0;
+        }
+    }
+
+    /**
+     * Writes the lowest bits of a value, most significant first.
+     *
+     * @param value value to write
+     * @param count number of bits, 0 to 64
+     */
+    void writeBits(long value, int count) {
+        for (int i = count - 1; i >= 0; i--) {
+            writeBit(((value >>> i) & 1) != 0);
+        }
+    }
+
+    /**
+     * Pads the last byte with zero bits and returns the written bytes.
+     *
+     * @return encoded bytes
+     */
+    byte[] toByteArray() {
+        if (filled > 0) {
+            out.write(current << (Byte.SIZE - filled));
+            current = 0;
+            filled = 0;
+        }
+        return out.toByteArray();
+    }
+}
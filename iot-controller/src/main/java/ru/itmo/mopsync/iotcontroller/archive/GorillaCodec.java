@@ -0,0 +1,183 @@
+package ru.itmo.mopsync.iotcontroller.archive;
+
+/**
+ * Gorilla encodings (Pelkonen et al., VLDB 2015) adapted to millisecond timestamps and 64-bit values.
+ * Timestamps and sequence numbers use delta-of-delta encoding, metric values XOR encoding,
+ * so regular series cost about one bit per value.
+ */
+final class GorillaCodec {
+
+    private GorillaCodec() {
+    }
+
+    /**
+     * Delta-of-delta encoder: '0' for an unchanged delta, otherwise a prefix selecting
+     * 7, 9, 12 or 64 bits of the difference between consecutive deltas.
+     */
+    static final class DeltaOfDeltaWriter {
+
+        private final BitWriter out;
+        private boolean first = true;
+        private long previous;
+        private long previousDelta;
+
+        DeltaOfDeltaWriter(BitWriter out) {
+            this.out = out;
+        }
+
+        void write(long value) {
+            if (first) {
+                out.writeBits(value, Long.SIZE);
+                previous = value;
+                first = false;
+                return;
+            }
+            long delta = value - previous;
+            long deltaOfDelta = delta - previousDelta;
+            if (deltaOfDelta == 0) {
+                out.writeBit(false);
+            } else if (fits(deltaOfDelta, 7)) {
+                out.writeBits(0b10, 2);
+                out.writeBits(deltaOfDelta, 7);
+            } else if (fits(deltaOfDelta, 9)) {
+                out.writeBits(0b110, 3);
+                out.writeBits(deltaOfDelta, 9);
+            } else if (fits(deltaOfDelta, 12)) {
+                out.writeBits(0b1110, 4);
+                out.writeBits(deltaOfDelta, 12);
+            } else {
+                out.writeBits(0b1111, 4);
+                out.writeBits(deltaOfDelta, Long.SIZE);
+            }
+            previous = value;
+            previousDelta = delta;
+        }
+
+        private static boolean fits(long value, int bits) {
+            long bound = 1L << (bits - 1);
+            return value >= -bound && value < bound;
+        }
+    }
+
+    /**
+     * Decoder for DeltaOfDeltaWriter.
+     */
+    static final class DeltaOfDeltaReader {
+
+        private final BitReader in;
+        private boolean first = true;
+        private long previous;
+        private long previousDelta;
+
+        DeltaOfDeltaReader(BitReader in) {
+            this.in = in;
+        }
+
+        long read() {
+            if (first) {
+                previous = in.readBits(Long.SIZE);
+                first = false;
+                return previous;
+            }
+            long deltaOfDelta;
+            if (!in.readBit()) {
+                deltaOfDelta = 0;
+            } else if (!in.readBit()) {
+                deltaOfDelta = in.readSignedBits(7);
+            } else if (!in.readBit()) {
+                deltaOfDelta = in.readSignedBits(9);
+            } else if (!in.readBit()) {
+                deltaOfDelta = in.readSignedBits(12);
+            } else {
+                deltaOfDelta = in.readSignedBits(Long.SIZE);
+            }
+            previousDelta += deltaOfDelta;
+            previous += previousDelta;
+            return previous;
+        }
+    }
+
+    /**
+     * XOR encoder of 64-bit patterns: '0' for a repeated value, '10' plus the meaningful bits
+     * when they fit the previous leading/trailing zero window, otherwise '11', 6 bits of leading zeros,
+     * 6 bits of meaningful length minus one and the meaningful bits.
+     * Unlike the paper leading zeros take 6 bits: small integer metrics have far more than 31 of them.
+     */
+    static final class XorWriter {
+
+        private final BitWriter out;
+        private boolean first = true;
+        private long previous;
+        private int previousLeading = -1;
+        private int previousTrailing;
+
+        XorWriter(BitWriter out) {
+            this.out = out;
+        }
+
+        void write(long bits) {
+            if (first) {
+                out.writeBits(bits, Long.SIZE);
+                previous = bits;
+                first = false;
+                return;
+            }
+            long xor = bits ^ previous;
+            previous = bits;
+            if (xor == 0) {
+                out.writeBit(false);
+                return;
+            }
+            out.writeBit(true);
+            int leading = Math.min(Long.numberOfLeadingZeros(xor), 63);
+            int trailing = Long.numberOfTrailingZeros(xor);
+            if (previousLeading >= 0 && leading >= previousLeading && trailing >= previousTrailing) {
+                out.writeBit(false);
+                out.writeBits(xor >>> previousTrailing, Long.SIZE - previousLeading - previousTrailing);
+            } else {
+                int meaningful = Long.SIZE - leading - trailing;
+                out.writeBit(true);
+                out.writeBits(leading, 6);
+                out.writeBits(meaningful - 1, 6);
+                out.writeBits(xor >>> trailing, meaningful);
+                previousLeading = leading;
+                previousTrailing = trailing;
+            }
+        }
+    }
+
+    /**
+     * Decoder for XorWriter.
+     */
+    static final class XorReader {
+
+        private final BitReader in;
+        private boolean first = true;
+        private long previous;
+        private int previousLeading;
+        private int previousTrailing;
+
+        XorReader(BitReader in) {
+            this.in = in;
+        }
+
+        long read() {
+            if (first) {
+                previous = in.readBits(Long.SIZE);
+                first = false;
+                return previous;
+            }
+            if (!in.readBit()) {
+                return previous;
+            }
+            if (in.readBit()) {
+                previousLeading = (int) in.readBits(6);
+                int meaningful = (int) in.readBits(6) + 1;
+                previousTrailing = Long.SIZE - previousLeading - meaningful;
+            }
+            int meaningful = Long.SIZE - previousLeading - previousTrailing;
+            previous ^= in.readBits(meaningful) << previousTrailing;
+            return previous;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package ru.itmo.mopsync.iotcontroller.archive;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import ru.itmo.mopsync.iotcontroller.config.RetentionProperties;
+import ru.itmo.mopsync.iotcontroller.model.DeviceDataDocument;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves raw readings older than the retention period from MongoDB to the SegmentArchive.
+ * Every run compacts whole UTC days per device into segment files and then marks the readings
+ * with archivedAt; the archived_ttl_idx TTL index removes them from MongoDB after expire-after,
+ * so a reading is only ever deleted once it is safely on disk.
+ */
+@Slf4j
+@Component
+public class RetentionArchiver implements SmartLifecycle {
+
+    private static final String TTL_INDEX_NAME = "archived_ttl_idx";
+    private static final int MARK_BATCH_SIZE = 1000;
+
+    private final RetentionProperties properties;
+    private final MongoTemplate mongoTemplate;
+    private final SegmentArchive archive;
+    private final Timer runTimer;
+    private final Counter readingsCounter;
+    private final Counter segmentsCounter;
+    private final Counter failuresCounter;
+
+    private volatile ScheduledExecutorService scheduler;
+
+    /**
+     * Constructor for RetentionArchiver.
+     *
+     * @param properties    retention properties
+     * @param mongoTemplate template for reading and marking readings
+     * @param archive       segment archive
+     * @param meterRegistry meter registry for archiver metrics
+     */
+    public RetentionArchiver(RetentionProperties properties, MongoTemplate mongoTemplate,
+                             SegmentArchive archive, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.mongoTemplate = mongoTemplate;
+        this.archive = archive;
+        this.runTimer = Timer.builder("iot.archive.run")
+                .description("Time of one archiver run")
+                .register(meterRegistry);
+        this.readingsCounter = meterRegistry.counter("iot.archive.readings");
+        this.segmentsCounter = meterRegistry.counter("iot.archive.segments");
+        this.failuresCounter = meterRegistry.counter("iot.archive.failures");
+    }
+
+    /**
+     * Archives all whole UTC days older than the retention period, up to the per-run limit.
+     *
+     * @return number of archived readings
+     */
+    public synchronized int archive() {
+        OffsetDateTime cutoff = OffsetDateTime.now(ZoneOffset.UTC)
+                .minus(properties.getRawRetention())
+                .truncatedTo(ChronoUnit.DAYS);
+        return runTimer.record(() -> {
+            int archived = 0;
+            for (Document deviceDay : findPendingDays(cutoff)) {
+                String deviceId = deviceDay.getString("deviceId");
+                LocalDate day = deviceDay.getDate("day").toInstant().atOffset(ZoneOffset.UTC).toLocalDate();
+                try {
+                    archived += archiveDay(deviceId, day);
+                } catch (RuntimeException e) {
+                    failuresCounter.increment();
+                    log.warn("Failed to archive readings of device {} for {}: {}", deviceId, day, e.getMessage());
+                }
+            }
+            if (archived > 0) {
+                log.info("Archived {} readings older than {}", archived, cutoff);
+            }
+            return archived;
+        });
+    }
+
+    @Override
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        ensureTtlIndex();
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+                new CustomizableThreadFactory("retention-archiver-"));
+        long interval = properties.getArchiveInterval().toMillis();
+        executor.scheduleWithFixedDelay(this::archive, interval, interval, TimeUnit.MILLISECONDS);
+        scheduler = executor;
+    }
+
+    @Override
+    public void stop() {
+        ScheduledExecutorService executor = scheduler;
+        if (executor != null) {
+            scheduler = null;
+            executor.shutdownNow();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return scheduler != null;
+    }
+
+    private List<Document> findPendingDays(OffsetDateTime cutoff) {
+        AggregationOperation groupByDeviceDay = context -> new Document("$group",
+                new Document("_id", new Document("deviceId", "$deviceId")
+                        .append("day", new Document("$dateTrunc",
+                                new Document("date", "$timestamp").append("unit", "day")))));
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("timestamp").lt(Date.from(cutoff.toInstant()))
+                        .and("archivedAt").exists(false)),
+                groupByDeviceDay,
+                Aggregation.limit(properties.getMaxDeviceDaysPerRun()));
+        return mongoTemplate.aggregate(aggregation, mongoTemplate.getCollectionName(DeviceDataDocument.class),
+                        Document.class)
+                .getMappedResults().stream()
+                .map(result -> result.get("_id", Document.class))
+                .toList();
+    }
+
+    private int archiveDay(String deviceId, LocalDate day) {
+        Date start = Date.from(day.atStartOfDay(ZoneOffset.UTC).toInstant());
+        Date end = Date.from(day.plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant());
+        Query query = new Query(Criteria.where("deviceId").is(deviceId)
+                .and("timestamp").gte(start).lt(end)
+                .and("archivedAt").exists(false))
+                .with(Sort.by(Sort.Order.asc("timestamp"), Sort.Order.asc("_id")));
+        List<DeviceDataDocument> documents = mongoTemplate.find(query, DeviceDataDocument.class);
+        if (documents.isEmpty()) {
+            return 0;
+        }
+
+        archive.append(deviceId, day, documents);
+        segmentsCounter.increment();
+
+        // readings stored while the segment was written are not marked and go into the segment next run
+        Date archivedAt = new Date();
+        List<String> ids = documents.stream().map(DeviceDataDocument::getId).toList();
+        for (int from = 0; from < ids.size(); from += MARK_BATCH_SIZE) {
+            List<String> batch = ids.subList(from, Math.min(from + MARK_BATCH_SIZE, ids.size()));
+            mongoTemplate.updateMulti(new Query(Criteria.where("id").in(batch)),
+                    new Update().set("archivedAt", archivedAt), DeviceDataDocument.class);
+        }
+        readingsCounter.increment(documents.size());
+        return documents.size();
+    }
+
+    private void ensureTtlIndex() {
+        try {
+            mongoTemplate.indexOps(DeviceDataDocument.class).createIndex(new Index()
+                    .on("archivedAt", Sort.Direction.ASC)
+                    .expire(properties.getExpireAfter())
+                    .named(TTL_INDEX_NAME));
+        } catch (DataAccessException e) {
+            // an index with another expire-after must be dropped or changed with collMod by hand
+            log.warn("Failed to create TTL index {}: {}", TTL_INDEX_NAME, e.getMessage());
+        }
+    }
+}
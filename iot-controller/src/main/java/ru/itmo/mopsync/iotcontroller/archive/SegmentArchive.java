@@ -0,0 +1,174 @@
+package ru.itmo.mopsync.iotcontroller.archive;
+
+import org.springframework.stereotype.Component;
+import ru.itmo.mopsync.iotcontroller.config.RetentionProperties;
+import ru.itmo.mopsync.iotcontroller.model.DeviceDataCursor;
+import ru.itmo.mopsync.iotcontroller.model.DeviceDataDocument;
+import ru.itmo.mopsync.iotcontroller.model.DeviceDataRange;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Local-disk archive of compacted readings: one SegmentWriter file per device and UTC day.
+ * Files are replaced atomically and read through memory mapping, so readers never see a partial segment
+ * and only the pages of the segment being decoded are resident.
+ */
+@Component
+public class SegmentArchive {
+
+    /**
+     * Order of readings in segments and range queries.
+     */
+    public static final Comparator<DeviceDataDocument> READING_ORDER =
+            Comparator.comparing((DeviceDataDocument document) -> document.getTimestamp().toInstant())
+                    .thenComparing(DeviceDataDocument::getId);
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private final Path root;
+
+    /**
+     * Constructor for SegmentArchive.
+     *
+     * @param properties retention properties
+     */
+    public SegmentArchive(RetentionProperties properties) {
+        this.root = Paths.get(properties.getArchiveDir());
+    }
+
+    /**
+     * Adds readings to the segment of a device day, merging them with readings archived before.
+     *
+     * @param deviceId  device identifier
+     * @param day       UTC day of the readings
+     * @param documents readings to add
+     * @return number of readings in the segment
+     */
+    public int append(String deviceId, LocalDate day, List<DeviceDataDocument> documents) {
+        Path path = segmentPath(deviceId, day);
+        Map<String, DeviceDataDocument> merged = new LinkedHashMap<>();
+        if (Files.exists(path)) {
+            SegmentReader reader = new SegmentReader(map(path));
+            reader.forEachRemaining(document -> merged.put(document.getId(), document));
+        }
+        documents.forEach(document -> merged.put(document.getId(), document));
+        List<DeviceDataDocument> sorted = new ArrayList<>(merged.values());
+        sorted.sort(READING_ORDER);
+
+        byte[] segment = SegmentWriter.encode(deviceId, sorted);
+        try {
+            Files.createDirectories(path.getParent());
+            Path temp = Files.createTempFile(path.getParent(), day.toString(), ".tmp");
+            Files.write(temp, segment);
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write segment " + path, e);
+        }
+        return sorted.size();
+    }
+
+    /**
+     * Streams archived readings in the range, applying its cursor and metric projection.
+     *
+     * @param range query range
+     * @return readings ordered by timestamp and id
+     */
+    public Stream<DeviceDataDocument> read(DeviceDataRange range) {
+        LocalDate first = day(range.getFrom());
+        LocalDate last = day(range.getTo().minusNanos(1));
+        return first.datesUntil(last.plusDays(1))
+                .map(day -> segmentPath(range.getDeviceId(), day))
+                .filter(Files::exists)
+                .flatMap(this::readSegment)
+                .filter(document -> matches(document, range))
+                .map(document -> project(document, range.getMetrics()))
+                .filter(Objects::nonNull);
+    }
+
+    /**
+     * Returns the UTC day of a timestamp.
+     *
+     * @param timestamp timestamp
+     * @return UTC day
+     */
+    public static LocalDate day(OffsetDateTime timestamp) {
+        return timestamp.withOffsetSameInstant(ZoneOffset.UTC).toLocalDate();
+    }
+
+    private Stream<DeviceDataDocument> readSegment(Path path) {
+        SegmentReader reader = new SegmentReader(map(path));
+        return StreamSupport.stream(Spliterators.spliterator(reader, reader.getCount(),
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    private Path segmentPath(String deviceId, LocalDate day) {
+        // device ids are arbitrary strings, so they are encoded into a safe directory name
+        String directory = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(deviceId.getBytes(StandardCharsets.UTF_8));
+        return root.resolve(directory).resolve(day + SEGMENT_SUFFIX);
+    }
+
+    private static ByteBuffer map(Path path) {
+        // the mapping stays valid after the channel is closed and after the file is replaced
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to map segment " + path, e);
+        }
+    }
+
+    private static boolean matches(DeviceDataDocument document, DeviceDataRange range) {
+        OffsetDateTime timestamp = document.getTimestamp();
+        if (timestamp.isBefore(range.getFrom()) || !timestamp.isBefore(range.getTo())) {
+            return false;
+        }
+        DeviceDataCursor cursor = range.getCursor();
+        if (cursor == null) {
+            return true;
+        }
+        int byTimestamp = timestamp.toInstant().compareTo(cursor.getTimestamp().toInstant());
+        return byTimestamp > 0 || byTimestamp == 0 && document.getId().compareTo(cursor.getKey()) > 0;
+    }
+
+    private static DeviceDataDocument project(DeviceDataDocument document, List<String> metrics) {
+        if (metrics.isEmpty()) {
+            return document;
+        }
+        Map<String, Object> values = new HashMap<>();
+        for (String metric : metrics) {
+            Object value = document.getMetrics().get(metric);
+            if (value != null) {
+                values.put(metric, value);
+            }
+        }
+        if (values.isEmpty()) {
+            return null;
+        }
+        return new DeviceDataDocument(document.getId(), document.getDeviceId(), document.getTimestamp(),
+                document.getSeq(), values, null, null, null, null, null);
+    }
+}
@@ -0,0 +1,182 @@
+package ru.itmo.mopsync.iotcontroller.archive;
+
+import org.bson.types.ObjectId;
+import ru.itmo.mopsync.iotcontroller.model.DeviceDataDocument;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Decodes a segment written by SegmentWriter reading by reading.
+ * Every column keeps its own position in the buffer, so a memory-mapped segment is decoded in place
+ * and only the current reading is materialized.
+ */
+public class SegmentReader implements Iterator<DeviceDataDocument> {
+
+    private final ByteBuffer buffer;
+    private final String deviceId;
+    private final int count;
+    private final GorillaCodec.XorReader idHighs;
+    private final GorillaCodec.DeltaOfDeltaReader idLows;
+    private final GorillaCodec.DeltaOfDeltaReader timestamps;
+    private final GorillaCodec.DeltaOfDeltaReader seqs;
+    private final MetricColumn[] metrics;
+    private int metaPosition;
+    private int index;
+
+    /**
+     * Constructor for SegmentReader.
+     *
+     * @param buffer segment bytes, typically a MappedByteBuffer
+     */
+    public SegmentReader(ByteBuffer buffer) {
+        this.buffer = buffer;
+        ByteBuffer header = buffer.duplicate();
+        if (header.getInt() != SegmentWriter.MAGIC || header.getShort() != SegmentWriter.VERSION) {
+            throw new IllegalArgumentException("Not a device data segment");
+        }
+        this.count = header.getInt();
+        this.deviceId = readUtf(header);
+        this.idHighs = new GorillaCodec.XorReader(new BitReader(buffer, header.getInt()));
+        this.idLows = new GorillaCodec.DeltaOfDeltaReader(new BitReader(buffer, header.getInt()));
+        this.timestamps = new GorillaCodec.DeltaOfDeltaReader(new BitReader(buffer, header.getInt()));
+        this.seqs = new GorillaCodec.DeltaOfDeltaReader(new BitReader(buffer, header.getInt()));
+        this.metaPosition = header.getInt();
+        this.metrics = new MetricColumn[header.getInt()];
+        for (int i = 0; i < metrics.length; i++) {
+            String name = readUtf(header);
+            metrics[i] = new MetricColumn(name, header.getInt(), header.getInt(), header.getInt());
+        }
+    }
+
+    /**
+     * Returns the device the segment belongs to.
+     *
+     * @return device identifier
+     */
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    /**
+     * Returns the number of readings in the segment.
+     *
+     * @return reading count
+     */
+    public int getCount() {
+        return count;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return index < count;
+    }
+
+    @Override
+    public DeviceDataDocument next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        ByteBuffer id = ByteBuffer.allocate(12).putLong(idHighs.read()).putInt((int) idLows.read()).flip();
+        OffsetDateTime timestamp = OffsetDateTime.ofInstant(Instant.ofEpochMilli(timestamps.read()), ZoneOffset.UTC);
+        long seq = seqs.read();
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (MetricColumn metric : metrics) {
+            Object value = metric.read();
+            if (value != null) {
+                values.put(metric.name, value);
+            }
+        }
+        Map<String, String> meta = readMeta();
+        index++;
+        return new DeviceDataDocument(new ObjectId(id).toHexString(), deviceId, timestamp, seq, values, meta,
+                null, null, null, null);
+    }
+
+    private Map<String, String> readMeta() {
+        int[] position = {metaPosition};
+        int size = readVarint(position) - 1;
+        Map<String, String> meta = null;
+        if (size >= 0) {
+            meta = new HashMap<>();
+            for (int i = 0; i < size; i++) {
+                meta.put(readString(position), readString(position));
+            }
+        }
+        metaPosition = position[0];
+        return meta;
+    }
+
+    /**
+     * Reads a varint-length-prefixed string and advances the position.
+     */
+    private String readString(int[] position) {
+        int length = readVarint(position);
+        byte[] bytes = new byte[length];
+        buffer.get(position[0], bytes);
+        position[0] += length;
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int readVarint(int[] position) {
+        int value = 0;
+        int shift = 0;
+        byte current;
+        do {
+            current = buffer.get(position[0]++);
+            value |= (current & 0x7F) << shift;
+            shift += 7;
+        } while (current < 0);
+        return value;
+    }
+
+    private static String readUtf(ByteBuffer header) {
+        byte[] bytes = new byte[header.getShort() & 0xFFFF];
+        header.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Decoding state of one metric column.
+     */
+    private final class MetricColumn {
+
+        private final String name;
+        private final BitReader kinds;
+        private final GorillaCodec.XorReader values;
+        private final int[] stringPosition;
+        private int kind = SegmentWriter.KIND_ABSENT;
+
+        MetricColumn(String name, int kindsOffset, int valuesOffset, int stringsOffset) {
+            this.name = name;
+            this.kinds = new BitReader(buffer, kindsOffset);
+            this.values = new GorillaCodec.XorReader(new BitReader(buffer, valuesOffset));
+            this.stringPosition = new int[] {stringsOffset};
+        }
+
+        Object read() {
+            if (kinds.readBit()) {
+                kind = (int) kinds.readBits(2);
+            }
+            switch (kind) {
+                case SegmentWriter.KIND_DOUBLE:
+                    return Double.longBitsToDouble(values.read());
+                case SegmentWriter.KIND_INTEGER:
+                    long value = values.read();
+                    return value == (int) value ? (Object) (int) value : (Object) value;
+                case SegmentWriter.KIND_STRING:
+                    return readString(stringPosition);
+                default:
+                    return null;
+            }
+        }
+    }
+}
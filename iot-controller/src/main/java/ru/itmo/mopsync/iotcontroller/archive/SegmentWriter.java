@@ -0,0 +1,217 @@
+package ru.itmo.mopsync.iotcontroller.archive;
+
+import org.bson.types.ObjectId;
+import ru.itmo.mopsync.iotcontroller.model.DeviceDataDocument;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encodes the readings of one device into a columnar segment.
+ *
+ * <p>Layout (big-endian): magic, version, reading count, device id, offsets of the id, timestamp,
+ * seq and meta columns, then for every metric its name and the offsets of its kind, value and string
+ * columns, followed by the columns themselves. ObjectIds are split into their first 8 bytes (time and
+ * process part, XOR encoded) and last 4 bytes (counter, delta-of-delta encoded); timestamps and seqs are
+ * delta-of-delta encoded, numeric values XOR encoded per metric (integers as their two's complement bits),
+ * strings and meta entries are varint-length-prefixed UTF-8, meta is prefixed by its size plus one
+ * (0 for no meta). Kinds store '0' for the kind of the previous reading, otherwise '1' and two bits of the kind.
+ */
+public final class SegmentWriter {
+
+    static final int MAGIC = 0x4D534547;
+    static final short VERSION = 1;
+    static final int KIND_ABSENT = 0;
+    static final int KIND_DOUBLE = 1;
+    static final int KIND_INTEGER = 2;
+    static final int KIND_STRING = 3;
+    static final int BASE_SECTIONS = 5;
+
+    private SegmentWriter() {
+    }
+
+    /**
+     * Encodes readings of a device.
+     *
+     * @param deviceId  device identifier
+     * @param documents readings ordered by timestamp and id
+     * @return segment bytes
+     */
+    public static byte[] encode(String deviceId, List<DeviceDataDocument> documents) {
+        try {
+            return doEncode(deviceId, documents);
+        } catch (IOException e) {
+            // in-memory streams only
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] doEncode(String deviceId, List<DeviceDataDocument> documents) throws IOException {
+        BitWriter idHighBits = new BitWriter();
+        BitWriter idLowBits = new BitWriter();
+        GorillaCodec.XorWriter idHighs = new GorillaCodec.XorWriter(idHighBits);
+        GorillaCodec.DeltaOfDeltaWriter idLows = new GorillaCodec.DeltaOfDeltaWriter(idLowBits);
+        BitWriter timestampBits = new BitWriter();
+        BitWriter seqBits = new BitWriter();
+        GorillaCodec.DeltaOfDeltaWriter timestamps = new GorillaCodec.DeltaOfDeltaWriter(timestampBits);
+        GorillaCodec.DeltaOfDeltaWriter seqs = new GorillaCodec.DeltaOfDeltaWriter(seqBits);
+        ByteArrayOutputStream metaBytes = new ByteArrayOutputStream();
+        DataOutputStream meta = new DataOutputStream(metaBytes);
+
+        Map<String, MetricColumn> metrics = new LinkedHashMap<>();
+        for (DeviceDataDocument document : documents) {
+            for (String name : document.getMetrics().keySet()) {
+                metrics.computeIfAbsent(name, k -> new MetricColumn());
+            }
+        }
+
+        for (DeviceDataDocument document : documents) {
+            ByteBuffer id = ByteBuffer.wrap(new ObjectId(document.getId()).toByteArray());
+            idHighs.write(id.getLong());
+            idLows.write(Integer.toUnsignedLong(id.getInt()));
+            timestamps.write(document.getTimestamp().toInstant().toEpochMilli());
+            seqs.write(document.getSeq());
+            writeMeta(meta, document.getMeta());
+            for (Map.Entry<String, MetricColumn> column : metrics.entrySet()) {
+                column.getValue().write(document.getMetrics().get(column.getKey()));
+            }
+        }
+
+        List<byte[]> sections = new ArrayList<>();
+        sections.add(idHighBits.toByteArray());
+        sections.add(idLowBits.toByteArray());
+        sections.add(timestampBits.toByteArray());
+        sections.add(seqBits.toByteArray());
+        sections.add(metaBytes.toByteArray());
+        for (MetricColumn column : metrics.values()) {
+            sections.add(column.kindBits.toByteArray());
+            sections.add(column.valueBits.toByteArray());
+            sections.add(column.stringBytes.toByteArray());
+        }
+
+        // the header size does not depend on the offset values, so it is measured with zero offsets first
+        int headerSize = writeHeader(new DataOutputStream(new ByteArrayOutputStream()),
+                deviceId, documents.size(), metrics.keySet(), new int[sections.size()]);
+        int[] offsets = new int[sections.size()];
+        int offset = headerSize;
+        for (int i = 0; i < sections.size(); i++) {
+            offsets[i] = offset;
+            offset += sections.get(i).length;
+        }
+
+        ByteArrayOutputStream segment = new ByteArrayOutputStream(offset);
+        writeHeader(new DataOutputStream(segment), deviceId, documents.size(), metrics.keySet(), offsets);
+        for (byte[] section : sections) {
+            segment.write(section);
+        }
+        return segment.toByteArray();
+    }
+
+    private static int writeHeader(DataOutputStream out, String deviceId, int count,
+                                   Iterable<String> metricNames, int[] offsets) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeInt(count);
+        writeShortString(out, deviceId);
+        int section = 0;
+        for (int i = 0; i < BASE_SECTIONS; i++) {
+            out.writeInt(offsets[section++]);
+        }
+        out.writeInt((offsets.length - BASE_SECTIONS) / 3);
+        for (String name : metricNames) {
+            writeShortString(out, name);
+            for (int i = 0; i < 3; i++) {
+                out.writeInt(offsets[section++]);
+            }
+        }
+        return out.size();
+    }
+
+    private static void writeMeta(DataOutputStream out, Map<String, String> meta) throws IOException {
+        if (meta == null) {
+            writeVarint(out, 0);
+            return;
+        }
+        writeVarint(out, meta.size() + 1);
+        for (Map.Entry<String, String> entry : meta.entrySet()) {
+            writeString(out, entry.getKey());
+            writeString(out, entry.getValue());
+        }
+    }
+
+    private static void writeShortString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("Name is too long for a segment header: " + value.length());
+        }
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writeVarint(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    /**
+     * Kind, value and string columns of one metric.
+     */
+    private static final class MetricColumn {
+
+        private final BitWriter kindBits = new BitWriter();
+        private final BitWriter valueBits = new BitWriter();
+        private final GorillaCodec.XorWriter values = new GorillaCodec.XorWriter(valueBits);
+        private final ByteArrayOutputStream stringBytes = new ByteArrayOutputStream();
+        private final DataOutputStream strings = new DataOutputStream(stringBytes);
+        private int previousKind = KIND_ABSENT;
+
+        void write(Object value) throws IOException {
+            int kind = kindOf(value);
+            if (kind == previousKind) {
+                kindBits.writeBit(false);
+            } else {
+                kindBits.writeBit(true);
+                kindBits.writeBits(kind, 2);
+                previousKind = kind;
+            }
+            switch (kind) {
+                case KIND_DOUBLE -> values.write(Double.doubleToRawLongBits(((Number) value).doubleValue()));
+                case KIND_INTEGER -> values.write(((Number) value).longValue());
+                case KIND_STRING -> writeString(strings, value.toString());
+                default -> {
+                    // absent metric has no value
+                }
+            }
+        }
+
+        private static int kindOf(Object value) {
+            if (value == null) {
+                return KIND_ABSENT;
+            }
+            if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+                return KIND_INTEGER;
+            }
+            if (value instanceof Number) {
+                return KIND_DOUBLE;
+            }
+            return KIND_STRING;
+        }
+    }
+}
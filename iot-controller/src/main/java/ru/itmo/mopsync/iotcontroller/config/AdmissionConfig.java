@@ -0,0 +1,23 @@
+package ru.itmo.mopsync.iotcontroller.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import ru.itmo.mopsync.iotcontroller.ratelimit.AdmissionInterceptor;
+
+/**
+ * Configuration applying admission control to the device data ingest endpoint.
+ * The binary gateway and the device data stream apply it through DeviceDataService.ingestDeviceData.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class AdmissionConfig implements WebMvcConfigurer {
+
+    private final AdmissionInterceptor admissionInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(admissionInterceptor).addPathPatterns("/api/v1/device-data");
+    }
+}
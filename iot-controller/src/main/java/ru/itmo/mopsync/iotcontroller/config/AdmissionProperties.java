@@ -0,0 +1,40 @@
+package ru.itmo.mopsync.iotcontroller.config;
+
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties for global admission control of ingest requests.
+ */
+@Data
+@Validated
+@Configuration
+@ConfigurationProperties(prefix = "ingest.admission")
+public class AdmissionProperties {
+    /**
+     * Whether requests are shed under overload.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Maximum number of ingest requests processed at once; further requests are shed.
+     */
+    @Min(1)
+    private int maxInFlight = 200;
+
+    /**
+     * Average MongoDB save latency above which requests are shed.
+     */
+    private Duration maxStoreLatency = Duration.ofMillis(500);
+
+    /**
+     * Delay suggested to shed clients in Retry-After; also the time after which
+     * a stale latency measurement no longer sheds requests.
+     */
+    private Duration retryAfter = Duration.ofSeconds(1);
+}
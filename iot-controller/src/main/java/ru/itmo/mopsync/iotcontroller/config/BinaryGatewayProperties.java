@@ -0,0 +1,50 @@
+package ru.itmo.mopsync.iotcontroller.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Configuration properties for the binary TCP/UDP ingestion gateway.
+ */
+@Data
+@Validated
+@Configuration
+@ConfigurationProperties(prefix = "ingest.binary-gateway")
+public class BinaryGatewayProperties {
+    /**
+     * Whether the gateway is started.
+     */
+    private boolean enabled = false;
+
+    /**
+     * TCP port for length-prefixed reading frames (0 picks a free port).
+     */
+    private int tcpPort = 9090;
+
+    /**
+     * UDP port for datagrams carrying one or more reading frames (0 picks a free port).
+     */
+    private int udpPort = 9091;
+
+    /**
+     * Maximum length of a single frame in bytes.
+     */
+    private int maxFrameLength = 1024;
+
+    /**
+     * Number of Netty event loop threads.
+     */
+    private int ioThreads = 2;
+
+    /**
+     * Number of threads passing decoded readings to DeviceDataService.
+     */
+    private int workerThreads = 16;
+
+    /**
+     * Capacity of the queue in front of worker threads; readings are dropped when it is full.
+     */
+    private int queueCapacity = 10000;
+}
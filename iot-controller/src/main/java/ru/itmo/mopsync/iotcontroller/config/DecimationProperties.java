@@ -0,0 +1,113 @@
+package ru.itmo.mopsync.iotcontroller.config;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PositiveOrZero;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Configuration properties for decimation of readings from devices that report more often than needed.
+ * Every reading is forwarded to rule-engine, but only the readings kept by the policy of the device group
+ * are stored in MongoDB; the others are announced with their payload. Devices outside every group are not
+ * decimated. Repeat rules see readings that were not stored only on the rule-engine instance that received
+ * them and only until it restarts.
+ * The last stored reading of a device is kept in memory for a bounded number of devices; the first reading
+ * of an evicted device is stored again.
+ */
+@Data
+@Validated
+@Configuration
+@ConfigurationProperties(prefix = "ingest.decimation")
+public class DecimationProperties {
+    /**
+     * Whether readings of device groups are decimated.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Maximum number of devices whose last stored reading is kept in memory; least recently used devices
+     * are evicted first.
+     */
+    @Min(1)
+    private long maxDevices = 100_000;
+
+    /**
+     * Time after the last reading of a device after which its state is evicted.
+     */
+    @NotNull
+    private Duration idleTimeout = Duration.ofHours(1);
+
+    /**
+     * Decimation policies by device group.
+     */
+    @Valid
+    private Map<String, Group> groups = new HashMap<>();
+
+    /**
+     * Decimation policy of a device group.
+     */
+    @Data
+    public static class Group {
+        /**
+         * Device id prefixes of the devices in the group; the group with the longest matching prefix applies.
+         */
+        private List<String> devicePrefixes = new ArrayList<>();
+
+        /**
+         * Which readings are stored.
+         */
+        @NotNull
+        private Policy policy = Policy.EVERY_NTH;
+
+        /**
+         * Store every N-th reading of a device, for the EVERY_NTH policy.
+         */
+        @Min(1)
+        private int every = 10;
+
+        /**
+         * Smallest change of a numeric metric since the last stored reading that is stored,
+         * for the DEADBAND policy.
+         */
+        @PositiveOrZero
+        private double deadband;
+
+        /**
+         * Metrics compared by the ON_CHANGE and DEADBAND policies; all metrics if empty.
+         */
+        private List<String> metrics = new ArrayList<>();
+
+        /**
+         * Longest time between two stored readings of a device, by reading timestamp; unset for no limit.
+         */
+        private Duration maxInterval;
+    }
+
+    /**
+     * Decimation policy.
+     */
+    public enum Policy {
+        /**
+         * Store every N-th reading.
+         */
+        EVERY_NTH,
+        /**
+         * Store a reading when a metric differs from the last stored reading.
+         */
+        ON_CHANGE,
+        /**
+         * Store a reading when a numeric metric moved by more than the deadband, or another metric changed.
+         */
+        DEADBAND
+    }
+}
@@ -0,0 +1,56 @@
+package ru.itmo.mopsync.iotcontroller.config;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties for (deviceId, seq) deduplication of incoming readings.
+ */
+@Data
+@Validated
+@Configuration
+@ConfigurationProperties(prefix = "ingest.dedup")
+public class DeduplicationProperties {
+    /**
+     * Whether duplicates are detected in memory before hitting MongoDB.
+     * The unique (deviceId, seq) index rejects duplicates either way.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Number of most recent sequence numbers remembered per device (rounded up to a multiple of 64).
+     * Older sequence numbers are checked by the unique index only.
+     */
+    @Min(64)
+    private int windowSize = 1024;
+
+    /**
+     * Whether readings repeating the (deviceId, seq) of an earlier reading are deleted on start when the unique
+     * index is missing, keeping the first one; otherwise the start fails while such readings are stored.
+     */
+    private boolean removeDuplicates = false;
+
+    /**
+     * Maximum number of devices whose windows are kept in memory; least recently used devices are evicted first.
+     */
+    @Min(1)
+    private long maxDevices = 100_000;
+
+    /**
+     * Time after the last reading of a device after which its window is evicted.
+     */
+    @NotNull
+    private Duration idleTimeout = Duration.ofHours(1);
+
+    /**
+     * Whether stored readings are flagged with gaps and late arrivals in the sequence of their device.
+     * Requires deduplication to be enabled.
+     */
+    private boolean trackOrder = true;
+}
@@ -0,0 +1,22 @@
+package ru.itmo.mopsync.iotcontroller.config;
+
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Configuration properties for the in-memory device shadow (latest metric values per device).
+ */
+@Data
+@Validated
+@Configuration
+@ConfigurationProperties(prefix = "ingest.shadow")
+public class DeviceShadowProperties {
+    /**
+     * Maximum number of devices kept in memory; least recently used devices are evicted first.
+     */
+    @Min(1)
+    private long maxDevices = 100_000;
+}
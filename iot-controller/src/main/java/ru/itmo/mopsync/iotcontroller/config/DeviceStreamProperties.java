@@ -0,0 +1,51 @@
+package ru.itmo.mopsync.iotcontroller.config;
+
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Configuration properties for the WebSocket device data stream.
+ */
+@Data
+@Validated
+@Configuration
+@ConfigurationProperties(prefix = "ingest.stream")
+public class DeviceStreamProperties {
+    /**
+     * Whether the WebSocket endpoint is registered.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Path of the WebSocket endpoint.
+     */
+    private String path = "/api/v1/device-data/stream";
+
+    /**
+     * Maximum number of readings waiting for persistence per connection;
+     * readings arriving while the inbox is full are rejected.
+     */
+    @Min(1)
+    private int inboxCapacity = 256;
+
+    /**
+     * Maximum number of results in one ack message.
+     */
+    @Min(1)
+    private int ackBatchSize = 64;
+
+    /**
+     * Number of threads draining connection inboxes.
+     */
+    @Min(1)
+    private int workerThreads = 8;
+
+    /**
+     * Maximum size of one incoming text message.
+     */
+    private DataSize maxMessageSize = DataSize.ofKilobytes(512);
+}
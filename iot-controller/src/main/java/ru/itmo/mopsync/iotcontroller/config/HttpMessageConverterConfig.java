@@ -0,0 +1,48 @@
+package ru.itmo.mopsync.iotcontroller.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.msgpack.jackson.dataformat.MessagePackFactory;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import ru.itmo.mopsync.iotcontroller.converter.DeviceDataProtobufHttpMessageConverter;
+import ru.itmo.mopsync.iotcontroller.converter.DeviceDataRequestDeserializer;
+import ru.itmo.mopsync.iotcontroller.converter.MessagePackHttpMessageConverter;
+
+import java.util.List;
+
+/**
+ * Configuration for binary request body formats.
+ * CBOR is registered by Spring MVC itself once jackson-dataformat-cbor is on the classpath,
+ * with its own ObjectMapper, so the streaming DeviceDataRequest deserializer is added to it here;
+ * MessagePack and Protobuf converters are appended after the defaults, so JSON stays the default response format.
+ * JSON is also writable as NDJSON, so errors of NDJSON streaming endpoints are rendered as a single line.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class HttpMessageConverterConfig implements WebMvcConfigurer {
+
+    private final Jackson2ObjectMapperBuilder objectMapperBuilder;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        for (HttpMessageConverter<?> converter : converters) {
+            if (converter instanceof MappingJackson2CborHttpMessageConverter cborConverter) {
+                cborConverter.getObjectMapper().registerModule(DeviceDataRequestDeserializer.module());
+            }
+        }
+        converters.add(new MessagePackHttpMessageConverter(
+                objectMapperBuilder.factory(new MessagePackFactory()).build()));
+        converters.add(new DeviceDataProtobufHttpMessageConverter());
+
+        MappingJackson2HttpMessageConverter ndjsonConverter = new MappingJackson2HttpMessageConverter(objectMapper);
+        ndjsonConverter.setSupportedMediaTypes(List.of(MediaType.APPLICATION_NDJSON));
+        converters.add(ndjsonConverter);
+    }
+}
@@ -0,0 +1,26 @@
+package ru.itmo.mopsync.iotcontroller.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Configuration properties for compressed request bodies.
+ */
+@Data
+@Validated
+@Configuration
+@ConfigurationProperties(prefix = "ingest.compression")
+public class IngestCompressionProperties {
+    /**
+     * Whether gzip/zstd request bodies are decompressed.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Maximum size of a decompressed request body (guards against decompression bombs).
+     */
+    private DataSize maxDecompressedSize = DataSize.ofMegabytes(10);
+}
@@ -1,24 +1,40 @@
 package ru.itmo.mopsync.iotcontroller.config;
 
+import com.fasterxml.jackson.databind.Module;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import ru.itmo.mopsync.iotcontroller.converter.DeviceDataRequestDeserializer;
+import ru.itmo.mopsync.iotcontroller.converter.NotificationMessageConverter;
 
 /**
- * Configuration for Jackson JSON message conversion.
+ * Configuration for Jackson JSON and AMQP message conversion.
  */
 @Configuration
 public class JacksonConfig {
 
     /**
-     * Creates a JSON message converter bean.
+     * Creates the message converter bean: JSON, or binary notifications with ingest.transport.format=binary.
      * Spring Boot will automatically use this for both RabbitTemplate and listener containers.
      *
-     * @return Jackson2JsonMessageConverter bean
+     * @param transportProperties transport properties
+     * @return MessageConverter bean
      */
     @Bean
-    public Jackson2JsonMessageConverter jsonMessageConverter() {
-        return new Jackson2JsonMessageConverter();
+    public MessageConverter notificationMessageConverter(TransportProperties transportProperties) {
+        return new NotificationMessageConverter(new Jackson2JsonMessageConverter(),
+                transportProperties.getFormat() == TransportProperties.NotificationFormat.BINARY);
     }
-}
 
+    /**
+     * Creates a module with the streaming DeviceDataRequest deserializer.
+     * Spring Boot registers module beans in the application ObjectMapper and its builder.
+     *
+     * @return Jackson module bean
+     */
+    @Bean
+    public Module deviceDataRequestModule() {
+        return DeviceDataRequestDeserializer.module();
+    }
+}
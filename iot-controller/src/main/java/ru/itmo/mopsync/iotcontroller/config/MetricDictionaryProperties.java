@@ -0,0 +1,21 @@
+package ru.itmo.mopsync.iotcontroller.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Configuration properties for dictionary encoding of metric names in stored readings.
+ */
+@Data
+@Validated
+@Configuration
+@ConfigurationProperties(prefix = "ingest.metric-dictionary")
+public class MetricDictionaryProperties {
+    /**
+     * Whether new readings store metrics keyed by dictionary ids instead of metric names.
+     * Readings of both forms are always readable, so the mode can be switched at any time.
+     */
+    private boolean enabled = false;
+}
@@ -0,0 +1,100 @@
+package ru.itmo.mopsync.iotcontroller.config;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.annotation.Validated;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Configuration properties for the metric schema registry.
+ * The type of a device is the device type with the longest matching device id prefix, or, for a device that
+ * matches no prefix, the type named in the meta of its reading; a meta type contradicting the prefix is rejected.
+ * Readings of devices without a schema are stored as sent.
+ */
+@Data
+@Validated
+@Configuration
+@ConfigurationProperties(prefix = "ingest.schema")
+public class MetricSchemaProperties {
+    /**
+     * Whether readings are checked against the schema of their device type.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Meta key a device that matches no device id prefix names its type with.
+     */
+    @NotBlank
+    private String typeMetaKey = "type";
+
+    /**
+     * Schemas by device type.
+     */
+    @Valid
+    private Map<String, DeviceType> deviceTypes = new HashMap<>();
+
+    /**
+     * Metric schema of a device type.
+     */
+    @Data
+    public static class DeviceType {
+        /**
+         * Device id prefixes of devices of this type; their readings cannot name another type in the meta.
+         */
+        private List<String> devicePrefixes = new ArrayList<>();
+
+        /**
+         * Whether metrics missing from the schema are rejected; otherwise they are stored as sent.
+         */
+        private boolean strict;
+
+        /**
+         * Metrics by name.
+         */
+        @Valid
+        private Map<String, Metric> metrics = new HashMap<>();
+    }
+
+    /**
+     * Schema of one metric.
+     */
+    @Data
+    public static class Metric {
+        /**
+         * Value type; numbers, including numeric strings, are stored as doubles.
+         */
+        @NotNull
+        private MetricType type = MetricType.NUMBER;
+
+        /**
+         * Whether every reading must contain the metric.
+         */
+        private boolean required;
+
+        /**
+         * Smallest allowed value of a number.
+         */
+        private Double min;
+
+        /**
+         * Largest allowed value of a number.
+         */
+        private Double max;
+    }
+
+    /**
+     * Metric value type.
+     */
+    public enum MetricType {
+        NUMBER,
+        STRING
+    }
+}
@@ -1,5 +1,6 @@
 package ru.itmo.mopsync.iotcontroller.config;
 
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.convert.converter.Converter;
@@ -11,9 +12,10 @@ import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
- * MongoDB configuration for custom type conversions.
+ * MongoDB configuration for custom type conversions and the connection pool.
  */
 @Configuration
 public class MongoConfig {
@@ -31,6 +33,20 @@ public class MongoConfig {
         ));
     }
 
+    /**
+     * Applies the connection pool limits; they take precedence over pool options of the connection string.
+     *
+     * @param properties connection pool properties
+     * @return customizer of the MongoDB client settings
+     */
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoPoolCustomizer(MongoPoolProperties properties) {
+        return builder -> builder.applyToConnectionPoolSettings(pool -> pool
+                .maxSize(properties.getMaxSize())
+                .minSize(properties.getMinSize())
+                .maxWaitTime(properties.getMaxWaitTime().toMillis(), TimeUnit.MILLISECONDS));
+    }
+
     /**
      * Converter to write OffsetDateTime to MongoDB as Date.
      */
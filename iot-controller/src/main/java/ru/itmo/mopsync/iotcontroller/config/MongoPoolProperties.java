@@ -0,0 +1,36 @@
+package ru.itmo.mopsync.iotcontroller.config;
+
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties for the MongoDB connection pool.
+ * With virtual threads the pool, not the request threads, bounds how many saves run at once.
+ */
+@Data
+@Validated
+@Configuration
+@ConfigurationProperties(prefix = "ingest.mongo-pool")
+public class MongoPoolProperties {
+    /**
+     * Maximum number of connections to MongoDB.
+     */
+    @Min(1)
+    private int maxSize = 100;
+
+    /**
+     * Number of connections kept open while idle.
+     */
+    @Min(0)
+    private int minSize = 0;
+
+    /**
+     * Time an operation waits for a free connection before it fails.
+     */
+    private Duration maxWaitTime = Duration.ofMinutes(2);
+}
@@ -0,0 +1,51 @@
+package ru.itmo.mopsync.iotcontroller.config;
+
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties for the transactional outbox of device data notifications.
+ */
+@Data
+@Validated
+@Configuration
+@ConfigurationProperties(prefix = "ingest.outbox")
+public class OutboxProperties {
+    /**
+     * Whether readings are stored with a pending outbox entry and published by the relay
+     * instead of on the request thread.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Owner of the outbox entries written by this instance; must be stable across restarts
+     * and unique among instances. Defaults to the host name.
+     */
+    private String instanceId;
+
+    /**
+     * Maximum number of notifications published per confirmed batch.
+     */
+    @Min(1)
+    private int batchSize = 500;
+
+    /**
+     * Maximum pause of an idle relay before it looks for new entries; stores wake it earlier.
+     */
+    private Duration pollInterval = Duration.ofMillis(200);
+
+    /**
+     * Time to wait for publisher confirms of a batch.
+     */
+    private Duration confirmTimeout = Duration.ofSeconds(5);
+
+    /**
+     * Pause of the relay after a failed batch before the next attempt.
+     */
+    private Duration retryInterval = Duration.ofSeconds(1);
+}
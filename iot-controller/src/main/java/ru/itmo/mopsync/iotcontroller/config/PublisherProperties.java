@@ -0,0 +1,34 @@
+package ru.itmo.mopsync.iotcontroller.config;
+
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties for publishing notifications to RabbitMQ with asynchronous publisher confirms.
+ */
+@Data
+@Validated
+@Configuration
+@ConfigurationProperties(prefix = "ingest.publisher")
+public class PublisherProperties {
+    /**
+     * Maximum number of published notifications waiting for a confirm.
+     */
+    @Min(1)
+    private int maxOutstanding = 1024;
+
+    /**
+     * Time a publish waits for a free place in the window before it fails.
+     */
+    private Duration windowTimeout = Duration.ofSeconds(1);
+
+    /**
+     * Time after which a notification without a confirm counts as not delivered.
+     */
+    private Duration confirmTimeout = Duration.ofSeconds(5);
+}
@@ -0,0 +1,95 @@
+package ru.itmo.mopsync.iotcontroller.config;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Configuration properties for per-device ingest rate limiting.
+ * The limit of a device is taken from devices, then from the group with the longest matching prefix,
+ * then from the default limit.
+ */
+@Data
+@Validated
+@Configuration
+@ConfigurationProperties(prefix = "ingest.rate-limit")
+public class RateLimitProperties {
+    /**
+     * Whether per-device rate limiting is enabled.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Limit for devices without a specific or group limit.
+     */
+    @Valid
+    private Limit defaultLimit = new Limit();
+
+    /**
+     * Limits of device groups, matched by device id prefix.
+     */
+    @Valid
+    private List<Group> groups = new ArrayList<>();
+
+    /**
+     * Limits of individual devices by device id.
+     */
+    @Valid
+    private Map<String, Limit> devices = new HashMap<>();
+
+    /**
+     * Maximum number of tracked devices; the least recently used buckets are evicted beyond it.
+     */
+    @Min(1)
+    private int maxTrackedDevices = 100_000;
+
+    /**
+     * Time after the last reading of a device after which its bucket is evicted. A bucket refills completely
+     * in burst / rate seconds and then behaves like a new one, so the timeout should be longer than that.
+     */
+    @NotNull
+    private Duration idleTimeout = Duration.ofMinutes(10);
+
+    /**
+     * Token bucket parameters.
+     */
+    @Data
+    public static class Limit {
+        /**
+         * Sustained number of readings per second.
+         */
+        @Positive
+        private double rate = 10;
+
+        /**
+         * Number of readings that may be sent at once above the sustained rate.
+         */
+        @Min(1)
+        private int burst = 20;
+    }
+
+    /**
+     * Limit of devices whose id starts with the prefix.
+     */
+    @Data
+    public static class Group {
+        private String prefix = "";
+
+        @Positive
+        private double rate = 10;
+
+        @Min(1)
+        private int burst = 20;
+    }
+}
@@ -0,0 +1,42 @@
+package ru.itmo.mopsync.iotcontroller.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.server.RequestPredicates;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import ru.itmo.mopsync.iotcontroller.controller.ReactiveDeviceDataHandler;
+
+/**
+ * Configuration of the reactive ingest stack, active when the application runs on WebFlux (the reactive profile).
+ * Only the device data ingest endpoint is served; the servlet controllers are not registered.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveIngestConfig {
+
+    /**
+     * Reactor Netty server. With spring-boot-starter-web on the classpath Boot would pick Tomcat,
+     * which runs WebFlux on top of servlet async I/O instead of an event loop.
+     *
+     * @return reactive web server factory
+     */
+    @Bean
+    public NettyReactiveWebServerFactory reactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    /**
+     * Routes device data ingest requests to the reactive handler.
+     *
+     * @param handler reactive device data handler
+     * @return router function of the ingest endpoint
+     */
+    @Bean
+    public RouterFunction<ServerResponse> deviceDataRoutes(ReactiveDeviceDataHandler handler) {
+        return RouterFunctions.route(RequestPredicates.POST("/api/v1/device-data"), handler::receiveDeviceData);
+    }
+}
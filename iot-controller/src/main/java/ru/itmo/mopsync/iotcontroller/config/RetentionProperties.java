@@ -0,0 +1,51 @@
+package ru.itmo.mopsync.iotcontroller.config;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties for raw data retention and the on-disk archive of compacted readings.
+ */
+@Data
+@Validated
+@Configuration
+@ConfigurationProperties(prefix = "ingest.retention")
+public class RetentionProperties {
+    /**
+     * Whether old raw readings are archived and removed from MongoDB.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Age after which raw readings are archived; whole UTC days older than this are compacted.
+     */
+    private Duration rawRetention = Duration.ofDays(7);
+
+    /**
+     * Time archived readings stay in MongoDB before the TTL index removes them.
+     */
+    private Duration expireAfter = Duration.ofHours(1);
+
+    /**
+     * Directory of the segment files, one file per device and day.
+     */
+    @NotBlank
+    private String archiveDir = "archive";
+
+    /**
+     * Interval between archiver runs.
+     */
+    private Duration archiveInterval = Duration.ofHours(1);
+
+    /**
+     * Maximum number of device days compacted per archiver run.
+     */
+    @Min(1)
+    private int maxDeviceDaysPerRun = 10_000;
+}
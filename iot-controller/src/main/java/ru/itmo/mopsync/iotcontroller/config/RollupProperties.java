@@ -0,0 +1,46 @@
+package ru.itmo.mopsync.iotcontroller.config;
+
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties for 1-minute and 1-hour metric rollups.
+ */
+@Data
+@Validated
+@Configuration
+@ConfigurationProperties(prefix = "ingest.rollup")
+public class RollupProperties {
+    /**
+     * Whether rollups are maintained on ingest and used by range queries.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Interval between flushes of aggregated buckets to MongoDB.
+     */
+    private Duration flushInterval = Duration.ofSeconds(10);
+
+    /**
+     * Number of pending buckets that triggers a flush before the interval elapses.
+     */
+    @Min(1)
+    private int maxPendingBuckets = 50_000;
+
+    /**
+     * Longest range that range queries answer from raw readings when no resolution is requested.
+     */
+    private Duration rawMaxRange = Duration.ofHours(6);
+
+    /**
+     * Maximum number of buckets per metric that a range query may return at 1-minute resolution
+     * when no resolution is requested; longer ranges are answered from 1-hour buckets.
+     */
+    @Min(1)
+    private int maxBuckets = 1440;
+}
@@ -0,0 +1,58 @@
+package ru.itmo.mopsync.iotcontroller.config;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties for the local spool of notifications that could not be published to RabbitMQ.
+ */
+@Data
+@Validated
+@Configuration
+@ConfigurationProperties(prefix = "ingest.spool")
+public class SpoolProperties {
+    /**
+     * Whether notifications are spooled to disk while RabbitMQ is unavailable or blocked.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Directory of the spool segment files.
+     */
+    @NotBlank
+    private String dir = "spool";
+
+    /**
+     * Size of one memory-mapped spool segment.
+     */
+    private DataSize segmentSize = DataSize.ofMegabytes(16);
+
+    /**
+     * Maximum number of segments; notifications are dropped once the spool is full.
+     */
+    @Min(1)
+    private int maxSegments = 64;
+
+    /**
+     * Maximum number of spooled notifications published per confirmed relay batch.
+     */
+    @Min(1)
+    private int batchSize = 500;
+
+    /**
+     * Time to wait for publisher confirms of a relay batch.
+     */
+    private Duration confirmTimeout = Duration.ofSeconds(5);
+
+    /**
+     * Pause of the relay after a failed batch before the next attempt.
+     */
+    private Duration retryInterval = Duration.ofSeconds(1);
+}
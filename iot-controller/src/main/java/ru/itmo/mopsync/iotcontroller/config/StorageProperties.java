@@ -0,0 +1,53 @@
+package ru.itmo.mopsync.iotcontroller.config;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Configuration properties for the store of readings written by the ingest path.
+ * The local store keeps readings in memory-mapped segment files that rule-engine reads from the same directory,
+ * for benchmarks and edge deployments without MongoDB. It covers the servlet and reactive ingest paths only:
+ * the outbox, retention, rollups and the metric dictionary work on MongoDB and must be disabled, which is checked
+ * on start, and the query API rejects every query.
+ */
+@Data
+@Validated
+@Configuration
+@ConfigurationProperties(prefix = "ingest.storage")
+public class StorageProperties {
+    /**
+     * Store of readings.
+     */
+    @NotNull
+    private StorageType type = StorageType.MONGO;
+
+    /**
+     * Directory of the local store segment files.
+     */
+    @NotBlank
+    private String dir = "store";
+
+    /**
+     * Size of one memory-mapped local store segment.
+     */
+    private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+    /**
+     * Store of readings.
+     */
+    public enum StorageType {
+        /**
+         * The device_data MongoDB collection.
+         */
+        MONGO,
+        /**
+         * Append-only segment files on local disk.
+         */
+        LOCAL
+    }
+}
@@ -0,0 +1,79 @@
+package ru.itmo.mopsync.iotcontroller.config;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Configuration properties for the transport of notifications to rule-engine.
+ * The local transport appends notifications to a memory-mapped log that rule-engine on the same host
+ * consumes from the same directory, for single-host deployments without RabbitMQ. It covers the servlet and
+ * reactive ingest paths and the outbox relay.
+ */
+@Data
+@Validated
+@Configuration
+@ConfigurationProperties(prefix = "ingest.transport")
+public class TransportProperties {
+    /**
+     * Transport of notifications.
+     */
+    @NotNull
+    private TransportType type = TransportType.RABBITMQ;
+
+    /**
+     * Format of notifications published to RabbitMQ; switch to binary once rule-engine reads it.
+     */
+    @NotNull
+    private NotificationFormat format = NotificationFormat.JSON;
+
+    /**
+     * Directory of the local notification log segment files.
+     */
+    @NotBlank
+    private String dir = "notifications";
+
+    /**
+     * Size of one memory-mapped notification log segment.
+     */
+    private DataSize segmentSize = DataSize.ofMegabytes(16);
+
+    /**
+     * Maximum number of notification log segments; the oldest are deleted, consumed or not.
+     */
+    @Min(2)
+    private int maxSegments = 64;
+
+    /**
+     * Transport of notifications.
+     */
+    public enum TransportType {
+        /**
+         * RabbitMQ queue, with the disk spool as a fallback.
+         */
+        RABBITMQ,
+        /**
+         * Append-only notification log on local disk.
+         */
+        LOCAL
+    }
+
+    /**
+     * Format of notifications published to RabbitMQ.
+     */
+    public enum NotificationFormat {
+        /**
+         * JSON with a type id header, read by every rule-engine version.
+         */
+        JSON,
+        /**
+         * Fixed binary layout of the local notification log.
+         */
+        BINARY
+    }
+}
@@ -0,0 +1,27 @@
+package ru.itmo.mopsync.iotcontroller.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+import ru.itmo.mopsync.iotcontroller.websocket.DeviceDataStreamHandler;
+
+/**
+ * Configuration registering the WebSocket device data stream endpoint.
+ */
+@Configuration
+@EnableWebSocket
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "ingest.stream", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class WebSocketConfig implements WebSocketConfigurer {
+
+    private final DeviceStreamProperties properties;
+    private final DeviceDataStreamHandler deviceDataStreamHandler;
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(deviceDataStreamHandler, properties.getPath());
+    }
+}
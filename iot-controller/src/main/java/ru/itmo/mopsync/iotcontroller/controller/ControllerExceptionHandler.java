@@ -1,16 +1,22 @@
 package ru.itmo.mopsync.iotcontroller.controller;
 
 import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.ConstraintViolationException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.HttpMediaTypeNotSupportedException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.bind.MissingServletRequestParameterException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.HandlerMethodValidationException;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 import ru.itmo.mopsync.iotcontroller.exception.BaseException;
 import ru.itmo.mopsync.iotcontroller.exception.Errors;
+import ru.itmo.mopsync.iotcontroller.exception.RetryLaterException;
 import ru.itmo.mopsync.iotcontroller.generated.model.ErrorObject;
 
 import static org.springframework.http.HttpStatus.BAD_REQUEST;
@@ -23,8 +29,24 @@ import static org.springframework.http.HttpStatus.UNSUPPORTED_MEDIA_TYPE;
  */
 @Slf4j
 @RestControllerAdvice
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class ControllerExceptionHandler {
 
+    /**
+     * Handles RetryLaterException: returns ErrorObject with Retry-After header.
+     */
+    @ExceptionHandler(RetryLaterException.class)
+    public ErrorObject handleRetryLaterException(RetryLaterException ex, HttpServletResponse response) {
+        log.warn("RetryLaterException: code={}, message={}, retryAfter={}",
+                ex.getCode(), ex.getMessage(), ex.getRetryAfter());
+
+        response.setStatus(ex.getCode());
+        // Retry-After is whole seconds, round up so clients never come back too early
+        long seconds = Math.max(1, (ex.getRetryAfter().toMillis() + 999) / 1000);
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(seconds));
+        return createErrorObject(ex);
+    }
+
     /**
      * Handles BaseException and returns ErrorObject.
      */
@@ -74,6 +96,27 @@ public class ControllerExceptionHandler {
                 String.format("Invalid parameter type '%s': expected %s", ex.getName(), expectedType)));
     }
 
+    /**
+     * Handles missing required request parameters.
+     */
+    @ExceptionHandler(MissingServletRequestParameterException.class)
+    @ResponseStatus(BAD_REQUEST)
+    public ErrorObject handleMissingServletRequestParameter(MissingServletRequestParameterException ex) {
+        log.error("MissingServletRequestParameterException: {}", ex.getMessage());
+        return createErrorObject(Errors.validationError(
+                String.format("Required parameter '%s' is missing", ex.getParameterName())));
+    }
+
+    /**
+     * Handles constraint violations of request parameters (e.g. size of a query parameter list).
+     */
+    @ExceptionHandler({ConstraintViolationException.class, HandlerMethodValidationException.class})
+    @ResponseStatus(BAD_REQUEST)
+    public ErrorObject handleParameterValidation(Exception ex) {
+        log.error("Parameter validation failed: {}", ex.getMessage());
+        return createErrorObject(Errors.validationError(ex.getMessage()));
+    }
+
     /**
      * Handles unsupported media type errors.
      */
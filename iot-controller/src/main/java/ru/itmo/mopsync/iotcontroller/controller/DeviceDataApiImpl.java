@@ -2,30 +2,39 @@ package ru.itmo.mopsync.iotcontroller.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.validation.BeanPropertyBindingResult;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.RestController;
 import ru.itmo.mopsync.iotcontroller.exception.Errors;
 import ru.itmo.mopsync.iotcontroller.generated.api.DeviceDataApi;
 import ru.itmo.mopsync.iotcontroller.generated.model.DeviceDataRequest;
+import ru.itmo.mopsync.iotcontroller.metrics.IngestMetrics;
+import ru.itmo.mopsync.iotcontroller.ratelimit.DeviceRateLimiter;
 import ru.itmo.mopsync.iotcontroller.service.DeviceDataService;
 
+import java.time.Duration;
+
 /**
  * Controller for device data endpoints.
  */
 @Slf4j
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequiredArgsConstructor
 public class DeviceDataApiImpl implements DeviceDataApi {
 
     private final DeviceDataService deviceDataService;
     private final DeviceDataRequestValidator validator;
+    private final DeviceRateLimiter rateLimiter;
+    private final IngestMetrics ingestMetrics;
 
     /**
      * Receives device data, validates it, saves to MongoDB, and sends notification to RabbitMQ.
      * Validation is performed by:
      * 1. JSR-303 annotations (required fields, minLength, minimum, minProperties) - handled automatically via @Valid
      * 2. Custom DeviceDataRequestValidator (complex metric validation) - invoked manually
+     * Valid readings are then checked against the rate limit of the device.
      *
      * @param deviceDataRequest device data request
      */
@@ -33,13 +42,18 @@ public class DeviceDataApiImpl implements DeviceDataApi {
     public void receiveDeviceData(DeviceDataRequest deviceDataRequest) {
         // Perform custom validation for complex rules (metric value types)
         BindingResult errors = new BeanPropertyBindingResult(deviceDataRequest, "deviceDataRequest");
-        validator.validate(deviceDataRequest, errors);
+        ingestMetrics.stage(IngestMetrics.VALIDATE).record(() -> validator.validate(deviceDataRequest, errors));
 
         if (errors.hasErrors()) {
             String message = errors.getFieldError().getDefaultMessage();
             throw Errors.validationError(message);
         }
 
+        Duration retryAfter = rateLimiter.tryAcquire(deviceDataRequest.getDeviceId());
+        if (!retryAfter.isZero()) {
+            throw Errors.deviceRateLimitError(deviceDataRequest.getDeviceId(), retryAfter);
+        }
+
         log.info("POST /api/v1/device-data - Receiving device data for device: {}",
                 deviceDataRequest.getDeviceId());
         deviceDataService.processDeviceData(deviceDataRequest);
@@ -1,19 +1,29 @@
 package ru.itmo.mopsync.iotcontroller.controller;
 
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 import org.springframework.validation.Errors;
 import org.springframework.validation.Validator;
 import ru.itmo.mopsync.iotcontroller.generated.model.DeviceDataRequest;
+import ru.itmo.mopsync.iotcontroller.model.MetricValues;
+import ru.itmo.mopsync.iotcontroller.schema.CompiledSchema;
+import ru.itmo.mopsync.iotcontroller.schema.MetricSchemaRegistry;
 
 import java.util.Map;
 
 /**
  * Validator for DeviceDataRequest that performs complex validation checks.
  * Simple field validation (required, minLength, minimum) is handled by OpenAPI/JSR-303 annotations.
+ * Metrics read by DeviceDataRequestDeserializer were checked while parsing and are not checked again.
+ * Readings of devices with a metric schema are checked against it, and their metrics are replaced
+ * with the normalized ones.
  */
 @Component
+@RequiredArgsConstructor
 public class DeviceDataRequestValidator implements Validator {
 
+    private final MetricSchemaRegistry schemaRegistry;
+
     @Override
     public boolean supports(Class<?> clazz) {
         return DeviceDataRequest.class.isAssignableFrom(clazz);
@@ -23,8 +33,21 @@ public class DeviceDataRequestValidator implements Validator {
     public void validate(Object target, Errors errors) {
         DeviceDataRequest request = (DeviceDataRequest) target;
 
-        if (request.getMetrics() != null) {
+        if (request.getMetrics() == null) {
+            return;
+        }
+        if (!(request.getMetrics() instanceof MetricValues)) {
             validateMetrics(request.getMetrics(), errors);
+            if (errors.hasErrors()) {
+                return;
+            }
+        }
+        CompiledSchema schema = schemaRegistry.schemaFor(request, errors);
+        if (schema != null) {
+            MetricValues normalized = schema.apply(request.getMetrics(), errors);
+            if (normalized != null) {
+                request.setMetrics(normalized);
+            }
         }
     }
 
@@ -0,0 +1,176 @@
+package ru.itmo.mopsync.iotcontroller.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import ru.itmo.mopsync.iotcontroller.converter.DeviceDataConverter;
+import ru.itmo.mopsync.iotcontroller.converter.DeviceShadowConverter;
+import ru.itmo.mopsync.iotcontroller.dedup.SequenceTracker;
+import ru.itmo.mopsync.iotcontroller.exception.Errors;
+import ru.itmo.mopsync.iotcontroller.generated.api.DevicesApi;
+import ru.itmo.mopsync.iotcontroller.generated.model.DeviceDataPage;
+import ru.itmo.mopsync.iotcontroller.generated.model.DeviceLatestResponse;
+import ru.itmo.mopsync.iotcontroller.model.DeviceDataCursor;
+import ru.itmo.mopsync.iotcontroller.model.DeviceDataRange;
+import ru.itmo.mopsync.iotcontroller.model.DeviceShadow;
+import ru.itmo.mopsync.iotcontroller.model.Resolution;
+import ru.itmo.mopsync.iotcontroller.service.DeviceDataQueryService;
+import ru.itmo.mopsync.iotcontroller.service.DeviceShadowService;
+
+import java.io.IOException;
+import java.time.OffsetDateTime;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Controller for device state endpoints.
+ */
+@Slf4j
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequiredArgsConstructor
+public class DevicesApiImpl implements DevicesApi {
+
+    private static final String AUTO_RESOLUTION = "auto";
+
+    private final DeviceShadowService deviceShadowService;
+    private final DeviceShadowConverter deviceShadowConverter;
+    private final DeviceDataQueryService deviceDataQueryService;
+    private final DeviceDataConverter deviceDataConverter;
+    private final ObjectMapper objectMapper;
+    private final SequenceTracker sequenceTracker;
+
+    /**
+     * Gets the latest metric values of a device with its arrival order counters.
+     *
+     * @param deviceId device identifier
+     * @return latest values response
+     */
+    @Override
+    public DeviceLatestResponse getDeviceLatest(String deviceId) {
+        log.debug("GET /api/v1/devices/{}/latest - Getting latest values", deviceId);
+        DeviceShadow shadow = deviceShadowService.get(deviceId);
+        if (shadow == null) {
+            throw Errors.deviceNotFoundError(deviceId);
+        }
+        return deviceShadowConverter.toLatestResponse(shadow, sequenceTracker.getCounters(deviceId));
+    }
+
+    /**
+     * Gets the latest metric values of several devices, in the requested order.
+     *
+     * @param deviceIds device identifiers
+     * @return latest values of the known devices
+     */
+    @Override
+    public List<DeviceLatestResponse> getDevicesLatest(List<String> deviceIds) {
+        log.debug("GET /api/v1/devices/latest - Getting latest values of {} devices", deviceIds.size());
+        Map<String, DeviceShadow> shadows = deviceShadowService.getAll(deviceIds);
+        return deviceIds.stream()
+                .distinct()
+                .map(shadows::get)
+                .filter(Objects::nonNull)
+                .map(shadow -> deviceShadowConverter.toLatestResponse(shadow,
+                        sequenceTracker.getCounters(shadow.getDeviceId())))
+                .toList();
+    }
+
+    /**
+     * Gets one page of device readings in a time range.
+     *
+     * @param deviceId device identifier
+     * @param from     start of the range (inclusive)
+     * @param to       end of the range (exclusive)
+     * @param metrics    metrics to return, all if null
+     * @param resolution resolution code, or auto
+     * @param cursor     cursor of the page, first page if null
+     * @param limit      maximum number of readings or buckets in the page
+     * @return page of readings or rollup buckets
+     */
+    @Override
+    public DeviceDataPage getDeviceData(String deviceId, OffsetDateTime from, OffsetDateTime to,
+                                        List<String> metrics, String resolution, String cursor, Integer limit) {
+        log.debug("GET /api/v1/devices/{}/data - Getting readings from {} to {}", deviceId, from, to);
+        DeviceDataRange range = toRange(deviceId, from, to, metrics, resolution, cursor);
+        return deviceDataConverter.toPage(deviceDataQueryService.findPage(range, limit));
+    }
+
+    /**
+     * Streams all device readings or rollup buckets in a time range as newline-delimited JSON.
+     * Records are written as they are read from the database cursor, so memory use does not depend on the range.
+     *
+     * @param deviceId   device identifier
+     * @param from       start of the range (inclusive)
+     * @param to         end of the range (exclusive)
+     * @param metrics    metrics to return, all if null
+     * @param resolution resolution code, or auto
+     * @param cursor     cursor to continue from, range start if null
+     * @param response   response to write records to
+     * @throws IOException if writing the response fails
+     */
+    @GetMapping(value = "/api/v1/devices/{deviceId}/data", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void streamDeviceData(@PathVariable("deviceId") String deviceId,
+                                 @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                 OffsetDateTime from,
+                                 @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                 OffsetDateTime to,
+                                 @RequestParam(value = "metrics", required = false) List<String> metrics,
+                                 @RequestParam(value = "resolution", defaultValue = AUTO_RESOLUTION)
+                                 String resolution,
+                                 @RequestParam(value = "cursor", required = false) String cursor,
+                                 HttpServletResponse response) throws IOException {
+        log.debug("GET /api/v1/devices/{}/data - Streaming readings from {} to {}", deviceId, from, to);
+        DeviceDataRange range = toRange(deviceId, from, to, metrics, resolution, cursor);
+        Resolution resolved = deviceDataQueryService.resolve(range);
+        if (resolved == Resolution.RAW) {
+            writeNdjson(deviceDataQueryService.stream(range), deviceDataConverter::toRecord, response);
+        } else {
+            writeNdjson(deviceDataQueryService.streamRollups(range, resolved),
+                    deviceDataConverter::toRollupRecord, response);
+        }
+    }
+
+    private <T> void writeNdjson(Stream<T> documents, Function<T, ?> converter,
+                                 HttpServletResponse response) throws IOException {
+        ObjectWriter writer = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        try (documents) {
+            Iterator<T> iterator = documents.iterator();
+            response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+            ServletOutputStream out = response.getOutputStream();
+            while (iterator.hasNext()) {
+                writer.writeValue(out, converter.apply(iterator.next()));
+                out.write('\n');
+            }
+        }
+    }
+
+    private static DeviceDataRange toRange(String deviceId, OffsetDateTime from, OffsetDateTime to,
+                                           List<String> metrics, String resolution, String cursor) {
+        Resolution requested = null;
+        if (!AUTO_RESOLUTION.equals(resolution)) {
+            requested = Resolution.fromCode(resolution);
+            if (requested == null) {
+                throw Errors.validationError("Invalid resolution: " + resolution);
+            }
+        }
+        return new DeviceDataRange(deviceId, from, to,
+                metrics != null ? List.copyOf(metrics) : List.of(),
+                requested,
+                cursor != null ? DeviceDataCursor.decode(cursor) : null);
+    }
+}
@@ -0,0 +1,108 @@
+package ru.itmo.mopsync.iotcontroller.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.RequestBodyAdviceAdapter;
+import ru.itmo.mopsync.iotcontroller.generated.model.DeviceDataRequest;
+import ru.itmo.mopsync.iotcontroller.metrics.IngestMetrics;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Type;
+
+/**
+ * Measures deserialization of DeviceDataRequest bodies: time spent in the message converter
+ * (including reading and decompressing the body) and the size of the body passed to it.
+ */
+@ControllerAdvice
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequiredArgsConstructor
+public class IngestRequestBodyAdvice extends RequestBodyAdviceAdapter {
+
+    private static final String HTTP = "http";
+
+    private final IngestMetrics ingestMetrics;
+
+    @Override
+    public boolean supports(MethodParameter methodParameter, Type targetType,
+                            Class<? extends HttpMessageConverter<?>> converterType) {
+        return DeviceDataRequest.class.equals(targetType);
+    }
+
+    @Override
+    public HttpInputMessage beforeBodyRead(HttpInputMessage inputMessage, MethodParameter parameter,
+                                           Type targetType, Class<? extends HttpMessageConverter<?>> converterType)
+            throws IOException {
+        return new MeasuredInputMessage(inputMessage);
+    }
+
+    @Override
+    public Object afterBodyRead(Object body, HttpInputMessage inputMessage, MethodParameter parameter,
+                                Type targetType, Class<? extends HttpMessageConverter<?>> converterType) {
+        if (inputMessage instanceof MeasuredInputMessage measured) {
+            ingestMetrics.recordStage(IngestMetrics.DESERIALIZE, System.nanoTime() - measured.startNanos);
+            ingestMetrics.recordPayloadSize(HTTP, measured.body.count);
+            ingestMetrics.recordPacketReadings(HTTP, 1);
+        }
+        return body;
+    }
+
+    /**
+     * Input message counting the bytes read from its body.
+     */
+    private static final class MeasuredInputMessage implements HttpInputMessage {
+        private final HttpInputMessage delegate;
+        private final long startNanos = System.nanoTime();
+        private final CountingInputStream body;
+
+        MeasuredInputMessage(HttpInputMessage delegate) throws IOException {
+            this.delegate = delegate;
+            this.body = new CountingInputStream(delegate.getBody());
+        }
+
+        @Override
+        public InputStream getBody() {
+            return body;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return delegate.getHeaders();
+        }
+    }
+
+    /**
+     * Stream counting bytes read through it.
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+    }
+}
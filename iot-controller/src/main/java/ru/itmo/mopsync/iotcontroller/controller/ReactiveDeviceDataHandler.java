@@ -0,0 +1,139 @@
+package ru.itmo.mopsync.iotcontroller.controller;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.BindingResult;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.UnsupportedMediaTypeStatusException;
+import reactor.core.publisher.Mono;
+import ru.itmo.mopsync.iotcontroller.converter.ReactiveDeviceDataReader;
+import ru.itmo.mopsync.iotcontroller.exception.BaseException;
+import ru.itmo.mopsync.iotcontroller.exception.Errors;
+import ru.itmo.mopsync.iotcontroller.exception.RetryLaterException;
+import ru.itmo.mopsync.iotcontroller.generated.model.DeviceDataRequest;
+import ru.itmo.mopsync.iotcontroller.generated.model.ErrorObject;
+import ru.itmo.mopsync.iotcontroller.metrics.IngestMetrics;
+import ru.itmo.mopsync.iotcontroller.ratelimit.AdmissionController;
+import ru.itmo.mopsync.iotcontroller.ratelimit.DeviceRateLimiter;
+import ru.itmo.mopsync.iotcontroller.service.ReactiveDeviceDataService;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Set;
+
+/**
+ * Handler of POST /api/v1/device-data for the reactive ingest stack.
+ * Implements the contract of {@link DeviceDataApiImpl} on WebFlux: the same admission and rate limits,
+ * validation and error bodies as ControllerExceptionHandler renders, without blocking the event loop.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveDeviceDataHandler {
+
+    private final ReactiveDeviceDataReader reader;
+    private final ReactiveDeviceDataService deviceDataService;
+    private final Validator beanValidator;
+    private final DeviceDataRequestValidator validator;
+    private final DeviceRateLimiter rateLimiter;
+    private final AdmissionController admissionController;
+    private final IngestMetrics ingestMetrics;
+
+    /**
+     * Receives device data, validates it, saves to MongoDB, and sends notification to RabbitMQ.
+     * Admission is held until the response is ready, so requests waiting on MongoDB or the broker
+     * count against the in-flight limit.
+     *
+     * @param request server request
+     * @return empty 200 response, or an ErrorObject response
+     */
+    public Mono<ServerResponse> receiveDeviceData(ServerRequest request) {
+        return Mono.defer(() -> {
+            admissionController.admit();
+            return reader.read(request)
+                    .flatMap(this::process)
+                    .doFinally(signal -> admissionController.release());
+        })
+                .then(ServerResponse.ok().build())
+                .onErrorResume(this::errorResponse);
+    }
+
+    private Mono<Void> process(DeviceDataRequest deviceDataRequest) {
+        long validateStart = System.nanoTime();
+        validate(deviceDataRequest);
+        ingestMetrics.recordStage(IngestMetrics.VALIDATE, System.nanoTime() - validateStart);
+
+        Duration retryAfter = rateLimiter.tryAcquire(deviceDataRequest.getDeviceId());
+        if (!retryAfter.isZero()) {
+            throw Errors.deviceRateLimitError(deviceDataRequest.getDeviceId(), retryAfter);
+        }
+
+        log.info("POST /api/v1/device-data - Receiving device data for device: {}",
+                deviceDataRequest.getDeviceId());
+        return deviceDataService.processDeviceData(deviceDataRequest);
+    }
+
+    private void validate(DeviceDataRequest deviceDataRequest) {
+        // JSR-303 annotations first, like @Valid does, reporting the first violated field
+        Set<ConstraintViolation<DeviceDataRequest>> violations = beanValidator.validate(deviceDataRequest);
+        if (!violations.isEmpty()) {
+            throw Errors.validationError(violations.stream()
+                    .min(Comparator.comparing(violation -> violation.getPropertyPath().toString()))
+                    .orElseThrow()
+                    .getMessage());
+        }
+        BindingResult errors = new BeanPropertyBindingResult(deviceDataRequest, "deviceDataRequest");
+        validator.validate(deviceDataRequest, errors);
+        if (errors.hasErrors()) {
+            throw Errors.validationError(errors.getFieldError().getDefaultMessage());
+        }
+    }
+
+    private Mono<ServerResponse> errorResponse(Throwable ex) {
+        if (ex instanceof RetryLaterException retryLater) {
+            log.warn("RetryLaterException: code={}, message={}, retryAfter={}",
+                    retryLater.getCode(), retryLater.getMessage(), retryLater.getRetryAfter());
+            // Retry-After is whole seconds, round up so clients never come back too early
+            long seconds = Math.max(1, (retryLater.getRetryAfter().toMillis() + 999) / 1000);
+            return ServerResponse.status(retryLater.getCode())
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(seconds))
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue(createErrorObject(retryLater));
+        }
+        if (ex instanceof BaseException base) {
+            log.error("BaseException: code={}, message={}, humanMessage={}",
+                    base.getCode(), base.getMessage(), base.getHumanMessage());
+            return errorResponse(HttpStatus.valueOf(base.getCode()), base);
+        }
+        if (ex instanceof UnsupportedMediaTypeStatusException unsupported) {
+            log.error("UnsupportedMediaTypeStatusException: {}", unsupported.getMessage());
+            return errorResponse(HttpStatus.UNSUPPORTED_MEDIA_TYPE,
+                    Errors.invalidRequestBodyError("Unsupported media type: " + unsupported.getContentType()));
+        }
+        log.error("Unhandled exception", ex);
+        return errorResponse(HttpStatus.INTERNAL_SERVER_ERROR, Errors.unhandledExceptionError());
+    }
+
+    private static Mono<ServerResponse> errorResponse(HttpStatus status, BaseException ex) {
+        return ServerResponse.status(status)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(createErrorObject(ex));
+    }
+
+    private static ErrorObject createErrorObject(BaseException ex) {
+        return new ErrorObject()
+                .code(ex.getCode())
+                .message(ex.getMessage())
+                .humanMessage(ex.getHumanMessage());
+    }
+}
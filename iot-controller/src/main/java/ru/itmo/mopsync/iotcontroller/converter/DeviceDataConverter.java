@@ -0,0 +1,72 @@
+package ru.itmo.mopsync.iotcontroller.converter;
+
+import org.springframework.stereotype.Component;
+import ru.itmo.mopsync.iotcontroller.generated.model.DeviceDataPage;
+import ru.itmo.mopsync.iotcontroller.generated.model.DeviceDataRecord;
+import ru.itmo.mopsync.iotcontroller.generated.model.MetricRollupRecord;
+import ru.itmo.mopsync.iotcontroller.model.DeviceDataDocument;
+import ru.itmo.mopsync.iotcontroller.model.DeviceDataSlice;
+import ru.itmo.mopsync.iotcontroller.model.MetricRollupDocument;
+
+import java.util.Map;
+
+/**
+ * Converter for stored device data and DTOs.
+ */
+@Component
+public class DeviceDataConverter {
+
+    /**
+     * Converts DeviceDataDocument to DeviceDataRecord.
+     *
+     * @param document stored reading
+     * @return reading DTO
+     */
+    public DeviceDataRecord toRecord(DeviceDataDocument document) {
+        DeviceDataRecord record = new DeviceDataRecord();
+        record.setId(document.getId());
+        record.setDeviceId(document.getDeviceId());
+        record.setTimestamp(document.getTimestamp());
+        record.setSeq(document.getSeq());
+        if (document.getSeqOrder() != null) {
+            record.setSeqOrder(DeviceDataRecord.SeqOrderEnum.valueOf(document.getSeqOrder().name()));
+            record.setMissingBefore(document.getSeqGap());
+        }
+        record.setMetrics(document.getMetrics() != null ? document.getMetrics() : Map.of());
+        record.setMeta(document.getMeta());
+        return record;
+    }
+
+    /**
+     * Converts MetricRollupDocument to MetricRollupRecord.
+     *
+     * @param document stored rollup bucket
+     * @return rollup bucket DTO
+     */
+    public MetricRollupRecord toRollupRecord(MetricRollupDocument document) {
+        MetricRollupRecord record = new MetricRollupRecord();
+        record.setMetric(document.getMetric());
+        record.setBucketStart(document.getBucketStart());
+        record.setMin(document.getMin());
+        record.setMax(document.getMax());
+        record.setSum(document.getSum());
+        record.setCount(document.getCount());
+        record.setLast(document.getLast());
+        return record;
+    }
+
+    /**
+     * Converts DeviceDataSlice to DeviceDataPage.
+     *
+     * @param slice page of stored readings
+     * @return page DTO
+     */
+    public DeviceDataPage toPage(DeviceDataSlice slice) {
+        DeviceDataPage page = new DeviceDataPage();
+        page.setResolution(slice.getResolution().getCode());
+        page.setItems(slice.getItems().stream().map(this::toRecord).toList());
+        page.setBuckets(slice.getBuckets().stream().map(this::toRollupRecord).toList());
+        page.setNextCursor(slice.getNext() != null ? slice.getNext().encode() : null);
+        return page;
+    }
+}
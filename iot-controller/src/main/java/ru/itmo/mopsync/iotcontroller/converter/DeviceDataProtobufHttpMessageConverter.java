@@ -0,0 +1,111 @@
+package ru.itmo.mopsync.iotcontroller.converter;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.Timestamp;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import ru.itmo.mopsync.iotcontroller.generated.model.DeviceDataRequest;
+import ru.itmo.mopsync.iotcontroller.generated.proto.DeviceDataPacket;
+import ru.itmo.mopsync.iotcontroller.generated.proto.MetricValue;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * HTTP message converter reading protobuf DeviceDataPacket bodies into DeviceDataRequest.
+ * Missing optional fields are mapped to null, so JSR-303 validation behaves the same as for JSON.
+ */
+public class DeviceDataProtobufHttpMessageConverter extends AbstractHttpMessageConverter<DeviceDataRequest> {
+
+    /**
+     * Protobuf media type.
+     */
+    public static final MediaType APPLICATION_PROTOBUF = new MediaType("application", "x-protobuf");
+
+    /**
+     * Constructor for DeviceDataProtobufHttpMessageConverter.
+     */
+    public DeviceDataProtobufHttpMessageConverter() {
+        super(APPLICATION_PROTOBUF);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return DeviceDataRequest.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected boolean canWrite(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected DeviceDataRequest readInternal(Class<? extends DeviceDataRequest> clazz, HttpInputMessage inputMessage)
+            throws IOException {
+        try {
+            return toRequest(DeviceDataPacket.parseFrom(inputMessage.getBody()));
+        } catch (InvalidProtocolBufferException e) {
+            throw new HttpMessageNotReadableException("Invalid protobuf in request body", e, inputMessage);
+        }
+    }
+
+    @Override
+    protected void writeInternal(DeviceDataRequest request, HttpOutputMessage outputMessage) {
+        throw new HttpMessageNotWritableException("Writing DeviceDataRequest as protobuf is not supported");
+    }
+
+    /**
+     * Maps protobuf packet to the request model.
+     *
+     * @param packet parsed protobuf packet
+     * @return device data request
+     */
+    public static DeviceDataRequest toRequest(DeviceDataPacket packet) {
+        DeviceDataRequest request = new DeviceDataRequest();
+        request.setDeviceId(packet.hasDeviceId() ? packet.getDeviceId() : null);
+        request.setTimestamp(packet.hasTimestamp() ? toOffsetDateTime(packet.getTimestamp()) : null);
+        request.setSeq(packet.hasSeq() ? packet.getSeq() : null);
+
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        packet.getMetricsMap().forEach((name, value) -> metrics.put(name, toMetricValue(value)));
+        request.setMetrics(metrics);
+        request.setMeta(new LinkedHashMap<>(packet.getMetaMap()));
+        return request;
+    }
+
+    /**
+     * Converts protobuf timestamp to UTC OffsetDateTime.
+     */
+    private static OffsetDateTime toOffsetDateTime(Timestamp timestamp) {
+        Instant instant = Instant.ofEpochSecond(timestamp.getSeconds(), timestamp.getNanos());
+        return OffsetDateTime.ofInstant(instant, ZoneOffset.UTC);
+    }
+
+    /**
+     * Converts protobuf metric value to the same Java types Jackson produces for JSON.
+     * Unset values are mapped to null and rejected later by DeviceDataRequestValidator.
+     */
+    private static Object toMetricValue(MetricValue value) {
+        return switch (value.getValueCase()) {
+            case NUMBER -> value.getNumber();
+            case INTEGER -> toIntegralValue(value.getInteger());
+            case TEXT -> value.getText();
+            case VALUE_NOT_SET -> null;
+        };
+    }
+
+    /**
+     * Narrows integral value to Integer when possible, as Jackson does for JSON numbers.
+     */
+    private static Object toIntegralValue(long value) {
+        return value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE ? (Object) (int) value : (Object) value;
+    }
+}
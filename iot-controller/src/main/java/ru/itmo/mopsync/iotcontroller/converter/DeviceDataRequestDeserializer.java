@@ -0,0 +1,132 @@
+package ru.itmo.mopsync.iotcontroller.converter;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.deser.ResolvableDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import ru.itmo.mopsync.iotcontroller.exception.Errors;
+import ru.itmo.mopsync.iotcontroller.generated.model.DeviceDataRequest;
+import ru.itmo.mopsync.iotcontroller.model.MetricValues;
+
+import java.io.IOException;
+import java.time.OffsetDateTime;
+import java.util.Map;
+
+/**
+ * Streaming deserializer of DeviceDataRequest replacing generic bean binding.
+ * Metrics are read token by token into a per-thread {@link MetricValues.Builder}, so numbers are not boxed
+ * and no map entries are allocated; only the exact-size arrays of the result are.
+ * Metric value types are checked while parsing: the first null or non-scalar value fails the request
+ * with the same validation error DeviceDataRequestValidator reports.
+ * Other fields are bound with the deserializers of the mapper, resolved once, so their formats do not change.
+ */
+public class DeviceDataRequestDeserializer extends StdDeserializer<DeviceDataRequest>
+        implements ResolvableDeserializer {
+
+    private static final JavaType META_TYPE =
+            TypeFactory.defaultInstance().constructMapType(Map.class, String.class, String.class);
+
+    private static final ThreadLocal<MetricValues.Builder> BUILDERS =
+            ThreadLocal.withInitial(MetricValues.Builder::new);
+
+    private JsonDeserializer<Object> timestampDeserializer;
+    private JsonDeserializer<Object> metaDeserializer;
+
+    /**
+     * Constructor for DeviceDataRequestDeserializer.
+     */
+    public DeviceDataRequestDeserializer() {
+        super(DeviceDataRequest.class);
+    }
+
+    /**
+     * Creates a Jackson module registering this deserializer.
+     *
+     * @return Jackson module
+     */
+    public static Module module() {
+        return new SimpleModule("DeviceDataRequestModule")
+                .addDeserializer(DeviceDataRequest.class, new DeviceDataRequestDeserializer());
+    }
+
+    @Override
+    public void resolve(DeserializationContext ctxt) throws JsonMappingException {
+        timestampDeserializer = ctxt.findRootValueDeserializer(ctxt.constructType(OffsetDateTime.class));
+        metaDeserializer = ctxt.findRootValueDeserializer(META_TYPE);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public DeviceDataRequest deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        JsonToken token = p.currentToken();
+        if (token == JsonToken.START_OBJECT) {
+            token = p.nextToken();
+        } else if (token != JsonToken.FIELD_NAME) {
+            return (DeviceDataRequest) ctxt.handleUnexpectedToken(DeviceDataRequest.class, p);
+        }
+        DeviceDataRequest request = new DeviceDataRequest();
+        for (; token == JsonToken.FIELD_NAME; token = p.nextToken()) {
+            String field = p.currentName();
+            JsonToken value = p.nextToken();
+            switch (field) {
+                case "device_id" -> request.setDeviceId(value == JsonToken.VALUE_STRING ? p.getText()
+                        : value == JsonToken.VALUE_NULL ? null : ctxt.readValue(p, String.class));
+                case "timestamp" -> request.setTimestamp(value == JsonToken.VALUE_NULL ? null
+                        : (OffsetDateTime) timestampDeserializer.deserialize(p, ctxt));
+                case "seq" -> request.setSeq(value == JsonToken.VALUE_NUMBER_INT ? Long.valueOf(p.getLongValue())
+                        : value == JsonToken.VALUE_NULL ? null : ctxt.readValue(p, Long.class));
+                case "metrics" -> request.setMetrics(value == JsonToken.VALUE_NULL ? null : readMetrics(p, ctxt));
+                case "meta" -> request.setMeta(value == JsonToken.VALUE_NULL ? null
+                        : (Map<String, String>) metaDeserializer.deserialize(p, ctxt));
+                default -> handleUnknownProperty(p, ctxt, request, field);
+            }
+        }
+        return request;
+    }
+
+    private static MetricValues readMetrics(JsonParser p, DeserializationContext ctxt) throws IOException {
+        if (!p.isExpectedStartObjectToken()) {
+            return (MetricValues) ctxt.handleUnexpectedToken(Map.class, p);
+        }
+        MetricValues.Builder metrics = BUILDERS.get();
+        // a builder left by a failed request still holds its metrics
+        metrics.clear();
+        for (JsonToken token = p.nextToken(); token == JsonToken.FIELD_NAME; token = p.nextToken()) {
+            String name = p.currentName();
+            switch (p.nextToken()) {
+                case VALUE_NUMBER_INT -> readInteger(p, ctxt, metrics, name);
+                case VALUE_NUMBER_FLOAT -> {
+                    if (ctxt.isEnabled(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS)) {
+                        metrics.addObject(name, p.getDecimalValue());
+                    } else {
+                        metrics.addDouble(name, p.getDoubleValue());
+                    }
+                }
+                case VALUE_STRING -> metrics.addObject(name, p.getText());
+                case VALUE_NULL -> throw Errors.validationError("Metric '" + name + "' cannot be null");
+                default -> throw Errors.validationError("Metric '" + name + "' must be a number or string");
+            }
+        }
+        return metrics.build();
+    }
+
+    private static void readInteger(JsonParser p, DeserializationContext ctxt, MetricValues.Builder metrics,
+                                    String name) throws IOException {
+        if (ctxt.isEnabled(DeserializationFeature.USE_BIG_INTEGER_FOR_INTS)
+                || p.getNumberType() == JsonParser.NumberType.BIG_INTEGER) {
+            metrics.addObject(name, p.getBigIntegerValue());
+        } else if (ctxt.isEnabled(DeserializationFeature.USE_LONG_FOR_INTS)) {
+            metrics.addObject(name, p.getLongValue());
+        } else {
+            metrics.addLong(name, p.getLongValue());
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package ru.itmo.mopsync.iotcontroller.converter;
+
+import org.springframework.stereotype.Component;
+import ru.itmo.mopsync.iotcontroller.dedup.SequenceCounters;
+import ru.itmo.mopsync.iotcontroller.generated.model.DeviceLatestResponse;
+import ru.itmo.mopsync.iotcontroller.generated.model.LatestMetricValue;
+import ru.itmo.mopsync.iotcontroller.generated.model.SequenceStats;
+import ru.itmo.mopsync.iotcontroller.model.DeviceShadow;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Converter for device shadows and DTOs.
+ */
+@Component
+public class DeviceShadowConverter {
+
+    /**
+     * Converts DeviceShadow to DeviceLatestResponse.
+     *
+     * @param shadow device shadow
+     * @param stats  arrival counters of the device, or null if it is not tracked
+     * @return latest values response
+     */
+    public DeviceLatestResponse toLatestResponse(DeviceShadow shadow, SequenceCounters stats) {
+        Map<String, LatestMetricValue> metrics = new TreeMap<>();
+        shadow.getMetrics().forEach((name, snapshot) -> metrics.put(name, new LatestMetricValue()
+                .value(snapshot.getValue())
+                .seq(snapshot.getSeq())
+                .timestamp(snapshot.getTimestamp())));
+
+        DeviceLatestResponse response = new DeviceLatestResponse();
+        response.setDeviceId(shadow.getDeviceId());
+        response.setSeq(shadow.getSeq());
+        response.setTimestamp(shadow.getTimestamp());
+        response.setMetrics(metrics);
+        if (stats != null) {
+            response.setSequence(new SequenceStats()
+                    .gaps(stats.getGaps())
+                    .missing(stats.getMissing())
+                    .late(stats.getLate())
+                    .duplicates(stats.getDuplicates()));
+        }
+        return response;
+    }
+}
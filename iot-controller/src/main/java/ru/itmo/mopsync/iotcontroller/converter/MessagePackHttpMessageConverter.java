@@ -0,0 +1,26 @@
+package ru.itmo.mopsync.iotcontroller.converter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+
+/**
+ * HTTP message converter for MessagePack bodies.
+ * Uses Jackson data binding, so payloads map to the same models as JSON.
+ */
+public class MessagePackHttpMessageConverter extends AbstractJackson2HttpMessageConverter {
+
+    /**
+     * MessagePack media type.
+     */
+    public static final MediaType APPLICATION_MSGPACK = new MediaType("application", "x-msgpack");
+
+    /**
+     * Constructor for MessagePackHttpMessageConverter.
+     *
+     * @param objectMapper object mapper backed by a MessagePackFactory
+     */
+    public MessagePackHttpMessageConverter(ObjectMapper objectMapper) {
+        super(objectMapper, APPLICATION_MSGPACK);
+    }
+}
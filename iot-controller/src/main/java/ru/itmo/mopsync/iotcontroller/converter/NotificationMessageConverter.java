@@ -0,0 +1,70 @@
+package ru.itmo.mopsync.iotcontroller.converter;
+
+import org.bson.types.ObjectId;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.amqp.support.converter.MessageConverter;
+import ru.itmo.mopsync.iotcontroller.model.DeviceDataNotification;
+import ru.itmo.mopsync.iotcontroller.transport.NotificationCodec;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * AMQP message converter that writes device data notifications in the binary layout of
+ * {@link NotificationCodec} instead of JSON with a {@code __TypeId__} header.
+ *
+ * <p>Messages are read by their content type, so binary and JSON notifications can be mixed on one queue.
+ * Binary writing is off by default: rule-engine, which reads both formats, is upgraded first, then
+ * iot-controller is switched with {@code ingest.transport.format=binary}. Other objects, and full-payload
+ * notifications whose id is not an ObjectId, are always written as JSON.
+ */
+public class NotificationMessageConverter implements MessageConverter {
+
+    /**
+     * Content type of binary notifications.
+     */
+    public static final String CONTENT_TYPE_BINARY = "application/x-device-data-notification";
+
+    private final MessageConverter json;
+    private final boolean binary;
+
+    /**
+     * Constructor for NotificationMessageConverter.
+     *
+     * @param json   converter of JSON messages and of other objects
+     * @param binary whether notifications are written in the binary layout
+     */
+    public NotificationMessageConverter(MessageConverter json, boolean binary) {
+        this.json = json;
+        this.binary = binary;
+    }
+
+    @Override
+    public Message toMessage(Object object, MessageProperties messageProperties) {
+        if (binary && object instanceof DeviceDataNotification notification && isEncodable(notification)) {
+            byte[] body = NotificationCodec.encode(notification);
+            messageProperties.setContentType(CONTENT_TYPE_BINARY);
+            messageProperties.setContentLength(body.length);
+            return new Message(body, messageProperties);
+        }
+        return json.toMessage(object, messageProperties);
+    }
+
+    @Override
+    public Object fromMessage(Message message) {
+        if (!CONTENT_TYPE_BINARY.equals(message.getMessageProperties().getContentType())) {
+            return json.fromMessage(message);
+        }
+        try {
+            return NotificationCodec.decode(ByteBuffer.wrap(message.getBody()));
+        } catch (IllegalArgumentException | BufferUnderflowException e) {
+            throw new MessageConversionException("Malformed binary device data notification", e);
+        }
+    }
+
+    private static boolean isEncodable(DeviceDataNotification notification) {
+        return !notification.hasPayload() || ObjectId.isValid(notification.getDeviceDataId());
+    }
+}
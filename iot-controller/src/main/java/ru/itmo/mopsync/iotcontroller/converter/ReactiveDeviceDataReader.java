@@ -0,0 +1,188 @@
+package ru.itmo.mopsync.iotcontroller.converter;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.github.luben.zstd.ZstdInputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.msgpack.jackson.dataformat.MessagePackFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.server.UnsupportedMediaTypeStatusException;
+import reactor.core.publisher.Mono;
+import ru.itmo.mopsync.iotcontroller.config.IngestCompressionProperties;
+import ru.itmo.mopsync.iotcontroller.exception.Errors;
+import ru.itmo.mopsync.iotcontroller.generated.model.DeviceDataRequest;
+import ru.itmo.mopsync.iotcontroller.metrics.IngestMetrics;
+import ru.itmo.mopsync.iotcontroller.generated.proto.DeviceDataPacket;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads DeviceDataRequest bodies for the reactive ingest endpoint in the formats the servlet endpoint accepts:
+ * JSON, CBOR, MessagePack and Protobuf, optionally gzip or zstd compressed.
+ * The body is collected without blocking and decoded once complete, with the same errors as the
+ * servlet converters and RequestDecompressionFilter; compressed or not, it is bounded by
+ * ingest.compression.max-decompressed-size.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveDeviceDataReader {
+
+    private static final String HTTP = "http";
+    private static final String GZIP = "gzip";
+    private static final String ZSTD = "zstd";
+    private static final String IDENTITY = "identity";
+    private static final List<MediaType> SUPPORTED_MEDIA_TYPES = List.of(MediaType.APPLICATION_JSON,
+            MediaType.APPLICATION_CBOR, MessagePackHttpMessageConverter.APPLICATION_MSGPACK,
+            DeviceDataProtobufHttpMessageConverter.APPLICATION_PROTOBUF);
+
+    private final ObjectMapper jsonMapper;
+    private final ObjectMapper cborMapper;
+    private final ObjectMapper msgpackMapper;
+    private final IngestCompressionProperties compressionProperties;
+    private final IngestMetrics ingestMetrics;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Constructor for ReactiveDeviceDataReader.
+     *
+     * @param objectMapper          application JSON mapper
+     * @param objectMapperBuilder   builder of the binary format mappers, with the application modules
+     * @param compressionProperties compressed request body properties
+     * @param ingestMetrics         ingest pipeline metrics
+     * @param meterRegistry         meter registry for request body metrics
+     */
+    public ReactiveDeviceDataReader(ObjectMapper objectMapper, Jackson2ObjectMapperBuilder objectMapperBuilder,
+                                    IngestCompressionProperties compressionProperties, IngestMetrics ingestMetrics,
+                                    MeterRegistry meterRegistry) {
+        this.jsonMapper = objectMapper;
+        this.cborMapper = objectMapperBuilder.factory(new CBORFactory()).build();
+        this.msgpackMapper = objectMapperBuilder.factory(new MessagePackFactory()).build();
+        this.compressionProperties = compressionProperties;
+        this.ingestMetrics = ingestMetrics;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Reads the request body.
+     *
+     * @param request server request
+     * @return device data request, or an error with the BaseException the servlet endpoint responds with
+     */
+    public Mono<DeviceDataRequest> read(ServerRequest request) {
+        MediaType contentType = request.headers().contentType().orElse(MediaType.APPLICATION_OCTET_STREAM);
+        if (!isSupported(contentType)) {
+            return Mono.error(new UnsupportedMediaTypeStatusException(contentType, SUPPORTED_MEDIA_TYPES));
+        }
+        String encoding = encodingOf(request);
+        if (encoding != null && !GZIP.equals(encoding) && !ZSTD.equals(encoding)) {
+            return Mono.error(Errors.unsupportedContentEncodingError(encoding));
+        }
+        long maxSize = compressionProperties.getMaxDecompressedSize().toBytes();
+        return DataBufferUtils.join(request.bodyToFlux(DataBuffer.class), (int) Math.min(maxSize, Integer.MAX_VALUE))
+                .onErrorMap(DataBufferLimitException.class, e -> Errors.payloadTooLargeError(maxSize))
+                .map(buffer -> {
+                    try {
+                        byte[] body = new byte[buffer.readableByteCount()];
+                        buffer.read(body);
+                        return body;
+                    } finally {
+                        DataBufferUtils.release(buffer);
+                    }
+                })
+                .switchIfEmpty(Mono.error(() -> Errors.invalidRequestBodyError("Required request body is missing")))
+                .map(body -> decode(contentType, encoding, body, maxSize));
+    }
+
+    private DeviceDataRequest decode(MediaType contentType, String encoding, byte[] body, long maxSize) {
+        long start = System.nanoTime();
+        byte[] decoded = encoding != null ? decompress(encoding, body, maxSize) : body;
+        DeviceDataRequest request;
+        try {
+            request = parse(contentType, decoded);
+        } catch (JsonProcessingException e) {
+            throw Errors.invalidJsonError();
+        } catch (InvalidProtocolBufferException e) {
+            throw Errors.invalidRequestBodyError("Invalid protobuf in request body");
+        } catch (IOException e) {
+            throw Errors.invalidRequestBodyError(e.getMessage());
+        }
+        ingestMetrics.recordStage(IngestMetrics.DESERIALIZE, System.nanoTime() - start);
+        ingestMetrics.recordPayloadSize(HTTP, decoded.length);
+        ingestMetrics.recordPacketReadings(HTTP, 1);
+        return request;
+    }
+
+    private DeviceDataRequest parse(MediaType contentType, byte[] body) throws IOException {
+        if (DeviceDataProtobufHttpMessageConverter.APPLICATION_PROTOBUF.isCompatibleWith(contentType)) {
+            return DeviceDataProtobufHttpMessageConverter.toRequest(DeviceDataPacket.parseFrom(body));
+        }
+        return mapperFor(contentType).readValue(body, DeviceDataRequest.class);
+    }
+
+    private byte[] decompress(String encoding, byte[] body, long maxSize) {
+        counter(encoding, "compressed").increment(body.length);
+        try (InputStream in = GZIP.equals(encoding)
+                ? new GZIPInputStream(new ByteArrayInputStream(body))
+                : new ZstdInputStream(new ByteArrayInputStream(body))) {
+            byte[] decompressed = in.readNBytes((int) Math.min(maxSize + 1, Integer.MAX_VALUE - 8));
+            counter(encoding, "decompressed").increment(decompressed.length);
+            if (decompressed.length > maxSize) {
+                throw Errors.payloadTooLargeError(maxSize);
+            }
+            return decompressed;
+        } catch (IOException e) {
+            throw Errors.invalidRequestBodyError("Invalid " + encoding + " request body");
+        }
+    }
+
+    private boolean isSupported(MediaType contentType) {
+        return DeviceDataProtobufHttpMessageConverter.APPLICATION_PROTOBUF.isCompatibleWith(contentType)
+                || mapperFor(contentType) != null;
+    }
+
+    private ObjectMapper mapperFor(MediaType contentType) {
+        if (MediaType.APPLICATION_JSON.isCompatibleWith(contentType)
+                || contentType.getSubtype().endsWith("+json")) {
+            return jsonMapper;
+        }
+        if (MediaType.APPLICATION_CBOR.isCompatibleWith(contentType)) {
+            return cborMapper;
+        }
+        if (MessagePackHttpMessageConverter.APPLICATION_MSGPACK.isCompatibleWith(contentType)) {
+            return msgpackMapper;
+        }
+        return null;
+    }
+
+    private String encodingOf(ServerRequest request) {
+        String encoding = request.headers().firstHeader(HttpHeaders.CONTENT_ENCODING);
+        if (!compressionProperties.isEnabled() || encoding == null || IDENTITY.equalsIgnoreCase(encoding.trim())) {
+            return null;
+        }
+        return encoding.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private Counter counter(String encoding, String type) {
+        return Counter.builder("iot.ingest.request.body.bytes")
+                .description("Request body bytes received with Content-Encoding")
+                .tag("encoding", encoding)
+                .tag("type", type)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,197 @@
+package ru.itmo.mopsync.iotcontroller.decimation;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import ru.itmo.mopsync.iotcontroller.config.DecimationProperties;
+import ru.itmo.mopsync.iotcontroller.model.DeviceDataDocument;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decides which readings of over-reporting devices are stored in MongoDB.
+ * The decision depends on the readings of the same device that arrived before on this instance:
+ * the number of readings since the first one, or the metrics of the last stored reading.
+ * A reading becomes the last stored one once its insert succeeds, so a reading rejected as a duplicate does not
+ * move the baseline. Device states are kept in a cache bounded by the configured number of devices and evicted
+ * after the configured idle time; the next reading of an evicted device is stored.
+ */
+@Component
+public class DecimationPolicy {
+
+    private final DecimationProperties properties;
+    private final List<Map.Entry<String, CompiledGroup>> prefixes = new ArrayList<>();
+    private final Cache<String, DeviceState> states;
+
+    /**
+     * Constructor for DecimationPolicy.
+     *
+     * @param properties    decimation properties
+     * @param meterRegistry meter registry for decimated readings
+     */
+    public DecimationPolicy(DecimationProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.states = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxDevices())
+                .expireAfterAccess(properties.getIdleTimeout())
+                .build();
+        properties.getGroups().forEach((name, group) -> {
+            Counter decimated = Counter.builder("iot.ingest.decimated")
+                    .description("Readings forwarded to rule-engine but not stored")
+                    .tag("group", name)
+                    .register(meterRegistry);
+            CompiledGroup compiled = new CompiledGroup(group, decimated);
+            group.getDevicePrefixes().forEach(prefix -> prefixes.add(Map.entry(prefix, compiled)));
+        });
+        // longest prefix first, so the first match is the most specific one
+        prefixes.sort(Comparator.comparingInt((Map.Entry<String, CompiledGroup> entry) -> entry.getKey().length())
+                .reversed());
+        meterRegistry.gauge("iot.ingest.decimation.devices", states, Cache::estimatedSize);
+    }
+
+    /**
+     * Decides whether a reading is stored; readings of devices outside every group always are.
+     *
+     * @param document reading that is not a known duplicate
+     * @return true if the reading is stored, false if it is only forwarded
+     */
+    public boolean shouldStore(DeviceDataDocument document) {
+        if (!properties.isEnabled() || prefixes.isEmpty()) {
+            return true;
+        }
+        DeviceState state = states.getIfPresent(document.getDeviceId());
+        if (state == null) {
+            CompiledGroup group = groupOf(document.getDeviceId());
+            if (group == null) {
+                return true;
+            }
+            state = states.get(document.getDeviceId(), id -> new DeviceState(group));
+        }
+        boolean store;
+        synchronized (state) {
+            store = state.decide(document);
+        }
+        if (!store) {
+            state.group.decimated().increment();
+        }
+        return store;
+    }
+
+    /**
+     * Makes a reading the last stored reading of its device, once its insert has succeeded.
+     *
+     * @param document stored reading
+     */
+    public void markStored(DeviceDataDocument document) {
+        DeviceState state = states.getIfPresent(document.getDeviceId());
+        if (state == null) {
+            return;
+        }
+        synchronized (state) {
+            state.stored(document);
+        }
+    }
+
+    /**
+     * Runs the pending evictions, which the cache otherwise performs asynchronously.
+     */
+    void cleanUp() {
+        states.cleanUp();
+    }
+
+    /**
+     * Forgets the readings of all devices.
+     */
+    public void clear() {
+        states.invalidateAll();
+    }
+
+    private CompiledGroup groupOf(String deviceId) {
+        for (Map.Entry<String, CompiledGroup> prefix : prefixes) {
+            if (deviceId.startsWith(prefix.getKey())) {
+                return prefix.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Decimation policy of a group with its counter.
+     */
+    private record CompiledGroup(DecimationProperties.Group group, Counter decimated) {
+    }
+
+    /**
+     * Readings of one device seen so far. Not thread-safe, callers synchronize on the state.
+     */
+    private static final class DeviceState {
+
+        private final CompiledGroup group;
+        private final Map<String, Object> stored = new HashMap<>();
+        private long received;
+        private OffsetDateTime storedAt;
+        private boolean storedOnce;
+
+        DeviceState(CompiledGroup group) {
+            this.group = group;
+        }
+
+        boolean decide(DeviceDataDocument document) {
+            DecimationProperties.Group policy = group.group();
+            long index = received++;
+            return !storedOnce || expired(policy.getMaxInterval(), document.getTimestamp())
+                    || keep(policy, index, document.getMetrics());
+        }
+
+        void stored(DeviceDataDocument document) {
+            storedOnce = true;
+            stored.putAll(document.getMetrics());
+            if (document.getTimestamp() != null
+                    && (storedAt == null || document.getTimestamp().isAfter(storedAt))) {
+                storedAt = document.getTimestamp();
+            }
+        }
+
+        private boolean keep(DecimationProperties.Group policy, long index, Map<String, Object> metrics) {
+            return switch (policy.getPolicy()) {
+                case EVERY_NTH -> index % policy.getEvery() == 0;
+                case ON_CHANGE -> changed(policy, metrics, false);
+                case DEADBAND -> changed(policy, metrics, true);
+            };
+        }
+
+        private boolean expired(Duration maxInterval, OffsetDateTime timestamp) {
+            return maxInterval != null && timestamp != null && storedAt != null
+                    && Duration.between(storedAt, timestamp).compareTo(maxInterval) >= 0;
+        }
+
+        private boolean changed(DecimationProperties.Group policy, Map<String, Object> metrics, boolean deadband) {
+            Collection<String> names = policy.getMetrics().isEmpty() ? metrics.keySet() : policy.getMetrics();
+            for (String name : names) {
+                Object value = metrics.get(name);
+                if (value == null) {
+                    continue;
+                }
+                Object last = stored.get(name);
+                if (value instanceof Number number && last instanceof Number lastNumber) {
+                    double delta = Math.abs(number.doubleValue() - lastNumber.doubleValue());
+                    if (deadband ? delta > policy.getDeadband() : delta != 0) {
+                        return true;
+                    }
+                } else if (!value.equals(last)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
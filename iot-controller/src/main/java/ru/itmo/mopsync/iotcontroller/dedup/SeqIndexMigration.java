@@ -0,0 +1,83 @@
+package ru.itmo.mopsync.iotcontroller.dedup;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+import ru.itmo.mopsync.iotcontroller.config.DeduplicationProperties;
+import ru.itmo.mopsync.iotcontroller.model.DeviceDataDocument;
+
+import java.util.List;
+
+/**
+ * Creates the unique (deviceId, seq) index of the device_data collection on start, before readings are accepted.
+ *
+ * <p>Collections written before the index existed may hold several readings with the same (deviceId, seq),
+ * on which the index cannot be built. They are looked up first: by default the start fails with their number,
+ * and with {@code ingest.dedup.remove-duplicates=true} all but the first stored reading of each are deleted,
+ * which is what the index would have let through.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "ingest.storage", name = "type", havingValue = "mongo", matchIfMissing = true)
+public class SeqIndexMigration implements InitializingBean {
+
+    /**
+     * Name of the unique (deviceId, seq) index.
+     */
+    public static final String INDEX_NAME = "device_seq_idx";
+
+    private final MongoTemplate mongoTemplate;
+    private final DeduplicationProperties properties;
+
+    @Override
+    public void afterPropertiesSet() {
+        IndexOperations indexOps = mongoTemplate.indexOps(DeviceDataDocument.class);
+        if (indexOps.getIndexInfo().stream().anyMatch(index -> INDEX_NAME.equals(index.getName()))) {
+            return;
+        }
+        List<Document> duplicates = findDuplicates();
+        if (!duplicates.isEmpty()) {
+            if (!properties.isRemoveDuplicates()) {
+                throw new IllegalStateException(String.format("Cannot create unique index %s: %d (deviceId, seq) "
+                        + "pairs are stored more than once, e.g. %s; set ingest.dedup.remove-duplicates=true "
+                        + "to keep the first reading of each", INDEX_NAME, duplicates.size(),
+                        duplicates.get(0).get("_id")));
+            }
+            long removed = 0;
+            for (Document duplicate : duplicates) {
+                List<?> ids = duplicate.getList("ids", Object.class);
+                removed += mongoTemplate.remove(Query.query(Criteria.where("_id").in(ids.subList(1, ids.size()))),
+                        DeviceDataDocument.class).getDeletedCount();
+            }
+            log.warn("Removed {} readings repeating the (deviceId, seq) of an earlier reading", removed);
+        }
+        indexOps.createIndex(new Index()
+                .on("deviceId", Sort.Direction.ASC)
+                .on("seq", Sort.Direction.ASC)
+                .unique()
+                .named(INDEX_NAME));
+        log.info("Created unique index {}", INDEX_NAME);
+    }
+
+    private List<Document> findDuplicates() {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.sort(Sort.Direction.ASC, "_id"),
+                Aggregation.group("deviceId", "seq").push("_id").as("ids").count().as("count"),
+                Aggregation.match(Criteria.where("count").gt(1)))
+                .withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+        return mongoTemplate.aggregate(aggregation, mongoTemplate.getCollectionName(DeviceDataDocument.class),
+                Document.class).getMappedResults();
+    }
+}
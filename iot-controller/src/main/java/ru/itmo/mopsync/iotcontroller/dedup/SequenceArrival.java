@@ -0,0 +1,28 @@
+package ru.itmo.mopsync.iotcontroller.dedup;
+
+import lombok.Value;
+
+/**
+ * Effects of the arrival of one reading on the counters of its device, returned by
+ * {@link SequenceTracker#track} so they can be taken back if the reading turns out to be a duplicate.
+ */
+@Value
+public class SequenceArrival {
+
+    /**
+     * Sequence number of the reading.
+     */
+    long seq;
+    /**
+     * Highest sequence number that arrived before the reading.
+     */
+    long previousWatermark;
+    /**
+     * Number of sequence numbers the reading skipped, 0 for an in-order reading or -1 for a late one.
+     */
+    long gap;
+    /**
+     * Whether the late reading was counted as filling a missing sequence number.
+     */
+    boolean filledMissing;
+}
@@ -0,0 +1,31 @@
+package ru.itmo.mopsync.iotcontroller.dedup;
+
+import lombok.Value;
+
+/**
+ * Arrival counters of one device since it was first tracked by this instance.
+ */
+@Value
+public class SequenceCounters {
+
+    /**
+     * Highest sequence number that arrived.
+     */
+    long highWatermark;
+    /**
+     * Number of readings that skipped sequence numbers.
+     */
+    long gaps;
+    /**
+     * Skipped sequence numbers that have not arrived late yet.
+     */
+    long missing;
+    /**
+     * Number of readings that arrived after a reading with a higher sequence number.
+     */
+    long late;
+    /**
+     * Number of readings rejected as duplicates.
+     */
+    long duplicates;
+}
@@ -0,0 +1,181 @@
+package ru.itmo.mopsync.iotcontroller.dedup;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import ru.itmo.mopsync.iotcontroller.config.DeduplicationProperties;
+import ru.itmo.mopsync.iotcontroller.model.DeviceDataDocument;
+import ru.itmo.mopsync.iotcontroller.model.SeqOrder;
+
+/**
+ * In-memory tracker of sequence numbers already stored per device.
+ * Answers "was (deviceId, seq) stored?" for recent readings without a MongoDB round trip;
+ * readings older than the window and readings stored by other instances are caught by the unique index.
+ * Also classifies the arrival order of every reading and keeps per-device gap, reorder and duplicate counters;
+ * the counters cover the readings received by this instance only.
+ * Windows are kept in a cache bounded by the configured number of devices and evicted after the configured
+ * idle time; the readings of an evicted device are checked by the unique index and its counters start over.
+ */
+@Component
+public class SequenceTracker {
+
+    private final DeduplicationProperties properties;
+    private final Cache<String, SequenceWindow> windows;
+    private final Counter gaps;
+    private final Counter missing;
+    private final Counter late;
+
+    /**
+     * Constructor for SequenceTracker.
+     *
+     * @param properties    deduplication properties
+     * @param meterRegistry meter registry for the tracked devices gauge and the arrival order counters
+     */
+    public SequenceTracker(DeduplicationProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.windows = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxDevices())
+                .expireAfterAccess(properties.getIdleTimeout())
+                .build();
+        meterRegistry.gauge("iot.ingest.dedup.devices", windows, Cache::estimatedSize);
+        // per-device counts are served by getCounters, tagging meters by device would not scale with the fleet
+        this.gaps = Counter.builder("iot.ingest.seq.gaps")
+                .description("Readings that skipped sequence numbers of their device")
+                .register(meterRegistry);
+        this.missing = Counter.builder("iot.ingest.seq.missing")
+                .description("Sequence numbers skipped by readings")
+                .register(meterRegistry);
+        this.late = Counter.builder("iot.ingest.seq.late")
+                .description("Readings that arrived after a reading of their device with a higher sequence number")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Checks whether the reading is known to be stored already.
+     *
+     * @param deviceId device identifier
+     * @param seq      sequence number
+     * @return true if the reading is a known duplicate
+     */
+    public boolean isDuplicate(String deviceId, long seq) {
+        if (!properties.isEnabled()) {
+            return false;
+        }
+        SequenceWindow window = windows.getIfPresent(deviceId);
+        if (window == null) {
+            return false;
+        }
+        synchronized (window) {
+            if (window.check(seq) != SequenceWindow.SeqState.SEEN) {
+                return false;
+            }
+            window.duplicate();
+            return true;
+        }
+    }
+
+    /**
+     * Classifies the arrival order of a reading that is not a known duplicate and flags the document
+     * with it; in-order readings are left unflagged.
+     * The device counters include the reading from here on; the meters count it once it is stored.
+     *
+     * @param document reading about to be stored
+     * @return effects of the arrival, to pass to {@link #markDuplicate} if the reading is rejected as a duplicate,
+     *         or null if the arrival order is not tracked
+     */
+    public SequenceArrival track(DeviceDataDocument document) {
+        if (!properties.isEnabled() || !properties.isTrackOrder()) {
+            return null;
+        }
+        SequenceWindow window = windows.get(document.getDeviceId(),
+                id -> new SequenceWindow(properties.getWindowSize()));
+        SequenceArrival arrival;
+        synchronized (window) {
+            arrival = window.arrive(document.getSeq());
+        }
+        if (arrival.getGap() == SequenceWindow.LATE) {
+            document.setSeqOrder(SeqOrder.LATE);
+        } else if (arrival.getGap() > 0) {
+            document.setSeqOrder(SeqOrder.GAP);
+            document.setSeqGap(arrival.getGap());
+        }
+        return arrival;
+    }
+
+    /**
+     * Remembers that the reading is stored and counts its arrival order flagged by {@link #track}.
+     *
+     * @param document stored or forwarded reading
+     */
+    public void markSeen(DeviceDataDocument document) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        SequenceWindow window = windows.get(document.getDeviceId(),
+                id -> new SequenceWindow(properties.getWindowSize()));
+        synchronized (window) {
+            window.mark(document.getSeq());
+        }
+        if (document.getSeqOrder() == SeqOrder.LATE) {
+            late.increment();
+        } else if (document.getSeqOrder() == SeqOrder.GAP) {
+            gaps.increment();
+            missing.increment(document.getSeqGap());
+        }
+    }
+
+    /**
+     * Remembers that the reading is stored and counts it as a duplicate, for duplicates found by the unique index.
+     * Takes back the effects of its arrival on the device counters, so a rejected retry is not also counted
+     * as late or as skipping sequence numbers.
+     *
+     * @param document reading rejected as a duplicate
+     * @param arrival  effects returned by {@link #track}, or null
+     */
+    public void markDuplicate(DeviceDataDocument document, SequenceArrival arrival) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        SequenceWindow window = windows.get(document.getDeviceId(),
+                id -> new SequenceWindow(properties.getWindowSize()));
+        synchronized (window) {
+            if (arrival != null) {
+                window.undo(arrival);
+            }
+            window.mark(document.getSeq());
+            window.duplicate();
+        }
+    }
+
+    /**
+     * Returns the arrival counters of a device.
+     *
+     * @param deviceId device identifier
+     * @return counters, or null if the device is not tracked
+     */
+    public SequenceCounters getCounters(String deviceId) {
+        SequenceWindow window = windows.getIfPresent(deviceId);
+        if (window == null) {
+            return null;
+        }
+        synchronized (window) {
+            return window.stats();
+        }
+    }
+
+    /**
+     * Runs the pending evictions, which the cache otherwise performs asynchronously.
+     */
+    void cleanUp() {
+        windows.cleanUp();
+    }
+
+    /**
+     * Forgets all tracked devices.
+     */
+    public void clear() {
+        windows.invalidateAll();
+    }
+}
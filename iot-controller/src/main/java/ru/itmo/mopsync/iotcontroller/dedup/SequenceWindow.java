@@ -0,0 +1,171 @@
+package ru.itmo.mopsync.iotcontroller.dedup;
+
+import java.util.Arrays;
+
+/**
+ * Sliding window of sequence numbers seen from one device.
+ * Keeps the highest seen seq (high-watermark) and a ring bitmap of the last windowSize sequence numbers,
+ * so both retries of recent readings and out-of-order arrivals are classified without a database lookup.
+ * Arrival order is tracked against a separate watermark moved on arrival rather than on store, so readings
+ * stored concurrently are classified in the order they came in.
+ * Not thread-safe, callers synchronize on the window.
+ */
+class SequenceWindow {
+
+    /**
+     * Result of {@link #arrive(long)} for a seq below the arrival watermark.
+     */
+    static final long LATE = -1;
+
+    private final long[] bits;
+    private final int size;
+    private long highWatermark = -1;
+    private long arrivalWatermark = -1;
+    private long gaps;
+    private long missing;
+    private long late;
+    private long duplicates;
+
+    SequenceWindow(int windowSize) {
+        this.bits = new long[(windowSize + Long.SIZE - 1) / Long.SIZE];
+        this.size = bits.length * Long.SIZE;
+    }
+
+    long getHighWatermark() {
+        return highWatermark;
+    }
+
+    /**
+     * Classifies an arriving seq against the highest seq that arrived before it.
+     * A seq above the watermark skips the sequence numbers in between, which are counted as missing
+     * until late readings fill them; a repeat of the watermark is a retry and counts as in order.
+     *
+     * @param seq sequence number of a reading that is not a known duplicate
+     * @return effects of the arrival, with the number of skipped sequence numbers, 0 for an in-order reading
+     *         or LATE
+     */
+    SequenceArrival arrive(long seq) {
+        long previous = arrivalWatermark;
+        if (arrivalWatermark < 0 || seq == arrivalWatermark) {
+            arrivalWatermark = Math.max(arrivalWatermark, seq);
+            return new SequenceArrival(seq, previous, 0, false);
+        }
+        if (seq > arrivalWatermark) {
+            long gap = seq - arrivalWatermark - 1;
+            arrivalWatermark = seq;
+            if (gap > 0) {
+                gaps++;
+                missing += gap;
+            }
+            return new SequenceArrival(seq, previous, gap, false);
+        }
+        late++;
+        boolean filled = missing > 0;
+        if (filled) {
+            missing--;
+        }
+        return new SequenceArrival(seq, previous, LATE, filled);
+    }
+
+    /**
+     * Takes back an arrival of a reading that turned out to be a duplicate.
+     * The watermark is moved back only if no higher seq arrived since; readings that arrived since
+     * keep their classification.
+     *
+     * @param arrival effects returned by {@link #arrive(long)}
+     */
+    void undo(SequenceArrival arrival) {
+        if (arrival.getGap() == LATE) {
+            late = Math.max(0, late - 1);
+            if (arrival.isFilledMissing()) {
+                missing++;
+            }
+            return;
+        }
+        if (arrival.getGap() > 0) {
+            gaps = Math.max(0, gaps - 1);
+            missing = Math.max(0, missing - arrival.getGap());
+        }
+        if (arrivalWatermark == arrival.getSeq()) {
+            arrivalWatermark = arrival.getPreviousWatermark();
+        }
+    }
+
+    /**
+     * Counts a reading rejected as a duplicate.
+     */
+    void duplicate() {
+        duplicates++;
+    }
+
+    /**
+     * Returns the arrival counters of the device.
+     *
+     * @return snapshot of the counters
+     */
+    SequenceCounters stats() {
+        return new SequenceCounters(arrivalWatermark, gaps, missing, late, duplicates);
+    }
+
+    /**
+     * Checks whether seq was seen.
+     *
+     * @param seq sequence number
+     * @return SEEN, UNSEEN or UNKNOWN when seq fell out of the window
+     */
+    SeqState check(long seq) {
+        if (seq > highWatermark) {
+            return SeqState.UNSEEN;
+        }
+        if (highWatermark - seq >= size) {
+            return SeqState.UNKNOWN;
+        }
+        return isSet(seq) ? SeqState.SEEN : SeqState.UNSEEN;
+    }
+
+    /**
+     * Marks seq as seen, sliding the window forward when seq is above the high-watermark.
+     *
+     * @param seq sequence number
+     */
+    void mark(long seq) {
+        if (seq > highWatermark) {
+            long shift = highWatermark < 0 ? size : seq - highWatermark;
+            if (shift >= size) {
+                Arrays.fill(bits, 0L);
+            } else {
+                for (long s = highWatermark + 1; s < seq; s++) {
+                    clear(s);
+                }
+            }
+            highWatermark = seq;
+        } else if (highWatermark - seq >= size) {
+            return;
+        }
+        set(seq);
+    }
+
+    private boolean isSet(long seq) {
+        int bit = (int) Math.floorMod(seq, (long) size);
+        return (bits[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    private void set(long seq) {
+        int bit = (int) Math.floorMod(seq, (long) size);
+        bits[bit >>> 6] |= 1L << bit;
+    }
+
+    private void clear(long seq) {
+        int bit = (int) Math.floorMod(seq, (long) size);
+        bits[bit >>> 6] &= ~(1L << bit);
+    }
+
+    /**
+     * Result of a window lookup.
+     */
+    enum SeqState {
+        SEEN,
+        UNSEEN,
+        UNKNOWN
+    }
+}
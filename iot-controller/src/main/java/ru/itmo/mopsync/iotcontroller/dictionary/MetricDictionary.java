@@ -0,0 +1,129 @@
+package ru.itmo.mopsync.iotcontroller.dictionary;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+import ru.itmo.mopsync.iotcontroller.model.MetricNameDocument;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Persisted dictionary of metric names with an in-memory cache in both directions.
+ * Ids are assigned densely from 0; concurrent assignments by several instances are resolved
+ * by the unique indexes on id and name, so every name gets exactly one id.
+ * Entries are never changed or removed, so cached entries never go stale.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MetricDictionary {
+
+    /**
+     * Field of dictionary-encoded metrics in stored readings, keyed by the decimal metric id.
+     */
+    public static final String ENCODED_FIELD = "m";
+
+    private final MongoTemplate mongoTemplate;
+    private final Map<String, Integer> idsByName = new ConcurrentHashMap<>();
+    private final Map<Integer, String> namesById = new ConcurrentHashMap<>();
+    // not synchronized: a request waiting on MongoDB inside a monitor would pin its virtual thread to the carrier
+    private final ReentrantLock assignLock = new ReentrantLock();
+
+    /**
+     * Returns the id of the metric name, assigning a new one on first use.
+     *
+     * @param name metric name
+     * @return metric id
+     */
+    public int idOf(String name) {
+        Integer id = idsByName.get(name);
+        return id != null ? id : assign(name);
+    }
+
+    /**
+     * Tells whether the id of the metric name is known without a MongoDB lookup.
+     *
+     * @param name metric name
+     * @return true if the id is cached
+     */
+    public boolean isCached(String name) {
+        return idsByName.containsKey(name);
+    }
+
+    /**
+     * Returns the id of the metric name if one is assigned.
+     *
+     * @param name metric name
+     * @return metric id, or null for a name never stored in dictionary form
+     */
+    public Integer findId(String name) {
+        Integer id = idsByName.get(name);
+        if (id != null) {
+            return id;
+        }
+        MetricNameDocument entry = mongoTemplate.findOne(byName(name), MetricNameDocument.class);
+        return entry != null ? cache(entry) : null;
+    }
+
+    /**
+     * Returns the metric name of the id.
+     *
+     * @param id metric id
+     * @return metric name
+     * @throws IllegalStateException if the id is not in the dictionary
+     */
+    public String nameOf(int id) {
+        String name = namesById.get(id);
+        if (name != null) {
+            return name;
+        }
+        MetricNameDocument entry = mongoTemplate.findById(id, MetricNameDocument.class);
+        if (entry == null) {
+            throw new IllegalStateException("Unknown metric id " + id);
+        }
+        cache(entry);
+        return entry.getName();
+    }
+
+    private int assign(String name) {
+        assignLock.lock();
+        try {
+            while (true) {
+                MetricNameDocument existing = mongoTemplate.findOne(byName(name), MetricNameDocument.class);
+                if (existing != null) {
+                    return cache(existing);
+                }
+                MetricNameDocument last = mongoTemplate.findOne(
+                        new Query().with(Sort.by(Sort.Direction.DESC, "_id")).limit(1), MetricNameDocument.class);
+                MetricNameDocument entry = new MetricNameDocument(last != null ? last.getId() + 1 : 0, name);
+                try {
+                    mongoTemplate.insert(entry);
+                    log.info("Assigned metric id {} to {}", entry.getId(), name);
+                    return cache(entry);
+                } catch (DuplicateKeyException e) {
+                    // another instance took the id or already assigned the name, look again
+                    log.debug("Metric id {} for {} is taken: {}", entry.getId(), name, e.getMessage());
+                }
+            }
+        } finally {
+            assignLock.unlock();
+        }
+    }
+
+    private int cache(MetricNameDocument entry) {
+        idsByName.put(entry.getName(), entry.getId());
+        namesById.put(entry.getId(), entry.getName());
+        return entry.getId();
+    }
+
+    private static Query byName(String name) {
+        return new Query(Criteria.where("name").is(name));
+    }
+}
@@ -0,0 +1,64 @@
+package ru.itmo.mopsync.iotcontroller.dictionary;
+
+import org.bson.Document;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.mongodb.core.mapping.event.AfterConvertCallback;
+import org.springframework.data.mongodb.core.mapping.event.BeforeSaveCallback;
+import org.springframework.stereotype.Component;
+import ru.itmo.mopsync.iotcontroller.config.MetricDictionaryProperties;
+import ru.itmo.mopsync.iotcontroller.model.DeviceDataDocument;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Entity callbacks translating metrics of stored readings between names and dictionary ids.
+ * With the dictionary mode enabled, the metrics map is written as a sub-document keyed by metric ids;
+ * readings in either form are read back with metric names, so callers never see the ids.
+ */
+@Component
+public class MetricDictionaryCallbacks implements BeforeSaveCallback<DeviceDataDocument>,
+        AfterConvertCallback<DeviceDataDocument> {
+
+    private static final String METRICS_FIELD = "metrics";
+
+    private final MetricDictionary dictionary;
+    private final MetricDictionaryProperties properties;
+
+    /**
+     * Constructor for MetricDictionaryCallbacks.
+     *
+     * @param dictionary metric dictionary, lazy since callbacks are created with the MongoTemplate it uses
+     * @param properties metric dictionary properties
+     */
+    public MetricDictionaryCallbacks(@Lazy MetricDictionary dictionary, MetricDictionaryProperties properties) {
+        this.dictionary = dictionary;
+        this.properties = properties;
+    }
+
+    @Override
+    public DeviceDataDocument onBeforeSave(DeviceDataDocument entity, Document document, String collection) {
+        if (!properties.isEnabled() || !(document.get(METRICS_FIELD) instanceof Document metrics)) {
+            return entity;
+        }
+        // only the stored document is rewritten, the entity keeps metric names for the rest of the ingest path
+        Document encoded = new Document();
+        metrics.forEach((name, value) -> encoded.put(String.valueOf(dictionary.idOf(name)), value));
+        document.remove(METRICS_FIELD);
+        document.put(MetricDictionary.ENCODED_FIELD, encoded);
+        return entity;
+    }
+
+    @Override
+    public DeviceDataDocument onAfterConvert(DeviceDataDocument entity, Document document, String collection) {
+        if (!(document.get(MetricDictionary.ENCODED_FIELD) instanceof Document encoded)) {
+            return entity;
+        }
+        Map<String, Object> metrics = entity.getMetrics() != null
+                ? new LinkedHashMap<>(entity.getMetrics())
+                : new LinkedHashMap<>();
+        encoded.forEach((id, value) -> metrics.put(dictionary.nameOf(Integer.parseInt(id)), value));
+        entity.setMetrics(metrics);
+        return entity;
+    }
+}
@@ -0,0 +1,55 @@
+package ru.itmo.mopsync.iotcontroller.dictionary;
+
+import org.bson.Document;
+import org.reactivestreams.Publisher;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.mongodb.core.mapping.event.ReactiveBeforeSaveCallback;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import ru.itmo.mopsync.iotcontroller.config.MetricDictionaryProperties;
+import ru.itmo.mopsync.iotcontroller.model.DeviceDataDocument;
+
+/**
+ * Dictionary encoding of {@link MetricDictionaryCallbacks} for readings saved through ReactiveMongoTemplate.
+ * Metrics with cached ids are encoded in place; a reading with a metric seen for the first time is encoded
+ * on the bounded elastic scheduler, since assigning its id queries MongoDB through the blocking template.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveMetricDictionaryCallbacks implements ReactiveBeforeSaveCallback<DeviceDataDocument> {
+
+    private static final String METRICS_FIELD = "metrics";
+
+    private final MetricDictionaryCallbacks callbacks;
+    private final MetricDictionary dictionary;
+    private final MetricDictionaryProperties properties;
+
+    /**
+     * Constructor for ReactiveMetricDictionaryCallbacks.
+     *
+     * @param callbacks  blocking dictionary callbacks doing the encoding
+     * @param dictionary metric dictionary, lazy like in {@link MetricDictionaryCallbacks}
+     * @param properties metric dictionary properties
+     */
+    public ReactiveMetricDictionaryCallbacks(MetricDictionaryCallbacks callbacks, @Lazy MetricDictionary dictionary,
+                                             MetricDictionaryProperties properties) {
+        this.callbacks = callbacks;
+        this.dictionary = dictionary;
+        this.properties = properties;
+    }
+
+    @Override
+    public Publisher<DeviceDataDocument> onBeforeSave(DeviceDataDocument entity, Document document,
+                                                      String collection) {
+        if (!properties.isEnabled() || !(document.get(METRICS_FIELD) instanceof Document metrics)) {
+            return Mono.just(entity);
+        }
+        if (metrics.keySet().stream().allMatch(dictionary::isCached)) {
+            return Mono.just(callbacks.onBeforeSave(entity, document, collection));
+        }
+        return Mono.fromCallable(() -> callbacks.onBeforeSave(entity, document, collection))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+}
@@ -1,5 +1,7 @@
 package ru.itmo.mopsync.iotcontroller.exception;
 
+import java.time.Duration;
+
 /**
  * Class describing all errors that occur in the application.
  */
@@ -33,4 +35,67 @@ public class Errors {
         return new BaseException(400, "invalid.request.body.error",
                 message != null ? message : "Invalid request body");
     }
+
+    /**
+     * No readings of the device are known.
+     */
+    public static BaseException deviceNotFoundError(String deviceId) {
+        return new BaseException(400, "device.not.found",
+                "Device not found: " + deviceId);
+    }
+
+    /**
+     * Pagination cursor is malformed.
+     */
+    public static BaseException invalidCursorError() {
+        return new BaseException(400, "invalid.cursor.error", "Invalid pagination cursor");
+    }
+
+    /**
+     * Stored readings are queried from MongoDB, which the local store does not write.
+     */
+    public static BaseException localStoreQueryError() {
+        return new BaseException(501, "local.store.query.error",
+                "Readings are not queryable with the local store");
+    }
+
+    /**
+     * Unsupported Content-Encoding of request body.
+     */
+    public static BaseException unsupportedContentEncodingError(String encoding) {
+        return new BaseException(415, "unsupported.content.encoding.error",
+                String.format("Unsupported content encoding: %s", encoding));
+    }
+
+    /**
+     * Decompressed request body exceeds configured limit.
+     */
+    public static BaseException payloadTooLargeError(long maxSize) {
+        return new BaseException(413, "payload.too.large.error",
+                String.format("Decompressed request body exceeds %d bytes", maxSize));
+    }
+
+    /**
+     * Per-connection inbox of the device data stream is full.
+     */
+    public static BaseException streamInboxFullError(int capacity) {
+        return new BaseException(429, "stream.inbox.full.error",
+                String.format("Stream inbox of %d readings is full, slow down", capacity));
+    }
+
+    /**
+     * Device exceeded its ingest rate limit.
+     */
+    public static RetryLaterException deviceRateLimitError(String deviceId, Duration retryAfter) {
+        return new RetryLaterException(429, "device.rate.limit.error",
+                String.format("Device %s exceeded its rate limit", deviceId), retryAfter);
+    }
+
+    /**
+     * Service is overloaded and sheds incoming requests.
+     */
+    public static RetryLaterException serviceOverloadedError(Duration retryAfter) {
+        return new RetryLaterException(503, "service.overloaded.error",
+                "Service is overloaded, retry later", retryAfter);
+    }
 }
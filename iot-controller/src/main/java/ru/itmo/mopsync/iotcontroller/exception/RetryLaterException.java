@@ -0,0 +1,27 @@
+package ru.itmo.mopsync.iotcontroller.exception;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Exception for requests rejected because of load; the client may retry after the given delay.
+ * Returned with a Retry-After header.
+ */
+@Getter
+public class RetryLaterException extends BaseException {
+    private final Duration retryAfter;
+
+    /**
+     * Constructor for RetryLaterException.
+     *
+     * @param code         HTTP status code
+     * @param message      error code identifier
+     * @param humanMessage human-readable error message
+     * @param retryAfter   delay after which the request may be retried
+     */
+    public RetryLaterException(int code, String message, String humanMessage, Duration retryAfter) {
+        super(code, message, humanMessage);
+        this.retryAfter = retryAfter;
+    }
+}
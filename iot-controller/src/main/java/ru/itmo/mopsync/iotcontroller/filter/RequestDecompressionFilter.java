@@ -0,0 +1,281 @@
+package ru.itmo.mopsync.iotcontroller.filter;
+
+import com.github.luben.zstd.ZstdInputStream;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import ru.itmo.mopsync.iotcontroller.config.IngestCompressionProperties;
+import ru.itmo.mopsync.iotcontroller.exception.Errors;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Filter transparently decompressing gzip and zstd request bodies.
+ * Decompression is streamed and bounded by ingest.compression.max-decompressed-size.
+ * Errors are raised on first body read, so they are handled by ControllerExceptionHandler.
+ * Non-blocking reads with a ReadListener are supported as well: the compressed body is collected as it arrives,
+ * bounded by the same limit, and the listener is notified once it is decompressed.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RequestDecompressionFilter extends OncePerRequestFilter {
+
+    private static final String GZIP = "gzip";
+    private static final String ZSTD = "zstd";
+    private static final String IDENTITY = "identity";
+
+    private final IngestCompressionProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String encoding = request.getHeader(HttpHeaders.CONTENT_ENCODING);
+        return !properties.isEnabled() || encoding == null || IDENTITY.equalsIgnoreCase(encoding.trim());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String encoding = request.getHeader(HttpHeaders.CONTENT_ENCODING).trim().toLowerCase(Locale.ROOT);
+        log.debug("Decompressing {} request body for {}", encoding, request.getRequestURI());
+        chain.doFilter(new DecompressingRequest(request, encoding), response);
+    }
+
+    /**
+     * Request wrapper exposing decompressed body and hiding encoding-related headers.
+     */
+    private class DecompressingRequest extends HttpServletRequestWrapper {
+
+        private final String encoding;
+        private ServletInputStream inputStream;
+
+        DecompressingRequest(HttpServletRequest request, String encoding) {
+            super(request);
+            this.encoding = encoding;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (inputStream == null) {
+                if (!GZIP.equals(encoding) && !ZSTD.equals(encoding)) {
+                    throw Errors.unsupportedContentEncodingError(encoding);
+                }
+                inputStream = new DecompressingInputStream(super.getInputStream(), encoding,
+                        properties.getMaxDecompressedSize().toBytes(), counter("compressed"), counter("decompressed"));
+            }
+            return inputStream;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return isHiddenHeader(name) ? null : super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            return isHiddenHeader(name) ? Collections.emptyEnumeration() : super.getHeaders(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaderNames() {
+            return Collections.enumeration(Collections.list(super.getHeaderNames()).stream()
+                    .filter(name -> !isHiddenHeader(name))
+                    .toList());
+        }
+
+        @Override
+        public int getContentLength() {
+            return -1;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return -1;
+        }
+
+        private Counter counter(String type) {
+            return Counter.builder("iot.ingest.request.body.bytes")
+                    .description("Request body bytes received with Content-Encoding")
+                    .tag("encoding", encoding)
+                    .tag("type", type)
+                    .register(meterRegistry);
+        }
+
+        private boolean isHiddenHeader(String name) {
+            return HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name)
+                    || HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name);
+        }
+    }
+
+    /**
+     * Input stream counting bytes read from the delegate.
+     */
+    private static class CountingInputStream extends FilterInputStream {
+
+        private final Counter counter;
+
+        CountingInputStream(InputStream in, Counter counter) {
+            super(in);
+            this.counter = counter;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                counter.increment();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                counter.increment(n);
+            }
+            return n;
+        }
+    }
+
+    /**
+     * Servlet input stream over decompressed data, failing once the size limit is exceeded.
+     * Blocking reads decompress the body as it is read. With a read listener the compressed body is collected
+     * from the non-blocking request stream first, and the listener is called once it is complete.
+     */
+    private static class DecompressingInputStream extends ServletInputStream {
+
+        private static final int CHUNK_SIZE = 8192;
+
+        private final ServletInputStream compressed;
+        private final String encoding;
+        private final long maxSize;
+        private final Counter compressedCounter;
+        private final Counter counter;
+        private InputStream delegate;
+        private boolean async;
+        private long total;
+        private boolean finished;
+
+        DecompressingInputStream(ServletInputStream compressed, String encoding, long maxSize,
+                                 Counter compressedCounter, Counter counter) {
+            this.compressed = compressed;
+            this.encoding = encoding;
+            this.maxSize = maxSize;
+            this.compressedCounter = compressedCounter;
+            this.counter = counter;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            int n = read(single, 0, 1);
+            return n < 0 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (delegate == null) {
+                if (async) {
+                    throw new IllegalStateException("Request body is not ready, wait for onDataAvailable");
+                }
+                delegate = decompress(new CountingInputStream(compressed, compressedCounter));
+            }
+            int n = delegate.read(b, off, (int) Math.min(len, maxSize - total + 1));
+            if (n < 0) {
+                finished = true;
+                return n;
+            }
+            total += n;
+            counter.increment(n);
+            if (total > maxSize) {
+                throw Errors.payloadTooLargeError(maxSize);
+            }
+            return n;
+        }
+
+        @Override
+        public boolean isFinished() {
+            return finished;
+        }
+
+        @Override
+        public boolean isReady() {
+            return !async || delegate != null;
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            if (async || delegate != null) {
+                throw new IllegalStateException("Request body is already being read");
+            }
+            async = true;
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            compressed.setReadListener(new ReadListener() {
+                @Override
+                public void onDataAvailable() throws IOException {
+                    byte[] chunk = new byte[CHUNK_SIZE];
+                    while (compressed.isReady()) {
+                        int n = compressed.read(chunk);
+                        if (n < 0) {
+                            return;
+                        }
+                        body.write(chunk, 0, n);
+                        compressedCounter.increment(n);
+                        if (body.size() > maxSize) {
+                            throw Errors.payloadTooLargeError(maxSize);
+                        }
+                    }
+                }
+
+                @Override
+                public void onAllDataRead() throws IOException {
+                    delegate = decompress(new ByteArrayInputStream(body.toByteArray()));
+                    // the whole body is in memory, so the listener reads it to the end at once
+                    readListener.onDataAvailable();
+                    if (finished) {
+                        readListener.onAllDataRead();
+                    }
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    readListener.onError(t);
+                }
+            });
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (delegate != null) {
+                delegate.close();
+            } else {
+                compressed.close();
+            }
+        }
+
+        private InputStream decompress(InputStream in) throws IOException {
+            return GZIP.equals(encoding) ? new GZIPInputStream(in) : new ZstdInputStream(in);
+        }
+    }
+}
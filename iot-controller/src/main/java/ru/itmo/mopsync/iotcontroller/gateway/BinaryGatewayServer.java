@@ -0,0 +1,197 @@
+package ru.itmo.mopsync.iotcontroller.gateway;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.FixedRecvByteBufAllocator;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.DatagramPacket;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioDatagramChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import ru.itmo.mopsync.iotcontroller.config.BinaryGatewayProperties;
+
+import java.net.InetSocketAddress;
+
+/**
+ * Netty server accepting compact binary readings over TCP and UDP (see BinaryReadingCodec).
+ * TCP streams are split into frames by the u16 length prefix; each UDP datagram may carry several frames.
+ * Frames are decoded from pooled direct buffers via slices, without copying the payload.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "ingest.binary-gateway", name = "enabled", havingValue = "true")
+public class BinaryGatewayServer implements SmartLifecycle {
+
+    private static final String TCP = "tcp";
+    private static final String UDP = "udp";
+    private static final int MAX_DATAGRAM_SIZE = 65536;
+    private static final int UDP_RECEIVE_BUFFER_SIZE = 4 * 1024 * 1024;
+
+    private final BinaryGatewayProperties properties;
+    private final GatewayIngestProcessor processor;
+
+    private EventLoopGroup bossGroup;
+    private EventLoopGroup workerGroup;
+    private Channel tcpChannel;
+    private Channel udpChannel;
+
+    @Override
+    public void start() {
+        bossGroup = new NioEventLoopGroup(1);
+        workerGroup = new NioEventLoopGroup(properties.getIoThreads());
+        FrameHandler tcpHandler = new FrameHandler();
+
+        ServerBootstrap tcp = new ServerBootstrap()
+                .group(bossGroup, workerGroup)
+                .channel(NioServerSocketChannel.class)
+                .childOption(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+                .childOption(ChannelOption.TCP_NODELAY, true)
+                .childHandler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel channel) {
+                        channel.pipeline().addLast(
+                                new LengthFieldBasedFrameDecoder(properties.getMaxFrameLength(),
+                                        0, BinaryReadingCodec.LENGTH_FIELD_SIZE,
+                                        0, BinaryReadingCodec.LENGTH_FIELD_SIZE),
+                                tcpHandler);
+                    }
+                });
+
+        Bootstrap udp = new Bootstrap()
+                .group(workerGroup)
+                .channel(NioDatagramChannel.class)
+                .option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+                .option(ChannelOption.RCVBUF_ALLOCATOR, new FixedRecvByteBufAllocator(MAX_DATAGRAM_SIZE))
+                .option(ChannelOption.SO_RCVBUF, UDP_RECEIVE_BUFFER_SIZE)
+                .handler(new DatagramHandler());
+        try {
+            tcpChannel = tcp.bind(properties.getTcpPort()).syncUninterruptibly().channel();
+            udpChannel = udp.bind(properties.getUdpPort()).syncUninterruptibly().channel();
+        } catch (Exception e) {
+            // release the channel bound before the failure and the event loops, so nothing is left running
+            release();
+            throw new IllegalStateException(String.format("Cannot bind binary gateway to tcp port %d and udp port %d",
+                    properties.getTcpPort(), properties.getUdpPort()), e);
+        }
+
+        log.info("Binary gateway started on tcp port {} and udp port {}", getTcpPort(), getUdpPort());
+    }
+
+    @Override
+    public void stop() {
+        boolean running = isRunning();
+        release();
+        if (running) {
+            log.info("Binary gateway stopped");
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return tcpChannel != null && udpChannel != null;
+    }
+
+    /**
+     * Returns the bound TCP port.
+     *
+     * @return TCP port
+     */
+    public int getTcpPort() {
+        return ((InetSocketAddress) tcpChannel.localAddress()).getPort();
+    }
+
+    /**
+     * Returns the bound UDP port.
+     *
+     * @return UDP port
+     */
+    public int getUdpPort() {
+        return ((InetSocketAddress) udpChannel.localAddress()).getPort();
+    }
+
+    /**
+     * Closes the bound channels and shuts the event loops down, whichever of them were started.
+     */
+    private void release() {
+        if (tcpChannel != null) {
+            tcpChannel.close().syncUninterruptibly();
+            tcpChannel = null;
+        }
+        if (udpChannel != null) {
+            udpChannel.close().syncUninterruptibly();
+            udpChannel = null;
+        }
+        if (bossGroup != null) {
+            bossGroup.shutdownGracefully().syncUninterruptibly();
+            bossGroup = null;
+        }
+        if (workerGroup != null) {
+            workerGroup.shutdownGracefully().syncUninterruptibly();
+            workerGroup = null;
+        }
+    }
+
+    /**
+     * Handles TCP frames already split by LengthFieldBasedFrameDecoder.
+     */
+    @ChannelHandler.Sharable
+    private class FrameHandler extends SimpleChannelInboundHandler<ByteBuf> {
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, ByteBuf frame) {
+            processor.countBytes(TCP, frame.readableBytes() + BinaryReadingCodec.LENGTH_FIELD_SIZE);
+            processor.countFrames(TCP, 1);
+            processor.submit(frame, TCP);
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            log.warn("Closing tcp connection from {}: {}", ctx.channel().remoteAddress(), cause.getMessage());
+            processor.rejectMalformed(TCP);
+            ctx.close();
+        }
+    }
+
+    /**
+     * Handles UDP datagrams, each carrying one or more length-prefixed frames.
+     */
+    private class DatagramHandler extends SimpleChannelInboundHandler<DatagramPacket> {
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, DatagramPacket packet) {
+            ByteBuf content = packet.content();
+            processor.countBytes(UDP, content.readableBytes());
+            int frames = 0;
+            while (content.isReadable()) {
+                if (content.readableBytes() < BinaryReadingCodec.LENGTH_FIELD_SIZE) {
+                    processor.rejectMalformed(UDP);
+                    return;
+                }
+                int length = content.readUnsignedShort();
+                if (length > content.readableBytes() || length > properties.getMaxFrameLength()) {
+                    processor.rejectMalformed(UDP);
+                    return;
+                }
+                processor.submit(content.readSlice(length), UDP);
+                frames++;
+            }
+            processor.countFrames(UDP, frames);
+        }
+    }
+}
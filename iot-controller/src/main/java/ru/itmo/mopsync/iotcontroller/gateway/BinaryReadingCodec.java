@@ -0,0 +1,141 @@
+package ru.itmo.mopsync.iotcontroller.gateway;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.CorruptedFrameException;
+import ru.itmo.mopsync.iotcontroller.generated.model.DeviceDataRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Codec for the compact binary reading format accepted by the TCP/UDP gateway.
+ * All integers are big-endian, strings are UTF-8:
+ * <pre>
+ * frame   := u16 length, payload
+ * payload := u8 version (1), u8 idLength, deviceId, i64 timestampMillis, i64 seq, u8 metricCount, metric*
+ * metric  := u8 nameLength, name, u8 type, value
+ * value   := f64 (type 0) | i64 (type 1) | u16 length, text (type 2)
+ * </pre>
+ */
+public final class BinaryReadingCodec {
+
+    /**
+     * Current format version.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * Size of the frame length prefix in bytes.
+     */
+    public static final int LENGTH_FIELD_SIZE = 2;
+
+    private static final int TYPE_NUMBER = 0;
+    private static final int TYPE_INTEGER = 1;
+    private static final int TYPE_TEXT = 2;
+
+    private BinaryReadingCodec() {
+    }
+
+    /**
+     * Decodes frame payload (without length prefix) into a request.
+     * Strings are decoded straight from the buffer, no intermediate byte arrays are created.
+     *
+     * @param payload frame payload
+     * @return decoded device data request
+     * @throws CorruptedFrameException if payload is malformed
+     */
+    public static DeviceDataRequest decode(ByteBuf payload) {
+        try {
+            int version = payload.readUnsignedByte();
+            if (version != VERSION) {
+                throw new CorruptedFrameException("Unsupported frame version: " + version);
+            }
+            String deviceId = readString(payload, payload.readUnsignedByte());
+            long timestampMillis = payload.readLong();
+            long seq = payload.readLong();
+            int metricCount = payload.readUnsignedByte();
+
+            Map<String, Object> metrics = new LinkedHashMap<>();
+            for (int i = 0; i < metricCount; i++) {
+                String name = readString(payload, payload.readUnsignedByte());
+                metrics.put(name, readValue(payload));
+            }
+            if (payload.isReadable()) {
+                throw new CorruptedFrameException("Unexpected trailing bytes: " + payload.readableBytes());
+            }
+
+            return new DeviceDataRequest()
+                    .deviceId(deviceId)
+                    .timestamp(OffsetDateTime.ofInstant(Instant.ofEpochMilli(timestampMillis), ZoneOffset.UTC))
+                    .seq(seq)
+                    .metrics(metrics);
+        } catch (IndexOutOfBoundsException e) {
+            throw new CorruptedFrameException("Truncated frame", e);
+        }
+    }
+
+    /**
+     * Encodes request as a length-prefixed frame.
+     *
+     * @param request device data request
+     * @param out     buffer to write the frame to
+     */
+    public static void encode(DeviceDataRequest request, ByteBuf out) {
+        int lengthIndex = out.writerIndex();
+        out.writeShort(0);
+        out.writeByte(VERSION);
+        writeString(out, request.getDeviceId(), 1);
+        out.writeLong(request.getTimestamp().toInstant().toEpochMilli());
+        out.writeLong(request.getSeq());
+        out.writeByte(request.getMetrics().size());
+        request.getMetrics().forEach((name, value) -> {
+            writeString(out, name, 1);
+            if (value instanceof Integer || value instanceof Long) {
+                out.writeByte(TYPE_INTEGER).writeLong(((Number) value).longValue());
+            } else if (value instanceof Number number) {
+                out.writeByte(TYPE_NUMBER).writeDouble(number.doubleValue());
+            } else {
+                out.writeByte(TYPE_TEXT);
+                writeString(out, String.valueOf(value), 2);
+            }
+        });
+        out.setShort(lengthIndex, out.writerIndex() - lengthIndex - LENGTH_FIELD_SIZE);
+    }
+
+    private static Object readValue(ByteBuf payload) {
+        int type = payload.readUnsignedByte();
+        return switch (type) {
+            case TYPE_NUMBER -> payload.readDouble();
+            case TYPE_INTEGER -> {
+                long value = payload.readLong();
+                // Narrow to Integer when possible, as Jackson does for JSON numbers
+                yield value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE ? (Object) (int) value : value;
+            }
+            case TYPE_TEXT -> readString(payload, payload.readUnsignedShort());
+            default -> throw new CorruptedFrameException("Unknown metric type: " + type);
+        };
+    }
+
+    private static String readString(ByteBuf payload, int length) {
+        if (payload.readableBytes() < length) {
+            throw new CorruptedFrameException("Truncated string field");
+        }
+        String value = payload.toString(payload.readerIndex(), length, StandardCharsets.UTF_8);
+        payload.skipBytes(length);
+        return value;
+    }
+
+    private static void writeString(ByteBuf out, String value, int lengthFieldSize) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (lengthFieldSize == 1) {
+            out.writeByte(bytes.length);
+        } else {
+            out.writeShort(bytes.length);
+        }
+        out.writeBytes(bytes);
+    }
+}
@@ -0,0 +1,168 @@
+package ru.itmo.mopsync.iotcontroller.gateway;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.CorruptedFrameException;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.BindingResult;
+import ru.itmo.mopsync.iotcontroller.config.BinaryGatewayProperties;
+import ru.itmo.mopsync.iotcontroller.controller.DeviceDataRequestValidator;
+import ru.itmo.mopsync.iotcontroller.exception.RetryLaterException;
+import ru.itmo.mopsync.iotcontroller.generated.model.DeviceDataRequest;
+import ru.itmo.mopsync.iotcontroller.metrics.IngestMetrics;
+import ru.itmo.mopsync.iotcontroller.service.DeviceDataService;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validates readings decoded by the binary gateway and hands them to DeviceDataService.
+ * Processing runs on a bounded worker pool, so Netty event loops never block on MongoDB or RabbitMQ;
+ * readings that do not fit into the queue or are rejected by admission control or the rate limit of their
+ * device are dropped and counted.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "ingest.binary-gateway", name = "enabled", havingValue = "true")
+public class GatewayIngestProcessor implements DisposableBean {
+
+    private final DeviceDataService deviceDataService;
+    private final DeviceDataRequestValidator requestValidator;
+    private final Validator beanValidator;
+    private final MeterRegistry meterRegistry;
+    private final IngestMetrics ingestMetrics;
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Constructor for GatewayIngestProcessor.
+     *
+     * @param properties        gateway properties
+     * @param deviceDataService device data processing service
+     * @param requestValidator  custom metric validator
+     * @param beanValidator     JSR-303 validator for generated model constraints
+     * @param meterRegistry     meter registry for gateway metrics
+     * @param ingestMetrics     ingest stage and size meters
+     */
+    public GatewayIngestProcessor(BinaryGatewayProperties properties, DeviceDataService deviceDataService,
+                                  DeviceDataRequestValidator requestValidator, Validator beanValidator,
+                                  MeterRegistry meterRegistry, IngestMetrics ingestMetrics) {
+        this.deviceDataService = deviceDataService;
+        this.requestValidator = requestValidator;
+        this.beanValidator = beanValidator;
+        this.meterRegistry = meterRegistry;
+        this.ingestMetrics = ingestMetrics;
+        this.executor = new ThreadPoolExecutor(properties.getWorkerThreads(), properties.getWorkerThreads(),
+                0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(properties.getQueueCapacity()),
+                threadFactory());
+        meterRegistry.gauge("iot.gateway.queue.size", executor.getQueue(), queue -> queue.size());
+    }
+
+    /**
+     * Decodes a reading frame, validates it and queues it for processing.
+     *
+     * @param frame     frame payload without the length prefix
+     * @param transport transport the frame arrived with (tcp or udp)
+     */
+    public void submit(ByteBuf frame, String transport) {
+        long decodeStart = System.nanoTime();
+        DeviceDataRequest request;
+        try {
+            request = BinaryReadingCodec.decode(frame);
+        } catch (CorruptedFrameException e) {
+            log.debug("Malformed {} frame: {}", transport, e.getMessage());
+            rejectMalformed(transport);
+            return;
+        } finally {
+            ingestMetrics.recordStage(IngestMetrics.DESERIALIZE, System.nanoTime() - decodeStart);
+        }
+        if (!ingestMetrics.stage(IngestMetrics.VALIDATE).record(() -> isValid(request))) {
+            countPacket(transport, "invalid");
+            return;
+        }
+        try {
+            executor.execute(() -> process(request, transport));
+        } catch (RejectedExecutionException e) {
+            countPacket(transport, "dropped");
+        }
+    }
+
+    /**
+     * Counts a packet that could not be decoded.
+     *
+     * @param transport transport the packet arrived with
+     */
+    public void rejectMalformed(String transport) {
+        countPacket(transport, "invalid");
+    }
+
+    /**
+     * Counts bytes of one packet received by the gateway.
+     *
+     * @param transport transport the bytes arrived with
+     * @param bytes     number of bytes
+     */
+    public void countBytes(String transport, int bytes) {
+        meterRegistry.counter("iot.gateway.bytes", "transport", transport).increment(bytes);
+        ingestMetrics.recordPayloadSize(transport, bytes);
+    }
+
+    /**
+     * Records the number of frames carried by one packet.
+     *
+     * @param transport transport the packet arrived with
+     * @param frames    number of frames in the packet
+     */
+    public void countFrames(String transport, int frames) {
+        ingestMetrics.recordPacketReadings(transport, frames);
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+            log.warn("Gateway workers did not finish in time, {} readings are lost", executor.getQueue().size());
+            executor.shutdownNow();
+        }
+    }
+
+    private static CustomizableThreadFactory threadFactory() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("gateway-worker-");
+        threadFactory.setDaemon(true);
+        return threadFactory;
+    }
+
+    private void process(DeviceDataRequest request, String transport) {
+        try {
+            deviceDataService.ingestDeviceData(request);
+            countPacket(transport, "accepted");
+        } catch (RetryLaterException e) {
+            // the binary protocol has no response to carry Retry-After, devices resend on their own schedule
+            log.debug("Dropped gateway reading for device {}: {}", request.getDeviceId(), e.getHumanMessage());
+            countPacket(transport, "dropped");
+        } catch (Exception e) {
+            log.error("Failed to process gateway reading for device: {}", request.getDeviceId(), e);
+            countPacket(transport, "failed");
+        }
+    }
+
+    private boolean isValid(DeviceDataRequest request) {
+        if (!beanValidator.validate(request).isEmpty()) {
+            return false;
+        }
+        BindingResult errors = new BeanPropertyBindingResult(request, "deviceDataRequest");
+        requestValidator.validate(request, errors);
+        return !errors.hasErrors();
+    }
+
+    private void countPacket(String transport, String result) {
+        meterRegistry.counter("iot.gateway.packets", "transport", transport, "result", result).increment();
+    }
+}
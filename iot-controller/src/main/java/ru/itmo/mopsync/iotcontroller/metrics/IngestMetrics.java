@@ -0,0 +1,130 @@
+package ru.itmo.mopsync.iotcontroller.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meters of the ingest path: per-stage latency timers and size distribution summaries.
+ * All meters publish percentile histograms, so quantiles can be aggregated across instances in Prometheus.
+ */
+@Component
+public class IngestMetrics {
+
+    /**
+     * Reading the request body and converting it to DeviceDataRequest.
+     */
+    public static final String DESERIALIZE = "deserialize";
+    /**
+     * DeviceDataRequestValidator checks.
+     */
+    public static final String VALIDATE = "validate";
+    /**
+     * Saving the document to MongoDB.
+     */
+    public static final String SAVE = "save";
+    /**
+     * Sending the notification to RabbitMQ.
+     */
+    public static final String PUBLISH = "publish";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Timer> stageTimers;
+    private final DistributionSummary metricCount;
+
+    /**
+     * Constructor for IngestMetrics.
+     *
+     * @param meterRegistry meter registry
+     */
+    public IngestMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.stageTimers = Map.of(
+                DESERIALIZE, stageTimer(DESERIALIZE),
+                VALIDATE, stageTimer(VALIDATE),
+                SAVE, stageTimer(SAVE),
+                PUBLISH, stageTimer(PUBLISH));
+        this.metricCount = DistributionSummary.builder("iot.ingest.reading.metrics")
+                .description("Number of metrics in one reading")
+                .publishPercentileHistogram()
+                .maximumExpectedValue(1000.0)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the timer of an ingest stage.
+     *
+     * @param stage one of the stage constants
+     * @return stage timer
+     */
+    public Timer stage(String stage) {
+        return stageTimers.get(stage);
+    }
+
+    /**
+     * Records the duration of an ingest stage.
+     *
+     * @param stage one of the stage constants
+     * @param nanos duration in nanoseconds
+     */
+    public void recordStage(String stage, long nanos) {
+        stageTimers.get(stage).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records the size of a received payload.
+     *
+     * @param transport transport the payload arrived with (http, stream, tcp, udp)
+     * @param bytes     payload size in bytes
+     */
+    public void recordPayloadSize(String transport, long bytes) {
+        DistributionSummary.builder("iot.ingest.payload.size")
+                .description("Size of one received payload")
+                .baseUnit("bytes")
+                .tag("transport", transport)
+                .publishPercentileHistogram()
+                .maximumExpectedValue(16.0 * 1024 * 1024)
+                .register(meterRegistry)
+                .record(bytes);
+    }
+
+    /**
+     * Records the number of readings carried by one packet.
+     *
+     * @param transport transport the packet arrived with (http, stream, tcp, udp)
+     * @param readings  number of readings in the packet
+     */
+    public void recordPacketReadings(String transport, int readings) {
+        DistributionSummary.builder("iot.ingest.packet.readings")
+                .description("Number of readings in one received packet")
+                .tag("transport", transport)
+                .publishPercentileHistogram()
+                .maximumExpectedValue(10_000.0)
+                .register(meterRegistry)
+                .record(readings);
+    }
+
+    /**
+     * Records the number of metrics in a reading.
+     *
+     * @param count number of metrics
+     */
+    public void recordMetricCount(int count) {
+        metricCount.record(count);
+    }
+
+    private Timer stageTimer(String stage) {
+        return Timer.builder("iot.ingest.stage")
+                .description("Duration of one stage of the ingest path")
+                .tag("stage", stage)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(10_000))
+                .maximumExpectedValue(Duration.ofSeconds(10))
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,50 @@
+package ru.itmo.mopsync.iotcontroller.model;
+
+import lombok.Value;
+import ru.itmo.mopsync.iotcontroller.exception.Errors;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+/**
+ * Position in the (timestamp, key) order of a device's data: readings are ordered by id,
+ * rollup buckets by metric name within the same timestamp.
+ * Encoded as an opaque URL-safe token so clients only pass it back unchanged.
+ */
+@Value
+public class DeviceDataCursor {
+
+    OffsetDateTime timestamp;
+    String key;
+
+    /**
+     * Encodes the cursor into a token.
+     *
+     * @return URL-safe token
+     */
+    public String encode() {
+        String raw = timestamp.toInstant().toEpochMilli() + ":" + key;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a token produced by {@link #encode()}.
+     *
+     * @param token cursor token
+     * @return cursor
+     */
+    public static DeviceDataCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            long epochMilli = Long.parseLong(raw.substring(0, separator));
+            return new DeviceDataCursor(OffsetDateTime.ofInstant(Instant.ofEpochMilli(epochMilli), ZoneOffset.UTC),
+                    raw.substring(separator + 1));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw Errors.invalidCursorError();
+        }
+    }
+}
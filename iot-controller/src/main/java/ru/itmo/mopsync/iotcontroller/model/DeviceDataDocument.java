@@ -4,6 +4,8 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.OffsetDateTime;
@@ -11,11 +13,18 @@ import java.util.Map;
 
 /**
  * MongoDB document representing device data.
+ * The unique (deviceId, seq) index is created by {@link ru.itmo.mopsync.iotcontroller.dedup.SeqIndexMigration},
+ * which first checks the stored readings for pairs the index would reject.
  */
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "device_data")
+@CompoundIndexes({
+        @CompoundIndex(name = "device_timestamp_idx", def = "{'deviceId': 1, 'timestamp': 1, '_id': 1}"),
+        @CompoundIndex(name = "outbox_pending_idx", def = "{'outbox': 1, '_id': 1}",
+                partialFilter = "{'outbox': {'$exists': true}}")
+})
 public class DeviceDataDocument {
 
     @Id
@@ -24,6 +33,26 @@ public class DeviceDataDocument {
     private String deviceId;
     private OffsetDateTime timestamp;
     private Long seq;
+    /**
+     * Metrics by name; stored under dictionary ids in the "m" field when the metric dictionary is enabled.
+     */
     private Map<String, Object> metrics;
     private Map<String, String> meta;
+    /**
+     * Time the reading was copied to the archive; archived readings expire through archived_ttl_idx.
+     */
+    private OffsetDateTime archivedAt;
+    /**
+     * Instance that still has to publish the notification of the reading in outbox mode; unset once published.
+     */
+    private String outbox;
+    /**
+     * Arrival order of the reading as seen by the instance that stored it; unset for a reading that directly
+     * followed the previous reading of its device.
+     */
+    private SeqOrder seqOrder;
+    /**
+     * Number of sequence numbers skipped before a {@link SeqOrder#GAP} reading.
+     */
+    private Long seqGap;
 }
@@ -1,20 +1,60 @@
 package ru.itmo.mopsync.iotcontroller.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.OffsetDateTime;
+import java.util.Map;
+
 /**
  * Message object for device data notifications sent via RabbitMQ.
+ * A notification of a stored reading carries its id only; a notification of a reading that was not stored
+ * (decimated) carries the reading itself.
  */
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class DeviceDataNotification {
 
     /**
-     * MongoDB document ID of the device data.
+     * MongoDB document ID of the device data; not stored for a full-payload notification.
      */
     private String deviceDataId;
-}
+    private String deviceId;
+    private OffsetDateTime timestamp;
+    private Long seq;
+    private Map<String, Object> metrics;
+    private Map<String, String> meta;
+
+    /**
+     * Constructor for the notification of a stored reading.
+     *
+     * @param deviceDataId MongoDB document ID of the saved device data
+     */
+    public DeviceDataNotification(String deviceDataId) {
+        this.deviceDataId = deviceDataId;
+    }
 
+    /**
+     * Creates the full-payload notification of a reading that is not stored.
+     *
+     * @param document reading
+     * @return notification carrying the reading
+     */
+    public static DeviceDataNotification withPayload(DeviceDataDocument document) {
+        return new DeviceDataNotification(document.getId(), document.getDeviceId(), document.getTimestamp(),
+                document.getSeq(), document.getMetrics(), document.getMeta());
+    }
+
+    /**
+     * Tells whether the notification carries the reading itself.
+     *
+     * @return true for a full-payload notification
+     */
+    public boolean hasPayload() {
+        return deviceId != null;
+    }
+}
@@ -0,0 +1,35 @@
+package ru.itmo.mopsync.iotcontroller.model;
+
+import lombok.Value;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * Time-range query over the readings of a single device.
+ */
+@Value
+public class DeviceDataRange {
+
+    String deviceId;
+    /**
+     * Start of the range (inclusive).
+     */
+    OffsetDateTime from;
+    /**
+     * End of the range (exclusive).
+     */
+    OffsetDateTime to;
+    /**
+     * Metrics to return, or empty to return whole readings.
+     */
+    List<String> metrics;
+    /**
+     * Requested resolution, or null to pick one by the length of the range.
+     */
+    Resolution resolution;
+    /**
+     * Position to continue after, or null to start at the beginning of the range.
+     */
+    DeviceDataCursor cursor;
+}
@@ -0,0 +1,26 @@
+package ru.itmo.mopsync.iotcontroller.model;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * One page of readings of a time-range query.
+ */
+@Value
+public class DeviceDataSlice {
+
+    Resolution resolution;
+    /**
+     * Raw readings, empty for rollup resolutions.
+     */
+    List<DeviceDataDocument> items;
+    /**
+     * Rollup buckets, empty for raw resolution.
+     */
+    List<MetricRollupDocument> buckets;
+    /**
+     * Cursor of the next page, or null if this is the last page.
+     */
+    DeviceDataCursor next;
+}
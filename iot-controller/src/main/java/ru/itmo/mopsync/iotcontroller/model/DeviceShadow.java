@@ -0,0 +1,67 @@
+package ru.itmo.mopsync.iotcontroller.model;
+
+import lombok.Value;
+
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable latest known state of a device, merged from its stored readings.
+ * Every metric keeps the value of the reading with the highest seq that contained it,
+ * so readings arriving out of order never overwrite newer values.
+ */
+@Value
+public class DeviceShadow {
+
+    String deviceId;
+    long seq;
+    OffsetDateTime timestamp;
+    Map<String, MetricSnapshot> metrics;
+
+    /**
+     * Merges a stored reading into the shadow of its device.
+     *
+     * @param current  current shadow or null if the device is not known yet
+     * @param document stored reading
+     * @return new shadow, or current if the reading carries nothing newer
+     */
+    public static DeviceShadow merge(DeviceShadow current, DeviceDataDocument document) {
+        long seq = document.getSeq();
+        if (current == null) {
+            Map<String, MetricSnapshot> metrics = new HashMap<>();
+            document.getMetrics().forEach((name, value) ->
+                    metrics.put(name, new MetricSnapshot(value, seq, document.getTimestamp())));
+            return new DeviceShadow(document.getDeviceId(), seq, document.getTimestamp(), Map.copyOf(metrics));
+        }
+
+        Map<String, MetricSnapshot> metrics = null;
+        for (Map.Entry<String, Object> entry : document.getMetrics().entrySet()) {
+            MetricSnapshot existing = current.metrics.get(entry.getKey());
+            if (existing == null || existing.getSeq() < seq) {
+                if (metrics == null) {
+                    metrics = new HashMap<>(current.metrics);
+                }
+                metrics.put(entry.getKey(), new MetricSnapshot(entry.getValue(), seq, document.getTimestamp()));
+            }
+        }
+        if (metrics == null && seq <= current.seq) {
+            return current;
+        }
+        boolean newest = seq > current.seq;
+        return new DeviceShadow(current.deviceId,
+                newest ? seq : current.seq,
+                newest ? document.getTimestamp() : current.timestamp,
+                metrics != null ? Map.copyOf(metrics) : current.metrics);
+    }
+
+    /**
+     * Value of a metric together with the reading it came from.
+     */
+    @Value
+    public static class MetricSnapshot {
+        Object value;
+        long seq;
+        OffsetDateTime timestamp;
+    }
+}
@@ -0,0 +1,24 @@
+package ru.itmo.mopsync.iotcontroller.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * MongoDB document mapping a metric name to its dictionary id (shared collection with rule-engine).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "metric_names")
+public class MetricNameDocument {
+
+    @Id
+    private Integer id;
+
+    @Indexed(name = "metric_name_idx", unique = true)
+    private String name;
+}
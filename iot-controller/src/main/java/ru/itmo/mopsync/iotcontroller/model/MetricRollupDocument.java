@@ -0,0 +1,36 @@
+package ru.itmo.mopsync.iotcontroller.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.OffsetDateTime;
+
+/**
+ * MongoDB document holding the aggregate of one numeric metric of a device over one time bucket.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "device_metric_rollups")
+@CompoundIndex(name = "rollup_bucket_idx",
+        def = "{'deviceId': 1, 'resolution': 1, 'bucketStart': 1, 'metric': 1}", unique = true)
+public class MetricRollupDocument {
+
+    @Id
+    private String id;
+
+    private String deviceId;
+    private String resolution;
+    private OffsetDateTime bucketStart;
+    private String metric;
+    private Double min;
+    private Double max;
+    private Double sum;
+    private Long count;
+    private Double last;
+    private OffsetDateTime lastTimestamp;
+}
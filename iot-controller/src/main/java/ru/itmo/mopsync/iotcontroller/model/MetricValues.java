@@ -0,0 +1,306 @@
+package ru.itmo.mopsync.iotcontroller.model;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Read-only metrics of one reading kept in parallel arrays of exact size instead of map entries.
+ * Numbers are stored as primitives and boxed only when read through the {@link Map} interface,
+ * integers fitting an int as Integer, other integers as Long, like generic JSON binding does.
+ * Iteration follows insertion order. Instances are created by a reusable {@link Builder}.
+ */
+public final class MetricValues extends AbstractMap<String, Object> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final byte INT = 0;
+    private static final byte LONG = 1;
+    private static final byte DOUBLE = 2;
+    private static final byte OBJECT = 3;
+
+    private final String[] names;
+    private final byte[] kinds;
+    private final long[] numbers;
+    private final Object[] objects;
+
+    private MetricValues(String[] names, byte[] kinds, long[] numbers, Object[] objects) {
+        this.names = names;
+        this.kinds = kinds;
+        this.numbers = numbers;
+        this.objects = objects;
+    }
+
+    /**
+     * Returns the name of a metric.
+     *
+     * @param i metric position in insertion order
+     * @return metric name
+     */
+    public String name(int i) {
+        return names[i];
+    }
+
+    /**
+     * Tells whether a metric is a number.
+     *
+     * @param i metric position in insertion order
+     * @return true if the value is a number
+     */
+    public boolean isNumber(int i) {
+        return kinds[i] != OBJECT || objects[i] instanceof Number;
+    }
+
+    /**
+     * Returns a numeric metric without boxing it.
+     *
+     * @param i metric position in insertion order
+     * @return metric value as double
+     */
+    public double doubleValue(int i) {
+        return switch (kinds[i]) {
+            case INT, LONG -> numbers[i];
+            case DOUBLE -> Double.longBitsToDouble(numbers[i]);
+            default -> ((Number) objects[i]).doubleValue();
+        };
+    }
+
+    /**
+     * Returns a metric value, boxing numbers.
+     *
+     * @param i metric position in insertion order
+     * @return metric value
+     */
+    public Object value(int i) {
+        return switch (kinds[i]) {
+            case INT -> (int) numbers[i];
+            case LONG -> numbers[i];
+            case DOUBLE -> Double.longBitsToDouble(numbers[i]);
+            default -> objects[i];
+        };
+    }
+
+    @Override
+    public int size() {
+        return names.length;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public Object get(Object key) {
+        int i = indexOf(key);
+        return i >= 0 ? value(i) : null;
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                return new Iterator<>() {
+                    private int next;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < names.length;
+                    }
+
+                    @Override
+                    public Entry<String, Object> next() {
+                        if (next >= names.length) {
+                            throw new NoSuchElementException();
+                        }
+                        int i = next++;
+                        return new SimpleImmutableEntry<>(names[i], value(i));
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return names.length;
+            }
+        };
+    }
+
+    private int indexOf(Object key) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Collects metrics of one reading; adding a name again replaces its value.
+     * The buffers are kept between readings, so a builder reused by one thread allocates only the built instances.
+     */
+    public static final class Builder {
+
+        /**
+         * Names are looked up by a linear scan up to this count, through a hash index above it.
+         */
+        private static final int LINEAR_SCAN_LIMIT = 16;
+
+        private String[] names = new String[LINEAR_SCAN_LIMIT];
+        private byte[] kinds = new byte[LINEAR_SCAN_LIMIT];
+        private long[] numbers = new long[LINEAR_SCAN_LIMIT];
+        private Object[] objects = new Object[LINEAR_SCAN_LIMIT];
+        private int[] index;
+        private boolean indexed;
+        private boolean hasObjects;
+        private int size;
+
+        /**
+         * Adds an integer metric.
+         *
+         * @param name  metric name
+         * @param value metric value
+         * @return this builder
+         */
+        public Builder addLong(String name, long value) {
+            int slot = slotFor(name);
+            kinds[slot] = value == (int) value ? INT : LONG;
+            numbers[slot] = value;
+            return this;
+        }
+
+        /**
+         * Adds a floating point metric.
+         *
+         * @param name  metric name
+         * @param value metric value
+         * @return this builder
+         */
+        public Builder addDouble(String name, double value) {
+            int slot = slotFor(name);
+            kinds[slot] = DOUBLE;
+            numbers[slot] = Double.doubleToRawLongBits(value);
+            return this;
+        }
+
+        /**
+         * Adds a metric held as an object: a string or a number without a primitive form.
+         *
+         * @param name  metric name
+         * @param value metric value
+         * @return this builder
+         */
+        public Builder addObject(String name, Object value) {
+            int slot = slotFor(name);
+            kinds[slot] = OBJECT;
+            objects[slot] = value;
+            hasObjects = true;
+            return this;
+        }
+
+        /**
+         * Copies the collected metrics into a new instance and clears the builder.
+         *
+         * @return collected metrics
+         */
+        public MetricValues build() {
+            MetricValues values = new MetricValues(Arrays.copyOf(names, size), Arrays.copyOf(kinds, size),
+                    Arrays.copyOf(numbers, size), hasObjects ? Arrays.copyOf(objects, size) : null);
+            clear();
+            return values;
+        }
+
+        /**
+         * Drops the collected metrics.
+         */
+        public void clear() {
+            Arrays.fill(names, 0, size, null);
+            if (hasObjects) {
+                Arrays.fill(objects, 0, size, null);
+            }
+            if (indexed) {
+                Arrays.fill(index, 0);
+            }
+            indexed = false;
+            hasObjects = false;
+            size = 0;
+        }
+
+        private int slotFor(String name) {
+            int existing = indexOf(name);
+            if (existing >= 0) {
+                objects[existing] = null;
+                return existing;
+            }
+            if (size == names.length) {
+                grow();
+            }
+            names[size] = name;
+            if (indexed) {
+                insertIndex(size);
+            } else if (size == LINEAR_SCAN_LIMIT) {
+                rebuildIndex(size + 1);
+            }
+            return size++;
+        }
+
+        private int indexOf(String name) {
+            if (!indexed) {
+                for (int i = 0; i < size; i++) {
+                    if (names[i].equals(name)) {
+                        return i;
+                    }
+                }
+                return -1;
+            }
+            int mask = index.length - 1;
+            for (int slot = name.hashCode() & mask; index[slot] != 0; slot = (slot + 1) & mask) {
+                int i = index[slot] - 1;
+                if (names[i].equals(name)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private void grow() {
+            int capacity = names.length * 2;
+            names = Arrays.copyOf(names, capacity);
+            kinds = Arrays.copyOf(kinds, capacity);
+            numbers = Arrays.copyOf(numbers, capacity);
+            objects = Arrays.copyOf(objects, capacity);
+            if (indexed) {
+                rebuildIndex(size);
+            }
+        }
+
+        private void rebuildIndex(int count) {
+            // at most half full, so probing always ends at a free slot
+            int length = names.length * 2;
+            if (index == null || index.length != length) {
+                index = new int[length];
+            } else {
+                Arrays.fill(index, 0);
+            }
+            indexed = true;
+            for (int i = 0; i < count; i++) {
+                insertIndex(i);
+            }
+        }
+
+        private void insertIndex(int i) {
+            int mask = index.length - 1;
+            int slot = names[i].hashCode() & mask;
+            while (index[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            index[slot] = i + 1;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package ru.itmo.mopsync.iotcontroller.model;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Resolution of stored device data: raw readings or fixed-size rollup buckets.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum Resolution {
+    RAW("raw", null),
+    MINUTE("1m", ChronoUnit.MINUTES),
+    HOUR("1h", ChronoUnit.HOURS);
+
+    private final String code;
+    private final ChronoUnit unit;
+
+    /**
+     * Returns the bucket length.
+     *
+     * @return bucket length, or null for raw readings
+     */
+    public Duration getBucketSize() {
+        return unit != null ? unit.getDuration() : null;
+    }
+
+    /**
+     * Returns the start of the bucket containing the timestamp, in UTC.
+     *
+     * @param timestamp reading timestamp
+     * @return bucket start
+     */
+    public OffsetDateTime bucketStart(OffsetDateTime timestamp) {
+        Instant start = timestamp.toInstant().truncatedTo(unit);
+        return OffsetDateTime.ofInstant(start, ZoneOffset.UTC);
+    }
+
+    /**
+     * Finds a resolution by its code.
+     *
+     * @param code resolution code
+     * @return resolution, or null if the code is unknown
+     */
+    public static Resolution fromCode(String code) {
+        for (Resolution resolution : values()) {
+            if (resolution.code.equals(code)) {
+                return resolution;
+            }
+        }
+        return null;
+    }
+}
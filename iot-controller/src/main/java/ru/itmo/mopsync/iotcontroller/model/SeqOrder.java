@@ -0,0 +1,15 @@
+package ru.itmo.mopsync.iotcontroller.model;
+
+/**
+ * Arrival order of a reading that did not directly follow the previous reading of its device.
+ */
+public enum SeqOrder {
+    /**
+     * The reading skipped sequence numbers after the highest one that had arrived.
+     */
+    GAP,
+    /**
+     * The reading arrived after a reading with a higher sequence number.
+     */
+    LATE
+}
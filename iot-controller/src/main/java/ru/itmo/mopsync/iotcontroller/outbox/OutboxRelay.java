@@ -0,0 +1,192 @@
+package ru.itmo.mopsync.iotcontroller.outbox;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.amqp.AmqpException;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import ru.itmo.mopsync.iotcontroller.config.OutboxProperties;
+import ru.itmo.mopsync.iotcontroller.model.DeviceDataDocument;
+import ru.itmo.mopsync.iotcontroller.model.DeviceDataNotification;
+import ru.itmo.mopsync.iotcontroller.transport.NotificationTransport;
+
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes notifications of readings stored with a pending outbox entry.
+ * The entry is the "outbox" field of the reading itself, so the reading and its entry are written
+ * by one single-document insert, which MongoDB applies atomically without a transaction.
+ * The relay reads the entries of this instance in insertion (ObjectId) order, sends them as one batch through
+ * the {@link NotificationTransport}, waits until all of them are delivered (confirmed by RabbitMQ or appended
+ * to the local log) and then clears the entries with one update.
+ * A batch that fails is published again (at-least-once).
+ */
+@Slf4j
+@Component
+public class OutboxRelay implements SmartLifecycle {
+
+    private static final String OUTBOX_FIELD = "outbox";
+
+    private final OutboxProperties properties;
+    private final MongoTemplate mongoTemplate;
+    private final NotificationTransport transport;
+    @Getter
+    private final String instanceId;
+    private final Timer batchTimer;
+    private final DistributionSummary batchSize;
+    private final Counter relayedCounter;
+    private final Counter failedBatchCounter;
+    private final AtomicLong lagMillis = new AtomicLong();
+    private final Object signal = new Object();
+
+    private volatile boolean running;
+    private volatile ExecutorService executor;
+
+    /**
+     * Constructor for OutboxRelay.
+     *
+     * @param properties    outbox properties
+     * @param mongoTemplate template for reading and clearing outbox entries
+     * @param transport     transport of notifications
+     * @param meterRegistry meter registry for outbox metrics
+     */
+    public OutboxRelay(OutboxProperties properties, MongoTemplate mongoTemplate, NotificationTransport transport,
+                       MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.mongoTemplate = mongoTemplate;
+        this.transport = transport;
+        this.instanceId = StringUtils.hasText(properties.getInstanceId()) ? properties.getInstanceId() : hostName();
+        this.batchTimer = Timer.builder("iot.outbox.batch")
+                .description("Time of publishing and confirming one outbox batch")
+                .register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("iot.outbox.batch.size")
+                .description("Number of notifications in one outbox batch")
+                .register(meterRegistry);
+        Gauge.builder("iot.outbox.lag", lagMillis, lag -> lag.get() / 1000.0)
+                .description("Age of the oldest entry of the last outbox batch")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        this.relayedCounter = meterRegistry.counter("iot.outbox.relayed");
+        this.failedBatchCounter = meterRegistry.counter("iot.outbox.failures");
+    }
+
+    /**
+     * Wakes the relay up after a reading with an outbox entry was stored.
+     */
+    public void wakeUp() {
+        synchronized (signal) {
+            signal.notifyAll();
+        }
+    }
+
+    /**
+     * Publishes one batch of pending notifications of this instance and clears their outbox entries.
+     *
+     * @return number of relayed notifications
+     * @throws AmqpException        if the batch could not be published or was not confirmed
+     * @throws UncheckedIOException if the batch could not be appended to the local notification log
+     * @throws DataAccessException  if the entries could not be read or cleared
+     */
+    public int relayBatch() {
+        Query pendingQuery = new Query(Criteria.where(OUTBOX_FIELD).is(instanceId))
+                .with(Sort.by(Sort.Direction.ASC, "_id"))
+                .limit(properties.getBatchSize());
+        pendingQuery.fields().include("_id");
+        List<String> ids = mongoTemplate.find(pendingQuery, DeviceDataDocument.class).stream()
+                .map(DeviceDataDocument::getId)
+                .toList();
+        if (ids.isEmpty()) {
+            lagMillis.set(0);
+            return 0;
+        }
+        lagMillis.set(Math.max(0, System.currentTimeMillis() - new ObjectId(ids.get(0)).getDate().getTime()));
+
+        List<DeviceDataNotification> notifications = ids.stream().map(DeviceDataNotification::new).toList();
+        batchTimer.record(() -> transport.sendAll(notifications, properties.getConfirmTimeout()));
+        mongoTemplate.updateMulti(new Query(Criteria.where("id").in(ids)), new Update().unset(OUTBOX_FIELD),
+                DeviceDataDocument.class);
+        batchSize.record(ids.size());
+        relayedCounter.increment(ids.size());
+        return ids.size();
+    }
+
+    @Override
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        log.info("Relaying outbox entries of instance {}", instanceId);
+        running = true;
+        executor = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("outbox-relay-"));
+        executor.execute(this::relay);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        ExecutorService current = executor;
+        if (current != null) {
+            executor = null;
+            current.shutdownNow();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void relay() {
+        while (running) {
+            try {
+                // a full batch means more entries are waiting
+                if (relayBatch() < properties.getBatchSize()) {
+                    synchronized (signal) {
+                        signal.wait(properties.getPollInterval().toMillis());
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (AmqpException | DataAccessException | UncheckedIOException e) {
+                failedBatchCounter.increment();
+                log.warn("Failed to relay outbox entries: {}", e.getMessage());
+                try {
+                    Thread.sleep(properties.getRetryInterval().toMillis());
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            log.warn("Cannot resolve host name, set ingest.outbox.instance-id: {}", e.getMessage());
+            return "iot-controller";
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package ru.itmo.mopsync.iotcontroller.publisher;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.AmqpTimeoutException;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.stereotype.Component;
+import ru.itmo.mopsync.iotcontroller.config.PublisherProperties;
+import ru.itmo.mopsync.iotcontroller.config.RabbitQueueProperties;
+import ru.itmo.mopsync.iotcontroller.model.DeviceDataNotification;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Publishes notifications with correlated publisher confirms without waiting for them on the publishing thread.
+ *
+ * <p>Every publish takes a place in a bounded window of unconfirmed notifications, which is freed by the ack,
+ * the nack or the confirm timeout. Publishes check a channel out of the connection factory cache only for the
+ * send itself, so concurrent publishers use different channels and confirms arrive while new messages are sent.
+ * Notifications sent on different channels may reach the queue in a different order.
+ */
+@Slf4j
+@Component
+public class ConfirmingPublisher {
+
+    private final RabbitTemplate rabbitTemplate;
+    private final RabbitQueueProperties rabbitQueueProperties;
+    private final PublisherProperties properties;
+    private final Semaphore window;
+    private final Timer confirmTimer;
+    private final Counter nackCounter;
+    private final Counter timeoutCounter;
+    private final Counter windowFullCounter;
+
+    /**
+     * Constructor for ConfirmingPublisher.
+     *
+     * @param rabbitTemplate        template with a connection factory using correlated publisher confirms
+     * @param rabbitQueueProperties queue names
+     * @param properties            publisher properties
+     * @param meterRegistry         meter registry for publisher metrics
+     */
+    public ConfirmingPublisher(RabbitTemplate rabbitTemplate, RabbitQueueProperties rabbitQueueProperties,
+                               PublisherProperties properties, MeterRegistry meterRegistry) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.rabbitQueueProperties = rabbitQueueProperties;
+        this.properties = properties;
+        this.window = new Semaphore(properties.getMaxOutstanding());
+        this.confirmTimer = Timer.builder("iot.publisher.confirm.latency")
+                .description("Time from publishing a notification to its publisher confirm")
+                .register(meterRegistry);
+        Gauge.builder("iot.publisher.window", window, w -> properties.getMaxOutstanding() - w.availablePermits())
+                .description("Number of published notifications waiting for a confirm")
+                .register(meterRegistry);
+        Gauge.builder("iot.publisher.window.limit", properties, PublisherProperties::getMaxOutstanding)
+                .description("Maximum number of published notifications waiting for a confirm")
+                .register(meterRegistry);
+        this.nackCounter = meterRegistry.counter("iot.publisher.nacks");
+        this.timeoutCounter = meterRegistry.counter("iot.publisher.confirm.timeouts");
+        this.windowFullCounter = meterRegistry.counter("iot.publisher.window.full");
+    }
+
+    /**
+     * Publishes a notification and returns without waiting for its confirm.
+     *
+     * @param notification notification of a reading
+     * @return future completed on ack, or exceptionally with an {@link AmqpException} on nack or confirm timeout
+     * @throws AmqpException if the window stays full or the notification cannot be sent
+     */
+    public CompletableFuture<Void> publish(DeviceDataNotification notification) {
+        acquire();
+        String deviceDataId = notification.getDeviceDataId();
+        CorrelationData correlation = new CorrelationData(deviceDataId);
+        long start = System.nanoTime();
+        CompletableFuture<Void> confirmed = correlation.getFuture()
+                .orTimeout(properties.getConfirmTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                .handle((confirm, failure) -> {
+                    window.release();
+                    if (failure instanceof TimeoutException) {
+                        timeoutCounter.increment();
+                        throw new AmqpTimeoutException("No publisher confirm for device data id " + deviceDataId);
+                    }
+                    if (failure != null) {
+                        throw failure instanceof AmqpException amqp ? amqp : new AmqpException(failure);
+                    }
+                    confirmTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    if (!confirm.isAck()) {
+                        nackCounter.increment();
+                        throw new AmqpException("Notification for device data id " + deviceDataId
+                                + " was nacked: " + confirm.getReason());
+                    }
+                    return null;
+                });
+        try {
+            rabbitTemplate.convertAndSend(rabbitTemplate.getExchange(), rabbitQueueProperties.getDeviceData(),
+                    notification, correlation);
+        } catch (RuntimeException e) {
+            // completing the future frees the place in the window
+            correlation.getFuture().completeExceptionally(e);
+            throw e;
+        }
+        return confirmed;
+    }
+
+    /**
+     * Publishes notifications and waits until all of them are confirmed.
+     *
+     * @param notifications notifications of readings
+     * @param timeout       maximum time to wait for the confirms
+     * @throws AmqpException if a notification cannot be sent, is nacked or not confirmed in time
+     */
+    public void publishAll(List<DeviceDataNotification> notifications, Duration timeout) {
+        List<CompletableFuture<Void>> confirms = new ArrayList<>(notifications.size());
+        for (DeviceDataNotification notification : notifications) {
+            confirms.add(publish(notification));
+        }
+        try {
+            CompletableFuture.allOf(confirms.toArray(CompletableFuture[]::new))
+                    .get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof AmqpException cause ? cause : new AmqpException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new AmqpTimeoutException("Publisher confirms not received in " + timeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AmqpException("Interrupted while waiting for publisher confirms", e);
+        }
+    }
+
+    private void acquire() {
+        try {
+            if (!window.tryAcquire(properties.getWindowTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+                windowFullCounter.increment();
+                throw new AmqpTimeoutException("Too many notifications waiting for publisher confirms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AmqpException("Interrupted while waiting for the publish window", e);
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package ru.itmo.mopsync.iotcontroller.publisher;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Connection;
+import com.rabbitmq.client.ConnectionFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.AmqpTimeoutException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
+import org.springframework.amqp.rabbit.support.DefaultMessagePropertiesConverter;
+import org.springframework.amqp.rabbit.support.MessagePropertiesConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+import reactor.rabbitmq.CorrelableOutboundMessage;
+import reactor.rabbitmq.OutboundMessageResult;
+import reactor.rabbitmq.RabbitFlux;
+import reactor.rabbitmq.RabbitFluxException;
+import reactor.rabbitmq.SendOptions;
+import reactor.rabbitmq.Sender;
+import reactor.rabbitmq.SenderOptions;
+import reactor.util.concurrent.Queues;
+import ru.itmo.mopsync.iotcontroller.config.PublisherProperties;
+import ru.itmo.mopsync.iotcontroller.config.RabbitQueueProperties;
+import ru.itmo.mopsync.iotcontroller.config.TransportProperties;
+import ru.itmo.mopsync.iotcontroller.model.DeviceDataNotification;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Publishes notifications of the reactive ingest stack through reactor-rabbitmq with publisher confirms.
+ *
+ * <p>All notifications go through one long-lived confirm stream on a connection of its own: a publish hands
+ * its message to the stream and completes when the broker confirms it, without holding a thread meanwhile.
+ * The stream keeps at most ingest.publisher.max-outstanding messages unconfirmed and buffers as many more;
+ * once the buffer is full, publishes fail at once, so the caller spools them instead of queueing behind
+ * a slow broker. A failed stream is reopened on a new channel; messages it did not confirm are nacked
+ * or fail by their confirm timeout. Messages are converted by the application MessageConverter,
+ * so consumers get the same payload and headers as from {@link ConfirmingPublisher}.
+ */
+@Slf4j
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactivePublisher implements SmartLifecycle {
+
+    private static final String CONNECTION_NAME = "iot-controller-reactive";
+    private static final Duration REOPEN_DELAY = Duration.ofSeconds(1);
+
+    private final ConnectionFactory connectionFactory;
+    private final MessageConverter messageConverter;
+    private final MessagePropertiesConverter propertiesConverter = new DefaultMessagePropertiesConverter();
+    private final RabbitQueueProperties rabbitQueueProperties;
+    private final PublisherProperties properties;
+    private final TransportProperties transportProperties;
+    private final Sender sender;
+    private final Mono<Connection> connection;
+    private final AtomicReference<Connection> openedConnection = new AtomicReference<>();
+    private final Timer confirmTimer;
+    private final Counter nackCounter;
+    private final Counter timeoutCounter;
+    private final Counter windowFullCounter;
+
+    private volatile Sinks.Many<CorrelableOutboundMessage<PendingConfirm>> outbound;
+    private volatile Disposable stream;
+    private volatile boolean running;
+
+    /**
+     * Constructor for ReactivePublisher.
+     *
+     * @param connectionFactory     Spring AMQP connection factory, whose RabbitMQ client settings are reused
+     * @param messageConverter      converter of notifications to messages
+     * @param rabbitQueueProperties queue names
+     * @param properties            publisher properties
+     * @param transportProperties   transport properties; no stream is opened with the local transport
+     * @param meterRegistry         meter registry for publisher metrics
+     */
+    public ReactivePublisher(CachingConnectionFactory connectionFactory, MessageConverter messageConverter,
+                             RabbitQueueProperties rabbitQueueProperties, PublisherProperties properties,
+                             TransportProperties transportProperties, MeterRegistry meterRegistry) {
+        this.connectionFactory = connectionFactory.getRabbitConnectionFactory();
+        this.messageConverter = messageConverter;
+        this.rabbitQueueProperties = rabbitQueueProperties;
+        this.properties = properties;
+        this.transportProperties = transportProperties;
+        this.sender = RabbitFlux.createSender(new SenderOptions());
+        // a closed connection is not recovered by the client, so the next stream opens a new one
+        this.connection = Mono.fromCallable(this::connect)
+                .subscribeOn(Schedulers.boundedElastic())
+                .cacheInvalidateIf(opened -> !opened.isOpen());
+        this.confirmTimer = Timer.builder("iot.publisher.confirm.latency")
+                .description("Time from publishing a notification to its publisher confirm")
+                .register(meterRegistry);
+        this.nackCounter = meterRegistry.counter("iot.publisher.nacks");
+        this.timeoutCounter = meterRegistry.counter("iot.publisher.confirm.timeouts");
+        this.windowFullCounter = meterRegistry.counter("iot.publisher.window.full");
+    }
+
+    /**
+     * Publishes a notification.
+     *
+     * @param notification notification of a reading
+     * @return completes on ack, or fails with an {@link AmqpException} if the window is full,
+     *         the notification is nacked or not confirmed in time
+     */
+    public Mono<Void> publish(DeviceDataNotification notification) {
+        String deviceDataId = notification.getDeviceDataId();
+        return Mono.defer(() -> {
+            Sinks.Many<CorrelableOutboundMessage<PendingConfirm>> current = outbound;
+            if (current == null) {
+                return Mono.error(new AmqpException("Notification publisher is not running"));
+            }
+            PendingConfirm pending = new PendingConfirm(notification, Sinks.one());
+            CorrelableOutboundMessage<PendingConfirm> message = toMessage(pending);
+            long start = System.nanoTime();
+            Sinks.EmitResult result;
+            while ((result = current.tryEmitNext(message)) == Sinks.EmitResult.FAIL_NON_SERIALIZED) {
+                // another request is handing over its message right now
+                Thread.onSpinWait();
+            }
+            if (result == Sinks.EmitResult.FAIL_OVERFLOW) {
+                windowFullCounter.increment();
+                return Mono.error(new AmqpTimeoutException("Too many notifications waiting for publisher confirms"));
+            }
+            if (result.isFailure()) {
+                return Mono.error(new AmqpException("Notification stream is not open: " + result));
+            }
+            return pending.confirmed().asMono()
+                    .timeout(properties.getConfirmTimeout())
+                    .doOnSuccess(ignored -> confirmTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS))
+                    .onErrorMap(TimeoutException.class, e -> {
+                        timeoutCounter.increment();
+                        return new AmqpTimeoutException("No publisher confirm for device data id " + deviceDataId);
+                    });
+        });
+    }
+
+    @Override
+    public void start() {
+        if (transportProperties.getType() != TransportProperties.TransportType.RABBITMQ) {
+            return;
+        }
+        running = true;
+        openStream();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        Disposable current = stream;
+        if (current != null) {
+            current.dispose();
+        }
+        sender.close();
+        Connection opened = openedConnection.getAndSet(null);
+        if (opened != null && opened.isOpen()) {
+            try {
+                opened.close();
+            } catch (IOException | RuntimeException e) {
+                log.warn("Failed to close RabbitMQ connection: {}", e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void openStream() {
+        Sinks.Many<CorrelableOutboundMessage<PendingConfirm>> sink = Sinks.many().unicast()
+                .onBackpressureBuffer(Queues.<CorrelableOutboundMessage<PendingConfirm>>get(
+                        properties.getMaxOutstanding()).get());
+        outbound = sink;
+        SendOptions options = new SendOptions()
+                .channelMono(connection.flatMap(opened -> Mono.fromCallable(opened::createChannel)
+                        .subscribeOn(Schedulers.boundedElastic())))
+                .maxInFlight(properties.getMaxOutstanding())
+                // fail the stream instead of retrying the send on the calling thread
+                .exceptionHandler((context, e) -> {
+                    throw new RabbitFluxException("Failed to publish notification", e);
+                });
+        stream = sender.sendWithTypedPublishConfirms(sink.asFlux(), options)
+                .subscribe(this::confirm, this::reopen);
+    }
+
+    private void reopen(Throwable failure) {
+        if (!running) {
+            return;
+        }
+        log.warn("Notification stream failed, reopening in {}: {}", REOPEN_DELAY, failure.getMessage());
+        // messages buffered for the failed stream fail by their confirm timeout
+        Mono.delay(REOPEN_DELAY).subscribe(ignored -> {
+            if (running) {
+                openStream();
+            }
+        });
+    }
+
+    private void confirm(OutboundMessageResult<CorrelableOutboundMessage<PendingConfirm>> result) {
+        PendingConfirm pending = result.getOutboundMessage().getCorrelationMetadata();
+        if (result.isAck()) {
+            pending.confirmed().tryEmitEmpty();
+            return;
+        }
+        nackCounter.increment();
+        pending.confirmed().tryEmitError(new AmqpException("Notification for device data id "
+                + pending.notification().getDeviceDataId() + " was nacked"));
+    }
+
+    private CorrelableOutboundMessage<PendingConfirm> toMessage(PendingConfirm pending) {
+        Message message = messageConverter.toMessage(pending.notification(), new MessageProperties());
+        AMQP.BasicProperties messageProperties = propertiesConverter.fromMessageProperties(
+                message.getMessageProperties(), StandardCharsets.UTF_8.name());
+        return new CorrelableOutboundMessage<>("", rabbitQueueProperties.getDeviceData(), messageProperties,
+                message.getBody(), pending);
+    }
+
+    private Connection connect() throws IOException, TimeoutException {
+        Connection opened = connectionFactory.newConnection(CONNECTION_NAME);
+        try (Channel channel = opened.createChannel()) {
+            // RabbitAdmin declares the queue only on connections of the caching connection factory
+            channel.queueDeclare(rabbitQueueProperties.getDeviceData(), true, false, false, null);
+        }
+        openedConnection.set(opened);
+        return opened;
+    }
+
+    /**
+     * Notification waiting for its publisher confirm.
+     */
+    private record PendingConfirm(DeviceDataNotification notification, Sinks.One<Void> confirmed) {
+    }
+}
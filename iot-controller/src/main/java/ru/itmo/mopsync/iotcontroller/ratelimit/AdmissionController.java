@@ -0,0 +1,97 @@
+package ru.itmo.mopsync.iotcontroller.ratelimit;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import ru.itmo.mopsync.iotcontroller.config.AdmissionProperties;
+import ru.itmo.mopsync.iotcontroller.exception.Errors;
+import ru.itmo.mopsync.iotcontroller.exception.RetryLaterException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Global admission control for ingest requests.
+ * Sheds requests while too many are in flight or while the average MongoDB save latency is above the limit,
+ * so an overloaded database gets time to recover instead of a growing backlog of waiting requests.
+ */
+@Component
+public class AdmissionController {
+
+    /**
+     * Weight of a new sample in the latency moving average is 1 / 2^EWMA_SHIFT.
+     */
+    private static final int EWMA_SHIFT = 3;
+
+    private final AdmissionProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong storeLatencyNanos = new AtomicLong();
+    private volatile long lastStoreSampleNanos;
+
+    /**
+     * Constructor for AdmissionController.
+     *
+     * @param properties    admission properties
+     * @param meterRegistry meter registry for admission metrics
+     */
+    public AdmissionController(AdmissionProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("iot.admission.in.flight", inFlight, AtomicInteger::get)
+                .description("Ingest requests currently processed")
+                .register(meterRegistry);
+        Gauge.builder("iot.admission.store.latency", storeLatencyNanos, AtomicLong::get)
+                .description("Moving average of MongoDB save latency used for admission")
+                .baseUnit("nanoseconds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Admits a request or rejects it with 503.
+     * Every successful call must be paired with release().
+     */
+    public void admit() {
+        if (properties.isEnabled() && isStoreSlow()) {
+            throw shed("store_latency");
+        }
+        int current = inFlight.incrementAndGet();
+        if (properties.isEnabled() && current > properties.getMaxInFlight()) {
+            inFlight.decrementAndGet();
+            throw shed("backlog");
+        }
+    }
+
+    /**
+     * Releases a request admitted by admit().
+     */
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * Records the latency of one MongoDB save.
+     *
+     * @param nanos save duration in nanoseconds
+     */
+    public void recordStoreLatency(long nanos) {
+        lastStoreSampleNanos = System.nanoTime();
+        storeLatencyNanos.updateAndGet(average -> average == 0 ? nanos : average + ((nanos - average) >> EWMA_SHIFT));
+    }
+
+    /**
+     * Returns true while the latency average is above the limit.
+     * A measurement older than retryAfter is ignored, otherwise shedding everything would stop new samples
+     * from ever arriving and the service would never recover.
+     */
+    private boolean isStoreSlow() {
+        long sampleAge = System.nanoTime() - lastStoreSampleNanos;
+        return storeLatencyNanos.get() > properties.getMaxStoreLatency().toNanos()
+                && sampleAge < properties.getRetryAfter().toNanos();
+    }
+
+    private RetryLaterException shed(String reason) {
+        meterRegistry.counter("iot.ingest.shed", "reason", reason).increment();
+        return Errors.serviceOverloadedError(properties.getRetryAfter());
+    }
+}
@@ -0,0 +1,107 @@
+package ru.itmo.mopsync.iotcontroller.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import ru.itmo.mopsync.iotcontroller.config.RateLimitProperties;
+
+import java.time.Duration;
+
+/**
+ * Per-device ingest rate limiter with one TokenBucket per device id.
+ * Buckets are kept in a cache bounded by the configured maximum number of tracked devices, so the memory
+ * stays bounded without scanning; buckets idle for the configured timeout, which have refilled by then
+ * and behave like new ones, are evicted first.
+ */
+@Component
+public class DeviceRateLimiter {
+
+    /**
+     * Estimated heap size of one tracked device: map node, id string, bucket and its AtomicLong.
+     */
+    private static final long BUCKET_BYTES = 160;
+
+    private final RateLimitProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Cache<String, TokenBucket> buckets;
+
+    /**
+     * Constructor for DeviceRateLimiter.
+     *
+     * @param properties    rate limit properties
+     * @param meterRegistry meter registry for limiter metrics
+     */
+    public DeviceRateLimiter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxTrackedDevices())
+                .expireAfterAccess(properties.getIdleTimeout())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, buckets, "device_rate_limit");
+        Gauge.builder("iot.ratelimit.devices", buckets, Cache::estimatedSize)
+                .description("Number of devices with a token bucket")
+                .register(meterRegistry);
+        Gauge.builder("iot.ratelimit.memory", buckets, cache -> cache.estimatedSize() * BUCKET_BYTES)
+                .description("Estimated heap used by token buckets")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Takes one token from the bucket of the device.
+     *
+     * @param deviceId device identifier
+     * @return Duration.ZERO if the reading is allowed, otherwise time until the device may send again
+     */
+    public Duration tryAcquire(String deviceId) {
+        if (!properties.isEnabled()) {
+            return Duration.ZERO;
+        }
+        long now = System.nanoTime();
+        TokenBucket bucket = buckets.get(deviceId, id -> createBucket(id, now));
+        long waitNanos = bucket.tryAcquire(now);
+        if (waitNanos == 0) {
+            return Duration.ZERO;
+        }
+        meterRegistry.counter("iot.ingest.shed", "reason", "device_rate").increment();
+        return Duration.ofNanos(waitNanos);
+    }
+
+    /**
+     * Forgets all tracked devices.
+     */
+    public void clear() {
+        buckets.invalidateAll();
+    }
+
+    /**
+     * Runs the pending evictions, which the cache otherwise performs asynchronously.
+     */
+    void cleanUp() {
+        buckets.cleanUp();
+    }
+
+    private TokenBucket createBucket(String deviceId, long now) {
+        RateLimitProperties.Limit limit = properties.getDevices().get(deviceId);
+        if (limit != null) {
+            return new TokenBucket(limit.getRate(), limit.getBurst(), now);
+        }
+        RateLimitProperties.Group group = null;
+        for (RateLimitProperties.Group candidate : properties.getGroups()) {
+            if (deviceId.startsWith(candidate.getPrefix())
+                    && (group == null || candidate.getPrefix().length() > group.getPrefix().length())) {
+                group = candidate;
+            }
+        }
+        if (group != null) {
+            return new TokenBucket(group.getRate(), group.getBurst(), now);
+        }
+        RateLimitProperties.Limit defaultLimit = properties.getDefaultLimit();
+        return new TokenBucket(defaultLimit.getRate(), defaultLimit.getBurst(), now);
+    }
+}
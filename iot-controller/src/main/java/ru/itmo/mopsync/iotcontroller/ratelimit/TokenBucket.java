@@ -0,0 +1,43 @@
+package ru.itmo.mopsync.iotcontroller.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket stored as a single "theoretical arrival time" (generic cell rate algorithm).
+ * Each accepted reading moves the arrival time forward by one emission interval;
+ * a reading is rejected when that would put the arrival time more than burst intervals ahead of now.
+ * This is equivalent to a bucket of burst tokens refilled at rate tokens per second,
+ * but needs one compare-and-set instead of a lock or a (tokens, timestamp) pair.
+ */
+final class TokenBucket {
+
+    private final long emissionIntervalNanos;
+    private final long capacityNanos;
+    private final AtomicLong theoreticalArrival;
+
+    TokenBucket(double ratePerSecond, int burst, long nowNanos) {
+        this.emissionIntervalNanos = Math.max(1, (long) (1_000_000_000L / ratePerSecond));
+        this.capacityNanos = emissionIntervalNanos * burst;
+        this.theoreticalArrival = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * Takes one token.
+     *
+     * @param nowNanos current System.nanoTime()
+     * @return 0 if the token was taken, otherwise nanoseconds until a token is available
+     */
+    long tryAcquire(long nowNanos) {
+        while (true) {
+            long arrival = theoreticalArrival.get();
+            long nextArrival = Math.max(arrival, nowNanos) + emissionIntervalNanos;
+            long excess = nextArrival - nowNanos - capacityNanos;
+            if (excess > 0) {
+                return excess;
+            }
+            if (theoreticalArrival.compareAndSet(arrival, nextArrival)) {
+                return 0;
+            }
+        }
+    }
+}
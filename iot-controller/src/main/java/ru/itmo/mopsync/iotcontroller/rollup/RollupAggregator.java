@@ -0,0 +1,247 @@
+package ru.itmo.mopsync.iotcontroller.rollup;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import ru.itmo.mopsync.iotcontroller.config.RollupProperties;
+import ru.itmo.mopsync.iotcontroller.model.DeviceDataDocument;
+import ru.itmo.mopsync.iotcontroller.model.MetricRollupDocument;
+import ru.itmo.mopsync.iotcontroller.model.MetricValues;
+import ru.itmo.mopsync.iotcontroller.model.Resolution;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Maintains 1-minute and 1-hour rollups (min, max, sum, count, last) of numeric metrics.
+ * Stored readings are aggregated into in-memory buckets, which are merged into MongoDB
+ * with one unordered bulk upsert per flush, so a burst of readings costs one write per bucket.
+ * Buckets that fail to flush are merged back and retried with the next flush.
+ */
+@Slf4j
+@Component
+public class RollupAggregator implements SmartLifecycle {
+
+    private static final List<Resolution> RESOLUTIONS = List.of(Resolution.MINUTE, Resolution.HOUR);
+    private static final Date EPOCH = new Date(0);
+
+    private final RollupProperties properties;
+    private final MongoTemplate mongoTemplate;
+    private final Map<RollupKey, RollupBucket> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final Timer flushTimer;
+    private final Counter flushedCounter;
+    private final Counter failedCounter;
+
+    private volatile ScheduledExecutorService scheduler;
+
+    /**
+     * Constructor for RollupAggregator.
+     *
+     * @param properties    rollup properties
+     * @param mongoTemplate template for bulk upserts
+     * @param meterRegistry meter registry for rollup metrics
+     */
+    public RollupAggregator(RollupProperties properties, MongoTemplate mongoTemplate, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.mongoTemplate = mongoTemplate;
+        Gauge.builder("iot.rollup.pending", pending, Map::size)
+                .description("Number of rollup buckets waiting to be flushed")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("iot.rollup.flush")
+                .description("Time of flushing rollup buckets to MongoDB")
+                .register(meterRegistry);
+        this.flushedCounter = meterRegistry.counter("iot.rollup.flushed", "result", "ok");
+        this.failedCounter = meterRegistry.counter("iot.rollup.flushed", "result", "failed");
+    }
+
+    /**
+     * Adds the numeric metrics of a stored reading to their buckets.
+     *
+     * @param document stored reading
+     */
+    public void record(DeviceDataDocument document) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        OffsetDateTime timestamp = document.getTimestamp();
+        if (document.getMetrics() instanceof MetricValues values) {
+            for (int i = 0; i < values.size(); i++) {
+                if (values.isNumber(i)) {
+                    add(document.getDeviceId(), values.name(i), values.doubleValue(i), timestamp);
+                }
+            }
+        } else {
+            for (Map.Entry<String, Object> entry : document.getMetrics().entrySet()) {
+                if (entry.getValue() instanceof Number number) {
+                    add(document.getDeviceId(), entry.getKey(), number.doubleValue(), timestamp);
+                }
+            }
+        }
+
+        ScheduledExecutorService current = scheduler;
+        if (current != null && pending.size() >= properties.getMaxPendingBuckets()
+                && flushRequested.compareAndSet(false, true)) {
+            current.execute(this::flush);
+        }
+    }
+
+    /**
+     * Writes all pending buckets to MongoDB.
+     */
+    public synchronized void flush() {
+        flushRequested.set(false);
+        List<RollupKey> keys = new ArrayList<>();
+        List<RollupBucket> buckets = new ArrayList<>();
+        for (RollupKey key : pending.keySet()) {
+            RollupBucket bucket = pending.remove(key);
+            if (bucket != null) {
+                keys.add(key);
+                buckets.add(bucket);
+            }
+        }
+        if (!keys.isEmpty()) {
+            flushTimer.record(() -> write(keys, buckets));
+        }
+    }
+
+    /**
+     * Drops all pending buckets.
+     */
+    public void clear() {
+        pending.clear();
+    }
+
+    @Override
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+                new CustomizableThreadFactory("rollup-flush-"));
+        long interval = properties.getFlushInterval().toMillis();
+        executor.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.MILLISECONDS);
+        scheduler = executor;
+    }
+
+    @Override
+    public void stop() {
+        ScheduledExecutorService executor = scheduler;
+        if (executor == null) {
+            return;
+        }
+        scheduler = null;
+        executor.shutdown();
+        try {
+            executor.awaitTermination(properties.getFlushInterval().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return scheduler != null;
+    }
+
+    @Override
+    public int getPhase() {
+        // stop after the web server and gateways, so buckets of the last accepted readings are flushed too
+        return DEFAULT_PHASE - 4096;
+    }
+
+    private void add(String deviceId, String metric, double value, OffsetDateTime timestamp) {
+        for (Resolution resolution : RESOLUTIONS) {
+            RollupKey key = new RollupKey(deviceId, metric, resolution, resolution.bucketStart(timestamp));
+            pending.compute(key, (k, bucket) -> {
+                RollupBucket target = bucket != null ? bucket : new RollupBucket();
+                target.add(value, timestamp);
+                return target;
+            });
+        }
+    }
+
+    private void write(List<RollupKey> keys, List<RollupBucket> buckets) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, MetricRollupDocument.class);
+        for (int i = 0; i < keys.size(); i++) {
+            bulk.upsert(bucketQuery(keys.get(i)), mergeUpdate(buckets.get(i)));
+        }
+        try {
+            bulk.execute();
+            flushedCounter.increment(keys.size());
+        } catch (BulkOperationException e) {
+            // unordered bulk applies every other upsert, so only the failed buckets are retried
+            e.getErrors().forEach(error -> requeue(keys.get(error.getIndex()), buckets.get(error.getIndex())));
+            flushedCounter.increment(keys.size() - e.getErrors().size());
+            failedCounter.increment(e.getErrors().size());
+            log.warn("Failed to flush {} of {} rollup buckets: {}", e.getErrors().size(), keys.size(), e.getMessage());
+        } catch (RuntimeException e) {
+            for (int i = 0; i < keys.size(); i++) {
+                requeue(keys.get(i), buckets.get(i));
+            }
+            failedCounter.increment(keys.size());
+            log.warn("Failed to flush {} rollup buckets: {}", keys.size(), e.getMessage());
+        }
+    }
+
+    private void requeue(RollupKey key, RollupBucket bucket) {
+        pending.merge(key, bucket, (current, failed) -> {
+            current.merge(failed);
+            return current;
+        });
+    }
+
+    private static Query bucketQuery(RollupKey key) {
+        return new Query(Criteria.where("deviceId").is(key.getDeviceId())
+                .and("resolution").is(key.getResolution().getCode())
+                .and("bucketStart").is(Date.from(key.getBucketStart().toInstant()))
+                .and("metric").is(key.getMetric()));
+    }
+
+    /**
+     * Builds a pipeline update merging the bucket into the stored one.
+     * All expressions of a single $set stage see the stored values, so "last" is compared
+     * with the stored lastTimestamp before it is replaced.
+     */
+    private static AggregationUpdate mergeUpdate(RollupBucket bucket) {
+        Date lastTimestamp = Date.from(bucket.getLastTimestamp().toInstant());
+        Document set = new Document()
+                .append("min", new Document("$min", List.of("$min", bucket.getMin())))
+                .append("max", new Document("$max", List.of("$max", bucket.getMax())))
+                .append("sum", new Document("$add", List.of(ifNull("$sum", 0.0), bucket.getSum())))
+                .append("count", new Document("$add", List.of(ifNull("$count", 0L), bucket.getCount())))
+                .append("last", new Document("$cond", List.of(
+                        new Document("$gte", List.of(lastTimestamp, ifNull("$lastTimestamp", EPOCH))),
+                        bucket.getLast(),
+                        "$last")))
+                .append("lastTimestamp", new Document("$max", List.of("$lastTimestamp", lastTimestamp)));
+        AggregationOperation stage = context -> new Document("$set", set);
+        return AggregationUpdate.from(List.of(stage));
+    }
+
+    private static Document ifNull(String field, Object replacement) {
+        return new Document("$ifNull", List.of(field, replacement));
+    }
+}
@@ -0,0 +1,53 @@
+package ru.itmo.mopsync.iotcontroller.rollup;
+
+import lombok.Getter;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Mutable in-memory aggregate of metric values that have not been flushed yet.
+ * Not thread-safe; RollupAggregator only mutates buckets inside ConcurrentHashMap.compute.
+ */
+@Getter
+public class RollupBucket {
+
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+    private double sum;
+    private long count;
+    private double last;
+    private OffsetDateTime lastTimestamp;
+
+    /**
+     * Adds a metric value.
+     *
+     * @param value     metric value
+     * @param timestamp timestamp of the reading
+     */
+    public void add(double value, OffsetDateTime timestamp) {
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        sum += value;
+        count++;
+        if (lastTimestamp == null || !timestamp.isBefore(lastTimestamp)) {
+            last = value;
+            lastTimestamp = timestamp;
+        }
+    }
+
+    /**
+     * Merges another bucket of the same key into this one.
+     *
+     * @param other bucket to merge
+     */
+    public void merge(RollupBucket other) {
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        sum += other.sum;
+        count += other.count;
+        if (lastTimestamp == null || !other.lastTimestamp.isBefore(lastTimestamp)) {
+            last = other.last;
+            lastTimestamp = other.lastTimestamp;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package ru.itmo.mopsync.iotcontroller.rollup;
+
+import lombok.Value;
+import ru.itmo.mopsync.iotcontroller.model.Resolution;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Identity of a rollup bucket: one metric of one device over one time bucket.
+ */
+@Value
+public class RollupKey {
+
+    String deviceId;
+    String metric;
+    Resolution resolution;
+    OffsetDateTime bucketStart;
+}
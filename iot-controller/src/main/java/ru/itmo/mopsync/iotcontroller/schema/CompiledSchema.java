@@ -0,0 +1,199 @@
+package ru.itmo.mopsync.iotcontroller.schema;
+
+import io.micrometer.core.instrument.Counter;
+import org.springframework.validation.Errors;
+import ru.itmo.mopsync.iotcontroller.config.MetricSchemaProperties;
+import ru.itmo.mopsync.iotcontroller.model.MetricValues;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Metric schema of one device type compiled for checking readings.
+ * A metric is found by one hash lookup; its type and bounds are kept in primitive arrays, absent bounds
+ * as infinities, so checking a number neither boxes nor parses anything.
+ * Checked metrics are normalized: numbers of any type and numeric strings become doubles.
+ */
+public final class CompiledSchema {
+
+    private static final ThreadLocal<MetricValues.Builder> BUILDERS =
+            ThreadLocal.withInitial(MetricValues.Builder::new);
+
+    private final String deviceType;
+    private final boolean strict;
+    private final Map<String, Integer> slots;
+    private final String[] names;
+    private final boolean[] numeric;
+    private final boolean[] required;
+    private final double[] min;
+    private final double[] max;
+    private final int requiredCount;
+    private final Counter rejected;
+
+    CompiledSchema(String deviceType, MetricSchemaProperties.DeviceType schema, Counter rejected) {
+        this.deviceType = deviceType;
+        this.strict = schema.isStrict();
+        this.rejected = rejected;
+        int size = schema.getMetrics().size();
+        this.slots = new HashMap<>(size * 2);
+        this.names = new String[size];
+        this.numeric = new boolean[size];
+        this.required = new boolean[size];
+        this.min = new double[size];
+        this.max = new double[size];
+        int slot = 0;
+        int requiredMetrics = 0;
+        for (Map.Entry<String, MetricSchemaProperties.Metric> entry : schema.getMetrics().entrySet()) {
+            MetricSchemaProperties.Metric metric = entry.getValue();
+            slots.put(entry.getKey(), slot);
+            names[slot] = entry.getKey();
+            numeric[slot] = metric.getType() == MetricSchemaProperties.MetricType.NUMBER;
+            required[slot] = metric.isRequired();
+            min[slot] = metric.getMin() != null ? metric.getMin() : Double.NEGATIVE_INFINITY;
+            max[slot] = metric.getMax() != null ? metric.getMax() : Double.POSITIVE_INFINITY;
+            requiredMetrics += metric.isRequired() ? 1 : 0;
+            slot++;
+        }
+        this.requiredCount = requiredMetrics;
+    }
+
+    /**
+     * Returns the device type of the schema.
+     *
+     * @return device type
+     */
+    public String getDeviceType() {
+        return deviceType;
+    }
+
+    /**
+     * Checks the metrics of a reading against the schema and normalizes them.
+     * Metrics that are not in the schema of a non-strict device type are kept as sent.
+     *
+     * @param metrics metrics of a reading, without null values
+     * @param errors  errors to register violations in
+     * @return normalized metrics, or null if the reading violates the schema
+     */
+    public MetricValues apply(Map<String, Object> metrics, Errors errors) {
+        MetricValues.Builder normalized = BUILDERS.get();
+        boolean valid = true;
+        int requiredSeen = 0;
+        if (metrics instanceof MetricValues values) {
+            for (int i = 0; i < values.size(); i++) {
+                String name = values.name(i);
+                Integer slot = slots.get(name);
+                if (slot == null) {
+                    valid &= addUnknown(normalized, name, values.value(i), errors);
+                    continue;
+                }
+                valid &= values.isNumber(i)
+                        ? addNumber(normalized, slot, values.doubleValue(i), errors)
+                        : addValue(normalized, slot, values.value(i), errors);
+                requiredSeen += required[slot] ? 1 : 0;
+            }
+        } else {
+            for (Map.Entry<String, Object> entry : metrics.entrySet()) {
+                Integer slot = slots.get(entry.getKey());
+                if (slot == null) {
+                    valid &= addUnknown(normalized, entry.getKey(), entry.getValue(), errors);
+                    continue;
+                }
+                valid &= entry.getValue() instanceof Number number
+                        ? addNumber(normalized, slot, number.doubleValue(), errors)
+                        : addValue(normalized, slot, entry.getValue(), errors);
+                requiredSeen += required[slot] ? 1 : 0;
+            }
+        }
+        if (requiredSeen < requiredCount) {
+            valid = false;
+            for (int slot = 0; slot < names.length; slot++) {
+                if (required[slot] && !metrics.containsKey(names[slot])) {
+                    reject(errors, names[slot], "missing.metric", "Metric '" + names[slot]
+                            + "' is required for device type '" + deviceType + "'");
+                }
+            }
+        }
+        if (!valid) {
+            normalized.clear();
+            rejected.increment();
+            return null;
+        }
+        return normalized.build();
+    }
+
+    /**
+     * Rejects a reading whose meta names another device type than the one of its device id prefix.
+     *
+     * @param metaKey      meta key of the device type
+     * @param declaredType device type named in the meta
+     * @param errors       errors to register the violation in
+     */
+    void rejectDeviceType(String metaKey, String declaredType, Errors errors) {
+        errors.rejectValue("meta['" + metaKey + "']", "invalid.device.type", "Device type '" + declaredType
+                + "' does not match the device type '" + deviceType + "' of the device id");
+        rejected.increment();
+    }
+
+    private boolean addNumber(MetricValues.Builder normalized, int slot, double value, Errors errors) {
+        if (!numeric[slot]) {
+            reject(errors, names[slot], "invalid.metric.type", "Metric '" + names[slot] + "' must be a string");
+            return false;
+        }
+        if (!Double.isFinite(value)) {
+            reject(errors, names[slot], "invalid.metric.value", "Metric '" + names[slot] + "' must be finite");
+            return false;
+        }
+        if (value < min[slot]) {
+            reject(errors, names[slot], "invalid.metric.range",
+                    "Metric '" + names[slot] + "' must be at least " + min[slot]);
+            return false;
+        }
+        if (value > max[slot]) {
+            reject(errors, names[slot], "invalid.metric.range",
+                    "Metric '" + names[slot] + "' must be at most " + max[slot]);
+            return false;
+        }
+        normalized.addDouble(names[slot], value);
+        return true;
+    }
+
+    private boolean addValue(MetricValues.Builder normalized, int slot, Object value, Errors errors) {
+        if (!numeric[slot]) {
+            if (value instanceof String) {
+                normalized.addObject(names[slot], value);
+                return true;
+            }
+            reject(errors, names[slot], "invalid.metric.type", "Metric '" + names[slot] + "' must be a string");
+            return false;
+        }
+        if (value instanceof String string) {
+            try {
+                return addNumber(normalized, slot, Double.parseDouble(string), errors);
+            } catch (NumberFormatException e) {
+                // rejected below like any other non-numeric value
+            }
+        }
+        reject(errors, names[slot], "invalid.metric.type", "Metric '" + names[slot] + "' must be a number");
+        return false;
+    }
+
+    private boolean addUnknown(MetricValues.Builder normalized, String name, Object value, Errors errors) {
+        if (strict) {
+            reject(errors, name, "unknown.metric", "Metric '" + name + "' is not in the schema of device type '"
+                    + deviceType + "'");
+            return false;
+        }
+        if (value instanceof Integer || value instanceof Long) {
+            normalized.addLong(name, ((Number) value).longValue());
+        } else if (value instanceof Double) {
+            normalized.addDouble(name, (Double) value);
+        } else {
+            normalized.addObject(name, value);
+        }
+        return true;
+    }
+
+    private static void reject(Errors errors, String name, String code, String message) {
+        errors.rejectValue("metrics['" + name + "']", code, message);
+    }
+}
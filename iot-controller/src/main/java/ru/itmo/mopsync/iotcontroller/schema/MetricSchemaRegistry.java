@@ -0,0 +1,83 @@
+package ru.itmo.mopsync.iotcontroller.schema;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.Errors;
+import ru.itmo.mopsync.iotcontroller.config.MetricSchemaProperties;
+import ru.itmo.mopsync.iotcontroller.generated.model.DeviceDataRequest;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Registry of metric schemas by device type, compiled once at startup.
+ * The device type of a reading is derived from the device id prefix; only devices that match no prefix name
+ * their type in the meta, so a device cannot escape its schema by naming another or an unknown type.
+ */
+@Component
+public class MetricSchemaRegistry {
+
+    private final MetricSchemaProperties properties;
+    private final Map<String, CompiledSchema> schemas = new HashMap<>();
+    private final List<Map.Entry<String, CompiledSchema>> prefixes = new ArrayList<>();
+
+    /**
+     * Constructor for MetricSchemaRegistry.
+     *
+     * @param properties    metric schema properties
+     * @param meterRegistry meter registry for rejected readings
+     */
+    public MetricSchemaRegistry(MetricSchemaProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        properties.getDeviceTypes().forEach((deviceType, schema) -> {
+            Counter rejected = Counter.builder("iot.ingest.schema.rejected")
+                    .description("Readings rejected by the metric schema of their device type")
+                    .tag("device_type", deviceType)
+                    .register(meterRegistry);
+            CompiledSchema compiled = new CompiledSchema(deviceType, schema, rejected);
+            schemas.put(deviceType, compiled);
+            schema.getDevicePrefixes().forEach(prefix -> prefixes.add(Map.entry(prefix, compiled)));
+        });
+        // longest prefix first, so the first match is the most specific one
+        prefixes.sort(Comparator.comparingInt((Map.Entry<String, CompiledSchema> entry) -> entry.getKey().length())
+                .reversed());
+    }
+
+    /**
+     * Finds the schema of the device that sent a reading.
+     * A device type named in the meta of a device that matches a prefix must be the type of that prefix.
+     *
+     * @param request device data request
+     * @param errors  errors to register a contradicting device type in
+     * @return compiled schema, or null if the device type is unknown, has no schema or contradicts the prefix
+     */
+    public CompiledSchema schemaFor(DeviceDataRequest request, Errors errors) {
+        if (!properties.isEnabled() || schemas.isEmpty()) {
+            return null;
+        }
+        Map<String, String> meta = request.getMeta();
+        String deviceType = meta != null ? meta.get(properties.getTypeMetaKey()) : null;
+        CompiledSchema byPrefix = schemaByPrefix(request.getDeviceId());
+        if (byPrefix == null) {
+            return deviceType != null ? schemas.get(deviceType) : null;
+        }
+        if (deviceType != null && !deviceType.equals(byPrefix.getDeviceType())) {
+            byPrefix.rejectDeviceType(properties.getTypeMetaKey(), deviceType, errors);
+            return null;
+        }
+        return byPrefix;
+    }
+
+    private CompiledSchema schemaByPrefix(String deviceId) {
+        for (Map.Entry<String, CompiledSchema> prefix : prefixes) {
+            if (deviceId.startsWith(prefix.getKey())) {
+                return prefix.getValue();
+            }
+        }
+        return null;
+    }
+}
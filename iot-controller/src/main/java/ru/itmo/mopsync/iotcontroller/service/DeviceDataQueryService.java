@@ -0,0 +1,286 @@
+package ru.itmo.mopsync.iotcontroller.service;
+
+import lombok.RequiredArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import ru.itmo.mopsync.iotcontroller.archive.SegmentArchive;
+import ru.itmo.mopsync.iotcontroller.config.RetentionProperties;
+import ru.itmo.mopsync.iotcontroller.config.RollupProperties;
+import ru.itmo.mopsync.iotcontroller.config.StorageProperties;
+import ru.itmo.mopsync.iotcontroller.dictionary.MetricDictionary;
+import ru.itmo.mopsync.iotcontroller.exception.Errors;
+import ru.itmo.mopsync.iotcontroller.model.DeviceDataCursor;
+import ru.itmo.mopsync.iotcontroller.model.DeviceDataDocument;
+import ru.itmo.mopsync.iotcontroller.model.DeviceDataRange;
+import ru.itmo.mopsync.iotcontroller.model.DeviceDataSlice;
+import ru.itmo.mopsync.iotcontroller.model.MetricRollupDocument;
+import ru.itmo.mopsync.iotcontroller.model.Resolution;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Service for reading stored device data by time range, either as raw readings or as rollup buckets.
+ * Raw readings are ordered by (timestamp, id) and buckets by (bucketStart, metric); both orders are served
+ * by an index without sorting in memory, so pages continue from a cursor instead of skipping
+ * and streams hold a single cursor batch at a time.
+ * With retention enabled, raw readings are merged from MongoDB and the segment archive.
+ * With the local store there is nothing to read, and every query is rejected.
+ */
+@Service
+@RequiredArgsConstructor
+public class DeviceDataQueryService {
+
+    private static final int STREAM_BATCH_SIZE = 1000;
+
+    private final MongoTemplate mongoTemplate;
+    private final RollupProperties rollupProperties;
+    private final RetentionProperties retentionProperties;
+    private final SegmentArchive segmentArchive;
+    private final MetricDictionary metricDictionary;
+    private final StorageProperties storageProperties;
+
+    /**
+     * Picks the resolution of a range: the requested one, otherwise raw readings for short ranges,
+     * 1-minute buckets while their number stays within the configured maximum, and 1-hour buckets beyond.
+     *
+     * @param range query range
+     * @return resolution to read
+     */
+    public Resolution resolve(DeviceDataRange range) {
+        if (storageProperties.getType() == StorageProperties.StorageType.LOCAL) {
+            throw Errors.localStoreQueryError();
+        }
+        if (range.getResolution() != null) {
+            return range.getResolution();
+        }
+        Duration length = Duration.between(range.getFrom(), range.getTo());
+        if (!rollupProperties.isEnabled() || length.compareTo(rollupProperties.getRawMaxRange()) <= 0) {
+            return Resolution.RAW;
+        }
+        if (length.dividedBy(Resolution.MINUTE.getBucketSize()) <= rollupProperties.getMaxBuckets()) {
+            return Resolution.MINUTE;
+        }
+        return Resolution.HOUR;
+    }
+
+    /**
+     * Finds one page of readings or rollup buckets in the range.
+     *
+     * @param range query range
+     * @param limit maximum number of readings or buckets in the page
+     * @return page with the cursor of the next page
+     */
+    public DeviceDataSlice findPage(DeviceDataRange range, int limit) {
+        Resolution resolution = resolve(range);
+        // one extra element tells whether another page exists
+        if (resolution == Resolution.RAW) {
+            Query query = buildReadingQuery(range).limit(limit + 1);
+            List<DeviceDataDocument> documents = mongoTemplate.find(query, DeviceDataDocument.class);
+            if (retentionProperties.isEnabled()) {
+                try (Stream<DeviceDataDocument> merged = mergeSorted(segmentArchive.read(range),
+                        documents.stream(), SegmentArchive.READING_ORDER)) {
+                    documents = merged.limit(limit + 1).toList();
+                }
+            }
+            if (documents.size() <= limit) {
+                return new DeviceDataSlice(resolution, documents, List.of(), null);
+            }
+            List<DeviceDataDocument> items = documents.subList(0, limit);
+            DeviceDataDocument last = items.get(limit - 1);
+            return new DeviceDataSlice(resolution, items, List.of(),
+                    new DeviceDataCursor(last.getTimestamp(), last.getId()));
+        }
+
+        Query query = buildRollupQuery(range, resolution).limit(limit + 1);
+        List<MetricRollupDocument> documents = mongoTemplate.find(query, MetricRollupDocument.class);
+        if (documents.size() <= limit) {
+            return new DeviceDataSlice(resolution, List.of(), documents, null);
+        }
+        List<MetricRollupDocument> buckets = documents.subList(0, limit);
+        MetricRollupDocument last = buckets.get(limit - 1);
+        return new DeviceDataSlice(resolution, List.of(), buckets,
+                new DeviceDataCursor(last.getBucketStart(), last.getMetric()));
+    }
+
+    /**
+     * Streams all raw readings in the range from a database cursor.
+     * The caller must close the returned stream.
+     *
+     * @param range query range
+     * @return stream of readings
+     */
+    public Stream<DeviceDataDocument> stream(DeviceDataRange range) {
+        Query query = buildReadingQuery(range).cursorBatchSize(STREAM_BATCH_SIZE);
+        Stream<DeviceDataDocument> documents = mongoTemplate.stream(query, DeviceDataDocument.class);
+        if (!retentionProperties.isEnabled()) {
+            return documents;
+        }
+        return mergeSorted(segmentArchive.read(range), documents, SegmentArchive.READING_ORDER);
+    }
+
+    /**
+     * Streams all rollup buckets of the resolution in the range from a database cursor.
+     * The caller must close the returned stream.
+     *
+     * @param range      query range
+     * @param resolution rollup resolution
+     * @return stream of buckets
+     */
+    public Stream<MetricRollupDocument> streamRollups(DeviceDataRange range, Resolution resolution) {
+        Query query = buildRollupQuery(range, resolution).cursorBatchSize(STREAM_BATCH_SIZE);
+        return mongoTemplate.stream(query, MetricRollupDocument.class);
+    }
+
+    private Query buildReadingQuery(DeviceDataRange range) {
+        validate(range);
+
+        List<Criteria> conditions = new ArrayList<>();
+        conditions.add(Criteria.where("timestamp")
+                .gte(Date.from(range.getFrom().toInstant()))
+                .lt(Date.from(range.getTo().toInstant())));
+
+        DeviceDataCursor cursor = range.getCursor();
+        if (cursor != null) {
+            if (!ObjectId.isValid(cursor.getKey())) {
+                throw Errors.invalidCursorError();
+            }
+            Date timestamp = Date.from(cursor.getTimestamp().toInstant());
+            conditions.add(new Criteria().orOperator(
+                    Criteria.where("timestamp").gt(timestamp),
+                    Criteria.where("timestamp").is(timestamp).and("_id").gt(new ObjectId(cursor.getKey()))));
+        }
+
+        if (retentionProperties.isEnabled()) {
+            // archived readings are served from segments until the TTL index removes them
+            conditions.add(Criteria.where("archivedAt").exists(false));
+        }
+
+        List<String> metricPaths = range.getMetrics().stream()
+                .flatMap(this::metricPaths)
+                .toList();
+        if (!metricPaths.isEmpty()) {
+            // readings without any of the requested metrics carry nothing for the caller
+            conditions.add(new Criteria().orOperator(metricPaths.stream()
+                    .map(path -> Criteria.where(path).exists(true))
+                    .toList()));
+        }
+
+        Query query = new Query(Criteria.where("deviceId").is(range.getDeviceId()).andOperator(conditions))
+                .with(Sort.by(Sort.Order.asc("timestamp"), Sort.Order.asc("_id")));
+        if (!metricPaths.isEmpty()) {
+            query.fields().include("deviceId", "timestamp", "seq", "seqOrder", "seqGap");
+            metricPaths.forEach(path -> query.fields().include(path));
+        }
+        return query;
+    }
+
+    /**
+     * Field paths a metric may be stored under: by name, and by dictionary id once one is assigned.
+     */
+    private Stream<String> metricPaths(String metric) {
+        Integer id = metricDictionary.findId(metric);
+        return id != null
+                ? Stream.of("metrics." + metric, MetricDictionary.ENCODED_FIELD + "." + id)
+                : Stream.of("metrics." + metric);
+    }
+
+    private Query buildRollupQuery(DeviceDataRange range, Resolution resolution) {
+        validate(range);
+
+        // the bucket containing the range start is included as a whole
+        List<Criteria> conditions = new ArrayList<>();
+        conditions.add(Criteria.where("bucketStart")
+                .gte(Date.from(resolution.bucketStart(range.getFrom()).toInstant()))
+                .lt(Date.from(range.getTo().toInstant())));
+
+        DeviceDataCursor cursor = range.getCursor();
+        if (cursor != null) {
+            Date bucketStart = Date.from(cursor.getTimestamp().toInstant());
+            conditions.add(new Criteria().orOperator(
+                    Criteria.where("bucketStart").gt(bucketStart),
+                    Criteria.where("bucketStart").is(bucketStart).and("metric").gt(cursor.getKey())));
+        }
+
+        if (!range.getMetrics().isEmpty()) {
+            conditions.add(Criteria.where("metric").in(range.getMetrics()));
+        }
+
+        return new Query(Criteria.where("deviceId").is(range.getDeviceId())
+                .and("resolution").is(resolution.getCode())
+                .andOperator(conditions))
+                .with(Sort.by(Sort.Order.asc("bucketStart"), Sort.Order.asc("metric")));
+    }
+
+    private static void validate(DeviceDataRange range) {
+        if (!range.getFrom().isBefore(range.getTo())) {
+            throw Errors.validationError("Parameter 'from' must be before 'to'");
+        }
+        for (String metric : range.getMetrics()) {
+            if (metric.isBlank() || metric.contains(".") || metric.startsWith("$")) {
+                throw Errors.validationError("Invalid metric name: " + metric);
+            }
+        }
+    }
+
+    /**
+     * Merges two sorted streams into one sorted stream; closing it closes both.
+     */
+    private static <T> Stream<T> mergeSorted(Stream<T> first, Stream<T> second, Comparator<? super T> order) {
+        Iterator<T> left = first.iterator();
+        Iterator<T> right = second.iterator();
+        Iterator<T> merged = new Iterator<>() {
+            private T nextLeft;
+            private T nextRight;
+
+            @Override
+            public boolean hasNext() {
+                return nextLeft != null || nextRight != null || left.hasNext() || right.hasNext();
+            }
+
+            @Override
+            public T next() {
+                if (nextLeft == null && left.hasNext()) {
+                    nextLeft = left.next();
+                }
+                if (nextRight == null && right.hasNext()) {
+                    nextRight = right.next();
+                }
+                if (nextLeft == null && nextRight == null) {
+                    throw new NoSuchElementException();
+                }
+                T result;
+                int comparison = nextLeft == null ? 1 : nextRight == null ? -1 : order.compare(nextLeft, nextRight);
+                if (comparison == 0) {
+                    // archived but not marked yet, e.g. during an archive run: served once
+                    result = nextLeft;
+                    nextLeft = null;
+                    nextRight = null;
+                } else if (comparison < 0) {
+                    result = nextLeft;
+                    nextLeft = null;
+                } else {
+                    result = nextRight;
+                    nextRight = null;
+                }
+                return result;
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(merged, Spliterator.ORDERED), false)
+                .onClose(first::close)
+                .onClose(second::close);
+    }
+}
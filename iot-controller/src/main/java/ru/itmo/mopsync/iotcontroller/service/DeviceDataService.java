@@ -1,55 +1,173 @@
 package ru.itmo.mopsync.iotcontroller.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
+import ru.itmo.mopsync.iotcontroller.config.OutboxProperties;
+import ru.itmo.mopsync.iotcontroller.decimation.DecimationPolicy;
+import ru.itmo.mopsync.iotcontroller.dedup.SequenceArrival;
+import ru.itmo.mopsync.iotcontroller.dedup.SequenceTracker;
+import ru.itmo.mopsync.iotcontroller.exception.Errors;
+import ru.itmo.mopsync.iotcontroller.exception.RetryLaterException;
 import ru.itmo.mopsync.iotcontroller.generated.model.DeviceDataRequest;
+import ru.itmo.mopsync.iotcontroller.metrics.IngestMetrics;
 import ru.itmo.mopsync.iotcontroller.model.DeviceDataDocument;
-import ru.itmo.mopsync.iotcontroller.repository.DeviceDataRepository;
+import ru.itmo.mopsync.iotcontroller.model.DeviceDataNotification;
+import ru.itmo.mopsync.iotcontroller.outbox.OutboxRelay;
+import ru.itmo.mopsync.iotcontroller.ratelimit.AdmissionController;
+import ru.itmo.mopsync.iotcontroller.ratelimit.DeviceRateLimiter;
+import ru.itmo.mopsync.iotcontroller.rollup.RollupAggregator;
+import ru.itmo.mopsync.iotcontroller.storage.DeviceDataStore;
+
+import java.time.Duration;
 
 /**
  * Service for processing and persisting device data.
  * Validation is performed in the controller layer using JSR-303 annotations and custom Validator.
+ * Processing is idempotent on (deviceId, seq): retried readings are acknowledged but not stored or announced again.
+ * Stored readings are flagged with gaps and late arrivals in the sequence of their device by {@link SequenceTracker}.
+ * Document ids are generated here rather than by MongoDB, so the notification is published while the insert
+ * is in flight; consumers retry reading a document that is not visible yet and drop a notification whose
+ * document never appears, which is the case for a duplicate rejected by the unique index or a failed insert.
+ * In outbox mode the notification is published by {@link OutboxRelay}, so the request path only writes to MongoDB.
+ * Readings dropped by {@link DecimationPolicy} are not stored but announced with their payload,
+ * and still update the device shadow and the rollups.
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class DeviceDataService {
 
-    private final DeviceDataRepository repository;
+    private final DeviceDataStore store;
     private final RabbitMqMessageSender messageSender;
+    private final SequenceTracker sequenceTracker;
+    private final AdmissionController admissionController;
+    private final DeviceRateLimiter rateLimiter;
+    private final IngestMetrics ingestMetrics;
+    private final DeviceShadowService deviceShadowService;
+    private final RollupAggregator rollupAggregator;
+    private final OutboxProperties outboxProperties;
+    private final OutboxRelay outboxRelay;
+    private final DecimationPolicy decimationPolicy;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Admits a reading received by a transport other than the HTTP endpoint and processes it.
+     * Applies the same global admission control and per-device rate limit as the endpoint, where
+     * AdmissionInterceptor and DeviceDataApiImpl apply them, so a flooding device is limited on every transport.
+     *
+     * @param request device data request (already validated)
+     * @throws RetryLaterException with 503 if the service sheds load, with 429 if the device exceeded its rate
+     */
+    public void ingestDeviceData(DeviceDataRequest request) {
+        admissionController.admit();
+        try {
+            Duration retryAfter = rateLimiter.tryAcquire(request.getDeviceId());
+            if (!retryAfter.isZero()) {
+                throw Errors.deviceRateLimitError(request.getDeviceId(), retryAfter);
+            }
+            processDeviceData(request);
+        } finally {
+            admissionController.release();
+        }
+    }
 
     /**
-     * Processes device data: saves to MongoDB and sends notification to RabbitMQ.
+     * Processes device data: saves it to the {@link DeviceDataStore} and sends notification to RabbitMQ.
      * Validation is assumed to be completed before this method is called.
+     * Duplicates are detected by SequenceTracker first and by the unique (deviceId, seq) index as a fallback;
+     * a duplicate found by the index has already been announced under an id that is never stored.
      *
      * @param request device data request (already validated)
      */
     public void processDeviceData(DeviceDataRequest request) {
         log.debug("Processing device data for device: {}", request.getDeviceId());
 
-        DeviceDataDocument document = createDocument(request);
-        DeviceDataDocument saved = repository.save(document);
+        if (sequenceTracker.isDuplicate(request.getDeviceId(), request.getSeq())) {
+            countDuplicate("cache");
+            log.debug("Skipping duplicate seq {} for device: {}", request.getSeq(), request.getDeviceId());
+            return;
+        }
+
+        DeviceDataDocument document = createDocument(request,
+                outboxProperties.isEnabled() ? outboxRelay.getInstanceId() : null);
+        SequenceArrival arrival = sequenceTracker.track(document);
+        if (!decimationPolicy.shouldStore(document)) {
+            forward(document);
+            return;
+        }
+        if (!outboxProperties.isEnabled()) {
+            // publishing does not wait for the confirm, so the broker round trip overlaps the insert
+            ingestMetrics.stage(IngestMetrics.PUBLISH)
+                    .record(() -> messageSender.sendDeviceDataNotification(document.getId()));
+            log.debug("Sent notification to RabbitMQ for device data id: {}", document.getId());
+        }
+        DeviceDataDocument saved;
+        long saveStart = System.nanoTime();
+        try {
+            saved = store.insert(document);
+        } catch (DuplicateKeyException e) {
+            sequenceTracker.markDuplicate(document, arrival);
+            countDuplicate("index");
+            log.debug("Skipping duplicate seq {} for device: {}", request.getSeq(), request.getDeviceId());
+            return;
+        } finally {
+            long saveNanos = System.nanoTime() - saveStart;
+            admissionController.recordStoreLatency(saveNanos);
+            ingestMetrics.recordStage(IngestMetrics.SAVE, saveNanos);
+        }
+        sequenceTracker.markSeen(saved);
+        decimationPolicy.markStored(saved);
+        deviceShadowService.update(saved);
+        rollupAggregator.record(saved);
+        ingestMetrics.recordMetricCount(request.getMetrics().size());
         log.debug("Saved device data with id: {}", saved.getId());
 
-        messageSender.sendDeviceDataNotification(saved.getId());
-        log.debug("Sent notification to RabbitMQ for device data id: {}", saved.getId());
+        if (outboxProperties.isEnabled()) {
+            outboxRelay.wakeUp();
+        }
     }
 
     /**
      * Creates a MongoDB document from the request.
      *
-     * @param request device data request
+     * @param request     device data request
+     * @param outboxOwner instance relaying the notification in outbox mode, null otherwise
      * @return document to save
      */
-    private DeviceDataDocument createDocument(DeviceDataRequest request) {
+    static DeviceDataDocument createDocument(DeviceDataRequest request, String outboxOwner) {
         return new DeviceDataDocument(
-                null, // ID will be generated by MongoDB
+                new ObjectId().toHexString(),
                 request.getDeviceId(),
                 request.getTimestamp(),
                 request.getSeq(),
                 request.getMetrics(),
-                request.getMeta()
+                request.getMeta(),
+                null,
+                outboxOwner,
+                null,
+                null
         );
     }
+
+    /**
+     * Announces a reading that is not stored with its payload and applies it to the in-memory state.
+     */
+    private void forward(DeviceDataDocument document) {
+        DeviceDataNotification notification = DeviceDataNotification.withPayload(document);
+        ingestMetrics.stage(IngestMetrics.PUBLISH)
+                .record(() -> messageSender.sendDeviceDataNotification(notification));
+        sequenceTracker.markSeen(document);
+        deviceShadowService.update(document);
+        rollupAggregator.record(document);
+        ingestMetrics.recordMetricCount(document.getMetrics().size());
+        log.debug("Forwarded decimated seq {} for device: {}", document.getSeq(), document.getDeviceId());
+    }
+
+    private void countDuplicate(String detectedBy) {
+        meterRegistry.counter("iot.ingest.duplicates", "detected_by", detectedBy).increment();
+    }
 }
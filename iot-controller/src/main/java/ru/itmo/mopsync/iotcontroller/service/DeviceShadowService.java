@@ -0,0 +1,74 @@
+package ru.itmo.mopsync.iotcontroller.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Service;
+import ru.itmo.mopsync.iotcontroller.config.DeviceShadowProperties;
+import ru.itmo.mopsync.iotcontroller.model.DeviceDataDocument;
+import ru.itmo.mopsync.iotcontroller.model.DeviceShadow;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Service keeping the latest metric values of every device in a bounded in-memory cache.
+ * Updated on ingest after a reading is stored; reads never touch MongoDB.
+ * The shadow only knows readings stored by this instance since it started.
+ */
+@Service
+public class DeviceShadowService {
+
+    private final Cache<String, DeviceShadow> shadows;
+
+    /**
+     * Constructor for DeviceShadowService.
+     *
+     * @param properties    shadow properties
+     * @param meterRegistry meter registry for cache metrics
+     */
+    public DeviceShadowService(DeviceShadowProperties properties, MeterRegistry meterRegistry) {
+        this.shadows = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxDevices())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, shadows, "device_shadow");
+    }
+
+    /**
+     * Merges a stored reading into the shadow of its device.
+     *
+     * @param document stored reading
+     */
+    public void update(DeviceDataDocument document) {
+        shadows.asMap().compute(document.getDeviceId(), (id, current) -> DeviceShadow.merge(current, document));
+    }
+
+    /**
+     * Returns the shadow of a device.
+     *
+     * @param deviceId device identifier
+     * @return shadow or null if no readings of the device are known
+     */
+    public DeviceShadow get(String deviceId) {
+        return shadows.getIfPresent(deviceId);
+    }
+
+    /**
+     * Returns the shadows of several devices; unknown devices are skipped.
+     *
+     * @param deviceIds device identifiers
+     * @return shadows by device id
+     */
+    public Map<String, DeviceShadow> getAll(Collection<String> deviceIds) {
+        return shadows.getAllPresent(deviceIds);
+    }
+
+    /**
+     * Forgets all devices.
+     */
+    public void clear() {
+        shadows.invalidateAll();
+    }
+}
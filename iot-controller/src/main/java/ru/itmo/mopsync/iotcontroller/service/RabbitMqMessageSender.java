@@ -2,32 +2,37 @@ package ru.itmo.mopsync.iotcontroller.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.stereotype.Component;
-import ru.itmo.mopsync.iotcontroller.config.RabbitQueueProperties;
 import ru.itmo.mopsync.iotcontroller.model.DeviceDataNotification;
+import ru.itmo.mopsync.iotcontroller.transport.NotificationTransport;
 
 /**
- * Service for sending messages to RabbitMQ.
+ * Service for sending device data notifications to rule-engine through the configured
+ * {@link NotificationTransport}: RabbitMQ by default, or the local notification log.
  */
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class RabbitMqMessageSender {
 
-    private final RabbitTemplate rabbitTemplate;
-    private final RabbitQueueProperties rabbitQueueProperties;
+    private final NotificationTransport transport;
 
     /**
-     * Sends a notification to RabbitMQ when device data is saved.
+     * Sends a notification when device data is saved.
      *
-     * @param deviceDataId MongoDB document ID of the saved device data
+     * @param deviceDataId document ID of the saved device data
      */
     public void sendDeviceDataNotification(String deviceDataId) {
-        String queueName = rabbitQueueProperties.getDeviceData();
-        log.debug("Sending notification to queue {} for device data id: {}", queueName, deviceDataId);
-        DeviceDataNotification notification = new DeviceDataNotification(deviceDataId);
-        rabbitTemplate.convertAndSend(queueName, notification);
-        log.debug("Notification sent successfully");
+        sendDeviceDataNotification(new DeviceDataNotification(deviceDataId));
+    }
+
+    /**
+     * Sends a notification, e.g. the full-payload notification of a reading that is not stored.
+     *
+     * @param notification notification of a reading
+     */
+    public void sendDeviceDataNotification(DeviceDataNotification notification) {
+        log.debug("Sending notification for device data id: {}", notification.getDeviceDataId());
+        transport.send(notification);
     }
 }
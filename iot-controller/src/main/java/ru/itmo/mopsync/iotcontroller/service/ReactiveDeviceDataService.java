@@ -0,0 +1,131 @@
+package ru.itmo.mopsync.iotcontroller.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import ru.itmo.mopsync.iotcontroller.config.OutboxProperties;
+import ru.itmo.mopsync.iotcontroller.config.StorageProperties;
+import ru.itmo.mopsync.iotcontroller.decimation.DecimationPolicy;
+import ru.itmo.mopsync.iotcontroller.dedup.SequenceArrival;
+import ru.itmo.mopsync.iotcontroller.dedup.SequenceTracker;
+import ru.itmo.mopsync.iotcontroller.generated.model.DeviceDataRequest;
+import ru.itmo.mopsync.iotcontroller.metrics.IngestMetrics;
+import ru.itmo.mopsync.iotcontroller.model.DeviceDataDocument;
+import ru.itmo.mopsync.iotcontroller.model.DeviceDataNotification;
+import ru.itmo.mopsync.iotcontroller.outbox.OutboxRelay;
+import ru.itmo.mopsync.iotcontroller.ratelimit.AdmissionController;
+import ru.itmo.mopsync.iotcontroller.rollup.RollupAggregator;
+import ru.itmo.mopsync.iotcontroller.storage.DeviceDataStore;
+
+/**
+ * Non-blocking counterpart of {@link DeviceDataService} for the reactive ingest stack:
+ * readings are written through the reactive MongoDB driver and announced through {@link ReactiveMessageSender},
+ * with the same deduplication, decimation, bookkeeping and outbox mode.
+ * With the local store readings go through the {@link DeviceDataStore} on the bounded elastic scheduler instead,
+ * since its appends block on the memory-mapped segment.
+ * The insert and the publish run concurrently, and the returned Mono completes once the reading is stored
+ * and its notification is confirmed or spooled, so a slow broker slows down responses and,
+ * through the admission limit, the intake of new requests.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveDeviceDataService {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final DeviceDataStore store;
+    private final StorageProperties storageProperties;
+    private final ReactiveMessageSender messageSender;
+    private final SequenceTracker sequenceTracker;
+    private final AdmissionController admissionController;
+    private final IngestMetrics ingestMetrics;
+    private final DeviceShadowService deviceShadowService;
+    private final RollupAggregator rollupAggregator;
+    private final OutboxProperties outboxProperties;
+    private final OutboxRelay outboxRelay;
+    private final DecimationPolicy decimationPolicy;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Processes device data: saves to MongoDB and sends notification to RabbitMQ.
+     * Validation is assumed to be completed before this method is called.
+     *
+     * @param request device data request (already validated)
+     * @return completes once the reading is stored and announced, or recognized as a duplicate
+     */
+    public Mono<Void> processDeviceData(DeviceDataRequest request) {
+        log.debug("Processing device data for device: {}", request.getDeviceId());
+
+        if (sequenceTracker.isDuplicate(request.getDeviceId(), request.getSeq())) {
+            countDuplicate("cache");
+            log.debug("Skipping duplicate seq {} for device: {}", request.getSeq(), request.getDeviceId());
+            return Mono.empty();
+        }
+
+        DeviceDataDocument document = DeviceDataService.createDocument(request,
+                outboxProperties.isEnabled() ? outboxRelay.getInstanceId() : null);
+        SequenceArrival arrival = sequenceTracker.track(document);
+        if (!decimationPolicy.shouldStore(document)) {
+            return messageSender.sendDeviceDataNotification(DeviceDataNotification.withPayload(document))
+                    .doOnSuccess(ignored -> {
+                        sequenceTracker.markSeen(document);
+                        deviceShadowService.update(document);
+                        rollupAggregator.record(document);
+                        ingestMetrics.recordMetricCount(request.getMetrics().size());
+                        log.debug("Forwarded decimated seq {} for device: {}", request.getSeq(),
+                                request.getDeviceId());
+                    });
+        }
+        Mono<Void> stored = Mono.defer(() -> {
+            long saveStart = System.nanoTime();
+            return insert(document)
+                    .doOnTerminate(() -> {
+                        long saveNanos = System.nanoTime() - saveStart;
+                        admissionController.recordStoreLatency(saveNanos);
+                        ingestMetrics.recordStage(IngestMetrics.SAVE, saveNanos);
+                    });
+        })
+                .onErrorResume(DuplicateKeyException.class, e -> {
+                    sequenceTracker.markDuplicate(document, arrival);
+                    countDuplicate("index");
+                    log.debug("Skipping duplicate seq {} for device: {}", request.getSeq(), request.getDeviceId());
+                    return Mono.empty();
+                })
+                .doOnNext(saved -> {
+                    sequenceTracker.markSeen(saved);
+                    decimationPolicy.markStored(saved);
+                    deviceShadowService.update(saved);
+                    rollupAggregator.record(saved);
+                    ingestMetrics.recordMetricCount(request.getMetrics().size());
+                    log.debug("Saved device data with id: {}", saved.getId());
+
+                    if (outboxProperties.isEnabled()) {
+                        outboxRelay.wakeUp();
+                    }
+                })
+                .then();
+        if (outboxProperties.isEnabled()) {
+            return stored;
+        }
+        // the id is generated on the client, so the notification does not wait for the insert
+        return Mono.when(stored, messageSender.sendDeviceDataNotification(document.getId()));
+    }
+
+    private Mono<DeviceDataDocument> insert(DeviceDataDocument document) {
+        if (storageProperties.getType() == StorageProperties.StorageType.LOCAL) {
+            return Mono.fromCallable(() -> store.insert(document)).subscribeOn(Schedulers.boundedElastic());
+        }
+        return mongoTemplate.insert(document);
+    }
+
+    private void countDuplicate(String detectedBy) {
+        meterRegistry.counter("iot.ingest.duplicates", "detected_by", detectedBy).increment();
+    }
+}
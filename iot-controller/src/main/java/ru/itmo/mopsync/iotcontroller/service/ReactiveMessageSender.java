@@ -0,0 +1,77 @@
+package ru.itmo.mopsync.iotcontroller.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import ru.itmo.mopsync.iotcontroller.config.TransportProperties;
+import ru.itmo.mopsync.iotcontroller.model.DeviceDataNotification;
+import ru.itmo.mopsync.iotcontroller.publisher.ReactivePublisher;
+import ru.itmo.mopsync.iotcontroller.spool.SpoolRelay;
+import ru.itmo.mopsync.iotcontroller.transport.NotificationTransport;
+
+/**
+ * Non-blocking counterpart of {@link RabbitMqMessageSender} for the reactive ingest stack.
+ * A notification counts as sent once the broker confirmed it or it is spooled; spool writes touch the disk,
+ * so they run on the bounded elastic scheduler rather than on the event loop.
+ * With the local transport, notifications are appended to the local notification log instead, also on the
+ * bounded elastic scheduler.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveMessageSender {
+
+    private final ReactivePublisher publisher;
+    private final SpoolRelay spoolRelay;
+    private final NotificationTransport transport;
+    private final TransportProperties transportProperties;
+
+    /**
+     * Sends a notification to RabbitMQ when device data is saved.
+     *
+     * @param deviceDataId MongoDB document ID of the saved device data
+     * @return completes once the notification is confirmed or spooled, fails if it is neither
+     */
+    public Mono<Void> sendDeviceDataNotification(String deviceDataId) {
+        return sendDeviceDataNotification(new DeviceDataNotification(deviceDataId));
+    }
+
+    /**
+     * Sends a notification to RabbitMQ, e.g. the full-payload notification of a reading that is not stored.
+     *
+     * @param notification notification of a reading
+     * @return completes once the notification is confirmed or spooled, fails if it is neither
+     */
+    public Mono<Void> sendDeviceDataNotification(DeviceDataNotification notification) {
+        String deviceDataId = notification.getDeviceDataId();
+        log.debug("Sending notification for device data id: {}", deviceDataId);
+        if (transportProperties.getType() == TransportProperties.TransportType.LOCAL) {
+            return Mono.<Void>fromRunnable(() -> transport.send(notification))
+                    .subscribeOn(Schedulers.boundedElastic());
+        }
+        Mono<Void> publish = publisher.publish(notification)
+                .onErrorResume(AmqpException.class, failure -> offer(notification).flatMap(spooled -> {
+                    if (!spooled) {
+                        return Mono.error(failure);
+                    }
+                    log.warn("Failed to publish notification for device data id {}, spooled: {}", deviceDataId,
+                            failure.getMessage());
+                    return Mono.empty();
+                }));
+        if (!spoolRelay.shouldSpool()) {
+            return publish;
+        }
+        return offer(notification)
+                .flatMap(spooled -> spooled ? Mono.<Void>empty() : publish);
+    }
+
+    private Mono<Boolean> offer(DeviceDataNotification notification) {
+        return Mono.fromCallable(() -> spoolRelay.offer(notification))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+}
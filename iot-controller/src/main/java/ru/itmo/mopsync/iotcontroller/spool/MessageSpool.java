@@ -0,0 +1,154 @@
+package ru.itmo.mopsync.iotcontroller.spool;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import ru.itmo.mopsync.iotcontroller.storage.SegmentLog;
+
+/**
+ * Append-only queue of byte records in memory-mapped segment files of a fixed size, consumed in order.
+ *
+ * <p>Records are kept in a {@link SegmentLog} used as a queue: a record is the append time in epoch
+ * milliseconds followed by the payload, and a record torn by a crash is dropped on recovery. The read position
+ * is kept in a memory-mapped checkpoint file as one log position, so it never mixes two positions.
+ * Consumed segments are deleted.
+ *
+ * <p>Records survive process crashes; pages are not forced to the device on every append,
+ * so an operating system crash may lose the latest records. All methods are synchronized.
+ */
+public final class MessageSpool implements Closeable {
+
+    static final int HEADER_SIZE = SegmentLog.HEADER_SIZE + Long.BYTES;
+
+    private static final String CHECKPOINT_FILE = "checkpoint";
+
+    private final SegmentLog log;
+    private final MappedByteBuffer checkpoint;
+
+    private long readPosition;
+    private long pendingRecords;
+    private long pendingBytes;
+
+    private MessageSpool(Path dir, int segmentSize, int maxSegments) throws IOException {
+        Files.createDirectories(dir);
+        this.log = SegmentLog.open(dir, segmentSize, maxSegments);
+        this.checkpoint = map(dir.resolve(CHECKPOINT_FILE));
+        recover();
+    }
+
+    /**
+     * Opens the spool in the directory, recovering records left by a previous run.
+     *
+     * @param dir         spool directory, created if missing
+     * @param segmentSize size of one segment file in bytes
+     * @param maxSegments maximum number of segment files
+     * @return opened spool
+     * @throws IOException if the files cannot be created or mapped
+     */
+    public static MessageSpool open(Path dir, int segmentSize, int maxSegments) throws IOException {
+        return new MessageSpool(dir, segmentSize, maxSegments);
+    }
+
+    /**
+     * Appends a record.
+     *
+     * @param payload   record payload
+     * @param timestamp append time in epoch milliseconds
+     * @return false if the spool is full and the record was not appended
+     * @throws IOException if a new segment cannot be created
+     */
+    public synchronized boolean append(byte[] payload, long timestamp) throws IOException {
+        byte[] record = ByteBuffer.allocate(Long.BYTES + payload.length).putLong(timestamp).put(payload).array();
+        if (log.tryAppend(record) < 0) {
+            return false;
+        }
+        pendingRecords++;
+        pendingBytes += HEADER_SIZE + payload.length;
+        return true;
+    }
+
+    /**
+     * Returns the oldest records without consuming them.
+     *
+     * @param max maximum number of records
+     * @return records in append order
+     */
+    public synchronized List<SpoolRecord> peek(int max) {
+        List<SpoolRecord> records = new ArrayList<>(Math.min(max, 1024));
+        log.scan(readPosition, max, (record, position) -> {
+            int length = record.remaining();
+            long timestamp = record.getLong();
+            byte[] payload = new byte[record.remaining()];
+            record.get(payload);
+            records.add(new SpoolRecord(payload, timestamp, position + SegmentLog.HEADER_SIZE + length));
+        });
+        return records;
+    }
+
+    /**
+     * Consumes records returned by {@link #peek(int)}, up to and including the last one of the list.
+     *
+     * @param records consumed records in append order
+     */
+    public synchronized void commit(List<SpoolRecord> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        readPosition = records.get(records.size() - 1).getNextPosition();
+        checkpoint.putLong(0, readPosition);
+        pendingRecords -= records.size();
+        for (SpoolRecord record : records) {
+            pendingBytes -= HEADER_SIZE + record.getPayload().length;
+        }
+        log.truncate(readPosition);
+    }
+
+    /**
+     * Returns the number of records not consumed yet.
+     *
+     * @return number of pending records
+     */
+    public synchronized long pendingRecords() {
+        return pendingRecords;
+    }
+
+    /**
+     * Returns the size of the records not consumed yet, including their headers.
+     *
+     * @return pending bytes
+     */
+    public synchronized long pendingBytes() {
+        return pendingBytes;
+    }
+
+    @Override
+    public synchronized void close() {
+        log.close();
+        checkpoint.force();
+    }
+
+    private void recover() {
+        readPosition = checkpoint.getLong(0);
+        log.truncate(readPosition);
+        // a checkpoint in a deleted segment continues from the first segment left
+        log.scan(readPosition, (record, position) -> {
+            pendingRecords++;
+            pendingBytes += SegmentLog.HEADER_SIZE + record.remaining();
+        });
+    }
+
+    private static MappedByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, Long.BYTES);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package ru.itmo.mopsync.iotcontroller.spool;
+
+import lombok.Value;
+
+/**
+ * Record read from a {@link MessageSpool}, with the position right after it for committing.
+ */
+@Value
+public class SpoolRecord {
+    byte[] payload;
+    /**
+     * Append time in epoch milliseconds.
+     */
+    long appendedAt;
+    /**
+     * Log position right after the record.
+     */
+    long nextPosition;
+}
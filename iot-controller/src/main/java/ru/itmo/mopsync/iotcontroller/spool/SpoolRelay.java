@@ -0,0 +1,277 @@
+package ru.itmo.mopsync.iotcontroller.spool;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.rabbit.connection.ConnectionBlockedEvent;
+import org.springframework.amqp.rabbit.connection.ConnectionUnblockedEvent;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import ru.itmo.mopsync.iotcontroller.config.SpoolProperties;
+import ru.itmo.mopsync.iotcontroller.model.DeviceDataNotification;
+import ru.itmo.mopsync.iotcontroller.publisher.ConfirmingPublisher;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Keeps notifications that could not be published in a {@link MessageSpool} and relays them to RabbitMQ
+ * in append order once the broker is back. Each relay batch is committed only after the broker confirmed
+ * all of it, so a failed batch is published again (at-least-once).
+ * The spool files are created on first use; a spool left by a previous run is drained on start.
+ * A record holds the id of a stored reading as UTF-8, or a full-payload notification as a JSON object.
+ */
+@Slf4j
+@Component
+public class SpoolRelay implements SmartLifecycle {
+
+    private final SpoolProperties properties;
+    private final ConfirmingPublisher publisher;
+    private final ObjectMapper objectMapper;
+    private final Counter appendedCounter;
+    private final Counter relayedCounter;
+    private final Counter droppedCounter;
+    private final Counter failedBatchCounter;
+    private final Object signal = new Object();
+
+    private volatile MessageSpool spool;
+    private volatile boolean blocked;
+    private volatile boolean running;
+    private volatile ExecutorService executor;
+
+    /**
+     * Constructor for SpoolRelay.
+     *
+     * @param properties    spool properties
+     * @param publisher     publisher of spooled notifications
+     * @param objectMapper  object mapper for full-payload notifications
+     * @param meterRegistry meter registry for spool metrics
+     */
+    public SpoolRelay(SpoolProperties properties, ConfirmingPublisher publisher, ObjectMapper objectMapper,
+                      MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.publisher = publisher;
+        this.objectMapper = objectMapper;
+        Gauge.builder("iot.spool.records", this, relay -> relay.spool != null ? relay.spool.pendingRecords() : 0)
+                .description("Number of spooled notifications waiting to be relayed")
+                .register(meterRegistry);
+        Gauge.builder("iot.spool.size", this, relay -> relay.spool != null ? relay.spool.pendingBytes() : 0)
+                .description("Size of spooled notifications waiting to be relayed")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("iot.spool.lag", this, SpoolRelay::lagSeconds)
+                .description("Age of the oldest spooled notification")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        this.appendedCounter = meterRegistry.counter("iot.spool.appended");
+        this.relayedCounter = meterRegistry.counter("iot.spool.relayed");
+        this.droppedCounter = meterRegistry.counter("iot.spool.dropped");
+        this.failedBatchCounter = meterRegistry.counter("iot.spool.relay.failures");
+    }
+
+    /**
+     * Tells whether new notifications must go to the spool instead of the broker:
+     * while the broker blocks publishers, and while older notifications are spooled, to keep their order.
+     *
+     * @return true if notifications should be spooled
+     */
+    public boolean shouldSpool() {
+        MessageSpool current = spool;
+        return properties.isEnabled() && (blocked || current != null && current.pendingRecords() > 0);
+    }
+
+    /**
+     * Appends a notification to the spool.
+     *
+     * @param notification notification of a reading
+     * @return false if spooling is disabled, the spool is full or cannot be written
+     */
+    public boolean offer(DeviceDataNotification notification) {
+        if (!properties.isEnabled()) {
+            return false;
+        }
+        String deviceDataId = notification.getDeviceDataId();
+        try {
+            byte[] payload = notification.hasPayload()
+                    ? objectMapper.writeValueAsBytes(notification)
+                    : deviceDataId.getBytes(StandardCharsets.UTF_8);
+            if (!spool().append(payload, System.currentTimeMillis())) {
+                droppedCounter.increment();
+                log.error("Spool is full, notification for device data id {} is dropped", deviceDataId);
+                return false;
+            }
+        } catch (IOException e) {
+            droppedCounter.increment();
+            log.error("Failed to spool notification for device data id {}", deviceDataId, e);
+            return false;
+        }
+        appendedCounter.increment();
+        synchronized (signal) {
+            signal.notifyAll();
+        }
+        return true;
+    }
+
+    /**
+     * Publishes one batch of spooled notifications and waits for the broker to confirm it.
+     *
+     * @return number of relayed notifications
+     * @throws AmqpException if the batch could not be published or was not confirmed; it stays spooled
+     */
+    public int drain() {
+        MessageSpool current = spool;
+        if (current == null) {
+            return 0;
+        }
+        List<SpoolRecord> batch = current.peek(properties.getBatchSize());
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        List<DeviceDataNotification> notifications = batch.stream()
+                .map(record -> decode(record.getPayload()))
+                .filter(Objects::nonNull)
+                .toList();
+        publisher.publishAll(notifications, properties.getConfirmTimeout());
+        current.commit(batch);
+        relayedCounter.increment(batch.size());
+        log.debug("Relayed {} spooled notifications", batch.size());
+        return batch.size();
+    }
+
+    private DeviceDataNotification decode(byte[] payload) {
+        // ids are hex strings, so a record starting with a brace is a full-payload notification
+        if (payload.length > 0 && payload[0] == '{') {
+            try {
+                return objectMapper.readValue(payload, DeviceDataNotification.class);
+            } catch (IOException e) {
+                droppedCounter.increment();
+                log.error("Failed to read spooled notification, dropped", e);
+                return null;
+            }
+        }
+        return new DeviceDataNotification(new String(payload, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Stops routing to the broker while it blocks publishers (memory or disk alarm).
+     *
+     * @param event connection blocked event
+     */
+    @EventListener
+    public void onConnectionBlocked(ConnectionBlockedEvent event) {
+        log.warn("RabbitMQ blocked publishing: {}, spooling notifications", event.getReason());
+        blocked = true;
+    }
+
+    /**
+     * Resumes relaying when the broker unblocks publishers.
+     *
+     * @param event connection unblocked event
+     */
+    @EventListener
+    public void onConnectionUnblocked(ConnectionUnblockedEvent event) {
+        log.info("RabbitMQ unblocked publishing");
+        blocked = false;
+        synchronized (signal) {
+            signal.notifyAll();
+        }
+    }
+
+    @Override
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        if (Files.isDirectory(Path.of(properties.getDir()))) {
+            try {
+                MessageSpool recovered = spool();
+                if (recovered.pendingRecords() > 0) {
+                    log.info("Found {} spooled notifications from a previous run", recovered.pendingRecords());
+                }
+            } catch (IOException e) {
+                log.error("Failed to open spool in {}", properties.getDir(), e);
+            }
+        }
+        running = true;
+        executor = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("spool-relay-"));
+        executor.execute(this::relay);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        ExecutorService current = executor;
+        if (current != null) {
+            executor = null;
+            current.shutdownNow();
+        }
+        MessageSpool opened = spool;
+        if (opened != null) {
+            opened.close();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void relay() {
+        while (running) {
+            try {
+                if (blocked || drain() == 0) {
+                    synchronized (signal) {
+                        signal.wait(properties.getRetryInterval().toMillis());
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (AmqpException e) {
+                failedBatchCounter.increment();
+                log.warn("Failed to relay spooled notifications: {}", e.getMessage());
+                try {
+                    Thread.sleep(properties.getRetryInterval().toMillis());
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private MessageSpool spool() throws IOException {
+        MessageSpool current = spool;
+        if (current == null) {
+            synchronized (this) {
+                current = spool;
+                if (current == null) {
+                    current = MessageSpool.open(Path.of(properties.getDir()),
+                            Math.toIntExact(properties.getSegmentSize().toBytes()), properties.getMaxSegments());
+                    spool = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private double lagSeconds() {
+        MessageSpool current = spool;
+        if (current == null) {
+            return 0;
+        }
+        List<SpoolRecord> oldest = current.peek(1);
+        return oldest.isEmpty() ? 0 : Math.max(0, System.currentTimeMillis() - oldest.get(0).getAppendedAt()) / 1000.0;
+    }
+}
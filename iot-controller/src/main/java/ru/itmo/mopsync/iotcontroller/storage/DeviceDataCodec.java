@@ -0,0 +1,187 @@
+package ru.itmo.mopsync.iotcontroller.storage;
+
+import org.bson.types.ObjectId;
+import ru.itmo.mopsync.iotcontroller.model.DeviceDataDocument;
+import ru.itmo.mopsync.iotcontroller.model.SeqOrder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Encodes a reading into a record of the local store; rule-engine decodes the same layout.
+ *
+ * <p>Layout (big-endian): version, the 12 ObjectId bytes, device id, timestamp (presence byte, epoch second,
+ * nanosecond and offset seconds), seq (presence byte and value), metric count followed by the name, kind
+ * and value of every metric, meta size (-1 for no meta) followed by its entries, then the sequence order
+ * (0 for none, otherwise the {@link SeqOrder} ordinal plus one) and the gap (presence byte and value).
+ * Strings are int-length-prefixed UTF-8. Readers ignore fields appended after the ones they know.
+ */
+public final class DeviceDataCodec {
+
+    static final byte VERSION = 1;
+    static final byte KIND_INT = 1;
+    static final byte KIND_LONG = 2;
+    static final byte KIND_DOUBLE = 3;
+    static final byte KIND_STRING = 4;
+    static final byte KIND_BOOLEAN = 5;
+
+    private DeviceDataCodec() {
+    }
+
+    /**
+     * Encodes a reading.
+     *
+     * @param document reading with an ObjectId hex id
+     * @return record payload
+     */
+    public static byte[] encode(DeviceDataDocument document) {
+        try {
+            return doEncode(document);
+        } catch (IOException e) {
+            // in-memory streams only
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Decodes a reading.
+     *
+     * @param payload record payload, consumed from its position
+     * @return reading
+     */
+    public static DeviceDataDocument decode(ByteBuffer payload) {
+        byte version = payload.get();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported record version: " + version);
+        }
+        byte[] id = new byte[12];
+        payload.get(id);
+        DeviceDataDocument document = new DeviceDataDocument();
+        document.setId(new ObjectId(id).toHexString());
+        document.setDeviceId(readString(payload));
+        if (payload.get() != 0) {
+            Instant instant = Instant.ofEpochSecond(payload.getLong(), payload.getInt());
+            document.setTimestamp(OffsetDateTime.ofInstant(instant, ZoneOffset.ofTotalSeconds(payload.getInt())));
+        }
+        if (payload.get() != 0) {
+            document.setSeq(payload.getLong());
+        }
+        int metricCount = payload.getInt();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        for (int i = 0; i < metricCount; i++) {
+            String name = readString(payload);
+            metrics.put(name, readValue(payload));
+        }
+        document.setMetrics(metrics);
+        int metaSize = payload.getInt();
+        if (metaSize >= 0) {
+            Map<String, String> meta = new HashMap<>();
+            for (int i = 0; i < metaSize; i++) {
+                meta.put(readString(payload), readString(payload));
+            }
+            document.setMeta(meta);
+        }
+        byte seqOrder = payload.get();
+        if (seqOrder != 0) {
+            document.setSeqOrder(SeqOrder.values()[seqOrder - 1]);
+        }
+        if (payload.get() != 0) {
+            document.setSeqGap(payload.getLong());
+        }
+        return document;
+    }
+
+    private static byte[] doEncode(DeviceDataDocument document) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(VERSION);
+        out.write(new ObjectId(document.getId()).toByteArray());
+        writeString(out, document.getDeviceId());
+        OffsetDateTime timestamp = document.getTimestamp();
+        out.writeBoolean(timestamp != null);
+        if (timestamp != null) {
+            out.writeLong(timestamp.toEpochSecond());
+            out.writeInt(timestamp.getNano());
+            out.writeInt(timestamp.getOffset().getTotalSeconds());
+        }
+        writeOptionalLong(out, document.getSeq());
+        Map<String, Object> metrics = document.getMetrics() != null ? document.getMetrics() : Map.of();
+        out.writeInt(metrics.size());
+        for (Map.Entry<String, Object> metric : metrics.entrySet()) {
+            writeString(out, metric.getKey());
+            writeValue(out, metric.getValue());
+        }
+        Map<String, String> meta = document.getMeta();
+        out.writeInt(meta != null ? meta.size() : -1);
+        if (meta != null) {
+            for (Map.Entry<String, String> entry : meta.entrySet()) {
+                writeString(out, entry.getKey());
+                writeString(out, entry.getValue());
+            }
+        }
+        out.writeByte(document.getSeqOrder() != null ? document.getSeqOrder().ordinal() + 1 : 0);
+        writeOptionalLong(out, document.getSeqGap());
+        return bytes.toByteArray();
+    }
+
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            out.writeByte(KIND_INT);
+            out.writeInt(((Number) value).intValue());
+        } else if (value instanceof Long) {
+            out.writeByte(KIND_LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Number number) {
+            out.writeByte(KIND_DOUBLE);
+            out.writeDouble(number.doubleValue());
+        } else if (value instanceof Boolean bool) {
+            out.writeByte(KIND_BOOLEAN);
+            out.writeBoolean(bool);
+        } else {
+            out.writeByte(KIND_STRING);
+            writeString(out, String.valueOf(value));
+        }
+    }
+
+    private static Object readValue(ByteBuffer payload) {
+        byte kind = payload.get();
+        return switch (kind) {
+            case KIND_INT -> payload.getInt();
+            case KIND_LONG -> payload.getLong();
+            case KIND_DOUBLE -> payload.getDouble();
+            case KIND_BOOLEAN -> payload.get() != 0;
+            case KIND_STRING -> readString(payload);
+            default -> throw new IllegalArgumentException("Unknown metric kind: " + kind);
+        };
+    }
+
+    private static void writeOptionalLong(DataOutputStream out, Long value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer payload) {
+        int length = payload.getInt();
+        String value = StandardCharsets.UTF_8.decode(payload.slice(payload.position(), length)).toString();
+        payload.position(payload.position() + length);
+        return value;
+    }
+}
@@ -0,0 +1,29 @@
+package ru.itmo.mopsync.iotcontroller.storage;
+
+import org.springframework.dao.DuplicateKeyException;
+import ru.itmo.mopsync.iotcontroller.model.DeviceDataDocument;
+
+import java.util.Optional;
+
+/**
+ * Storage of device readings written by the ingest path, selected by {@code ingest.storage.type}.
+ */
+public interface DeviceDataStore {
+
+    /**
+     * Stores a new reading under its preset id.
+     *
+     * @param document reading with an ObjectId hex id
+     * @return stored reading
+     * @throws DuplicateKeyException if a reading of the device with the same seq is already stored
+     */
+    DeviceDataDocument insert(DeviceDataDocument document);
+
+    /**
+     * Finds a stored reading.
+     *
+     * @param id reading id
+     * @return reading, or empty if it is not stored
+     */
+    Optional<DeviceDataDocument> findById(String id);
+}
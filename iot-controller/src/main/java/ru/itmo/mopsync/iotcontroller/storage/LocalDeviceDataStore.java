@@ -0,0 +1,127 @@
+package ru.itmo.mopsync.iotcontroller.storage;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+import ru.itmo.mopsync.iotcontroller.config.MetricDictionaryProperties;
+import ru.itmo.mopsync.iotcontroller.config.OutboxProperties;
+import ru.itmo.mopsync.iotcontroller.config.RetentionProperties;
+import ru.itmo.mopsync.iotcontroller.config.RollupProperties;
+import ru.itmo.mopsync.iotcontroller.config.StorageProperties;
+import ru.itmo.mopsync.iotcontroller.model.DeviceDataDocument;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Stores readings in an append-only {@link SegmentLog} on local disk, with an in-memory index of the record
+ * positions by id and by device and seq. The index is rebuilt from the segments on start.
+ * Inserts are serialized, so the (deviceId, seq) check and the append are atomic like the unique MongoDB index.
+ *
+ * <p>The outbox, retention, rollups and the metric dictionary work on MongoDB collections only,
+ * so the store refuses to start while any of them is enabled; the query API answers with an error.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "ingest.storage", name = "type", havingValue = "local")
+public class LocalDeviceDataStore implements DeviceDataStore, DisposableBean {
+
+    private final SegmentLog segmentLog;
+    private final Map<String, Long> positions = new ConcurrentHashMap<>();
+    private final Map<String, NavigableMap<Long, Long>> devices = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor for LocalDeviceDataStore.
+     *
+     * @param properties           storage properties
+     * @param outboxProperties     outbox properties, checked to be disabled
+     * @param retentionProperties  retention properties, checked to be disabled
+     * @param rollupProperties     rollup properties, checked to be disabled
+     * @param dictionaryProperties metric dictionary properties, checked to be disabled
+     * @param meterRegistry        meter registry for store metrics
+     */
+    public LocalDeviceDataStore(StorageProperties properties, OutboxProperties outboxProperties,
+                                RetentionProperties retentionProperties, RollupProperties rollupProperties,
+                                MetricDictionaryProperties dictionaryProperties, MeterRegistry meterRegistry) {
+        List<String> mongoOnly = new ArrayList<>();
+        if (outboxProperties.isEnabled()) {
+            mongoOnly.add("ingest.outbox.enabled");
+        }
+        if (retentionProperties.isEnabled()) {
+            mongoOnly.add("ingest.retention.enabled");
+        }
+        if (rollupProperties.isEnabled()) {
+            mongoOnly.add("ingest.rollup.enabled");
+        }
+        if (dictionaryProperties.isEnabled()) {
+            mongoOnly.add("ingest.metric-dictionary.enabled");
+        }
+        if (!mongoOnly.isEmpty()) {
+            throw new IllegalStateException("The local store does not support features that work on MongoDB, set "
+                    + String.join(", ", mongoOnly) + " to false");
+        }
+        Path dir = Path.of(properties.getDir());
+        try {
+            this.segmentLog = SegmentLog.open(dir, (int) properties.getSegmentSize().toBytes());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open local store in " + dir.toAbsolutePath(), e);
+        }
+        segmentLog.scan(0, this::index);
+        Gauge.builder("iot.storage.local.readings", positions, Map::size)
+                .description("Number of readings in the local store")
+                .register(meterRegistry);
+        log.info("Opened local store in {} with {} readings", dir.toAbsolutePath(), positions.size());
+    }
+
+    @Override
+    public synchronized DeviceDataDocument insert(DeviceDataDocument document) {
+        NavigableMap<Long, Long> seqs = devices.get(document.getDeviceId());
+        if (seqs != null && document.getSeq() != null && seqs.containsKey(document.getSeq())
+                || positions.containsKey(document.getId())) {
+            throw new DuplicateKeyException(String.format("Reading %s of device %s with seq %s is already stored",
+                    document.getId(), document.getDeviceId(), document.getSeq()));
+        }
+        try {
+            index(document, segmentLog.append(DeviceDataCodec.encode(document)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return document;
+    }
+
+    @Override
+    public Optional<DeviceDataDocument> findById(String id) {
+        Long position = positions.get(id);
+        return position != null ? Optional.of(DeviceDataCodec.decode(segmentLog.read(position))) : Optional.empty();
+    }
+
+    @Override
+    public void destroy() {
+        segmentLog.close();
+    }
+
+    private void index(ByteBuffer payload, long position) {
+        index(DeviceDataCodec.decode(payload), position);
+    }
+
+    private void index(DeviceDataDocument document, long position) {
+        positions.put(document.getId(), position);
+        if (document.getSeq() != null) {
+            devices.computeIfAbsent(document.getDeviceId(), id -> new ConcurrentSkipListMap<>())
+                    .put(document.getSeq(), position);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package ru.itmo.mopsync.iotcontroller.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.itmo.mopsync.iotcontroller.model.DeviceDataDocument;
+import ru.itmo.mopsync.iotcontroller.repository.DeviceDataRepository;
+
+import java.util.Optional;
+
+/**
+ * Stores readings in the device_data MongoDB collection; the default store.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "ingest.storage", name = "type", havingValue = "mongo", matchIfMissing = true)
+public class MongoDeviceDataStore implements DeviceDataStore {
+
+    private final DeviceDataRepository repository;
+
+    @Override
+    public DeviceDataDocument insert(DeviceDataDocument document) {
+        return repository.insert(document);
+    }
+
+    @Override
+    public Optional<DeviceDataDocument> findById(String id) {
+        return repository.findById(id);
+    }
+}
@@ -0,0 +1,355 @@
+package ru.itmo.mopsync.iotcontroller.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.ObjLongConsumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of byte records in memory-mapped segment files, read by position.
+ *
+ * <p>A record is its payload length, a CRC32 of the payload and the payload. The length is written last and
+ * the CRC is checked by every scan, so a reader in another process sees a record either complete or not at
+ * all, and a record torn by a crash reads as the end of the data and is overwritten on recovery.
+ * A position holds the segment id in the high half and the offset in the low half.
+ * A log opened read-only follows the segments its writer adds. The writer deletes the oldest segments
+ * beyond its maximum number of segments, if it has one; readers behind them skip the deleted records.
+ * A writer used as a queue refuses records beyond the maximum instead, with {@link #tryAppend(byte[])},
+ * and deletes consumed segments with {@link #truncate(long)}.
+ *
+ * <p>Records survive process crashes; pages are not forced to the device on every append,
+ * so an operating system crash may lose the latest records. Appends are synchronized, reads are not.
+ */
+public final class SegmentLog implements Closeable {
+
+    /**
+     * Size of the length and CRC written before every payload.
+     */
+    public static final int HEADER_SIZE = Integer.BYTES + Integer.BYTES;
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private final Path dir;
+    private final int segmentSize;
+    private final int maxSegments;
+    private final boolean writable;
+    private final ConcurrentSkipListMap<Long, MappedByteBuffer> segments = new ConcurrentSkipListMap<>();
+
+    private volatile long releasedBefore;
+    private long writeSegment;
+    private int writePosition;
+
+    private SegmentLog(Path dir, int segmentSize, int maxSegments, boolean writable) throws IOException {
+        this.dir = dir;
+        this.segmentSize = segmentSize;
+        this.maxSegments = maxSegments;
+        this.writable = writable;
+        Files.createDirectories(dir);
+        mapNewSegments();
+        if (writable) {
+            recover();
+        }
+    }
+
+    /**
+     * Opens the log for appending, recovering the records left by a previous run.
+     *
+     * @param dir         log directory, created if missing
+     * @param segmentSize size of a new segment file in bytes
+     * @return opened log
+     * @throws IOException if the files cannot be created or mapped
+     */
+    public static SegmentLog open(Path dir, int segmentSize) throws IOException {
+        return new SegmentLog(dir, segmentSize, 0, true);
+    }
+
+    /**
+     * Opens the log for appending, keeping at most the given number of segments.
+     *
+     * @param dir         log directory, created if missing
+     * @param segmentSize size of a new segment file in bytes
+     * @param maxSegments maximum number of segment files; the oldest are deleted when a new one is started
+     * @return opened log
+     * @throws IOException if the files cannot be created or mapped
+     */
+    public static SegmentLog open(Path dir, int segmentSize, int maxSegments) throws IOException {
+        return new SegmentLog(dir, segmentSize, maxSegments, true);
+    }
+
+    /**
+     * Opens the log of a writer in another process for reading.
+     *
+     * @param dir log directory, created if missing
+     * @return opened log
+     * @throws IOException if the files cannot be mapped
+     */
+    public static SegmentLog openReadOnly(Path dir) throws IOException {
+        return new SegmentLog(dir, 0, 0, false);
+    }
+
+    /**
+     * Appends a record.
+     *
+     * @param payload record payload
+     * @return position of the record
+     * @throws IOException if a new segment cannot be created
+     */
+    public synchronized long append(byte[] payload) throws IOException {
+        return append(payload, true);
+    }
+
+    /**
+     * Appends a record unless it needs a new segment and the log already has its maximum number of segments.
+     *
+     * @param payload record payload
+     * @return position of the record, or -1 if the log is full and the record was not appended
+     * @throws IOException if a new segment cannot be created
+     */
+    public synchronized long tryAppend(byte[] payload) throws IOException {
+        return append(payload, false);
+    }
+
+    private long append(byte[] payload, boolean dropOldest) throws IOException {
+        if (!writable) {
+            throw new IllegalStateException("Log is opened read-only: " + dir);
+        }
+        int size = HEADER_SIZE + payload.length;
+        if (size > segmentSize) {
+            throw new IllegalArgumentException("Record of " + payload.length + " bytes does not fit a segment");
+        }
+        MappedByteBuffer buffer = segments.get(writeSegment);
+        if (writePosition + size > buffer.capacity()) {
+            if (!dropOldest && maxSegments > 0 && segments.size() >= maxSegments) {
+                return -1;
+            }
+            writeSegment++;
+            buffer = map(segmentPath(writeSegment), segmentSize);
+            segments.put(writeSegment, buffer);
+            writePosition = 0;
+            while (maxSegments > 0 && segments.size() > maxSegments) {
+                deleteSegment(segments.pollFirstEntry().getKey());
+            }
+        }
+        buffer.put(writePosition + HEADER_SIZE, payload);
+        buffer.putInt(writePosition + Integer.BYTES, crc(buffer, writePosition, payload.length));
+        buffer.putInt(writePosition, payload.length);
+        long position = writeSegment << Integer.SIZE | writePosition;
+        writePosition += size;
+        return position;
+    }
+
+    /**
+     * Returns the payload of a record without copying it.
+     *
+     * @param position position of the record, returned by {@link #append(byte[])} or {@link #scan}
+     * @return read-only view of the payload in the mapped segment
+     */
+    public ByteBuffer read(long position) {
+        MappedByteBuffer buffer = segments.get(position >>> Integer.SIZE);
+        int offset = (int) position;
+        return buffer.slice(offset + HEADER_SIZE, buffer.getInt(offset)).asReadOnlyBuffer();
+    }
+
+    /**
+     * Visits the complete records from a position on, in append order.
+     *
+     * @param from    position to start from; 0 for the first record of the log
+     * @param visitor receives the payload view and the position of every record
+     * @return position after the last visited record, to continue the scan from later
+     */
+    public long scan(long from, ObjLongConsumer<ByteBuffer> visitor) {
+        return scan(from, Integer.MAX_VALUE, visitor);
+    }
+
+    /**
+     * Visits at most the given number of complete records from a position on, in append order.
+     *
+     * @param from    position to start from; 0 for the first record of the log
+     * @param max     maximum number of records
+     * @param visitor receives the payload view and the position of every record
+     * @return position after the last visited record, to continue the scan from later
+     */
+    public long scan(long from, int max, ObjLongConsumer<ByteBuffer> visitor) {
+        long segment = from >>> Integer.SIZE;
+        int offset = (int) from;
+        int visited = 0;
+        while (visited < max) {
+            MappedByteBuffer buffer = segment(segment);
+            int length = buffer != null ? recordLength(buffer, offset) : 0;
+            if (length > 0) {
+                long position = segment << Integer.SIZE | offset;
+                visitor.accept(buffer.slice(offset + HEADER_SIZE, length).asReadOnlyBuffer(), position);
+                offset += HEADER_SIZE + length;
+                visited++;
+                continue;
+            }
+            Long next = nextSegment(segment);
+            if (next == null) {
+                break;
+            }
+            segment = next;
+            offset = 0;
+        }
+        return segment << Integer.SIZE | offset;
+    }
+
+    /**
+     * Unmaps the segments before the one of a position, which a read-only log no longer reads.
+     *
+     * @param position position all earlier records of which have been read
+     */
+    public void release(long position) {
+        if (writable) {
+            throw new IllegalStateException("Log is opened for appending: " + dir);
+        }
+        releasedBefore = position >>> Integer.SIZE;
+        segments.headMap(releasedBefore).clear();
+    }
+
+    /**
+     * Deletes the segments before the one of a position, the records of which have been consumed.
+     *
+     * @param position position all earlier records of which have been consumed
+     */
+    public synchronized void truncate(long position) {
+        if (!writable) {
+            throw new IllegalStateException("Log is opened read-only: " + dir);
+        }
+        long segment = Math.min(position >>> Integer.SIZE, writeSegment);
+        while (segments.firstKey() < segment) {
+            deleteSegment(segments.pollFirstEntry().getKey());
+        }
+    }
+
+    @Override
+    public void close() {
+        if (writable) {
+            segments.values().forEach(MappedByteBuffer::force);
+        }
+    }
+
+    private MappedByteBuffer segment(long segment) {
+        MappedByteBuffer buffer = segments.get(segment);
+        if (buffer == null && !writable) {
+            // the writer may have created the first segment since the last scan
+            refreshSegments();
+            buffer = segments.get(segment);
+        }
+        return buffer;
+    }
+
+    private Long nextSegment(long segment) {
+        Long next = segments.higherKey(segment);
+        if (next == null && !writable) {
+            // the writer may have started a new segment since the last scan
+            refreshSegments();
+            next = segments.higherKey(segment);
+        }
+        return next;
+    }
+
+    private void refreshSegments() {
+        try {
+            mapNewSegments();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void mapNewSegments() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : files.filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX)).toList()) {
+                String name = file.getFileName().toString();
+                long id = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+                if (id >= releasedBefore && !segments.containsKey(id)) {
+                    MappedByteBuffer buffer = writable ? map(file, segmentSize) : mapReadOnly(file);
+                    if (buffer != null) {
+                        segments.put(id, buffer);
+                    }
+                }
+            }
+        }
+    }
+
+    private void recover() throws IOException {
+        if (segments.isEmpty()) {
+            segments.put(0L, map(segmentPath(0), segmentSize));
+        }
+        // find the end of the data; bytes after it belong to a torn record
+        for (Map.Entry<Long, MappedByteBuffer> entry : segments.entrySet()) {
+            int position = 0;
+            int length;
+            while ((length = recordLength(entry.getValue(), position)) > 0) {
+                position += HEADER_SIZE + length;
+            }
+            writeSegment = entry.getKey();
+            writePosition = position;
+        }
+        MappedByteBuffer tail = segments.get(writeSegment);
+        for (int position = writePosition; position < tail.capacity(); position++) {
+            tail.put(position, (byte) 0);
+        }
+    }
+
+    private static int recordLength(MappedByteBuffer buffer, int position) {
+        int capacity = buffer.capacity();
+        if (position + HEADER_SIZE > capacity) {
+            return 0;
+        }
+        int length = buffer.getInt(position);
+        if (length <= 0 || length > capacity - HEADER_SIZE - position) {
+            return 0;
+        }
+        return buffer.getInt(position + Integer.BYTES) == crc(buffer, position, length) ? length : 0;
+    }
+
+    private static int crc(MappedByteBuffer buffer, int position, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(position + HEADER_SIZE, length));
+        return (int) crc.getValue();
+    }
+
+    private void deleteSegment(long id) {
+        try {
+            Files.deleteIfExists(segmentPath(id));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Path segmentPath(long id) {
+        return dir.resolve(String.format("%020d%s", id, SEGMENT_SUFFIX));
+    }
+
+    private static MappedByteBuffer map(Path file, int size) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(size, channel.size()));
+        }
+    }
+
+    /**
+     * Maps a segment of another process with its current size, or returns null for a segment being created
+     * or deleted.
+     */
+    private static MappedByteBuffer mapReadOnly(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            return size > HEADER_SIZE ? channel.map(FileChannel.MapMode.READ_ONLY, 0, size) : null;
+        } catch (NoSuchFileException e) {
+            // deleted by the writer since the directory was listed
+            return null;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package ru.itmo.mopsync.iotcontroller.transport;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.itmo.mopsync.iotcontroller.config.TransportProperties;
+import ru.itmo.mopsync.iotcontroller.model.DeviceDataNotification;
+import ru.itmo.mopsync.iotcontroller.storage.SegmentLog;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Appends notifications in the {@link NotificationCodec} layout to a {@link SegmentLog} on local disk.
+ * rule-engine reads the log from its own offset; an append is visible to it once the call returns,
+ * with no broker hop and no JSON.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "ingest.transport", name = "type", havingValue = "local")
+public class LocalLogTransport implements NotificationTransport, DisposableBean {
+
+    private final SegmentLog segmentLog;
+    private final Counter appendedCounter;
+
+    /**
+     * Constructor for LocalLogTransport.
+     *
+     * @param properties    transport properties
+     * @param meterRegistry meter registry for transport metrics
+     */
+    public LocalLogTransport(TransportProperties properties, MeterRegistry meterRegistry) {
+        Path dir = Path.of(properties.getDir());
+        try {
+            this.segmentLog = SegmentLog.open(dir, (int) properties.getSegmentSize().toBytes(),
+                    properties.getMaxSegments());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open notification log in " + dir.toAbsolutePath(), e);
+        }
+        this.appendedCounter = meterRegistry.counter("iot.transport.local.appended");
+        log.info("Opened notification log in {}", dir.toAbsolutePath());
+    }
+
+    @Override
+    public void send(DeviceDataNotification notification) {
+        try {
+            segmentLog.append(NotificationCodec.encode(notification));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        appendedCounter.increment();
+    }
+
+    @Override
+    public void sendAll(List<DeviceDataNotification> notifications, Duration timeout) {
+        // appends are visible to rule-engine when they return, there is nothing to wait for
+        notifications.forEach(this::send);
+    }
+
+    @Override
+    public void destroy() {
+        segmentLog.close();
+    }
+}
@@ -0,0 +1,77 @@
+package ru.itmo.mopsync.iotcontroller.transport;
+
+import org.bson.types.ObjectId;
+import ru.itmo.mopsync.iotcontroller.model.DeviceDataDocument;
+import ru.itmo.mopsync.iotcontroller.model.DeviceDataNotification;
+import ru.itmo.mopsync.iotcontroller.storage.DeviceDataCodec;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encodes device data notifications in a fixed binary layout; rule-engine decodes the same layout.
+ *
+ * <p>The first byte is the kind of the notification: {@link #KIND_OBJECT_ID} is followed by the 12 ObjectId
+ * bytes of the id, {@link #KIND_STRING_ID} by an int-length-prefixed UTF-8 id that is not an ObjectId,
+ * {@link #KIND_PAYLOAD} by the reading in the record layout of {@link DeviceDataCodec}.
+ */
+public final class NotificationCodec {
+
+    static final byte KIND_OBJECT_ID = 1;
+    static final byte KIND_STRING_ID = 2;
+    static final byte KIND_PAYLOAD = 3;
+
+    private NotificationCodec() {
+    }
+
+    /**
+     * Encodes a notification.
+     *
+     * @param notification id-only or full-payload notification; a full-payload one needs an ObjectId hex id
+     * @return encoded notification
+     */
+    public static byte[] encode(DeviceDataNotification notification) {
+        String id = notification.getDeviceDataId();
+        if (notification.hasPayload()) {
+            DeviceDataDocument document = new DeviceDataDocument();
+            document.setId(id);
+            document.setDeviceId(notification.getDeviceId());
+            document.setTimestamp(notification.getTimestamp());
+            document.setSeq(notification.getSeq());
+            document.setMetrics(notification.getMetrics());
+            document.setMeta(notification.getMeta());
+            byte[] record = DeviceDataCodec.encode(document);
+            return ByteBuffer.allocate(1 + record.length).put(KIND_PAYLOAD).put(record).array();
+        }
+        if (ObjectId.isValid(id)) {
+            return ByteBuffer.allocate(13).put(KIND_OBJECT_ID).put(new ObjectId(id).toByteArray()).array();
+        }
+        byte[] bytes = id.getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(1 + Integer.BYTES + bytes.length)
+                .put(KIND_STRING_ID).putInt(bytes.length).put(bytes).array();
+    }
+
+    /**
+     * Decodes a notification.
+     *
+     * @param encoded encoded notification, consumed from its position
+     * @return notification
+     */
+    public static DeviceDataNotification decode(ByteBuffer encoded) {
+        byte kind = encoded.get();
+        return switch (kind) {
+            case KIND_OBJECT_ID -> {
+                byte[] id = new byte[12];
+                encoded.get(id);
+                yield new DeviceDataNotification(new ObjectId(id).toHexString());
+            }
+            case KIND_STRING_ID -> {
+                byte[] id = new byte[encoded.getInt()];
+                encoded.get(id);
+                yield new DeviceDataNotification(new String(id, StandardCharsets.UTF_8));
+            }
+            case KIND_PAYLOAD -> DeviceDataNotification.withPayload(DeviceDataCodec.decode(encoded));
+            default -> throw new IllegalArgumentException("Unknown notification kind: " + kind);
+        };
+    }
+}
@@ -0,0 +1,30 @@
+package ru.itmo.mopsync.iotcontroller.transport;
+
+import ru.itmo.mopsync.iotcontroller.model.DeviceDataNotification;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Carries device data notifications to rule-engine, selected by {@code ingest.transport.type}.
+ * The servlet ingest path and the outbox relay send through it; the reactive stack uses it with the local
+ * transport and publishes to RabbitMQ through its own non-blocking publisher otherwise.
+ */
+public interface NotificationTransport {
+
+    /**
+     * Sends a notification without waiting for it to be delivered.
+     *
+     * @param notification notification of a reading
+     */
+    void send(DeviceDataNotification notification);
+
+    /**
+     * Sends notifications and waits until all of them are delivered, for the outbox relay.
+     *
+     * @param notifications notifications of readings
+     * @param timeout       maximum time to wait for the delivery
+     * @throws RuntimeException if a notification cannot be delivered; none of them counts as delivered then
+     */
+    void sendAll(List<DeviceDataNotification> notifications, Duration timeout);
+}
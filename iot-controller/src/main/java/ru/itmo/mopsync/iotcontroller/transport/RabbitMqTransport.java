@@ -0,0 +1,67 @@
+package ru.itmo.mopsync.iotcontroller.transport;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.itmo.mopsync.iotcontroller.model.DeviceDataNotification;
+import ru.itmo.mopsync.iotcontroller.publisher.ConfirmingPublisher;
+import ru.itmo.mopsync.iotcontroller.spool.SpoolRelay;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Publishes notifications to RabbitMQ; the default transport.
+ * Notifications are published without waiting for their publisher confirms; notifications that cannot be
+ * published right away or are not confirmed are spooled to disk and relayed later by {@link SpoolRelay}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "ingest.transport", name = "type", havingValue = "rabbitmq", matchIfMissing = true)
+public class RabbitMqTransport implements NotificationTransport {
+
+    private final ConfirmingPublisher publisher;
+    private final SpoolRelay spoolRelay;
+
+    @Override
+    public void send(DeviceDataNotification notification) {
+        String deviceDataId = notification.getDeviceDataId();
+        if (spoolRelay.shouldSpool() && spoolRelay.offer(notification)) {
+            log.debug("Notification spooled");
+            return;
+        }
+        try {
+            publisher.publish(notification).whenComplete((ignored, failure) -> {
+                if (failure != null) {
+                    spoolUnconfirmed(notification, failure);
+                }
+            });
+        } catch (AmqpException e) {
+            if (!spoolRelay.offer(notification)) {
+                throw e;
+            }
+            log.warn("Failed to publish notification for device data id {}, spooled: {}", deviceDataId, e.getMessage());
+            return;
+        }
+        log.debug("Notification sent successfully");
+    }
+
+    @Override
+    public void sendAll(List<DeviceDataNotification> notifications, Duration timeout) {
+        // not spooled: the outbox keeps its entries and publishes them again
+        publisher.publishAll(notifications, timeout);
+    }
+
+    private void spoolUnconfirmed(DeviceDataNotification notification, Throwable failure) {
+        String deviceDataId = notification.getDeviceDataId();
+        if (spoolRelay.offer(notification)) {
+            log.warn("Notification for device data id {} not confirmed, spooled: {}", deviceDataId,
+                    failure.getMessage());
+        } else {
+            log.error("Notification for device data id {} not confirmed and not spooled", deviceDataId, failure);
+        }
+    }
+}
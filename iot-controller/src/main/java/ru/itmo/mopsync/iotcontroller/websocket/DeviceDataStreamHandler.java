@@ -0,0 +1,264 @@
+package ru.itmo.mopsync.iotcontroller.websocket;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.BindingResult;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+import ru.itmo.mopsync.iotcontroller.config.DeviceStreamProperties;
+import ru.itmo.mopsync.iotcontroller.controller.DeviceDataRequestValidator;
+import ru.itmo.mopsync.iotcontroller.exception.BaseException;
+import ru.itmo.mopsync.iotcontroller.exception.Errors;
+import ru.itmo.mopsync.iotcontroller.exception.RetryLaterException;
+import ru.itmo.mopsync.iotcontroller.generated.model.DeviceDataRequest;
+import ru.itmo.mopsync.iotcontroller.metrics.IngestMetrics;
+import ru.itmo.mopsync.iotcontroller.service.DeviceDataService;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WebSocket handler for long-lived device data streams.
+ * A text message carries one DeviceDataRequest JSON object or an array of them. Readings are validated
+ * like POST /api/v1/device-data, queued into the bounded inbox of the connection and saved by a worker pool;
+ * results are sent back as batched DeviceStreamAck messages. A full inbox rejects readings with code 429,
+ * so a device that outpaces persistence is told to slow down instead of growing server memory; readings over
+ * the rate limit of their device are rejected with 429 and readings shed by admission control with 503.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "ingest.stream", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class DeviceDataStreamHandler extends TextWebSocketHandler implements DisposableBean {
+
+    private static final int SEND_TIME_LIMIT_MS = 10_000;
+    private static final String STREAM = "stream";
+
+    private final DeviceStreamProperties properties;
+    private final DeviceDataService deviceDataService;
+    private final DeviceDataRequestValidator requestValidator;
+    private final Validator beanValidator;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final IngestMetrics ingestMetrics;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, DeviceStreamSession> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor for DeviceDataStreamHandler.
+     *
+     * @param properties        stream properties
+     * @param deviceDataService device data processing service
+     * @param requestValidator  custom metric validator
+     * @param beanValidator     JSR-303 validator for generated model constraints
+     * @param objectMapper      object mapper for readings and acks
+     * @param meterRegistry     meter registry for stream metrics
+     * @param ingestMetrics     ingest stage and size meters
+     */
+    public DeviceDataStreamHandler(DeviceStreamProperties properties, DeviceDataService deviceDataService,
+                                   DeviceDataRequestValidator requestValidator, Validator beanValidator,
+                                   ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                                   IngestMetrics ingestMetrics) {
+        this.properties = properties;
+        this.deviceDataService = deviceDataService;
+        this.requestValidator = requestValidator;
+        this.beanValidator = beanValidator;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.ingestMetrics = ingestMetrics;
+        // one drain task per connection at most, so the task queue is bounded by the number of connections
+        this.executor = new ThreadPoolExecutor(properties.getWorkerThreads(), properties.getWorkerThreads(),
+                0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), threadFactory());
+        meterRegistry.gauge("iot.stream.sessions", sessions, Map::size);
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        session.setTextMessageSizeLimit((int) properties.getMaxMessageSize().toBytes());
+        WebSocketSession concurrentSession = new ConcurrentWebSocketSessionDecorator(
+                session, SEND_TIME_LIMIT_MS, (int) properties.getMaxMessageSize().toBytes());
+        sessions.put(session.getId(), new DeviceStreamSession(concurrentSession, properties.getInboxCapacity()));
+        log.info("Device data stream opened: {}", session.getRemoteAddress());
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+        DeviceStreamSession stream = sessions.get(session.getId());
+        if (stream == null) {
+            return;
+        }
+        ingestMetrics.recordPayloadSize(STREAM, message.getPayloadLength());
+        long deserializeStart = System.nanoTime();
+        List<JsonNode> nodes = parse(stream, message.getPayload());
+        long deserializeNanos = System.nanoTime() - deserializeStart;
+        ingestMetrics.recordPacketReadings(STREAM, nodes.size());
+        for (JsonNode node : nodes) {
+            DeviceDataRequest request;
+            long convertStart = System.nanoTime();
+            try {
+                request = objectMapper.treeToValue(node, DeviceDataRequest.class);
+            } catch (JsonProcessingException e) {
+                reject(stream, null, Errors.invalidRequestBodyError(e.getOriginalMessage()), "invalid");
+                continue;
+            } catch (BaseException e) {
+                // metric type errors are reported while parsing, the ack still names the reading
+                reject(stream, identity(node), e, "invalid");
+                continue;
+            } finally {
+                deserializeNanos += System.nanoTime() - convertStart;
+            }
+            BaseException error = ingestMetrics.stage(IngestMetrics.VALIDATE).record(() -> validate(request));
+            if (error != null) {
+                reject(stream, request, error, "invalid");
+            } else if (!stream.offer(request)) {
+                reject(stream, request, Errors.streamInboxFullError(properties.getInboxCapacity()), "overflow");
+            }
+        }
+        ingestMetrics.recordStage(IngestMetrics.DESERIALIZE, deserializeNanos);
+        scheduleDrain(stream);
+    }
+
+    @Override
+    public void handleTransportError(WebSocketSession session, Throwable exception) {
+        log.warn("Device data stream transport error from {}: {}", session.getRemoteAddress(), exception.getMessage());
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        // readings already in the inbox are still saved, their acks are just not delivered
+        sessions.remove(session.getId());
+        log.info("Device data stream closed: {} ({})", session.getRemoteAddress(), status);
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+            log.warn("Stream workers did not finish in time");
+            executor.shutdownNow();
+        }
+    }
+
+    private static CustomizableThreadFactory threadFactory() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("stream-worker-");
+        threadFactory.setDaemon(true);
+        return threadFactory;
+    }
+
+    private List<JsonNode> parse(DeviceStreamSession stream, String payload) {
+        JsonNode root;
+        try {
+            root = objectMapper.readTree(payload);
+        } catch (JsonProcessingException e) {
+            reject(stream, null, Errors.invalidJsonError(), "invalid");
+            return List.of();
+        }
+        if (root.isArray()) {
+            return root.valueStream().toList();
+        }
+        return List.of(root);
+    }
+
+    private static DeviceDataRequest identity(JsonNode node) {
+        JsonNode seq = node.path("seq");
+        return new DeviceDataRequest()
+                .deviceId(node.path("device_id").textValue())
+                .seq(seq.canConvertToLong() ? seq.longValue() : null);
+    }
+
+    private BaseException validate(DeviceDataRequest request) {
+        Set<ConstraintViolation<DeviceDataRequest>> violations = beanValidator.validate(request);
+        if (!violations.isEmpty()) {
+            return Errors.validationError(violations.iterator().next().getMessage());
+        }
+        BindingResult errors = new BeanPropertyBindingResult(request, "deviceDataRequest");
+        requestValidator.validate(request, errors);
+        if (errors.hasErrors()) {
+            return Errors.validationError(errors.getFieldError().getDefaultMessage());
+        }
+        return null;
+    }
+
+    private void scheduleDrain(DeviceStreamSession stream) {
+        if (stream.tryStartDrain()) {
+            try {
+                executor.execute(() -> drain(stream));
+            } catch (RejectedExecutionException e) {
+                stream.finishDrain();
+            }
+        }
+    }
+
+    private void drain(DeviceStreamSession stream) {
+        do {
+            DeviceDataRequest request;
+            while ((request = stream.poll()) != null) {
+                if (process(stream, request) >= properties.getAckBatchSize()) {
+                    flush(stream);
+                }
+            }
+            flush(stream);
+            stream.finishDrain();
+            // re-check: readings or rejections may have arrived between the last poll and finishDrain
+        } while (stream.hasWork() && stream.tryStartDrain());
+    }
+
+    private int process(DeviceStreamSession stream, DeviceDataRequest request) {
+        try {
+            deviceDataService.ingestDeviceData(request);
+            countReading("accepted");
+            return stream.accept(request);
+        } catch (RetryLaterException e) {
+            countReading("shed");
+            return stream.reject(request, e);
+        } catch (BaseException e) {
+            countReading("failed");
+            return stream.reject(request, e);
+        } catch (Exception e) {
+            log.error("Failed to process streamed reading for device: {}", request.getDeviceId(), e);
+            countReading("failed");
+            return stream.reject(request, Errors.unhandledExceptionError());
+        }
+    }
+
+    private void reject(DeviceStreamSession stream, DeviceDataRequest request, BaseException error, String result) {
+        countReading(result);
+        stream.reject(request, error);
+    }
+
+    private void flush(DeviceStreamSession stream) {
+        DeviceStreamAck ack = stream.takeAck();
+        WebSocketSession session = stream.getSession();
+        if (ack == null || !session.isOpen()) {
+            return;
+        }
+        try {
+            session.sendMessage(new TextMessage(objectMapper.writeValueAsString(ack)));
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to send ack to device data stream {}: {}", session.getRemoteAddress(), e.getMessage());
+        }
+    }
+
+    private void countReading(String result) {
+        meterRegistry.counter("iot.stream.readings", "result", result).increment();
+    }
+}
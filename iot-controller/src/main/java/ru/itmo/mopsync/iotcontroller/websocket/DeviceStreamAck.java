@@ -0,0 +1,45 @@
+package ru.itmo.mopsync.iotcontroller.websocket;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Batched acknowledgement sent back over the device data stream.
+ * Every reading received over the stream ends up in exactly one ack, either accepted or rejected.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeviceStreamAck {
+    /**
+     * Readings saved to MongoDB.
+     */
+    private List<Reading> accepted = new ArrayList<>();
+
+    /**
+     * Readings that were not saved, with the reason.
+     */
+    private List<Reading> rejected = new ArrayList<>();
+
+    /**
+     * Reference to a single reading inside an ack.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Reading {
+        @JsonProperty("device_id")
+        private String deviceId;
+        private Long seq;
+        private Integer code;
+        private String message;
+        private String humanMessage;
+    }
+}
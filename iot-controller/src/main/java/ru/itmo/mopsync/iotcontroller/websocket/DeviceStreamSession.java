@@ -0,0 +1,83 @@
+package ru.itmo.mopsync.iotcontroller.websocket;
+
+import lombok.Getter;
+import org.springframework.web.socket.WebSocketSession;
+import ru.itmo.mopsync.iotcontroller.exception.BaseException;
+import ru.itmo.mopsync.iotcontroller.generated.model.DeviceDataRequest;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * State of a single device data stream connection: bounded inbox of readings waiting for persistence
+ * and the ack being collected for the next flush.
+ * At most one worker drains the inbox at a time, so readings of a connection are saved in arrival order.
+ */
+class DeviceStreamSession {
+
+    @Getter
+    private final WebSocketSession session;
+    private final BlockingQueue<DeviceDataRequest> inbox;
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private DeviceStreamAck pendingAck = new DeviceStreamAck();
+    private int pendingCount;
+
+    DeviceStreamSession(WebSocketSession session, int inboxCapacity) {
+        this.session = session;
+        this.inbox = new ArrayBlockingQueue<>(inboxCapacity);
+    }
+
+    boolean offer(DeviceDataRequest request) {
+        return inbox.offer(request);
+    }
+
+    DeviceDataRequest poll() {
+        return inbox.poll();
+    }
+
+    boolean tryStartDrain() {
+        return draining.compareAndSet(false, true);
+    }
+
+    void finishDrain() {
+        draining.set(false);
+    }
+
+    boolean hasWork() {
+        return !inbox.isEmpty() || hasPendingAck();
+    }
+
+    synchronized int accept(DeviceDataRequest request) {
+        pendingAck.getAccepted().add(new DeviceStreamAck.Reading(
+                request.getDeviceId(), request.getSeq(), null, null, null));
+        return ++pendingCount;
+    }
+
+    synchronized int reject(DeviceDataRequest request, BaseException error) {
+        pendingAck.getRejected().add(new DeviceStreamAck.Reading(
+                request != null ? request.getDeviceId() : null,
+                request != null ? request.getSeq() : null,
+                error.getCode(), error.getMessage(), error.getHumanMessage()));
+        return ++pendingCount;
+    }
+
+    /**
+     * Hands over the collected ack and starts a new one.
+     *
+     * @return collected ack or null when there is nothing to acknowledge
+     */
+    synchronized DeviceStreamAck takeAck() {
+        if (pendingCount == 0) {
+            return null;
+        }
+        DeviceStreamAck ack = pendingAck;
+        pendingAck = new DeviceStreamAck();
+        pendingCount = 0;
+        return ack;
+    }
+
+    private synchronized boolean hasPendingAck() {
+        return pendingCount > 0;
+    }
+}
@@ -0,0 +1,64 @@
+package ru.itmo.mopsync.iotcontroller.archive;
+
+import java.nio.ByteBuffer;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import ru.itmo.mopsync.iotcontroller.model.DeviceDataDocument;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SegmentCodecTest {
+
+    @Test
+    void testRoundTripMixedReadings() {
+        OffsetDateTime start = OffsetDateTime.parse("2025-01-01T00:00:00Z");
+        List<DeviceDataDocument> documents = List.of(
+                document(start, 1, Map.of("temperature", 20.5, "humidity", 40, "status", "ok"),
+                        Map.of("firmware", "1.0.3")),
+                document(start.plusSeconds(1), 2, Map.of("temperature", 20.5, "humidity", 41), null),
+                // irregular interval, gap in seq, value type changes and a long beyond int range
+                document(start.plusSeconds(1).plusNanos(7_000_000), 10, Map.of("temperature", -3.25e10,
+                        "humidity", 5_000_000_000L, "status", "готов"), Map.of()),
+                document(start.plusDays(400), 9, Map.of("status", 17), Map.of("a", "b", "c", "")));
+
+        List<DeviceDataDocument> decoded = decode(SegmentWriter.encode("device-é", documents));
+
+        assertThat(decoded).isEqualTo(documents);
+    }
+
+    @Test
+    void testRegularSeriesIsCompact() {
+        OffsetDateTime start = OffsetDateTime.parse("2025-01-01T00:00:00Z");
+        List<DeviceDataDocument> documents = new ArrayList<>();
+        for (int i = 0; i < 86_400; i++) {
+            Map<String, Object> metrics = new HashMap<>();
+            metrics.put("temperature", 20.0 + (i / 600) * 0.5);
+            metrics.put("humidity", 40 + i % 3);
+            documents.add(document(start.plusSeconds(i), i, metrics, null));
+        }
+
+        byte[] segment = SegmentWriter.encode("device-é", documents);
+
+        // ObjectIds generated in one process differ in the counter only, so a reading takes a few bytes
+        assertThat(segment.length).isLessThan(documents.size() * 4);
+        assertThat(decode(segment)).isEqualTo(documents);
+    }
+
+    private static List<DeviceDataDocument> decode(byte[] segment) {
+        List<DeviceDataDocument> decoded = new ArrayList<>();
+        new SegmentReader(ByteBuffer.wrap(segment)).forEachRemaining(decoded::add);
+        return decoded;
+    }
+
+    private static DeviceDataDocument document(OffsetDateTime timestamp, long seq,
+                                               Map<String, Object> metrics, Map<String, String> meta) {
+        return new DeviceDataDocument(new ObjectId().toHexString(), "device-é", timestamp, seq,
+                metrics, meta, null, null, null, null);
+    }
+}
@@ -0,0 +1,127 @@
+package ru.itmo.mopsync.iotcontroller.benchmark;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.validation.BeanPropertyBindingResult;
+import ru.itmo.mopsync.iotcontroller.config.MetricSchemaProperties;
+import ru.itmo.mopsync.iotcontroller.controller.DeviceDataRequestValidator;
+import ru.itmo.mopsync.iotcontroller.converter.DeviceDataRequestDeserializer;
+import ru.itmo.mopsync.iotcontroller.generated.model.DeviceDataRequest;
+import ru.itmo.mopsync.iotcontroller.schema.MetricSchemaRegistry;
+
+/**
+ * Compares reading and validating a JSON DeviceDataRequest with generic binding of the generated model
+ * and with DeviceDataRequestDeserializer. Both mappers parse doubles like the application does.
+ * streamingWithSchema also checks the reading against a metric schema covering all its metrics and normalizes them.
+ * The GC profiler reports allocated bytes per request (gc.alloc.rate.norm).
+ * Run with: mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java
+ * "-Dexec.args=-cp %classpath ru.itmo.mopsync.iotcontroller.benchmark.DeviceDataRequestBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeviceDataRequestBenchmark {
+
+    @Param({"6", "100"})
+    private int metricCount;
+
+    private final ObjectMapper genericMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToEnable(JsonParser.Feature.USE_FAST_DOUBLE_PARSER)
+            .build();
+    private final ObjectMapper streamingMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToEnable(JsonParser.Feature.USE_FAST_DOUBLE_PARSER)
+            .modulesToInstall(DeviceDataRequestDeserializer.module())
+            .build();
+    private final DeviceDataRequestValidator validator = new DeviceDataRequestValidator(
+            new MetricSchemaRegistry(new MetricSchemaProperties(), new SimpleMeterRegistry()));
+
+    private DeviceDataRequestValidator schemaValidator;
+    private byte[] json;
+
+    @Setup
+    public void setUp() throws IOException {
+        DeviceDataRequest request = IngestFormatBenchmark.sampleRequest();
+        Map<String, Object> metrics = new LinkedHashMap<>(request.getMetrics());
+        for (int i = metrics.size(); i < metricCount; i++) {
+            metrics.put("sensor" + i, i % 2 == 0 ? i * 0.5 : i);
+        }
+        json = genericMapper.writeValueAsBytes(request.metrics(metrics));
+
+        MetricSchemaProperties.DeviceType deviceType = new MetricSchemaProperties.DeviceType();
+        deviceType.getDevicePrefixes().add(request.getDeviceId());
+        deviceType.setStrict(true);
+        metrics.forEach((name, value) -> {
+            MetricSchemaProperties.Metric metric = new MetricSchemaProperties.Metric();
+            if (value instanceof String) {
+                metric.setType(MetricSchemaProperties.MetricType.STRING);
+            } else {
+                metric.setMin(0.0);
+                metric.setMax(10_000.0);
+            }
+            deviceType.getMetrics().put(name, metric);
+        });
+        MetricSchemaProperties schemaProperties = new MetricSchemaProperties();
+        schemaProperties.getDeviceTypes().put("sensor", deviceType);
+        schemaValidator = new DeviceDataRequestValidator(
+                new MetricSchemaRegistry(schemaProperties, new SimpleMeterRegistry()));
+    }
+
+    @Benchmark
+    public DeviceDataRequest generic() throws IOException {
+        return validated(genericMapper.readValue(json, DeviceDataRequest.class));
+    }
+
+    @Benchmark
+    public DeviceDataRequest streaming() throws IOException {
+        return validated(streamingMapper.readValue(json, DeviceDataRequest.class));
+    }
+
+    @Benchmark
+    public DeviceDataRequest streamingWithSchema() throws IOException {
+        return validated(streamingMapper.readValue(json, DeviceDataRequest.class), schemaValidator);
+    }
+
+    private DeviceDataRequest validated(DeviceDataRequest request) {
+        return validated(request, validator);
+    }
+
+    private static DeviceDataRequest validated(DeviceDataRequest request, DeviceDataRequestValidator validator) {
+        BeanPropertyBindingResult errors = new BeanPropertyBindingResult(request, "deviceDataRequest");
+        validator.validate(request, errors);
+        if (errors.hasErrors()) {
+            throw new IllegalStateException(errors.toString());
+        }
+        return request;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(DeviceDataRequestBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
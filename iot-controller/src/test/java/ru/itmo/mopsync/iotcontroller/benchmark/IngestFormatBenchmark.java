@@ -0,0 +1,137 @@
+package ru.itmo.mopsync.iotcontroller.benchmark;
+
+import java.io.IOException;
+import java.time.OffsetDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.protobuf.Timestamp;
+import org.msgpack.jackson.dataformat.MessagePackFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import ru.itmo.mopsync.iotcontroller.converter.DeviceDataProtobufHttpMessageConverter;
+import ru.itmo.mopsync.iotcontroller.generated.model.DeviceDataRequest;
+import ru.itmo.mopsync.iotcontroller.generated.proto.DeviceDataPacket;
+import ru.itmo.mopsync.iotcontroller.generated.proto.MetricValue;
+
+/**
+ * Compares CPU cost per packet of decoding DeviceDataRequest from every supported ingest format.
+ * Bytes on the wire for the same packet are printed before the run.
+ * Run with: mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java
+ * "-Dexec.args=-cp %classpath ru.itmo.mopsync.iotcontroller.benchmark.IngestFormatBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IngestFormatBenchmark {
+
+    private final ObjectMapper jsonMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final ObjectMapper cborMapper = Jackson2ObjectMapperBuilder.cbor().build();
+    private final ObjectMapper msgpackMapper = Jackson2ObjectMapperBuilder.json()
+            .factory(new MessagePackFactory()).build();
+
+    private byte[] json;
+    private byte[] cbor;
+    private byte[] msgpack;
+    private byte[] protobuf;
+
+    @Setup
+    public void setUp() throws IOException {
+        DeviceDataRequest request = sampleRequest();
+        json = jsonMapper.writeValueAsBytes(request);
+        cbor = cborMapper.writeValueAsBytes(request);
+        msgpack = msgpackMapper.writeValueAsBytes(request);
+        protobuf = toPacket(request).toByteArray();
+    }
+
+    @Benchmark
+    public DeviceDataRequest json() throws IOException {
+        return jsonMapper.readValue(json, DeviceDataRequest.class);
+    }
+
+    @Benchmark
+    public DeviceDataRequest cbor() throws IOException {
+        return cborMapper.readValue(cbor, DeviceDataRequest.class);
+    }
+
+    @Benchmark
+    public DeviceDataRequest msgpack() throws IOException {
+        return msgpackMapper.readValue(msgpack, DeviceDataRequest.class);
+    }
+
+    @Benchmark
+    public DeviceDataRequest protobuf() throws IOException {
+        return DeviceDataProtobufHttpMessageConverter.toRequest(DeviceDataPacket.parseFrom(protobuf));
+    }
+
+    public static void main(String[] args) throws Exception {
+        IngestFormatBenchmark benchmark = new IngestFormatBenchmark();
+        benchmark.setUp();
+        System.out.printf("Bytes per packet: json=%d, cbor=%d, msgpack=%d, protobuf=%d%n",
+                benchmark.json.length, benchmark.cbor.length, benchmark.msgpack.length, benchmark.protobuf.length);
+
+        new Runner(new OptionsBuilder()
+                .include(IngestFormatBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    /**
+     * Creates a packet similar to the ones produced by data-simulator.
+     */
+    static DeviceDataRequest sampleRequest() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("temperature", 23.7);
+        metrics.put("humidity", 61);
+        metrics.put("pressure", 1013.25);
+        metrics.put("waterLevel", 0.42);
+        metrics.put("battery", 87);
+        metrics.put("status", "active");
+
+        return new DeviceDataRequest()
+                .deviceId("3f2b8c1e-7a4d-4e6b-9c2f-1d5e8a9b0c3d")
+                .timestamp(OffsetDateTime.parse("2025-01-03T12:00:05.234Z"))
+                .seq(1203L)
+                .metrics(metrics)
+                .meta(Map.of("firmware", "1.0.3"));
+    }
+
+    /**
+     * Encodes request as protobuf packet.
+     */
+    static DeviceDataPacket toPacket(DeviceDataRequest request) {
+        DeviceDataPacket.Builder builder = DeviceDataPacket.newBuilder()
+                .setDeviceId(request.getDeviceId())
+                .setTimestamp(Timestamp.newBuilder()
+                        .setSeconds(request.getTimestamp().toEpochSecond())
+                        .setNanos(request.getTimestamp().getNano()))
+                .setSeq(request.getSeq())
+                .putAllMeta(request.getMeta());
+        request.getMetrics().forEach((name, value) -> builder.putMetrics(name, toMetricValue(value)));
+        return builder.build();
+    }
+
+    private static MetricValue toMetricValue(Object value) {
+        if (value instanceof Integer || value instanceof Long) {
+            return MetricValue.newBuilder().setInteger(((Number) value).longValue()).build();
+        } else if (value instanceof Number number) {
+            return MetricValue.newBuilder().setNumber(number.doubleValue()).build();
+        }
+        return MetricValue.newBuilder().setText(String.valueOf(value)).build();
+    }
+}
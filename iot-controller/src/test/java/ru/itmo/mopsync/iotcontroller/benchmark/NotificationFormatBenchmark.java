@@ -0,0 +1,138 @@
+package ru.itmo.mopsync.iotcontroller.benchmark;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import ru.itmo.mopsync.iotcontroller.converter.NotificationMessageConverter;
+import ru.itmo.mopsync.iotcontroller.generated.model.DeviceDataRequest;
+import ru.itmo.mopsync.iotcontroller.model.DeviceDataNotification;
+
+/**
+ * Compares CPU cost per message of converting id-only and full-payload notifications to and from
+ * AMQP messages as JSON and in the binary notification layout.
+ * Bytes per message (body and headers) for the same notifications are printed before the run.
+ * Run with: mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java
+ * "-Dexec.args=-cp %classpath ru.itmo.mopsync.iotcontroller.benchmark.NotificationFormatBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NotificationFormatBenchmark {
+
+    private final NotificationMessageConverter jsonConverter =
+            new NotificationMessageConverter(new Jackson2JsonMessageConverter(), false);
+    private final NotificationMessageConverter binaryConverter =
+            new NotificationMessageConverter(new Jackson2JsonMessageConverter(), true);
+
+    private DeviceDataNotification idOnly;
+    private DeviceDataNotification payload;
+    private Message jsonIdOnly;
+    private Message binaryIdOnly;
+    private Message jsonPayload;
+    private Message binaryPayload;
+
+    @Setup
+    public void setUp() {
+        String id = new ObjectId().toHexString();
+        DeviceDataRequest request = IngestFormatBenchmark.sampleRequest();
+        idOnly = new DeviceDataNotification(id);
+        payload = new DeviceDataNotification(id, request.getDeviceId(), request.getTimestamp(), request.getSeq(),
+                request.getMetrics(), request.getMeta());
+        jsonIdOnly = received(jsonConverter.toMessage(idOnly, new MessageProperties()));
+        binaryIdOnly = received(binaryConverter.toMessage(idOnly, new MessageProperties()));
+        jsonPayload = received(jsonConverter.toMessage(payload, new MessageProperties()));
+        binaryPayload = received(binaryConverter.toMessage(payload, new MessageProperties()));
+    }
+
+    @Benchmark
+    public Message jsonWriteIdOnly() {
+        return jsonConverter.toMessage(idOnly, new MessageProperties());
+    }
+
+    @Benchmark
+    public Message binaryWriteIdOnly() {
+        return binaryConverter.toMessage(idOnly, new MessageProperties());
+    }
+
+    @Benchmark
+    public Message jsonWritePayload() {
+        return jsonConverter.toMessage(payload, new MessageProperties());
+    }
+
+    @Benchmark
+    public Message binaryWritePayload() {
+        return binaryConverter.toMessage(payload, new MessageProperties());
+    }
+
+    @Benchmark
+    public Object jsonReadIdOnly() {
+        return binaryConverter.fromMessage(jsonIdOnly);
+    }
+
+    @Benchmark
+    public Object binaryReadIdOnly() {
+        return binaryConverter.fromMessage(binaryIdOnly);
+    }
+
+    @Benchmark
+    public Object jsonReadPayload() {
+        return binaryConverter.fromMessage(jsonPayload);
+    }
+
+    @Benchmark
+    public Object binaryReadPayload() {
+        return binaryConverter.fromMessage(binaryPayload);
+    }
+
+    public static void main(String[] args) throws Exception {
+        NotificationFormatBenchmark benchmark = new NotificationFormatBenchmark();
+        benchmark.setUp();
+        System.out.printf("Bytes per id-only message: json=%d, binary=%d%n",
+                size(benchmark.jsonIdOnly), size(benchmark.binaryIdOnly));
+        System.out.printf("Bytes per full-payload message: json=%d, binary=%d%n",
+                size(benchmark.jsonPayload), size(benchmark.binaryPayload));
+
+        new Runner(new OptionsBuilder()
+                .include(NotificationFormatBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    /**
+     * Sets the type the listener container infers from the listener method, as on the consumer side.
+     */
+    private static Message received(Message message) {
+        message.getMessageProperties().setInferredArgumentType(DeviceDataNotification.class);
+        return message;
+    }
+
+    /**
+     * Counts the body, the content type and the application headers, which are sent with every message.
+     */
+    private static int size(Message message) {
+        MessageProperties properties = message.getMessageProperties();
+        int size = message.getBody().length + properties.getContentType().length();
+        for (Map.Entry<String, Object> header : properties.getHeaders().entrySet()) {
+            size += header.getKey().length() + String.valueOf(header.getValue()).length();
+        }
+        return size;
+    }
+}
@@ -0,0 +1,647 @@
+package ru.itmo.mopsync.iotcontroller.controller;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import com.github.luben.zstd.ZstdOutputStream;
+import com.google.protobuf.Timestamp;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.msgpack.jackson.dataformat.MessagePackFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.json.JsonContent;
+import ru.itmo.mopsync.iotcontroller.converter.DeviceDataProtobufHttpMessageConverter;
+import ru.itmo.mopsync.iotcontroller.converter.MessagePackHttpMessageConverter;
+import ru.itmo.mopsync.iotcontroller.dedup.SequenceTracker;
+import ru.itmo.mopsync.iotcontroller.generated.proto.DeviceDataPacket;
+import ru.itmo.mopsync.iotcontroller.generated.proto.MetricValue;
+import ru.itmo.mopsync.iotcontroller.model.DeviceDataDocument;
+import ru.itmo.mopsync.iotcontroller.repository.DeviceDataRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Contract of POST /api/v1/device-data shared by the servlet and the reactive ingest stacks.
+ * Subclasses send the requests through their stack and check that the notification of a stored reading was sent.
+ */
+abstract class DeviceDataApiContractTest extends BaseDbTest {
+
+    @Autowired
+    private DeviceDataRepository deviceDataRepository;
+
+    @Autowired
+    private SequenceTracker sequenceTracker;
+
+    @BeforeEach
+    void setUpStore() {
+        deviceDataRepository.deleteAll();
+        sequenceTracker.clear();
+    }
+
+    /**
+     * Posts a body to /api/v1/device-data.
+     *
+     * @param contentType     content type of the body
+     * @param contentEncoding Content-Encoding header, or null to send the body as is
+     * @param body            request body, or null to send none
+     * @return status, headers and body of the response
+     */
+    protected abstract ApiResponse post(MediaType contentType, String contentEncoding, byte[] body) throws Exception;
+
+    /**
+     * Verifies that the notification of a stored reading was sent.
+     *
+     * @param deviceDataId id of the stored reading
+     */
+    protected abstract void verifyNotificationSent(String deviceDataId);
+
+    protected ApiResponse post(MediaType contentType, byte[] body) throws Exception {
+        return post(contentType, null, body);
+    }
+
+    protected ApiResponse post(MediaType contentType, String body) throws Exception {
+        return post(contentType, body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testReceiveDeviceDataSuccess() throws Exception {
+        OffsetDateTime timestamp = OffsetDateTime.now();
+        String requestJson = String.format("""
+                {
+                  "device_id": "device-123",
+                  "timestamp": "%s",
+                  "seq": 100,
+                  "metrics": {
+                    "temperature": 25.5,
+                    "humidity": 60,
+                    "status": "active"
+                  },
+                  "meta": {
+                    "firmware": "1.0.3"
+                  }
+                }
+                """, timestamp);
+
+        assertThat(post(MediaType.APPLICATION_JSON, requestJson).status()).isEqualTo(HttpStatus.OK);
+
+        List<DeviceDataDocument> saved = deviceDataRepository.findAll();
+        assertThat(saved).hasSize(1);
+        DeviceDataDocument document = saved.get(0);
+        assertThat(document.getDeviceId()).isEqualTo("device-123");
+        // Timestamp is stored as UTC in MongoDB with millisecond precision, so truncate to milliseconds for comparison
+        assertThat(document.getTimestamp().toInstant().truncatedTo(ChronoUnit.MILLIS))
+                .isEqualTo(timestamp.toInstant().truncatedTo(ChronoUnit.MILLIS));
+        assertThat(document.getSeq()).isEqualTo(100L);
+        assertThat(document.getMetrics()).containsEntry("temperature", 25.5);
+        assertThat(document.getMetrics()).containsEntry("humidity", 60);
+        assertThat(document.getMetrics()).containsEntry("status", "active");
+        assertThat(document.getMeta()).containsEntry("firmware", "1.0.3");
+        assertThat(document.getId()).isNotNull();
+
+        verifyNotificationSent(document.getId());
+    }
+
+    @Test
+    void testReceiveDeviceDataWithNumberMetrics() throws Exception {
+        OffsetDateTime timestamp = OffsetDateTime.now();
+        String requestJson = String.format("""
+                {
+                  "device_id": "device-456",
+                  "timestamp": "%s",
+                  "seq": 200,
+                  "metrics": {
+                    "temperature": 30.7,
+                    "pressure": 1013.25
+                  }
+                }
+                """, timestamp);
+
+        assertThat(post(MediaType.APPLICATION_JSON, requestJson).status()).isEqualTo(HttpStatus.OK);
+
+        List<DeviceDataDocument> saved = deviceDataRepository.findAll();
+        assertThat(saved).hasSize(1);
+        DeviceDataDocument document = saved.get(0);
+        assertThat(document.getDeviceId()).isEqualTo("device-456");
+        // Timestamp is stored as UTC in MongoDB with millisecond precision, so truncate to milliseconds for comparison
+        assertThat(document.getTimestamp().toInstant().truncatedTo(ChronoUnit.MILLIS))
+                .isEqualTo(timestamp.toInstant().truncatedTo(ChronoUnit.MILLIS));
+        assertThat(document.getSeq()).isEqualTo(200L);
+        assertThat(document.getMetrics()).containsEntry("temperature", 30.7);
+        assertThat(document.getMetrics()).containsEntry("pressure", 1013.25);
+        // MongoDB stores null as empty map, so check if it's null or empty
+        assertThat(document.getMeta()).satisfies(meta -> 
+                assertThat(meta == null || meta.isEmpty()).isTrue());
+
+        verifyNotificationSent(document.getId());
+    }
+
+    @Test
+    void testReceiveDeviceDataWithStringMetrics() throws Exception {
+        OffsetDateTime timestamp = OffsetDateTime.now();
+        String requestJson = String.format("""
+                {
+                  "device_id": "device-789",
+                  "timestamp": "%s",
+                  "seq": 300,
+                  "metrics": {
+                    "status": "online",
+                    "mode": "auto"
+                  }
+                }
+                """, timestamp);
+
+        assertThat(post(MediaType.APPLICATION_JSON, requestJson).status()).isEqualTo(HttpStatus.OK);
+
+        List<DeviceDataDocument> saved = deviceDataRepository.findAll();
+        assertThat(saved).hasSize(1);
+        DeviceDataDocument document = saved.get(0);
+        assertThat(document.getDeviceId()).isEqualTo("device-789");
+        // Timestamp is stored as UTC in MongoDB with millisecond precision, so truncate to milliseconds for comparison
+        assertThat(document.getTimestamp().toInstant().truncatedTo(ChronoUnit.MILLIS))
+                .isEqualTo(timestamp.toInstant().truncatedTo(ChronoUnit.MILLIS));
+        assertThat(document.getSeq()).isEqualTo(300L);
+        assertThat(document.getMetrics()).containsEntry("status", "online");
+        assertThat(document.getMetrics()).containsEntry("mode", "auto");
+
+        verifyNotificationSent(document.getId());
+    }
+
+    @Test
+    void testReceiveDeviceDataMissingDeviceId() throws Exception {
+        OffsetDateTime timestamp = OffsetDateTime.now();
+        String requestJson = String.format("""
+                {
+                  "timestamp": "%s",
+                  "seq": 100,
+                  "metrics": {
+                    "temperature": 25.5
+                  }
+                }
+                """, timestamp);
+
+        String expectedJson = """
+                {
+                  "code": 400
+                }
+                """;
+
+        assertErrorResponse(post(MediaType.APPLICATION_JSON, requestJson), HttpStatus.BAD_REQUEST, expectedJson);
+    }
+
+    @Test
+    void testReceiveDeviceDataEmptyDeviceId() throws Exception {
+        OffsetDateTime timestamp = OffsetDateTime.now();
+        String requestJson = String.format("""
+                {
+                  "device_id": "",
+                  "timestamp": "%s",
+                  "seq": 100,
+                  "metrics": {
+                    "temperature": 25.5
+                  }
+                }
+                """, timestamp);
+
+        String expectedJson = """
+                {
+                  "code": 400
+                }
+                """;
+
+        assertErrorResponse(post(MediaType.APPLICATION_JSON, requestJson), HttpStatus.BAD_REQUEST, expectedJson);
+    }
+
+    @Test
+    void testReceiveDeviceDataMissingTimestamp() throws Exception {
+        String requestJson = """
+                {
+                  "device_id": "device-123",
+                  "seq": 100,
+                  "metrics": {
+                    "temperature": 25.5
+                  }
+                }
+                """;
+
+        String expectedJson = """
+                {
+                  "code": 400
+                }
+                """;
+
+        assertErrorResponse(post(MediaType.APPLICATION_JSON, requestJson), HttpStatus.BAD_REQUEST, expectedJson);
+    }
+
+    @Test
+    void testReceiveDeviceDataMissingSeq() throws Exception {
+        OffsetDateTime timestamp = OffsetDateTime.now();
+        String requestJson = String.format("""
+                {
+                  "device_id": "device-123",
+                  "timestamp": "%s",
+                  "metrics": {
+                    "temperature": 25.5
+                  }
+                }
+                """, timestamp);
+
+        String expectedJson = """
+                {
+                  "code": 400
+                }
+                """;
+
+        assertErrorResponse(post(MediaType.APPLICATION_JSON, requestJson), HttpStatus.BAD_REQUEST, expectedJson);
+    }
+
+    @Test
+    void testReceiveDeviceDataNegativeSeq() throws Exception {
+        OffsetDateTime timestamp = OffsetDateTime.now();
+        String requestJson = String.format("""
+                {
+                  "device_id": "device-123",
+                  "timestamp": "%s",
+                  "seq": -1,
+                  "metrics": {
+                    "temperature": 25.5
+                  }
+                }
+                """, timestamp);
+
+        String expectedJson = """
+                {
+                  "code": 400
+                }
+                """;
+
+        assertErrorResponse(post(MediaType.APPLICATION_JSON, requestJson), HttpStatus.BAD_REQUEST, expectedJson);
+    }
+
+    @Test
+    void testReceiveDeviceDataMissingMetrics() throws Exception {
+        OffsetDateTime timestamp = OffsetDateTime.now();
+        String requestJson = String.format("""
+                {
+                  "device_id": "device-123",
+                  "timestamp": "%s",
+                  "seq": 100
+                }
+                """, timestamp);
+
+        String expectedJson = """
+                {
+                  "code": 400
+                }
+                """;
+
+        assertErrorResponse(post(MediaType.APPLICATION_JSON, requestJson), HttpStatus.BAD_REQUEST, expectedJson);
+    }
+
+    @Test
+    void testReceiveDeviceDataEmptyMetrics() throws Exception {
+        OffsetDateTime timestamp = OffsetDateTime.now();
+        String requestJson = String.format("""
+                {
+                  "device_id": "device-123",
+                  "timestamp": "%s",
+                  "seq": 100,
+                  "metrics": {}
+                }
+                """, timestamp);
+
+        String expectedJson = """
+                {
+                  "code": 400
+                }
+                """;
+
+        assertErrorResponse(post(MediaType.APPLICATION_JSON, requestJson), HttpStatus.BAD_REQUEST, expectedJson);
+    }
+
+    @Test
+    void testReceiveDeviceDataWithNullMetricValue() throws Exception {
+        OffsetDateTime timestamp = OffsetDateTime.now();
+        String requestJson = String.format("""
+                {
+                  "device_id": "device-123",
+                  "timestamp": "%s",
+                  "seq": 100,
+                  "metrics": {
+                    "temperature": null
+                  }
+                }
+                """, timestamp);
+
+        String expectedJson = """
+                {
+                  "code": 400,
+                  "message": "validation.error"
+                }
+                """;
+
+        assertErrorResponse(post(MediaType.APPLICATION_JSON, requestJson), HttpStatus.BAD_REQUEST, expectedJson);
+    }
+
+    @Test
+    void testReceiveDeviceDataWithInvalidMetricType() throws Exception {
+        OffsetDateTime timestamp = OffsetDateTime.now();
+        String requestJson = String.format("""
+                {
+                  "device_id": "device-123",
+                  "timestamp": "%s",
+                  "seq": 100,
+                  "metrics": {
+                    "temperature": {
+                      "invalid": "nested"
+                    }
+                  }
+                }
+                """, timestamp);
+
+        String expectedJson = """
+                {
+                  "code": 400,
+                  "message": "validation.error"
+                }
+                """;
+
+        assertErrorResponse(post(MediaType.APPLICATION_JSON, requestJson), HttpStatus.BAD_REQUEST, expectedJson);
+    }
+
+    @Test
+    void testReceiveDeviceDataInvalidJson() throws Exception {
+        String content = "{ invalid json }";
+        String expectedJson = """
+                {
+                  "code": 400,
+                  "message": "invalid.json.error",
+                  "humanMessage": "Invalid JSON in request body"
+                }
+                """;
+
+        assertErrorResponse(post(MediaType.APPLICATION_JSON, content), HttpStatus.BAD_REQUEST, expectedJson);
+    }
+
+    @Test
+    void testReceiveDeviceDataInvalidContentType() throws Exception {
+        OffsetDateTime timestamp = OffsetDateTime.now();
+        String requestJson = String.format("""
+                {
+                  "device_id": "device-123",
+                  "timestamp": "%s",
+                  "seq": 100,
+                  "metrics": {
+                    "temperature": 25.5
+                  }
+                }
+                """, timestamp);
+
+        assertThat(post(MediaType.TEXT_PLAIN, requestJson).status()).isEqualTo(HttpStatus.UNSUPPORTED_MEDIA_TYPE);
+    }
+
+    @Test
+    void testReceiveDeviceDataMissingRequestBody() throws Exception {
+        assertThat(post(MediaType.APPLICATION_JSON, null, null).status()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void testReceiveDeviceDataWithOptionalMeta() throws Exception {
+        OffsetDateTime timestamp = OffsetDateTime.now();
+        String requestJson = String.format("""
+                {
+                  "device_id": "device-123",
+                  "timestamp": "%s",
+                  "seq": 100,
+                  "metrics": {
+                    "temperature": 25.5
+                  },
+                  "meta": {
+                    "firmware": "1.0.3",
+                    "version": "2.0"
+                  }
+                }
+                """, timestamp);
+
+        assertThat(post(MediaType.APPLICATION_JSON, requestJson).status()).isEqualTo(HttpStatus.OK);
+
+        List<DeviceDataDocument> saved = deviceDataRepository.findAll();
+        assertThat(saved).hasSize(1);
+        DeviceDataDocument document = saved.get(0);
+        assertThat(document.getDeviceId()).isEqualTo("device-123");
+        assertThat(document.getMeta()).containsEntry("firmware", "1.0.3");
+        assertThat(document.getMeta()).containsEntry("version", "2.0");
+
+        verifyNotificationSent(document.getId());
+    }
+
+    @Test
+    void testReceiveDeviceDataWithoutMeta() throws Exception {
+        OffsetDateTime timestamp = OffsetDateTime.now();
+        String requestJson = String.format("""
+                {
+                  "device_id": "device-123",
+                  "timestamp": "%s",
+                  "seq": 100,
+                  "metrics": {
+                    "temperature": 25.5
+                  }
+                }
+                """, timestamp);
+
+        assertThat(post(MediaType.APPLICATION_JSON, requestJson).status()).isEqualTo(HttpStatus.OK);
+
+        List<DeviceDataDocument> saved = deviceDataRepository.findAll();
+        assertThat(saved).hasSize(1);
+        DeviceDataDocument document = saved.get(0);
+        assertThat(document.getDeviceId()).isEqualTo("device-123");
+        // MongoDB stores null as empty map, so check if it's null or empty
+        assertThat(document.getMeta()).satisfies(meta -> 
+                assertThat(meta == null || meta.isEmpty()).isTrue());
+
+        verifyNotificationSent(document.getId());
+    }
+
+    @Test
+    void testReceiveDeviceDataCbor() throws Exception {
+        byte[] content = Jackson2ObjectMapperBuilder.cbor().build().writeValueAsBytes(binaryRequestBody());
+
+        assertThat(post(MediaType.APPLICATION_CBOR, content).status()).isEqualTo(HttpStatus.OK);
+
+        assertBinaryRequestSaved();
+    }
+
+    @Test
+    void testReceiveDeviceDataMessagePack() throws Exception {
+        byte[] content = Jackson2ObjectMapperBuilder.json().factory(new MessagePackFactory()).build()
+                .writeValueAsBytes(binaryRequestBody());
+
+        assertThat(post(MessagePackHttpMessageConverter.APPLICATION_MSGPACK, content).status())
+                .isEqualTo(HttpStatus.OK);
+
+        assertBinaryRequestSaved();
+    }
+
+    @Test
+    void testReceiveDeviceDataProtobuf() throws Exception {
+        OffsetDateTime timestamp = OffsetDateTime.parse("2025-01-03T12:00:05.234Z");
+        DeviceDataPacket packet = DeviceDataPacket.newBuilder()
+                .setDeviceId("device-bin")
+                .setTimestamp(Timestamp.newBuilder()
+                        .setSeconds(timestamp.toEpochSecond())
+                        .setNanos(timestamp.getNano()))
+                .setSeq(500)
+                .putMetrics("temperature", MetricValue.newBuilder().setNumber(25.5).build())
+                .putMetrics("humidity", MetricValue.newBuilder().setInteger(60).build())
+                .putMetrics("status", MetricValue.newBuilder().setText("active").build())
+                .build();
+
+        assertThat(post(DeviceDataProtobufHttpMessageConverter.APPLICATION_PROTOBUF, packet.toByteArray()).status())
+                .isEqualTo(HttpStatus.OK);
+
+        assertBinaryRequestSaved();
+    }
+
+    @Test
+    void testReceiveDeviceDataProtobufMissingDeviceId() throws Exception {
+        DeviceDataPacket packet = DeviceDataPacket.newBuilder()
+                .setTimestamp(Timestamp.newBuilder().setSeconds(1735905605))
+                .setSeq(500)
+                .putMetrics("temperature", MetricValue.newBuilder().setNumber(25.5).build())
+                .build();
+
+        String expectedJson = """
+                {
+                  "code": 400
+                }
+                """;
+
+        assertErrorResponse(post(DeviceDataProtobufHttpMessageConverter.APPLICATION_PROTOBUF, packet.toByteArray()),
+                HttpStatus.BAD_REQUEST, expectedJson);
+    }
+
+    private static Map<String, Object> binaryRequestBody() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("temperature", 25.5);
+        metrics.put("humidity", 60);
+        metrics.put("status", "active");
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("device_id", "device-bin");
+        body.put("timestamp", "2025-01-03T12:00:05.234Z");
+        body.put("seq", 500);
+        body.put("metrics", metrics);
+        return body;
+    }
+
+    private void assertBinaryRequestSaved() {
+        List<DeviceDataDocument> saved = deviceDataRepository.findAll();
+        assertThat(saved).hasSize(1);
+        DeviceDataDocument document = saved.get(0);
+        assertThat(document.getDeviceId()).isEqualTo("device-bin");
+        assertThat(document.getTimestamp().toInstant())
+                .isEqualTo(OffsetDateTime.parse("2025-01-03T12:00:05.234Z").toInstant());
+        assertThat(document.getSeq()).isEqualTo(500L);
+        assertThat(document.getMetrics()).containsEntry("temperature", 25.5);
+        assertThat(document.getMetrics()).containsEntry("humidity", 60);
+        assertThat(document.getMetrics()).containsEntry("status", "active");
+
+        verifyNotificationSent(document.getId());
+    }
+
+    @Test
+    void testReceiveDeviceDataGzip() throws Exception {
+        byte[] content = Jackson2ObjectMapperBuilder.json().build().writeValueAsBytes(binaryRequestBody());
+
+        assertThat(post(MediaType.APPLICATION_JSON, "gzip", gzip(content)).status()).isEqualTo(HttpStatus.OK);
+
+        assertBinaryRequestSaved();
+    }
+
+    @Test
+    void testReceiveDeviceDataZstd() throws Exception {
+        byte[] content = Jackson2ObjectMapperBuilder.cbor().build().writeValueAsBytes(binaryRequestBody());
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream out = new ZstdOutputStream(compressed)) {
+            out.write(content);
+        }
+
+        assertThat(post(MediaType.APPLICATION_CBOR, "zstd", compressed.toByteArray()).status())
+                .isEqualTo(HttpStatus.OK);
+
+        assertBinaryRequestSaved();
+    }
+
+    @Test
+    void testReceiveDeviceDataDecompressionBomb() throws Exception {
+        // 11MB of whitespace compresses to a few kilobytes but exceeds the 10MB decompressed size limit
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(compressed)) {
+            byte[] padding = " ".repeat(1024 * 1024).getBytes(StandardCharsets.UTF_8);
+            for (int i = 0; i < 11; i++) {
+                out.write(padding);
+            }
+            out.write("{}".getBytes(StandardCharsets.UTF_8));
+        }
+
+        String expectedJson = """
+                {
+                  "code": 413,
+                  "message": "payload.too.large.error"
+                }
+                """;
+
+        ApiResponse response = post(MediaType.APPLICATION_JSON, "gzip", compressed.toByteArray());
+        assertThat(response.status()).isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE);
+        assertThat(response.json()).isLenientlyEqualTo(expectedJson);
+        assertThat(deviceDataRepository.findAll()).isEmpty();
+    }
+
+    @Test
+    void testReceiveDeviceDataUnsupportedEncoding() throws Exception {
+        assertThat(post(MediaType.APPLICATION_JSON, "br", new byte[] {1, 2, 3}).status())
+                .isEqualTo(HttpStatus.UNSUPPORTED_MEDIA_TYPE);
+    }
+
+    private static void assertErrorResponse(ApiResponse response, HttpStatus status, String expectedJson) {
+        assertThat(response.status()).isEqualTo(status);
+        assertThat(response.contentType()).isEqualTo(MediaType.APPLICATION_JSON);
+        assertThat(response.json()).isLenientlyEqualTo(expectedJson);
+    }
+
+    private static byte[] gzip(byte[] content) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(content);
+        }
+        return compressed.toByteArray();
+    }
+
+    /**
+     * Response to a device data request.
+     *
+     * @param status  response status
+     * @param headers response headers
+     * @param body    response body, empty if there is none
+     */
+    protected record ApiResponse(HttpStatus status, HttpHeaders headers, String body) {
+        MediaType contentType() {
+            return headers.getContentType();
+        }
+
+        JsonContent json() {
+            return new JsonContent(body);
+        }
+    }
+}
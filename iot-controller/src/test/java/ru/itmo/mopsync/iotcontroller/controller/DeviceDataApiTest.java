@@ -1,511 +1,56 @@
 package ru.itmo.mopsync.iotcontroller.controller;
 
-import java.time.OffsetDateTime;
-import java.time.temporal.ChronoUnit;
-import java.util.List;
-
 import org.junit.jupiter.api.BeforeEach;
-import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
-import org.springframework.test.json.JsonCompareMode;
 import org.springframework.test.web.servlet.MockMvc;
-import ru.itmo.mopsync.iotcontroller.model.DeviceDataDocument;
-import ru.itmo.mopsync.iotcontroller.repository.DeviceDataRepository;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import ru.itmo.mopsync.iotcontroller.service.RabbitMqMessageSender;
 
-import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.verify;
-import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+/**
+ * Runs the {@link DeviceDataApiContractTest} scenarios against the servlet ingest stack.
+ */
 @AutoConfigureMockMvc
-class DeviceDataApiTest extends BaseDbTest {
+class DeviceDataApiTest extends DeviceDataApiContractTest {
 
     @Autowired
     private MockMvc mockMvc;
 
-    @Autowired
-    private DeviceDataRepository deviceDataRepository;
-
     @MockitoBean
     private RabbitMqMessageSender rabbitMqMessageSender;
 
     @BeforeEach
     void setUp() {
-        deviceDataRepository.deleteAll();
         Mockito.reset(rabbitMqMessageSender);
     }
 
-    @Test
-    void testReceiveDeviceDataSuccess() throws Exception {
-        OffsetDateTime timestamp = OffsetDateTime.now();
-        String requestJson = String.format("""
-                {
-                  "device_id": "device-123",
-                  "timestamp": "%s",
-                  "seq": 100,
-                  "metrics": {
-                    "temperature": 25.5,
-                    "humidity": 60,
-                    "status": "active"
-                  },
-                  "meta": {
-                    "firmware": "1.0.3"
-                  }
-                }
-                """, timestamp);
-
-        mockMvc.perform(post("/api/v1/device-data")
-                        .contentType(MediaType.APPLICATION_JSON)
-                        .content(requestJson))
-                .andExpect(status().isOk());
-
-        List<DeviceDataDocument> saved = deviceDataRepository.findAll();
-        assertThat(saved).hasSize(1);
-        DeviceDataDocument document = saved.get(0);
-        assertThat(document.getDeviceId()).isEqualTo("device-123");
-        // Timestamp is stored as UTC in MongoDB with millisecond precision, so truncate to milliseconds for comparison
-        assertThat(document.getTimestamp().toInstant().truncatedTo(ChronoUnit.MILLIS))
-                .isEqualTo(timestamp.toInstant().truncatedTo(ChronoUnit.MILLIS));
-        assertThat(document.getSeq()).isEqualTo(100L);
-        assertThat(document.getMetrics()).containsEntry("temperature", 25.5);
-        assertThat(document.getMetrics()).containsEntry("humidity", 60);
-        assertThat(document.getMetrics()).containsEntry("status", "active");
-        assertThat(document.getMeta()).containsEntry("firmware", "1.0.3");
-        assertThat(document.getId()).isNotNull();
-
-        verify(rabbitMqMessageSender).sendDeviceDataNotification(document.getId());
-    }
-
-    @Test
-    void testReceiveDeviceDataWithNumberMetrics() throws Exception {
-        OffsetDateTime timestamp = OffsetDateTime.now();
-        String requestJson = String.format("""
-                {
-                  "device_id": "device-456",
-                  "timestamp": "%s",
-                  "seq": 200,
-                  "metrics": {
-                    "temperature": 30.7,
-                    "pressure": 1013.25
-                  }
-                }
-                """, timestamp);
-
-        mockMvc.perform(post("/api/v1/device-data")
-                        .contentType(MediaType.APPLICATION_JSON)
-                        .content(requestJson))
-                .andExpect(status().isOk());
-
-        List<DeviceDataDocument> saved = deviceDataRepository.findAll();
-        assertThat(saved).hasSize(1);
-        DeviceDataDocument document = saved.get(0);
-        assertThat(document.getDeviceId()).isEqualTo("device-456");
-        // Timestamp is stored as UTC in MongoDB with millisecond precision, so truncate to milliseconds for comparison
-        assertThat(document.getTimestamp().toInstant().truncatedTo(ChronoUnit.MILLIS))
-                .isEqualTo(timestamp.toInstant().truncatedTo(ChronoUnit.MILLIS));
-        assertThat(document.getSeq()).isEqualTo(200L);
-        assertThat(document.getMetrics()).containsEntry("temperature", 30.7);
-        assertThat(document.getMetrics()).containsEntry("pressure", 1013.25);
-        // MongoDB stores null as empty map, so check if it's null or empty
-        assertThat(document.getMeta()).satisfies(meta -> 
-                assertThat(meta == null || meta.isEmpty()).isTrue());
-
-        verify(rabbitMqMessageSender).sendDeviceDataNotification(document.getId());
-    }
-
-    @Test
-    void testReceiveDeviceDataWithStringMetrics() throws Exception {
-        OffsetDateTime timestamp = OffsetDateTime.now();
-        String requestJson = String.format("""
-                {
-                  "device_id": "device-789",
-                  "timestamp": "%s",
-                  "seq": 300,
-                  "metrics": {
-                    "status": "online",
-                    "mode": "auto"
-                  }
-                }
-                """, timestamp);
-
-        mockMvc.perform(post("/api/v1/device-data")
-                        .contentType(MediaType.APPLICATION_JSON)
-                        .content(requestJson))
-                .andExpect(status().isOk());
-
-        List<DeviceDataDocument> saved = deviceDataRepository.findAll();
-        assertThat(saved).hasSize(1);
-        DeviceDataDocument document = saved.get(0);
-        assertThat(document.getDeviceId()).isEqualTo("device-789");
-        // Timestamp is stored as UTC in MongoDB with millisecond precision, so truncate to milliseconds for comparison
-        assertThat(document.getTimestamp().toInstant().truncatedTo(ChronoUnit.MILLIS))
-                .isEqualTo(timestamp.toInstant().truncatedTo(ChronoUnit.MILLIS));
-        assertThat(document.getSeq()).isEqualTo(300L);
-        assertThat(document.getMetrics()).containsEntry("status", "online");
-        assertThat(document.getMetrics()).containsEntry("mode", "auto");
-
-        verify(rabbitMqMessageSender).sendDeviceDataNotification(document.getId());
-    }
-
-    @Test
-    void testReceiveDeviceDataMissingDeviceId() throws Exception {
-        OffsetDateTime timestamp = OffsetDateTime.now();
-        String requestJson = String.format("""
-                {
-                  "timestamp": "%s",
-                  "seq": 100,
-                  "metrics": {
-                    "temperature": 25.5
-                  }
-                }
-                """, timestamp);
-
-        String expectedJson = """
-                {
-                  "code": 400
-                }
-                """;
-
-        mockMvc.perform(post("/api/v1/device-data")
-                        .contentType(MediaType.APPLICATION_JSON)
-                        .content(requestJson))
-                .andExpect(status().isBadRequest())
-                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
-                .andExpect(content().json(expectedJson, JsonCompareMode.LENIENT));
-    }
-
-    @Test
-    void testReceiveDeviceDataEmptyDeviceId() throws Exception {
-        OffsetDateTime timestamp = OffsetDateTime.now();
-        String requestJson = String.format("""
-                {
-                  "device_id": "",
-                  "timestamp": "%s",
-                  "seq": 100,
-                  "metrics": {
-                    "temperature": 25.5
-                  }
-                }
-                """, timestamp);
-
-        String expectedJson = """
-                {
-                  "code": 400
-                }
-                """;
-
-        mockMvc.perform(post("/api/v1/device-data")
-                        .contentType(MediaType.APPLICATION_JSON)
-                        .content(requestJson))
-                .andExpect(status().isBadRequest())
-                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
-                .andExpect(content().json(expectedJson, JsonCompareMode.LENIENT));
-    }
-
-    @Test
-    void testReceiveDeviceDataMissingTimestamp() throws Exception {
-        String requestJson = """
-                {
-                  "device_id": "device-123",
-                  "seq": 100,
-                  "metrics": {
-                    "temperature": 25.5
-                  }
-                }
-                """;
-
-        String expectedJson = """
-                {
-                  "code": 400
-                }
-                """;
-
-        mockMvc.perform(post("/api/v1/device-data")
-                        .contentType(MediaType.APPLICATION_JSON)
-                        .content(requestJson))
-                .andExpect(status().isBadRequest())
-                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
-                .andExpect(content().json(expectedJson, JsonCompareMode.LENIENT));
-    }
-
-    @Test
-    void testReceiveDeviceDataMissingSeq() throws Exception {
-        OffsetDateTime timestamp = OffsetDateTime.now();
-        String requestJson = String.format("""
-                {
-                  "device_id": "device-123",
-                  "timestamp": "%s",
-                  "metrics": {
-                    "temperature": 25.5
-                  }
-                }
-                """, timestamp);
-
-        String expectedJson = """
-                {
-                  "code": 400
-                }
-                """;
-
-        mockMvc.perform(post("/api/v1/device-data")
-                        .contentType(MediaType.APPLICATION_JSON)
-                        .content(requestJson))
-                .andExpect(status().isBadRequest())
-                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
-                .andExpect(content().json(expectedJson, JsonCompareMode.LENIENT));
-    }
-
-    @Test
-    void testReceiveDeviceDataNegativeSeq() throws Exception {
-        OffsetDateTime timestamp = OffsetDateTime.now();
-        String requestJson = String.format("""
-                {
-                  "device_id": "device-123",
-                  "timestamp": "%s",
-                  "seq": -1,
-                  "metrics": {
-                    "temperature": 25.5
-                  }
-                }
-                """, timestamp);
-
-        String expectedJson = """
-                {
-                  "code": 400
-                }
-                """;
-
-        mockMvc.perform(post("/api/v1/device-data")
-                        .contentType(MediaType.APPLICATION_JSON)
-                        .content(requestJson))
-                .andExpect(status().isBadRequest())
-                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
-                .andExpect(content().json(expectedJson, JsonCompareMode.LENIENT));
-    }
-
-    @Test
-    void testReceiveDeviceDataMissingMetrics() throws Exception {
-        OffsetDateTime timestamp = OffsetDateTime.now();
-        String requestJson = String.format("""
-                {
-                  "device_id": "device-123",
-                  "timestamp": "%s",
-                  "seq": 100
-                }
-                """, timestamp);
-
-        String expectedJson = """
-                {
-                  "code": 400
-                }
-                """;
-
-        mockMvc.perform(post("/api/v1/device-data")
-                        .contentType(MediaType.APPLICATION_JSON)
-                        .content(requestJson))
-                .andExpect(status().isBadRequest())
-                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
-                .andExpect(content().json(expectedJson, JsonCompareMode.LENIENT));
-    }
-
-    @Test
-    void testReceiveDeviceDataEmptyMetrics() throws Exception {
-        OffsetDateTime timestamp = OffsetDateTime.now();
-        String requestJson = String.format("""
-                {
-                  "device_id": "device-123",
-                  "timestamp": "%s",
-                  "seq": 100,
-                  "metrics": {}
-                }
-                """, timestamp);
-
-        String expectedJson = """
-                {
-                  "code": 400
-                }
-                """;
-
-        mockMvc.perform(post("/api/v1/device-data")
-                        .contentType(MediaType.APPLICATION_JSON)
-                        .content(requestJson))
-                .andExpect(status().isBadRequest())
-                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
-                .andExpect(content().json(expectedJson, JsonCompareMode.LENIENT));
-    }
-
-    @Test
-    void testReceiveDeviceDataWithNullMetricValue() throws Exception {
-        OffsetDateTime timestamp = OffsetDateTime.now();
-        String requestJson = String.format("""
-                {
-                  "device_id": "device-123",
-                  "timestamp": "%s",
-                  "seq": 100,
-                  "metrics": {
-                    "temperature": null
-                  }
-                }
-                """, timestamp);
-
-        String expectedJson = """
-                {
-                  "code": 400,
-                  "message": "validation.error"
-                }
-                """;
-
-        mockMvc.perform(post("/api/v1/device-data")
-                        .contentType(MediaType.APPLICATION_JSON)
-                        .content(requestJson))
-                .andExpect(status().isBadRequest())
-                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
-                .andExpect(content().json(expectedJson, JsonCompareMode.LENIENT));
-    }
-
-    @Test
-    void testReceiveDeviceDataWithInvalidMetricType() throws Exception {
-        OffsetDateTime timestamp = OffsetDateTime.now();
-        String requestJson = String.format("""
-                {
-                  "device_id": "device-123",
-                  "timestamp": "%s",
-                  "seq": 100,
-                  "metrics": {
-                    "temperature": {
-                      "invalid": "nested"
-                    }
-                  }
-                }
-                """, timestamp);
-
-        String expectedJson = """
-                {
-                  "code": 400,
-                  "message": "validation.error"
-                }
-                """;
-
-        mockMvc.perform(post("/api/v1/device-data")
-                        .contentType(MediaType.APPLICATION_JSON)
-                        .content(requestJson))
-                .andExpect(status().isBadRequest())
-                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
-                .andExpect(content().json(expectedJson, JsonCompareMode.LENIENT));
-    }
-
-    @Test
-    void testReceiveDeviceDataInvalidJson() throws Exception {
-        String content = "{ invalid json }";
-        String expectedJson = """
-                {
-                  "code": 400,
-                  "message": "invalid.json.error",
-                  "humanMessage": "Invalid JSON in request body"
-                }
-                """;
-
-        mockMvc.perform(post("/api/v1/device-data")
-                        .contentType(MediaType.APPLICATION_JSON)
-                        .content(content))
-                .andExpect(status().isBadRequest())
-                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
-                .andExpect(content().json(expectedJson));
-    }
-
-    @Test
-    void testReceiveDeviceDataInvalidContentType() throws Exception {
-        OffsetDateTime timestamp = OffsetDateTime.now();
-        String requestJson = String.format("""
-                {
-                  "device_id": "device-123",
-                  "timestamp": "%s",
-                  "seq": 100,
-                  "metrics": {
-                    "temperature": 25.5
-                  }
-                }
-                """, timestamp);
-
-        mockMvc.perform(post("/api/v1/device-data")
-                        .contentType(MediaType.TEXT_PLAIN)
-                        .content(requestJson))
-                .andExpect(status().isUnsupportedMediaType());
-    }
-
-    @Test
-    void testReceiveDeviceDataMissingRequestBody() throws Exception {
-        mockMvc.perform(post("/api/v1/device-data")
-                        .contentType(MediaType.APPLICATION_JSON))
-                .andExpect(status().isBadRequest());
-    }
-
-    @Test
-    void testReceiveDeviceDataWithOptionalMeta() throws Exception {
-        OffsetDateTime timestamp = OffsetDateTime.now();
-        String requestJson = String.format("""
-                {
-                  "device_id": "device-123",
-                  "timestamp": "%s",
-                  "seq": 100,
-                  "metrics": {
-                    "temperature": 25.5
-                  },
-                  "meta": {
-                    "firmware": "1.0.3",
-                    "version": "2.0"
-                  }
-                }
-                """, timestamp);
-
-        mockMvc.perform(post("/api/v1/device-data")
-                        .contentType(MediaType.APPLICATION_JSON)
-                        .content(requestJson))
-                .andExpect(status().isOk());
-
-        List<DeviceDataDocument> saved = deviceDataRepository.findAll();
-        assertThat(saved).hasSize(1);
-        DeviceDataDocument document = saved.get(0);
-        assertThat(document.getDeviceId()).isEqualTo("device-123");
-        assertThat(document.getMeta()).containsEntry("firmware", "1.0.3");
-        assertThat(document.getMeta()).containsEntry("version", "2.0");
-
-        verify(rabbitMqMessageSender).sendDeviceDataNotification(document.getId());
-    }
-
-    @Test
-    void testReceiveDeviceDataWithoutMeta() throws Exception {
-        OffsetDateTime timestamp = OffsetDateTime.now();
-        String requestJson = String.format("""
-                {
-                  "device_id": "device-123",
-                  "timestamp": "%s",
-                  "seq": 100,
-                  "metrics": {
-                    "temperature": 25.5
-                  }
-                }
-                """, timestamp);
-
-        mockMvc.perform(post("/api/v1/device-data")
-                        .contentType(MediaType.APPLICATION_JSON)
-                        .content(requestJson))
-                .andExpect(status().isOk());
-
-        List<DeviceDataDocument> saved = deviceDataRepository.findAll();
-        assertThat(saved).hasSize(1);
-        DeviceDataDocument document = saved.get(0);
-        assertThat(document.getDeviceId()).isEqualTo("device-123");
-        // MongoDB stores null as empty map, so check if it's null or empty
-        assertThat(document.getMeta()).satisfies(meta -> 
-                assertThat(meta == null || meta.isEmpty()).isTrue());
-
-        verify(rabbitMqMessageSender).sendDeviceDataNotification(document.getId());
+    @Override
+    protected ApiResponse post(MediaType contentType, String contentEncoding, byte[] body) throws Exception {
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.post("/api/v1/device-data")
+                .contentType(contentType);
+        if (contentEncoding != null) {
+            request.header(HttpHeaders.CONTENT_ENCODING, contentEncoding);
+        }
+        if (body != null) {
+            request.content(body);
+        }
+        MockHttpServletResponse response = mockMvc.perform(request).andReturn().getResponse();
+        HttpHeaders headers = new HttpHeaders();
+        response.getHeaderNames().forEach(name -> headers.addAll(name, response.getHeaders(name)));
+        return new ApiResponse(HttpStatus.valueOf(response.getStatus()), headers, response.getContentAsString());
+    }
+
+    @Override
+    protected void verifyNotificationSent(String deviceDataId) {
+        verify(rabbitMqMessageSender).sendDeviceDataNotification(deviceDataId);
     }
 }
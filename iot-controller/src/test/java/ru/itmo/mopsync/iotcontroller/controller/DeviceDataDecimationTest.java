@@ -0,0 +1,116 @@
+package ru.itmo.mopsync.iotcontroller.controller;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.itmo.mopsync.iotcontroller.decimation.DecimationPolicy;
+import ru.itmo.mopsync.iotcontroller.dedup.SequenceTracker;
+import ru.itmo.mopsync.iotcontroller.model.DeviceDataDocument;
+import ru.itmo.mopsync.iotcontroller.model.DeviceDataNotification;
+import ru.itmo.mopsync.iotcontroller.repository.DeviceDataRepository;
+import ru.itmo.mopsync.iotcontroller.service.DeviceShadowService;
+import ru.itmo.mopsync.iotcontroller.service.RabbitMqMessageSender;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@AutoConfigureMockMvc
+@SpringBootTest(properties = {
+        "ingest.decimation.groups[meters].device-prefixes[0]=meter-",
+        "ingest.decimation.groups[meters].policy=every-nth",
+        "ingest.decimation.groups[meters].every=3"
+})
+class DeviceDataDecimationTest extends BaseDbTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private DeviceDataRepository deviceDataRepository;
+
+    @Autowired
+    private SequenceTracker sequenceTracker;
+
+    @Autowired
+    private DecimationPolicy decimationPolicy;
+
+    @Autowired
+    private DeviceShadowService deviceShadowService;
+
+    @MockitoBean
+    private RabbitMqMessageSender rabbitMqMessageSender;
+
+    @BeforeEach
+    void setUp() {
+        deviceDataRepository.deleteAll();
+        sequenceTracker.clear();
+        decimationPolicy.clear();
+        Mockito.reset(rabbitMqMessageSender);
+    }
+
+    @Test
+    void testEveryReadingIsForwardedButOnlyDecimatedSubsetIsStored() throws Exception {
+        for (long seq = 1; seq <= 5; seq++) {
+            postReading("meter-1", seq);
+        }
+        // a retry of a forwarded reading is still a duplicate
+        postReading("meter-1", 2);
+
+        List<DeviceDataDocument> saved = deviceDataRepository.findAll();
+        assertThat(saved).extracting(DeviceDataDocument::getSeq).containsExactlyInAnyOrder(1L, 4L);
+        verify(rabbitMqMessageSender, times(2)).sendDeviceDataNotification(anyString());
+
+        ArgumentCaptor<DeviceDataNotification> forwarded = ArgumentCaptor.forClass(DeviceDataNotification.class);
+        verify(rabbitMqMessageSender, times(3)).sendDeviceDataNotification(forwarded.capture());
+        assertThat(forwarded.getAllValues()).allMatch(DeviceDataNotification::hasPayload)
+                .extracting(DeviceDataNotification::getSeq)
+                .containsExactly(2L, 3L, 5L);
+        assertThat(forwarded.getAllValues().get(0).getMetrics()).containsEntry("temperature", 2.5);
+        assertThat(deviceShadowService.get("meter-1").getSeq()).isEqualTo(5);
+    }
+
+    @Test
+    void testDevicesOutsideGroupsAreNotDecimated() throws Exception {
+        for (long seq = 1; seq <= 3; seq++) {
+            postReading("sensor-1", seq);
+        }
+
+        assertThat(deviceDataRepository.findAll()).hasSize(3);
+        verify(rabbitMqMessageSender, times(3)).sendDeviceDataNotification(anyString());
+        verify(rabbitMqMessageSender, never()).sendDeviceDataNotification(any(DeviceDataNotification.class));
+    }
+
+    private void postReading(String deviceId, long seq) throws Exception {
+        String requestJson = String.format("""
+                {
+                  "device_id": "%s",
+                  "timestamp": "%s",
+                  "seq": %d,
+                  "metrics": {
+                    "temperature": %d.5
+                  }
+                }
+                """, deviceId, OffsetDateTime.now(), seq, seq);
+
+        mockMvc.perform(post("/api/v1/device-data")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(requestJson))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,184 @@
+package ru.itmo.mopsync.iotcontroller.controller;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.itmo.mopsync.iotcontroller.config.DeduplicationProperties;
+import ru.itmo.mopsync.iotcontroller.dedup.SeqIndexMigration;
+import ru.itmo.mopsync.iotcontroller.dedup.SequenceCounters;
+import ru.itmo.mopsync.iotcontroller.dedup.SequenceTracker;
+import ru.itmo.mopsync.iotcontroller.model.DeviceDataDocument;
+import ru.itmo.mopsync.iotcontroller.model.SeqOrder;
+import ru.itmo.mopsync.iotcontroller.repository.DeviceDataRepository;
+import ru.itmo.mopsync.iotcontroller.service.RabbitMqMessageSender;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@AutoConfigureMockMvc
+class DeviceDataDeduplicationTest extends BaseDbTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private DeviceDataRepository deviceDataRepository;
+
+    @Autowired
+    private SequenceTracker sequenceTracker;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @MockitoBean
+    private RabbitMqMessageSender rabbitMqMessageSender;
+
+    @BeforeEach
+    void setUp() {
+        deviceDataRepository.deleteAll();
+        sequenceTracker.clear();
+        Mockito.reset(rabbitMqMessageSender);
+    }
+
+    @Test
+    void testRetriedReadingIsStoredOnce() throws Exception {
+        double duplicatesBefore = duplicates("cache");
+
+        postReading("device-dedup", 10);
+        postReading("device-dedup", 10);
+        postReading("device-dedup", 10);
+
+        List<DeviceDataDocument> saved = deviceDataRepository.findAll();
+        assertThat(saved).hasSize(1);
+        verify(rabbitMqMessageSender).sendDeviceDataNotification(saved.get(0).getId());
+        assertThat(duplicates("cache") - duplicatesBefore).isEqualTo(2);
+    }
+
+    @Test
+    void testDuplicateIsRejectedByUniqueIndexWhenNotCached() throws Exception {
+        double duplicatesBefore = duplicates("index");
+
+        postReading("device-dedup", 10);
+        // e.g. after a restart or when the retry lands on another instance
+        sequenceTracker.clear();
+        postReading("device-dedup", 10);
+
+        List<DeviceDataDocument> saved = deviceDataRepository.findAll();
+        assertThat(saved).hasSize(1);
+        verify(rabbitMqMessageSender).sendDeviceDataNotification(saved.get(0).getId());
+        // the duplicate is announced concurrently with its insert, under an id that is never stored
+        verify(rabbitMqMessageSender, times(2)).sendDeviceDataNotification(anyString());
+        assertThat(duplicates("index") - duplicatesBefore).isEqualTo(1);
+    }
+
+    @Test
+    void testOutOfOrderAndOtherDeviceReadingsAreStored() throws Exception {
+        postReading("device-dedup", 12);
+        postReading("device-dedup", 10);
+        postReading("device-dedup", 11);
+        postReading("device-dedup", 2000);
+        postReading("device-dedup", 11);
+        postReading("device-other", 10);
+
+        assertThat(deviceDataRepository.findAll())
+                .extracting(DeviceDataDocument::getDeviceId, DeviceDataDocument::getSeq)
+                .containsExactlyInAnyOrder(
+                        tuple("device-dedup", 12L),
+                        tuple("device-dedup", 10L),
+                        tuple("device-dedup", 11L),
+                        tuple("device-dedup", 2000L),
+                        tuple("device-other", 10L));
+    }
+
+    @Test
+    void testArrivalOrderIsFlaggedOnStoredReadings() throws Exception {
+        postReading("device-dedup", 10);
+        postReading("device-dedup", 11);
+        postReading("device-dedup", 14);
+        postReading("device-dedup", 12);
+        postReading("device-dedup", 12);
+
+        assertThat(deviceDataRepository.findAll())
+                .extracting(DeviceDataDocument::getSeq, DeviceDataDocument::getSeqOrder, DeviceDataDocument::getSeqGap)
+                .containsExactlyInAnyOrder(
+                        tuple(10L, null, null),
+                        tuple(11L, null, null),
+                        tuple(14L, SeqOrder.GAP, 2L),
+                        tuple(12L, SeqOrder.LATE, null));
+        assertThat(sequenceTracker.getCounters("device-dedup"))
+                .isEqualTo(new SequenceCounters(14, 1, 1, 1, 1));
+    }
+
+    @Test
+    void testUniqueIndexIsCreatedOverExistingDuplicates() {
+        mongoTemplate.indexOps(DeviceDataDocument.class).dropIndex(SeqIndexMigration.INDEX_NAME);
+        DeviceDataDocument first = mongoTemplate.insert(reading("device-dedup", 10));
+        mongoTemplate.insert(reading("device-dedup", 10));
+        mongoTemplate.insert(reading("device-dedup", 11));
+        DeduplicationProperties properties = new DeduplicationProperties();
+        SeqIndexMigration migration = new SeqIndexMigration(mongoTemplate, properties);
+
+        assertThatThrownBy(migration::afterPropertiesSet)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("ingest.dedup.remove-duplicates");
+
+        properties.setRemoveDuplicates(true);
+        migration.afterPropertiesSet();
+
+        assertThat(deviceDataRepository.findAll())
+                .extracting(DeviceDataDocument::getId, DeviceDataDocument::getSeq)
+                .hasSize(2)
+                .contains(tuple(first.getId(), 10L));
+        assertThat(mongoTemplate.indexOps(DeviceDataDocument.class).getIndexInfo())
+                .anyMatch(index -> SeqIndexMigration.INDEX_NAME.equals(index.getName()) && index.isUnique());
+    }
+
+    private static DeviceDataDocument reading(String deviceId, long seq) {
+        DeviceDataDocument document = new DeviceDataDocument();
+        document.setDeviceId(deviceId);
+        document.setSeq(seq);
+        document.setTimestamp(OffsetDateTime.now());
+        return document;
+    }
+
+    private void postReading(String deviceId, long seq) throws Exception {
+        String requestJson = String.format("""
+                {
+                  "device_id": "%s",
+                  "timestamp": "%s",
+                  "seq": %d,
+                  "metrics": {
+                    "temperature": 25.5
+                  }
+                }
+                """, deviceId, OffsetDateTime.now(), seq);
+
+        mockMvc.perform(post("/api/v1/device-data")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(requestJson))
+                .andExpect(status().isOk());
+    }
+
+    private double duplicates(String detectedBy) {
+        return meterRegistry.counter("iot.ingest.duplicates", "detected_by", detectedBy).count();
+    }
+}
@@ -0,0 +1,121 @@
+package ru.itmo.mopsync.iotcontroller.controller;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.Map;
+
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.itmo.mopsync.iotcontroller.dedup.SequenceTracker;
+import ru.itmo.mopsync.iotcontroller.dictionary.MetricDictionary;
+import ru.itmo.mopsync.iotcontroller.model.DeviceDataDocument;
+import ru.itmo.mopsync.iotcontroller.repository.DeviceDataRepository;
+import ru.itmo.mopsync.iotcontroller.service.RabbitMqMessageSender;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@AutoConfigureMockMvc
+@SpringBootTest(properties = "ingest.metric-dictionary.enabled=true")
+class DeviceDataDictionaryTest extends BaseDbTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private DeviceDataRepository deviceDataRepository;
+
+    @Autowired
+    private SequenceTracker sequenceTracker;
+
+    @Autowired
+    private MetricDictionary metricDictionary;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @MockitoBean
+    private RabbitMqMessageSender rabbitMqMessageSender;
+
+    @BeforeEach
+    void setUp() {
+        deviceDataRepository.deleteAll();
+        sequenceTracker.clear();
+    }
+
+    @Test
+    void testMetricsAreStoredByDictionaryId() throws Exception {
+        postReading("device-dict", 1, "{\"temperature\": 20.5, \"waterLevel\": 7, \"status\": \"ok\"}");
+
+        Document stored = mongoTemplate.getCollection("device_data").find().first();
+        assertThat(stored).doesNotContainKey("metrics");
+        assertThat(stored.get(MetricDictionary.ENCODED_FIELD, Document.class)).isEqualTo(new Document()
+                .append(String.valueOf(metricDictionary.idOf("temperature")), 20.5)
+                .append(String.valueOf(metricDictionary.idOf("waterLevel")), 7)
+                .append(String.valueOf(metricDictionary.idOf("status")), "ok"));
+
+        DeviceDataDocument document = deviceDataRepository.findAll().get(0);
+        assertThat(document.getMetrics())
+                .isEqualTo(Map.of("temperature", 20.5, "waterLevel", 7, "status", "ok"));
+    }
+
+    @Test
+    void testDictionaryIdsAreStable() throws Exception {
+        postReading("device-dict", 1, "{\"pressure\": 1.5}");
+        int id = metricDictionary.idOf("pressure");
+        postReading("device-dict", 2, "{\"pressure\": 2.5, \"voltage\": 3.3}");
+
+        assertThat(metricDictionary.idOf("pressure")).isEqualTo(id);
+        assertThat(metricDictionary.idOf("voltage")).isNotEqualTo(id);
+        assertThat(metricDictionary.nameOf(id)).isEqualTo("pressure");
+    }
+
+    @Test
+    void testRangeQueryReadsBothStorageForms() throws Exception {
+        // a reading stored before the dictionary mode was enabled
+        mongoTemplate.getCollection("device_data").insertOne(new Document()
+                .append("deviceId", "device-mixed")
+                .append("timestamp", Date.from(Instant.parse("2025-01-01T00:00:01Z")))
+                .append("seq", 1L)
+                .append("metrics", new Document("humidity", 40).append("temperature", 19.5)));
+        postReading("device-mixed", 2, "{\"humidity\": 41, \"temperature\": 20.5}");
+        postReading("device-mixed", 3, "{\"temperature\": 21.5}");
+
+        mockMvc.perform(get("/api/v1/devices/device-mixed/data")
+                        .param("from", "2025-01-01T00:00:00Z")
+                        .param("to", "2025-01-02T00:00:00Z")
+                        .param("metrics", "humidity"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(2))
+                .andExpect(jsonPath("$.items[0].metrics.humidity").value(40))
+                .andExpect(jsonPath("$.items[1].metrics.humidity").value(41))
+                .andExpect(jsonPath("$.items[1].metrics.temperature").doesNotExist());
+    }
+
+    private void postReading(String deviceId, long seq, String metrics) throws Exception {
+        String requestJson = String.format("""
+                {
+                  "device_id": "%s",
+                  "timestamp": "2025-01-01T00:00:0%dZ",
+                  "seq": %d,
+                  "metrics": %s
+                }
+                """, deviceId, seq, seq, metrics);
+
+        mockMvc.perform(post("/api/v1/device-data")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(requestJson))
+                .andExpect(status().isOk());
+    }
+}
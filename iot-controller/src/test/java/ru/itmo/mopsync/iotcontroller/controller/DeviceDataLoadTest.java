@@ -0,0 +1,194 @@
+package ru.itmo.mopsync.iotcontroller.controller;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.mockito.MockMakers;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.boot.web.reactive.context.ReactiveWebApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import ru.itmo.mopsync.iotcontroller.IotControllerApplication;
+import ru.itmo.mopsync.iotcontroller.config.MongoPoolProperties;
+import ru.itmo.mopsync.iotcontroller.service.DeviceDataService;
+import ru.itmo.mopsync.iotcontroller.service.ReactiveDeviceDataService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Load test of HTTP ingestion with 10k concurrent connections, on platform request threads,
+ * with the virtual-threads profile and on the reactive stack.
+ * DeviceDataService (ReactiveDeviceDataService on the reactive stack) is stubbed: every reading holds
+ * a connection of a simulated MongoDB pool, sized by ingest.mongo-pool, for STORE_LATENCY_MILLIS,
+ * so the test measures how request threads and the pool limit concurrency. Needs Java 21 and about 20k open files,
+ * so it is tagged "load" and left out of the default build; run it with {@code mvn test -P java21,load-tests}.
+ * Results are logged; the test fails if a request fails.
+ */
+@Slf4j
+@Tag("load")
+@EnabledForJreRange(min = JRE.JAVA_21)
+class DeviceDataLoadTest {
+
+    private static final int CONNECTIONS = 10_000;
+    private static final int WARMUP_REQUESTS = 2_000;
+    private static final long STORE_LATENCY_MILLIS = 20;
+
+    @Test
+    void testP99LatencyOnPlatformAndVirtualThreads() throws Exception {
+        Result platform = run();
+        Result virtual = run("virtual-threads");
+
+        platform.report("platform threads");
+        virtual.report("virtual threads");
+        assertThat(platform.failed()).isZero();
+        assertThat(virtual.failed()).isZero();
+    }
+
+    @Test
+    void testThroughputOnServletAndReactiveStacks() throws Exception {
+        Result servlet = run();
+        Result reactive = run("reactive");
+
+        servlet.report("servlet stack");
+        reactive.report("reactive stack");
+        assertThat(servlet.failed()).isZero();
+        assertThat(reactive.failed()).isZero();
+    }
+
+    private Result run(String... profiles) throws Exception {
+        WebServerApplicationContext context = (WebServerApplicationContext)
+                new SpringApplicationBuilder(IotControllerApplication.class)
+                        .profiles(profiles)
+                        .initializers((GenericApplicationContext ctx) -> {
+                            if (ctx instanceof ReactiveWebApplicationContext) {
+                                ctx.registerBean("storeStub", ReactiveDeviceDataService.class,
+                                        () -> reactiveStoreStub(ctx.getBean(MongoPoolProperties.class)),
+                                        definition -> definition.setPrimary(true));
+                            } else {
+                                ctx.registerBean("storeStub", DeviceDataService.class,
+                                        () -> storeStub(ctx.getBean(MongoPoolProperties.class)),
+                                        definition -> definition.setPrimary(true));
+                            }
+                        })
+                        // arguments, unlike default properties, override application.properties
+                        .run("--server.port=0",
+                                "--server.tomcat.max-connections=20000",
+                                "--server.tomcat.accept-count=1000",
+                                "--spring.data.mongodb.auto-index-creation=false",
+                                "--ingest.rate-limit.enabled=false",
+                                "--ingest.spool.enabled=false",
+                                "--ingest.rollup.enabled=false",
+                                "--logging.level.ru.itmo.mopsync.iotcontroller=WARN");
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .executor(executor)
+                    .build();
+            URI uri = URI.create("http://localhost:" + context.getWebServer().getPort() + "/api/v1/device-data");
+            send(client, uri, WARMUP_REQUESTS);
+            return send(client, uri, CONNECTIONS);
+        } finally {
+            executor.shutdownNow();
+            ((AutoCloseable) context).close();
+        }
+    }
+
+    private static Result send(HttpClient client, URI uri, int requests) {
+        long[] latencies = new long[requests];
+        AtomicInteger failed = new AtomicInteger();
+        CompletableFuture<?>[] responses = new CompletableFuture<?>[requests];
+        long sendStart = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            int index = i;
+            HttpRequest request = HttpRequest.newBuilder(uri)
+                    .timeout(Duration.ofSeconds(60))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString("""
+                            {"device_id": "device-%d", "timestamp": "2025-01-03T12:00:05Z", "seq": %d,
+                             "metrics": {"temperature": 23.5, "humidity": 61, "status": "active"}}
+                            """.formatted(i, i)))
+                    .build();
+            long start = System.nanoTime();
+            responses[i] = client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .handle((response, error) -> {
+                        latencies[index] = System.nanoTime() - start;
+                        if (error != null || response.statusCode() != 200) {
+                            failed.incrementAndGet();
+                        }
+                        return null;
+                    });
+        }
+        CompletableFuture.allOf(responses).join();
+        long elapsedNanos = System.nanoTime() - sendStart;
+        Arrays.sort(latencies);
+        return new Result(requests, failed.get(), latencies[requests / 2], latencies[requests * 99 / 100],
+                latencies[requests - 1], elapsedNanos);
+    }
+
+    private static DeviceDataService storeStub(MongoPoolProperties pool) {
+        Semaphore connections = new Semaphore(pool.getMaxSize(), true);
+        // a subclass mock: the inline mock maker would slow down every request of the server
+        DeviceDataService service = mock(DeviceDataService.class,
+                withSettings().stubOnly().mockMaker(MockMakers.SUBCLASS));
+        doAnswer(invocation -> {
+            // no wait timeout: the test reports queueing delays rather than failing on a slow machine
+            connections.acquireUninterruptibly();
+            try {
+                Thread.sleep(STORE_LATENCY_MILLIS);
+            } finally {
+                connections.release();
+            }
+            return null;
+        }).when(service).processDeviceData(any());
+        return service;
+    }
+
+    private static ReactiveDeviceDataService reactiveStoreStub(MongoPoolProperties pool) {
+        // the reactive driver queues operations for a pool connection without holding a thread
+        Sinks.Many<Sinks.One<Void>> operations = Sinks.many().unicast().onBackpressureBuffer();
+        operations.asFlux()
+                .flatMap(done -> Mono.delay(Duration.ofMillis(STORE_LATENCY_MILLIS))
+                        .doOnNext(ignored -> done.tryEmitEmpty()), pool.getMaxSize())
+                .subscribe();
+        ReactiveDeviceDataService service = mock(ReactiveDeviceDataService.class,
+                withSettings().stubOnly().mockMaker(MockMakers.SUBCLASS));
+        when(service.processDeviceData(any())).thenAnswer(invocation -> {
+            Sinks.One<Void> done = Sinks.one();
+            operations.emitNext(done, Sinks.EmitFailureHandler.busyLooping(Duration.ofSeconds(1)));
+            return done.asMono();
+        });
+        return service;
+    }
+
+    private record Result(int requests, int failed, long p50Nanos, long p99Nanos, long maxNanos,
+                          long elapsedNanos) {
+
+        void report(String mode) {
+            log.info(String.format("HTTP ingest on %s: %d concurrent requests, %d failed, %.0f requests/s, "
+                            + "p50 %.1f ms, p99 %.1f ms, max %.1f ms", mode, requests, failed,
+                    requests / (elapsedNanos / 1e9), p50Nanos / 1e6, p99Nanos / 1e6, maxNanos / 1e6));
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package ru.itmo.mopsync.iotcontroller.controller;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.zip.GZIPOutputStream;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.itmo.mopsync.iotcontroller.dedup.SequenceTracker;
+import ru.itmo.mopsync.iotcontroller.metrics.IngestMetrics;
+import ru.itmo.mopsync.iotcontroller.repository.DeviceDataRepository;
+import ru.itmo.mopsync.iotcontroller.service.RabbitMqMessageSender;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks that a device data request is recorded by the iot.ingest.* meters of {@link IngestMetrics},
+ * including the body size and deserialization time measured by {@link IngestRequestBodyAdvice}.
+ */
+@AutoConfigureMockMvc
+class DeviceDataMetricsTest extends BaseDbTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private DeviceDataRepository deviceDataRepository;
+
+    @Autowired
+    private SequenceTracker sequenceTracker;
+
+    @MockitoBean
+    private RabbitMqMessageSender rabbitMqMessageSender;
+
+    @BeforeEach
+    void setUp() {
+        deviceDataRepository.deleteAll();
+        sequenceTracker.clear();
+    }
+
+    @Test
+    void testStoredReadingIsRecordedByAllMeters() throws Exception {
+        byte[] body = reading(1).getBytes(StandardCharsets.UTF_8);
+        long deserialized = stageCount(IngestMetrics.DESERIALIZE);
+        long validated = stageCount(IngestMetrics.VALIDATE);
+        long saved = stageCount(IngestMetrics.SAVE);
+        long published = stageCount(IngestMetrics.PUBLISH);
+        Snapshot payloadSize = httpSnapshot("iot.ingest.payload.size");
+        Snapshot packetReadings = httpSnapshot("iot.ingest.packet.readings");
+        Snapshot metricCount = snapshot("iot.ingest.reading.metrics");
+
+        mockMvc.perform(post("/api/v1/device-data")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk());
+
+        assertThat(stageCount(IngestMetrics.DESERIALIZE)).isEqualTo(deserialized + 1);
+        assertThat(stageCount(IngestMetrics.VALIDATE)).isEqualTo(validated + 1);
+        assertThat(stageCount(IngestMetrics.SAVE)).isEqualTo(saved + 1);
+        assertThat(stageCount(IngestMetrics.PUBLISH)).isEqualTo(published + 1);
+        assertThat(httpSnapshot("iot.ingest.payload.size").minus(payloadSize)).isEqualTo(new Snapshot(1, body.length));
+        assertThat(httpSnapshot("iot.ingest.packet.readings").minus(packetReadings)).isEqualTo(new Snapshot(1, 1));
+        assertThat(snapshot("iot.ingest.reading.metrics").minus(metricCount)).isEqualTo(new Snapshot(1, 2));
+    }
+
+    @Test
+    void testPayloadSizeOfCompressedBodyIsDecompressedSize() throws Exception {
+        byte[] body = reading(2).getBytes(StandardCharsets.UTF_8);
+        Snapshot payloadSize = httpSnapshot("iot.ingest.payload.size");
+
+        mockMvc.perform(post("/api/v1/device-data")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                        .content(gzip(body)))
+                .andExpect(status().isOk());
+
+        assertThat(httpSnapshot("iot.ingest.payload.size").minus(payloadSize)).isEqualTo(new Snapshot(1, body.length));
+    }
+
+    private long stageCount(String stage) {
+        return meterRegistry.get("iot.ingest.stage").tag("stage", stage).timer().count();
+    }
+
+    private Snapshot httpSnapshot(String name) {
+        return snapshot(name, "transport", "http");
+    }
+
+    private Snapshot snapshot(String name, String... tags) {
+        DistributionSummary summary = meterRegistry.find(name).tags(tags).summary();
+        return summary == null ? new Snapshot(0, 0) : new Snapshot(summary.count(), summary.totalAmount());
+    }
+
+    private static String reading(long seq) {
+        return String.format("""
+                {
+                  "device_id": "device-metrics",
+                  "timestamp": "%s",
+                  "seq": %d,
+                  "metrics": {
+                    "temperature": 25.5,
+                    "humidity": 60
+                  }
+                }
+                """, OffsetDateTime.now(), seq);
+    }
+
+    private static byte[] gzip(byte[] content) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(content);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Count and total amount of a distribution summary.
+     */
+    private record Snapshot(long count, double total) {
+        Snapshot minus(Snapshot before) {
+            return new Snapshot(count - before.count, total - before.total);
+        }
+    }
+}
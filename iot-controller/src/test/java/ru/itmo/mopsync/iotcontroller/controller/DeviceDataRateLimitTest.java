@@ -0,0 +1,130 @@
+package ru.itmo.mopsync.iotcontroller.controller;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.json.JsonCompareMode;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import ru.itmo.mopsync.iotcontroller.dedup.SequenceTracker;
+import ru.itmo.mopsync.iotcontroller.ratelimit.AdmissionController;
+import ru.itmo.mopsync.iotcontroller.ratelimit.DeviceRateLimiter;
+import ru.itmo.mopsync.iotcontroller.repository.DeviceDataRepository;
+import ru.itmo.mopsync.iotcontroller.service.RabbitMqMessageSender;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@AutoConfigureMockMvc
+@SpringBootTest(properties = {
+        "ingest.rate-limit.devices[device-limited].rate=0.5",
+        "ingest.rate-limit.devices[device-limited].burst=2",
+        "ingest.rate-limit.groups[0].prefix=group-",
+        "ingest.rate-limit.groups[0].rate=0.5",
+        "ingest.rate-limit.groups[0].burst=1"
+})
+class DeviceDataRateLimitTest extends BaseDbTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private DeviceDataRepository deviceDataRepository;
+
+    @Autowired
+    private SequenceTracker sequenceTracker;
+
+    @Autowired
+    private DeviceRateLimiter deviceRateLimiter;
+
+    @Autowired
+    private AdmissionController admissionController;
+
+    @MockitoBean
+    private RabbitMqMessageSender rabbitMqMessageSender;
+
+    @BeforeEach
+    void setUp() {
+        deviceDataRepository.deleteAll();
+        sequenceTracker.clear();
+        deviceRateLimiter.clear();
+    }
+
+    @Test
+    void testDeviceOverRateLimitIsRejected() throws Exception {
+        postReading("device-limited", 1).andExpect(status().isOk());
+        postReading("device-limited", 2).andExpect(status().isOk());
+
+        postReading("device-limited", 3)
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "2"))
+                .andExpect(content().json("""
+                        {
+                          "code": 429,
+                          "message": "device.rate.limit.error",
+                          "humanMessage": "Device device-limited exceeded its rate limit"
+                        }
+                        """, JsonCompareMode.STRICT));
+
+        // other devices have their own buckets with the default limit
+        postReading("device-other", 1).andExpect(status().isOk());
+        assertThat(deviceDataRepository.findAll()).hasSize(3);
+    }
+
+    @Test
+    void testGroupLimitAppliesToDevicesWithPrefix() throws Exception {
+        postReading("group-a", 1).andExpect(status().isOk());
+        postReading("group-b", 1).andExpect(status().isOk());
+
+        postReading("group-a", 2).andExpect(status().isTooManyRequests());
+        postReading("group-b", 2).andExpect(status().isTooManyRequests());
+    }
+
+    @Test
+    @DirtiesContext
+    void testRequestsAreShedWhileStoreIsSlow() throws Exception {
+        admissionController.recordStoreLatency(Duration.ofSeconds(5).toNanos());
+
+        postReading("device-shed", 1)
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"))
+                .andExpect(content().json("""
+                        {
+                          "code": 503,
+                          "message": "service.overloaded.error",
+                          "humanMessage": "Service is overloaded, retry later"
+                        }
+                        """, JsonCompareMode.STRICT));
+
+        assertThat(deviceDataRepository.findAll()).isEmpty();
+    }
+
+    private ResultActions postReading(String deviceId, long seq) throws Exception {
+        String requestJson = String.format("""
+                {
+                  "device_id": "%s",
+                  "timestamp": "%s",
+                  "seq": %d,
+                  "metrics": {
+                    "temperature": 25.5
+                  }
+                }
+                """, deviceId, OffsetDateTime.now(), seq);
+
+        return mockMvc.perform(post("/api/v1/device-data")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(requestJson));
+    }
+}
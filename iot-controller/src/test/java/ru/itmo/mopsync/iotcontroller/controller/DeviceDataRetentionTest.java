@@ -0,0 +1,207 @@
+package ru.itmo.mopsync.iotcontroller.controller;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import ru.itmo.mopsync.iotcontroller.archive.RetentionArchiver;
+import ru.itmo.mopsync.iotcontroller.dedup.SequenceTracker;
+import ru.itmo.mopsync.iotcontroller.model.DeviceDataDocument;
+import ru.itmo.mopsync.iotcontroller.repository.DeviceDataRepository;
+import ru.itmo.mopsync.iotcontroller.rollup.RollupAggregator;
+import ru.itmo.mopsync.iotcontroller.service.DeviceShadowService;
+import ru.itmo.mopsync.iotcontroller.service.RabbitMqMessageSender;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@AutoConfigureMockMvc
+@SpringBootTest(properties = {
+        "ingest.retention.enabled=true",
+        "ingest.retention.archive-interval=1d"
+})
+class DeviceDataRetentionTest extends BaseDbTest {
+
+    private static final Path ARCHIVE_DIR = createArchiveDir();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private DeviceDataRepository deviceDataRepository;
+
+    @Autowired
+    private SequenceTracker sequenceTracker;
+
+    @Autowired
+    private DeviceShadowService deviceShadowService;
+
+    @Autowired
+    private RollupAggregator rollupAggregator;
+
+    @Autowired
+    private RetentionArchiver retentionArchiver;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @MockitoBean
+    private RabbitMqMessageSender rabbitMqMessageSender;
+
+    @DynamicPropertySource
+    static void configureArchiveDir(DynamicPropertyRegistry registry) {
+        registry.add("ingest.retention.archive-dir", ARCHIVE_DIR::toString);
+    }
+
+    @BeforeEach
+    void setUp() throws IOException {
+        deviceDataRepository.deleteAll();
+        sequenceTracker.clear();
+        deviceShadowService.clear();
+        rollupAggregator.clear();
+        try (Stream<Path> files = Files.walk(ARCHIVE_DIR)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).filter(p -> !p.equals(ARCHIVE_DIR)).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Test
+    void testArchivedReadingsAreServedOnce() throws Exception {
+        postReading("device-old", 1, "2025-01-01T00:00:01Z", "{\"temperature\": 20.5}");
+        postReading("device-old", 2, "2025-01-01T00:00:02Z", "{\"temperature\": 21.5, \"status\": \"ok\"}");
+        postReading("device-old", 3, "2025-01-02T00:00:01Z", "{\"temperature\": 22}");
+
+        assertThat(retentionArchiver.archive()).isEqualTo(3);
+        assertThat(retentionArchiver.archive()).isZero();
+        assertThat(mongoTemplate.findAll(DeviceDataDocument.class))
+                .allSatisfy(document -> assertThat(document.getArchivedAt()).isNotNull());
+
+        // still in MongoDB until the TTL index removes them, but returned only once
+        getRange("device-old")
+                .andExpect(jsonPath("$.items.length()").value(3))
+                .andExpect(jsonPath("$.items[*].seq").value(contains(1, 2, 3)))
+                .andExpect(jsonPath("$.items[1].metrics.status").value("ok"))
+                .andExpect(jsonPath("$.items[2].metrics.temperature").value(22));
+
+        mongoTemplate.remove(new Query(), DeviceDataDocument.class);
+
+        getRange("device-old")
+                .andExpect(jsonPath("$.items.length()").value(3))
+                .andExpect(jsonPath("$.items[*].seq").value(contains(1, 2, 3)));
+    }
+
+    @Test
+    void testReadingArchivedButNotMarkedIsServedOnce() throws Exception {
+        postReading("device-unmarked", 1, "2025-01-01T00:00:01Z", "{\"temperature\": 20.5}");
+        postReading("device-unmarked", 2, "2025-01-01T00:00:02Z", "{\"temperature\": 21.5}");
+        retentionArchiver.archive();
+        // as if the archive run failed after writing the segment, before marking the readings
+        mongoTemplate.updateMulti(new Query(), new Update().unset("archivedAt"), DeviceDataDocument.class);
+
+        getRange("device-unmarked")
+                .andExpect(jsonPath("$.items[*].seq").value(contains(1, 2)));
+        String body = mockMvc.perform(get("/api/v1/devices/device-unmarked/data?from=2025-01-01T00:00:00Z"
+                        + "&to=2025-01-03T00:00:00Z&resolution=raw")
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertThat(body.split("\n")).hasSize(2);
+    }
+
+    @Test
+    void testLateReadingIsMergedIntoSegment() throws Exception {
+        postReading("device-late", 1, "2025-01-01T00:00:01Z", "{\"temperature\": 20.5}");
+        postReading("device-late", 3, "2025-01-01T00:00:03Z", "{\"temperature\": 22.5}");
+        retentionArchiver.archive();
+        mongoTemplate.remove(new Query(), DeviceDataDocument.class);
+
+        postReading("device-late", 2, "2025-01-01T00:00:02Z", "{\"temperature\": 21.5}");
+
+        // the late reading is served from MongoDB between the archived ones
+        getRange("device-late")
+                .andExpect(jsonPath("$.items[*].seq").value(contains(1, 2, 3)));
+
+        assertThat(retentionArchiver.archive()).isEqualTo(1);
+        mongoTemplate.remove(new Query(), DeviceDataDocument.class);
+
+        getRange("device-late")
+                .andExpect(jsonPath("$.items[*].seq").value(contains(1, 2, 3)))
+                .andExpect(jsonPath("$.items[1].metrics.temperature").value(21.5));
+    }
+
+    @Test
+    void testPagingAcrossArchiveAndMongo() throws Exception {
+        for (int seq = 1; seq <= 4; seq++) {
+            postReading("device-paged", seq, "2025-01-01T00:00:0" + seq + "Z", "{\"temperature\": " + seq + "}");
+        }
+        retentionArchiver.archive();
+        mongoTemplate.remove(new Query(), DeviceDataDocument.class);
+        postReading("device-paged", 5, "2025-01-01T00:00:05Z", "{\"temperature\": 5}");
+
+        String body = getRange("device-paged", "&limit=3")
+                .andExpect(jsonPath("$.items[*].seq").value(contains(1, 2, 3)))
+                .andReturn().getResponse().getContentAsString();
+        String cursor = JsonPath.read(body, "$.next_cursor");
+
+        getRange("device-paged", "&limit=3&cursor=" + cursor)
+                .andExpect(jsonPath("$.items[*].seq").value(contains(4, 5)))
+                .andExpect(jsonPath("$.next_cursor").doesNotExist());
+    }
+
+    private ResultActions getRange(String deviceId) throws Exception {
+        return getRange(deviceId, "");
+    }
+
+    private ResultActions getRange(String deviceId, String parameters) throws Exception {
+        return mockMvc.perform(get("/api/v1/devices/" + deviceId + "/data?from=2025-01-01T00:00:00Z"
+                        + "&to=2025-01-03T00:00:00Z&resolution=raw" + parameters))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.resolution").value("raw"));
+    }
+
+    private void postReading(String deviceId, long seq, String timestamp, String metrics) throws Exception {
+        String requestJson = String.format("""
+                {
+                  "device_id": "%s",
+                  "timestamp": "%s",
+                  "seq": %d,
+                  "metrics": %s
+                }
+                """, deviceId, timestamp, seq, metrics);
+
+        mockMvc.perform(post("/api/v1/device-data")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(requestJson))
+                .andExpect(status().isOk());
+    }
+
+    private static Path createArchiveDir() {
+        try {
+            return Files.createTempDirectory("iot-archive");
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
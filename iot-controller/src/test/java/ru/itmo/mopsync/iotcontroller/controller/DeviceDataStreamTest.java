@@ -0,0 +1,167 @@
+package ru.itmo.mopsync.iotcontroller.controller;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+import ru.itmo.mopsync.iotcontroller.dedup.SequenceTracker;
+import ru.itmo.mopsync.iotcontroller.model.DeviceDataDocument;
+import ru.itmo.mopsync.iotcontroller.ratelimit.DeviceRateLimiter;
+import ru.itmo.mopsync.iotcontroller.repository.DeviceDataRepository;
+import ru.itmo.mopsync.iotcontroller.service.RabbitMqMessageSender;
+import ru.itmo.mopsync.iotcontroller.websocket.DeviceStreamAck;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "ingest.rate-limit.devices[device-limited].rate=0.5",
+        "ingest.rate-limit.devices[device-limited].burst=2"
+})
+class DeviceDataStreamTest extends BaseDbTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private DeviceDataRepository deviceDataRepository;
+
+    @Autowired
+    private SequenceTracker sequenceTracker;
+
+    @Autowired
+    private DeviceRateLimiter deviceRateLimiter;
+
+    @MockitoBean
+    private RabbitMqMessageSender rabbitMqMessageSender;
+
+    private final BlockingQueue<String> received = new LinkedBlockingQueue<>();
+    private WebSocketSession session;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        deviceDataRepository.deleteAll();
+        sequenceTracker.clear();
+        deviceRateLimiter.clear();
+        Mockito.reset(rabbitMqMessageSender);
+        session = new StandardWebSocketClient()
+                .execute(new TextWebSocketHandler() {
+                    @Override
+                    protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+                        received.add(message.getPayload());
+                    }
+                }, "ws://localhost:" + port + "/api/v1/device-data/stream")
+                .get(5, TimeUnit.SECONDS);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        session.close();
+    }
+
+    @Test
+    void testStreamReadingsAreSavedAndAcked() throws Exception {
+        StringBuilder batch = new StringBuilder("[");
+        for (int seq = 1; seq <= 20; seq++) {
+            batch.append(seq > 1 ? "," : "").append(reading("device-stream", seq));
+        }
+        session.sendMessage(new TextMessage(batch.append("]").toString()));
+        session.sendMessage(new TextMessage(reading("device-stream", 21)));
+
+        DeviceStreamAck ack = awaitAcks(21);
+        assertThat(ack.getRejected()).isEmpty();
+        assertThat(ack.getAccepted())
+                .extracting(DeviceStreamAck.Reading::getSeq)
+                .containsExactlyElementsOf(LongStream.rangeClosed(1, 21).boxed().toList());
+
+        List<DeviceDataDocument> saved = deviceDataRepository.findAll();
+        assertThat(saved).hasSize(21);
+        assertThat(saved).allSatisfy(document -> {
+            assertThat(document.getDeviceId()).isEqualTo("device-stream");
+            assertThat(document.getMetrics()).containsEntry("humidity", 60);
+        });
+        verify(rabbitMqMessageSender, times(21)).sendDeviceDataNotification(anyString());
+    }
+
+    @Test
+    void testInvalidStreamReadingsAreRejected() throws Exception {
+        String invalidMetric = """
+                {"device_id": "device-stream", "timestamp": "%s", "seq": 2, "metrics": {"flag": true}}
+                """.formatted(OffsetDateTime.now());
+        String missingDeviceId = """
+                {"timestamp": "%s", "seq": 3, "metrics": {"temperature": 1}}
+                """.formatted(OffsetDateTime.now());
+        session.sendMessage(new TextMessage(
+                "[" + reading("device-stream", 1) + "," + invalidMetric + "," + missingDeviceId + "]"));
+        session.sendMessage(new TextMessage("{ invalid json }"));
+
+        DeviceStreamAck ack = awaitAcks(4);
+        assertThat(ack.getAccepted()).extracting(DeviceStreamAck.Reading::getSeq).containsExactly(1L);
+        assertThat(ack.getRejected()).extracting(DeviceStreamAck.Reading::getSeq).containsExactly(2L, 3L, null);
+        assertThat(ack.getRejected())
+                .extracting(DeviceStreamAck.Reading::getMessage)
+                .containsExactly("validation.error", "validation.error", "invalid.json.error");
+        assertThat(ack.getRejected().get(0).getHumanMessage()).contains("Metric 'flag' must be a number or string");
+
+        assertThat(deviceDataRepository.findAll()).hasSize(1);
+    }
+
+    @Test
+    void testStreamReadingsOverRateLimitAreRejected() throws Exception {
+        session.sendMessage(new TextMessage("[" + reading("device-limited", 1) + ","
+                + reading("device-limited", 2) + "," + reading("device-limited", 3) + "]"));
+
+        DeviceStreamAck ack = awaitAcks(3);
+        assertThat(ack.getAccepted()).extracting(DeviceStreamAck.Reading::getSeq).containsExactly(1L, 2L);
+        assertThat(ack.getRejected()).singleElement().satisfies(rejected -> {
+            assertThat(rejected.getSeq()).isEqualTo(3L);
+            assertThat(rejected.getCode()).isEqualTo(429);
+            assertThat(rejected.getMessage()).isEqualTo("device.rate.limit.error");
+        });
+
+        assertThat(deviceDataRepository.findAll()).hasSize(2);
+    }
+
+    /**
+     * Collects ack messages until the given number of readings is acknowledged and merges them.
+     */
+    private DeviceStreamAck awaitAcks(int readings) throws Exception {
+        DeviceStreamAck merged = new DeviceStreamAck(new ArrayList<>(), new ArrayList<>());
+        while (merged.getAccepted().size() + merged.getRejected().size() < readings) {
+            String payload = received.poll(10, TimeUnit.SECONDS);
+            assertThat(payload).as("ack for %d readings", readings).isNotNull();
+            DeviceStreamAck ack = objectMapper.readValue(payload, DeviceStreamAck.class);
+            merged.getAccepted().addAll(ack.getAccepted());
+            merged.getRejected().addAll(ack.getRejected());
+        }
+        return merged;
+    }
+
+    private static String reading(String deviceId, long seq) {
+        return """
+                {"device_id": "%s", "timestamp": "%s", "seq": %d, "metrics": {"temperature": 25.5, "humidity": 60}}
+                """.formatted(deviceId, OffsetDateTime.now(), seq);
+    }
+}
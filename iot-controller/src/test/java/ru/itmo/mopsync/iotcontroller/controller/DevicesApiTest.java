@@ -0,0 +1,352 @@
+package ru.itmo.mopsync.iotcontroller.controller;
+
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.json.JsonCompareMode;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.itmo.mopsync.iotcontroller.dedup.SequenceTracker;
+import ru.itmo.mopsync.iotcontroller.model.MetricRollupDocument;
+import ru.itmo.mopsync.iotcontroller.repository.DeviceDataRepository;
+import ru.itmo.mopsync.iotcontroller.rollup.RollupAggregator;
+import ru.itmo.mopsync.iotcontroller.service.DeviceShadowService;
+import ru.itmo.mopsync.iotcontroller.service.RabbitMqMessageSender;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@AutoConfigureMockMvc
+class DevicesApiTest extends BaseDbTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private DeviceDataRepository deviceDataRepository;
+
+    @Autowired
+    private SequenceTracker sequenceTracker;
+
+    @Autowired
+    private DeviceShadowService deviceShadowService;
+
+    @Autowired
+    private RollupAggregator rollupAggregator;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockitoBean
+    private RabbitMqMessageSender rabbitMqMessageSender;
+
+    @BeforeEach
+    void setUp() {
+        deviceDataRepository.deleteAll();
+        sequenceTracker.clear();
+        deviceShadowService.clear();
+        rollupAggregator.clear();
+        mongoTemplate.remove(new Query(), MetricRollupDocument.class);
+    }
+
+    @Test
+    void testGetDeviceLatest() throws Exception {
+        postReading("device-shadow", 1, "2025-01-01T00:00:01Z", """
+                {"temperature": 20.5, "status": "starting"}""");
+        postReading("device-shadow", 2, "2025-01-01T00:00:02Z", """
+                {"temperature": 21.5, "humidity": 40}""");
+
+        mockMvc.perform(get("/api/v1/devices/device-shadow/latest"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("""
+                        {
+                          "device_id": "device-shadow",
+                          "seq": 2,
+                          "timestamp": "2025-01-01T00:00:02Z",
+                          "metrics": {
+                            "temperature": {"value": 21.5, "seq": 2, "timestamp": "2025-01-01T00:00:02Z"},
+                            "humidity": {"value": 40, "seq": 2, "timestamp": "2025-01-01T00:00:02Z"},
+                            "status": {"value": "starting", "seq": 1, "timestamp": "2025-01-01T00:00:01Z"}
+                          }
+                        }
+                        """, JsonCompareMode.STRICT));
+    }
+
+    @Test
+    void testOutOfOrderReadingDoesNotOverwriteNewerValues() throws Exception {
+        postReading("device-shadow", 5, "2025-01-01T00:00:05Z", """
+                {"temperature": 25.0}""");
+        postReading("device-shadow", 3, "2025-01-01T00:00:03Z", """
+                {"temperature": 23.0, "pressure": 1013}""");
+
+        mockMvc.perform(get("/api/v1/devices/device-shadow/latest"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.seq").value(5))
+                .andExpect(jsonPath("$.metrics.temperature.value").value(25.0))
+                .andExpect(jsonPath("$.metrics.temperature.seq").value(5))
+                // a metric only present in the late reading is still the newest value known for it
+                .andExpect(jsonPath("$.metrics.pressure.value").value(1013))
+                .andExpect(jsonPath("$.metrics.pressure.seq").value(3));
+    }
+
+    @Test
+    void testGetDeviceLatestUnknownDevice() throws Exception {
+        mockMvc.perform(get("/api/v1/devices/device-unknown/latest"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().json("""
+                        {
+                          "code": 400,
+                          "message": "device.not.found",
+                          "humanMessage": "Device not found: device-unknown"
+                        }
+                        """, JsonCompareMode.STRICT));
+    }
+
+    @Test
+    void testGetDevicesLatestBulk() throws Exception {
+        postReading("device-a", 1, "2025-01-01T00:00:01Z", """
+                {"temperature": 1}""");
+        postReading("device-b", 7, "2025-01-01T00:00:07Z", """
+                {"temperature": 7}""");
+
+        mockMvc.perform(get("/api/v1/devices/latest")
+                        .param("deviceId", "device-b", "device-unknown", "device-a"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].device_id").value("device-b"))
+                .andExpect(jsonPath("$[0].metrics.temperature.value").value(7))
+                .andExpect(jsonPath("$[1].device_id").value("device-a"))
+                .andExpect(jsonPath("$[1].metrics.temperature.value").value(1));
+    }
+
+    @Test
+    void testGetDevicesLatestBulkValidation() throws Exception {
+        mockMvc.perform(get("/api/v1/devices/latest"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("validation.error"));
+
+        String tooMany = IntStream.range(0, 1001).mapToObj(i -> "device-" + i).collect(Collectors.joining(","));
+        mockMvc.perform(get("/api/v1/devices/latest").param("deviceId", tooMany))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("validation.error"));
+    }
+
+    @Test
+    void testGetDeviceDataPaginated() throws Exception {
+        for (int seq = 1; seq <= 5; seq++) {
+            postReading("device-range", seq, "2025-01-01T00:00:0" + seq + "Z", "{\"temperature\": " + seq + "}");
+        }
+        postReading("device-other", 1, "2025-01-01T00:00:02Z", """
+                {"temperature": 100}""");
+
+        JsonNode first = getDataPage(null);
+        assertThat(first.get("items")).extracting(item -> item.get("seq").asLong()).containsExactly(1L, 2L);
+        assertThat(first.get("next_cursor").isTextual()).isTrue();
+
+        // the range end is exclusive, so the reading with seq 5 is not returned
+        JsonNode second = getDataPage(first.get("next_cursor").asText());
+        assertThat(second.get("items")).extracting(item -> item.get("seq").asLong()).containsExactly(3L, 4L);
+        assertThat(second.get("next_cursor").isNull()).isTrue();
+    }
+
+    @Test
+    void testGetDeviceDataMetricsProjection() throws Exception {
+        postReading("device-range", 1, "2025-01-01T00:00:01Z", """
+                {"temperature": 20.5, "humidity": 40}""");
+        postReading("device-range", 2, "2025-01-01T00:00:02Z", """
+                {"humidity": 41}""");
+        postReading("device-range", 3, "2025-01-01T00:00:03Z", """
+                {"temperature": 21.5, "pressure": 1013}""");
+
+        mockMvc.perform(get("/api/v1/devices/device-range/data")
+                        .param("from", "2025-01-01T00:00:00Z")
+                        .param("to", "2025-01-02T00:00:00Z")
+                        .param("metrics", "temperature"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(2))
+                .andExpect(jsonPath("$.items[0].seq").value(1))
+                .andExpect(jsonPath("$.items[0].metrics").value(Map.of("temperature", 20.5)))
+                .andExpect(jsonPath("$.items[1].seq").value(3))
+                .andExpect(jsonPath("$.items[1].metrics").value(Map.of("temperature", 21.5)));
+    }
+
+    @Test
+    void testStreamDeviceDataNdjson() throws Exception {
+        for (int seq = 1; seq <= 5; seq++) {
+            postReading("device-range", seq, "2025-01-01T00:00:0" + seq + "Z", "{\"temperature\": " + seq + "}");
+        }
+
+        String body = mockMvc.perform(get("/api/v1/devices/device-range/data")
+                        .param("from", "2025-01-01T00:00:00Z")
+                        .param("to", "2025-01-02T00:00:00Z")
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertThat(lines).hasSize(5);
+        for (int i = 0; i < lines.length; i++) {
+            JsonNode reading = objectMapper.readTree(lines[i]);
+            assertThat(reading.get("device_id").asText()).isEqualTo("device-range");
+            assertThat(reading.get("seq").asLong()).isEqualTo(i + 1);
+            assertThat(reading.get("metrics").get("temperature").asInt()).isEqualTo(i + 1);
+        }
+    }
+
+    @Test
+    void testGetDeviceDataValidation() throws Exception {
+        mockMvc.perform(get("/api/v1/devices/device-range/data")
+                        .param("from", "2025-01-02T00:00:00Z")
+                        .param("to", "2025-01-01T00:00:00Z"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("validation.error"));
+
+        mockMvc.perform(get("/api/v1/devices/device-range/data")
+                        .param("from", "2025-01-01T00:00:00Z")
+                        .param("to", "2025-01-02T00:00:00Z")
+                        .param("metrics", "metrics.$where"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("validation.error"));
+
+        mockMvc.perform(get("/api/v1/devices/device-range/data")
+                        .param("from", "2025-01-01T00:00:00Z")
+                        .param("to", "2025-01-02T00:00:00Z")
+                        .param("cursor", "not-a-cursor")
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("invalid.cursor.error"));
+    }
+
+    @Test
+    void testGetDeviceDataRollups() throws Exception {
+        postReading("device-rollup", 1, "2025-01-01T00:00:10Z", """
+                {"temperature": 20, "status": "ok"}""");
+        postReading("device-rollup", 2, "2025-01-01T00:00:40Z", """
+                {"temperature": 24}""");
+        postReading("device-rollup", 3, "2025-01-01T00:00:20Z", """
+                {"temperature": 22, "humidity": 50}""");
+        rollupAggregator.flush();
+        postReading("device-rollup", 4, "2025-01-01T00:01:05Z", """
+                {"temperature": 30}""");
+        rollupAggregator.flush();
+
+        mockMvc.perform(get("/api/v1/devices/device-rollup/data")
+                        .param("from", "2025-01-01T00:00:00Z")
+                        .param("to", "2025-01-01T01:00:00Z")
+                        .param("resolution", "1m"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("""
+                        {
+                          "resolution": "1m",
+                          "items": [],
+                          "buckets": [
+                            {"metric": "humidity", "bucket_start": "2025-01-01T00:00:00Z",
+                             "min": 50.0, "max": 50.0, "sum": 50.0, "count": 1, "last": 50.0},
+                            {"metric": "temperature", "bucket_start": "2025-01-01T00:00:00Z",
+                             "min": 20.0, "max": 24.0, "sum": 66.0, "count": 3, "last": 24.0},
+                            {"metric": "temperature", "bucket_start": "2025-01-01T00:01:00Z",
+                             "min": 30.0, "max": 30.0, "sum": 30.0, "count": 1, "last": 30.0}
+                          ],
+                          "next_cursor": null
+                        }
+                        """, JsonCompareMode.STRICT));
+
+        // buckets flushed in separate batches are merged into one document
+        mockMvc.perform(get("/api/v1/devices/device-rollup/data")
+                        .param("from", "2025-01-01T00:00:00Z")
+                        .param("to", "2025-01-01T01:00:00Z")
+                        .param("resolution", "1h")
+                        .param("metrics", "temperature"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.buckets.length()").value(1))
+                .andExpect(jsonPath("$.buckets[0].count").value(4))
+                .andExpect(jsonPath("$.buckets[0].max").value(30.0))
+                .andExpect(jsonPath("$.buckets[0].last").value(30.0));
+    }
+
+    @Test
+    void testGetDeviceDataPicksResolutionByRange() throws Exception {
+        postReading("device-rollup", 1, "2025-01-01T00:00:10Z", """
+                {"temperature": 20}""");
+        rollupAggregator.flush();
+
+        mockMvc.perform(get("/api/v1/devices/device-rollup/data")
+                        .param("from", "2025-01-01T00:00:00Z")
+                        .param("to", "2025-01-01T01:00:00Z"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.resolution").value("raw"))
+                .andExpect(jsonPath("$.items.length()").value(1));
+
+        mockMvc.perform(get("/api/v1/devices/device-rollup/data")
+                        .param("from", "2025-01-01T00:00:00Z")
+                        .param("to", "2025-01-02T00:00:00Z"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.resolution").value("1m"))
+                .andExpect(jsonPath("$.buckets.length()").value(1));
+
+        mockMvc.perform(get("/api/v1/devices/device-rollup/data")
+                        .param("from", "2025-01-01T00:00:00Z")
+                        .param("to", "2025-02-01T00:00:00Z")
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(status().isOk())
+                .andExpect(content().string("""
+                        {"metric":"temperature","bucket_start":"2025-01-01T00:00:00Z",\
+                        "min":20.0,"max":20.0,"sum":20.0,"count":1,"last":20.0}
+                        """));
+
+        mockMvc.perform(get("/api/v1/devices/device-rollup/data")
+                        .param("from", "2025-01-01T00:00:00Z")
+                        .param("to", "2025-01-02T00:00:00Z")
+                        .param("resolution", "5m"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("validation.error"));
+    }
+
+    private JsonNode getDataPage(String cursor) throws Exception {
+        var request = get("/api/v1/devices/device-range/data")
+                .param("from", "2025-01-01T00:00:01Z")
+                .param("to", "2025-01-01T00:00:05Z")
+                .param("limit", "2");
+        if (cursor != null) {
+            request.param("cursor", cursor);
+        }
+        String body = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+
+    private void postReading(String deviceId, long seq, String timestamp, String metrics) throws Exception {
+        String requestJson = String.format("""
+                {
+                  "device_id": "%s",
+                  "timestamp": "%s",
+                  "seq": %d,
+                  "metrics": %s
+                }
+                """, deviceId, timestamp, seq, metrics);
+
+        mockMvc.perform(post("/api/v1/device-data")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(requestJson))
+                .andExpect(status().isOk());
+    }
+}
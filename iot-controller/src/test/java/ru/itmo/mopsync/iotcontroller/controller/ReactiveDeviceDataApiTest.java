@@ -0,0 +1,148 @@
+package ru.itmo.mopsync.iotcontroller.controller;
+
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.reactive.server.EntityExchangeResult;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import ru.itmo.mopsync.iotcontroller.model.DeviceDataNotification;
+import ru.itmo.mopsync.iotcontroller.publisher.ReactivePublisher;
+import ru.itmo.mopsync.iotcontroller.ratelimit.DeviceRateLimiter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the {@link DeviceDataApiContractTest} scenarios against the reactive ingest stack,
+ * plus the cases specific to {@link ReactiveDeviceDataHandler}.
+ * The web application type is repeated as a test property, since the test context loader
+ * does not read it from profile files.
+ */
+@ActiveProfiles("reactive")
+@SpringBootTest(properties = {
+        "spring.main.web-application-type=reactive",
+        "ingest.rate-limit.devices[device-limited].rate=0.5",
+        "ingest.rate-limit.devices[device-limited].burst=1"
+})
+@AutoConfigureWebTestClient
+class ReactiveDeviceDataApiTest extends DeviceDataApiContractTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private DeviceRateLimiter deviceRateLimiter;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @MockitoBean
+    private ReactivePublisher reactivePublisher;
+
+    @BeforeEach
+    void setUp() {
+        deviceRateLimiter.clear();
+        Mockito.reset(reactivePublisher);
+        when(reactivePublisher.publish(any(DeviceDataNotification.class))).thenReturn(Mono.empty());
+    }
+
+    @Override
+    protected ApiResponse post(MediaType contentType, String contentEncoding, byte[] body) {
+        WebTestClient.RequestBodySpec request = webTestClient.post().uri("/api/v1/device-data")
+                .contentType(contentType);
+        if (contentEncoding != null) {
+            request.header(HttpHeaders.CONTENT_ENCODING, contentEncoding);
+        }
+        EntityExchangeResult<String> result = (body == null ? request : request.bodyValue(body))
+                .exchange()
+                .expectBody(String.class)
+                .returnResult();
+        String responseBody = result.getResponseBody();
+        return new ApiResponse(HttpStatus.valueOf(result.getStatus().value()), result.getResponseHeaders(),
+                responseBody == null ? "" : responseBody);
+    }
+
+    @Override
+    protected void verifyNotificationSent(String deviceDataId) {
+        verify(reactivePublisher).publish(new DeviceDataNotification(deviceDataId));
+    }
+
+    @Test
+    void testAdmissionIsHeldUntilNotificationIsConfirmed() throws Exception {
+        Sinks.Empty<Void> confirmation = Sinks.empty();
+        when(reactivePublisher.publish(any(DeviceDataNotification.class))).thenReturn(confirmation.asMono());
+
+        CompletableFuture<ApiResponse> response = CompletableFuture.supplyAsync(
+                () -> post(MediaType.APPLICATION_JSON, null, reading("device-held", 1)));
+
+        // the reading is stored, but the request is in flight until the broker confirms its notification
+        awaitInFlight(1);
+        assertThat(response).isNotDone();
+
+        confirmation.tryEmitEmpty();
+        assertThat(response.get(5, TimeUnit.SECONDS).status()).isEqualTo(HttpStatus.OK);
+        awaitInFlight(0);
+    }
+
+    @Test
+    void testDeviceOverRateLimitIsRejectedWithRetryAfter() throws Exception {
+        assertThat(post(MediaType.APPLICATION_JSON, reading("device-limited", 1)).status()).isEqualTo(HttpStatus.OK);
+
+        ApiResponse response = post(MediaType.APPLICATION_JSON, reading("device-limited", 2));
+
+        assertThat(response.status()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        // the next token is due in just under 2 seconds, which is rounded up to whole seconds
+        assertThat(response.headers().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+        assertThat(response.contentType()).isEqualTo(MediaType.APPLICATION_JSON);
+        assertThat(response.json()).isStrictlyEqualTo("""
+                {
+                  "code": 429,
+                  "message": "device.rate.limit.error",
+                  "humanMessage": "Device device-limited exceeded its rate limit"
+                }
+                """);
+    }
+
+    private void awaitInFlight(double expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (inFlight() != expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(inFlight()).isEqualTo(expected);
+    }
+
+    private double inFlight() {
+        return meterRegistry.get("iot.admission.in.flight").gauge().value();
+    }
+
+    private static byte[] reading(String deviceId, long seq) {
+        return String.format("""
+                {
+                  "device_id": "%s",
+                  "timestamp": "%s",
+                  "seq": %d,
+                  "metrics": {
+                    "temperature": 25.5
+                  }
+                }
+                """, deviceId, OffsetDateTime.now(), seq).getBytes(StandardCharsets.UTF_8);
+    }
+}
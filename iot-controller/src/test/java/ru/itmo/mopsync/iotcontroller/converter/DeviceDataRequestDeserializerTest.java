@@ -0,0 +1,104 @@
+package ru.itmo.mopsync.iotcontroller.converter;
+
+import java.math.BigInteger;
+import java.time.OffsetDateTime;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import ru.itmo.mopsync.iotcontroller.exception.BaseException;
+import ru.itmo.mopsync.iotcontroller.generated.model.DeviceDataRequest;
+import ru.itmo.mopsync.iotcontroller.model.MetricValues;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DeviceDataRequestDeserializerTest {
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .modulesToInstall(DeviceDataRequestDeserializer.module())
+            .build();
+
+    @Test
+    void testMetricsKeepTheirTypes() throws Exception {
+        DeviceDataRequest request = read("""
+                {"device_id": "device-1", "timestamp": "2025-01-03T12:00:05.234+03:00", "seq": 7,
+                 "unknown": {"nested": [1, 2]},
+                 "metrics": {"temperature": 23.5, "humidity": 61, "counter": 12345678901,
+                             "huge": 123456789012345678901234567890, "status": "active"},
+                 "meta": {"firmware": "1.0.3"}}
+                """);
+
+        assertThat(request.getDeviceId()).isEqualTo("device-1");
+        assertThat(request.getTimestamp()).isEqualTo(OffsetDateTime.parse("2025-01-03T09:00:05.234Z"));
+        assertThat(request.getSeq()).isEqualTo(7L);
+        assertThat(request.getMeta()).isEqualTo(Map.of("firmware", "1.0.3"));
+        assertThat(request.getMetrics()).isInstanceOf(MetricValues.class)
+                .containsExactly(
+                        Map.entry("temperature", 23.5),
+                        Map.entry("humidity", 61),
+                        Map.entry("counter", 12345678901L),
+                        Map.entry("huge", new BigInteger("123456789012345678901234567890")),
+                        Map.entry("status", "active"));
+
+        MetricValues metrics = (MetricValues) request.getMetrics();
+        assertThat(metrics.isNumber(1)).isTrue();
+        assertThat(metrics.doubleValue(1)).isEqualTo(61.0);
+        assertThat(metrics.isNumber(4)).isFalse();
+    }
+
+    @Test
+    void testRepeatedMetricReplacesEarlierValue() throws Exception {
+        StringBuilder metrics = new StringBuilder("{");
+        for (int i = 0; i < 40; i++) {
+            metrics.append("\"m").append(i).append("\": ").append(i).append(", ");
+        }
+        metrics.append("\"m3\": \"replaced\", \"m30\": 0.5}");
+
+        DeviceDataRequest request = read("""
+                {"device_id": "device-1", "timestamp": "2025-01-03T12:00:05Z", "seq": 1, "metrics": %s}
+                """.formatted(metrics));
+
+        assertThat(request.getMetrics()).hasSize(40)
+                .containsEntry("m0", 0)
+                .containsEntry("m3", "replaced")
+                .containsEntry("m30", 0.5)
+                .containsEntry("m39", 39)
+                .doesNotContainKey("m40");
+    }
+
+    @Test
+    void testNullMetricFailsWithValidationError() {
+        assertThatThrownBy(() -> read("""
+                {"device_id": "device-1", "metrics": {"temperature": 1, "humidity": null, "status": {}}}
+                """))
+                .isInstanceOf(BaseException.class)
+                .hasMessage("validation.error")
+                .extracting("humanMessage").isEqualTo("Metric 'humidity' cannot be null");
+    }
+
+    @Test
+    void testNonScalarMetricFailsWithValidationError() {
+        assertThatThrownBy(() -> read("""
+                {"device_id": "device-1", "metrics": {"flag": true}}
+                """))
+                .isInstanceOf(BaseException.class)
+                .extracting("humanMessage").isEqualTo("Metric 'flag' must be a number or string");
+    }
+
+    @Test
+    void testMissingFieldsKeepModelDefaults() throws Exception {
+        DeviceDataRequest request = read("""
+                {"device_id": "device-1", "seq": null}
+                """);
+
+        assertThat(request.getSeq()).isNull();
+        assertThat(request.getMetrics()).isEmpty();
+        assertThat(request.getMeta()).isEmpty();
+    }
+
+    private DeviceDataRequest read(String json) throws Exception {
+        return objectMapper.readValue(json, DeviceDataRequest.class);
+    }
+}
@@ -0,0 +1,96 @@
+package ru.itmo.mopsync.iotcontroller.converter;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import ru.itmo.mopsync.iotcontroller.model.DeviceDataNotification;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class NotificationMessageConverterTest {
+
+    private final NotificationMessageConverter binary =
+            new NotificationMessageConverter(new Jackson2JsonMessageConverter(), true);
+    private final NotificationMessageConverter json =
+            new NotificationMessageConverter(new Jackson2JsonMessageConverter(), false);
+
+    @Test
+    void testIdOnlyNotificationIsWrittenInBinary() {
+        DeviceDataNotification notification = new DeviceDataNotification(new ObjectId().toHexString());
+
+        Message message = binary.toMessage(notification, new MessageProperties());
+
+        assertThat(message.getMessageProperties().getContentType())
+                .isEqualTo(NotificationMessageConverter.CONTENT_TYPE_BINARY);
+        assertThat(message.getMessageProperties().getHeaders()).isEmpty();
+        assertThat(message.getBody()).hasSize(13);
+        assertThat(json.fromMessage(message)).isEqualTo(notification);
+    }
+
+    @Test
+    void testNonObjectIdIsWrittenInBinary() {
+        DeviceDataNotification notification = new DeviceDataNotification("external-id");
+
+        assertThat(json.fromMessage(binary.toMessage(notification, new MessageProperties()))).isEqualTo(notification);
+    }
+
+    @Test
+    void testFullPayloadNotificationIsWrittenInBinary() {
+        DeviceDataNotification notification = payload(new ObjectId().toHexString());
+
+        Message message = binary.toMessage(notification, new MessageProperties());
+
+        assertThat(message.getMessageProperties().getContentType())
+                .isEqualTo(NotificationMessageConverter.CONTENT_TYPE_BINARY);
+        assertThat(json.fromMessage(message)).isEqualTo(notification);
+    }
+
+    @Test
+    void testFullPayloadWithoutObjectIdFallsBackToJson() {
+        DeviceDataNotification notification = payload("external-id");
+
+        Message message = binary.toMessage(notification, new MessageProperties());
+
+        assertThat(message.getMessageProperties().getContentType()).isEqualTo(MessageProperties.CONTENT_TYPE_JSON);
+        // the listener container infers the type from the listener method
+        message.getMessageProperties().setInferredArgumentType(DeviceDataNotification.class);
+        assertThat(binary.fromMessage(message)).isEqualTo(notification);
+    }
+
+    @Test
+    void testJsonIsWrittenUnlessEnabledAndAlwaysRead() {
+        DeviceDataNotification notification = new DeviceDataNotification(new ObjectId().toHexString());
+
+        Message message = json.toMessage(notification, new MessageProperties());
+
+        assertThat(message.getMessageProperties().getContentType()).isEqualTo(MessageProperties.CONTENT_TYPE_JSON);
+        // the listener container infers the type from the listener method
+        message.getMessageProperties().setInferredArgumentType(DeviceDataNotification.class);
+        assertThat(binary.fromMessage(message)).isEqualTo(notification);
+    }
+
+    @Test
+    void testMalformedBinaryIsRejected() {
+        MessageProperties properties = new MessageProperties();
+        properties.setContentType(NotificationMessageConverter.CONTENT_TYPE_BINARY);
+
+        assertThatThrownBy(() -> binary.fromMessage(new Message(new byte[] {1, 2}, properties)))
+                .isInstanceOf(MessageConversionException.class);
+        assertThatThrownBy(() -> binary.fromMessage(new Message(new byte[] {9}, properties)))
+                .isInstanceOf(MessageConversionException.class);
+    }
+
+    private static DeviceDataNotification payload(String id) {
+        return new DeviceDataNotification(id, "sensor-1",
+                OffsetDateTime.of(2026, 1, 1, 12, 0, 5, 234_000_000, ZoneOffset.UTC), 7L,
+                Map.of("temperature", 21.5, "battery", 87, "status", "active"), Map.of("firmware", "1.0.3"));
+    }
+}
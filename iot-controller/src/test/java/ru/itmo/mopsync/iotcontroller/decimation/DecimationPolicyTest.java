@@ -0,0 +1,154 @@
+package ru.itmo.mopsync.iotcontroller.decimation;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import ru.itmo.mopsync.iotcontroller.config.DecimationProperties;
+import ru.itmo.mopsync.iotcontroller.model.DeviceDataDocument;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DecimationPolicyTest {
+
+    private static final OffsetDateTime START = OffsetDateTime.of(2026, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+    private final DecimationProperties properties = new DecimationProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void testEveryNthReadingIsStored() {
+        DecimationProperties.Group meters = group("meter-", DecimationProperties.Policy.EVERY_NTH);
+        meters.setEvery(3);
+        DecimationPolicy policy = policy(Map.of("meters", meters));
+
+        List<Long> stored = new ArrayList<>();
+        for (long seq = 1; seq <= 7; seq++) {
+            if (store(policy, reading("meter-1", seq, Map.of("power", 1.0)))) {
+                stored.add(seq);
+            }
+        }
+
+        assertThat(stored).containsExactly(1L, 4L, 7L);
+        assertThat(store(policy, reading("sensor-1", 1, Map.of("power", 1.0)))).isTrue();
+        assertThat(meterRegistry.counter("iot.ingest.decimated", "group", "meters").count()).isEqualTo(4);
+    }
+
+    @Test
+    void testReadingIsStoredOnValueChange() {
+        DecimationProperties.Group meters = group("meter-", DecimationProperties.Policy.ON_CHANGE);
+        meters.getMetrics().add("state");
+        DecimationPolicy policy = policy(Map.of("meters", meters));
+
+        assertThat(store(policy, reading("meter-1", 1, Map.of("state", "on", "power", 1.0)))).isTrue();
+        assertThat(store(policy, reading("meter-1", 2, Map.of("state", "on", "power", 2.0)))).isFalse();
+        assertThat(store(policy, reading("meter-1", 3, Map.of("power", 3.0)))).isFalse();
+        assertThat(store(policy, reading("meter-1", 4, Map.of("state", "off", "power", 3.0)))).isTrue();
+    }
+
+    @Test
+    void testReadingIsStoredWhenLeavingDeadband() {
+        DecimationProperties.Group meters = group("meter-", DecimationProperties.Policy.DEADBAND);
+        meters.setDeadband(0.5);
+        DecimationPolicy policy = policy(Map.of("meters", meters));
+
+        assertThat(store(policy, reading("meter-1", 1, Map.of("power", 10.0)))).isTrue();
+        assertThat(store(policy, reading("meter-1", 2, Map.of("power", 10.3)))).isFalse();
+        // compared with the last stored value, so slow drift is caught too
+        assertThat(store(policy, reading("meter-1", 3, Map.of("power", 10.6)))).isTrue();
+        assertThat(store(policy, reading("meter-1", 4, Map.of("power", 10.2)))).isFalse();
+        assertThat(store(policy, reading("meter-1", 5, Map.of("power", 10.2, "voltage", 230)))).isTrue();
+    }
+
+    @Test
+    void testReadingIsStoredAfterMaxInterval() {
+        DecimationProperties.Group meters = group("meter-", DecimationProperties.Policy.ON_CHANGE);
+        meters.setMaxInterval(Duration.ofMinutes(1));
+        DecimationPolicy policy = policy(Map.of("meters", meters));
+
+        assertThat(store(policy, reading("meter-1", 1, Map.of("power", 1.0)))).isTrue();
+        assertThat(store(policy, reading("meter-1", 30, Map.of("power", 1.0)))).isFalse();
+        assertThat(store(policy, reading("meter-1", 61, Map.of("power", 1.0)))).isTrue();
+        assertThat(store(policy, reading("meter-1", 62, Map.of("power", 1.0)))).isFalse();
+    }
+
+    @Test
+    void testLongestPrefixWinsAndDisabledPolicyStoresAll() {
+        DecimationProperties.Group meters = group("meter-", DecimationProperties.Policy.ON_CHANGE);
+        DecimationProperties.Group mainMeters = group("meter-main-", DecimationProperties.Policy.EVERY_NTH);
+        mainMeters.setEvery(1);
+        DecimationPolicy policy = policy(Map.of("meters", meters, "main-meters", mainMeters));
+
+        assertThat(store(policy, reading("meter-main-1", 1, Map.of("power", 1.0)))).isTrue();
+        assertThat(store(policy, reading("meter-main-1", 2, Map.of("power", 1.0)))).isTrue();
+        assertThat(store(policy, reading("meter-1", 1, Map.of("power", 1.0)))).isTrue();
+        assertThat(store(policy, reading("meter-1", 2, Map.of("power", 1.0)))).isFalse();
+
+        properties.setEnabled(false);
+        assertThat(store(policy, reading("meter-1", 3, Map.of("power", 1.0)))).isTrue();
+    }
+
+    @Test
+    void testReadingNotInsertedDoesNotMoveBaseline() {
+        DecimationProperties.Group meters = group("meter-", DecimationProperties.Policy.DEADBAND);
+        meters.setDeadband(0.5);
+        DecimationPolicy policy = policy(Map.of("meters", meters));
+
+        assertThat(store(policy, reading("meter-1", 1, Map.of("power", 10.0)))).isTrue();
+        // e.g. a retry rejected by the unique (deviceId, seq) index
+        assertThat(policy.shouldStore(reading("meter-1", 2, Map.of("power", 11.0)))).isTrue();
+
+        assertThat(store(policy, reading("meter-1", 3, Map.of("power", 10.3)))).isFalse();
+        assertThat(store(policy, reading("meter-1", 4, Map.of("power", 11.0)))).isTrue();
+    }
+
+    @Test
+    void testDeviceStatesStayWithinMaximum() {
+        properties.setMaxDevices(100);
+        DecimationPolicy policy = policy(Map.of("meters", group("meter-", DecimationProperties.Policy.ON_CHANGE)));
+
+        for (int i = 0; i < 10_000; i++) {
+            store(policy, reading("meter-" + i, 1, Map.of("power", 1.0)));
+        }
+        policy.cleanUp();
+
+        assertThat(meterRegistry.get("iot.ingest.decimation.devices").gauge().value()).isLessThanOrEqualTo(100);
+    }
+
+    /**
+     * Decides on a reading and, if it is stored, marks it stored as a successful insert does.
+     */
+    private static boolean store(DecimationPolicy policy, DeviceDataDocument document) {
+        boolean store = policy.shouldStore(document);
+        if (store) {
+            policy.markStored(document);
+        }
+        return store;
+    }
+
+    private DecimationPolicy policy(Map<String, DecimationProperties.Group> groups) {
+        properties.getGroups().putAll(groups);
+        return new DecimationPolicy(properties, meterRegistry);
+    }
+
+    private static DecimationProperties.Group group(String prefix, DecimationProperties.Policy policy) {
+        DecimationProperties.Group group = new DecimationProperties.Group();
+        group.getDevicePrefixes().add(prefix);
+        group.setPolicy(policy);
+        return group;
+    }
+
+    private static DeviceDataDocument reading(String deviceId, long seq, Map<String, Object> metrics) {
+        DeviceDataDocument document = new DeviceDataDocument();
+        document.setDeviceId(deviceId);
+        document.setSeq(seq);
+        document.setTimestamp(START.plusSeconds(seq));
+        document.setMetrics(metrics);
+        return document;
+    }
+}
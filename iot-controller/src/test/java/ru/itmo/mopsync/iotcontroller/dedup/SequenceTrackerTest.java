@@ -0,0 +1,136 @@
+package ru.itmo.mopsync.iotcontroller.dedup;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import ru.itmo.mopsync.iotcontroller.config.DeduplicationProperties;
+import ru.itmo.mopsync.iotcontroller.model.DeviceDataDocument;
+import ru.itmo.mopsync.iotcontroller.model.SeqOrder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SequenceTrackerTest {
+
+    private final DeduplicationProperties properties = new DeduplicationProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SequenceTracker tracker = new SequenceTracker(properties, meterRegistry);
+
+    @Test
+    void testInOrderReadingsAreNotFlagged() {
+        for (long seq = 5; seq <= 8; seq++) {
+            DeviceDataDocument document = track("device-1", seq);
+            assertThat(document.getSeqOrder()).isNull();
+            assertThat(document.getSeqGap()).isNull();
+        }
+        // a retry of the latest reading that is still in flight is not out of order
+        assertThat(track("device-1", 8).getSeqOrder()).isNull();
+
+        assertThat(tracker.getCounters("device-1")).isEqualTo(new SequenceCounters(8, 0, 0, 0, 0));
+    }
+
+    @Test
+    void testGapsAndLateReadingsAreFlaggedAndCounted() {
+        store("device-1", 1);
+        DeviceDataDocument gap = store("device-1", 5);
+        DeviceDataDocument late = store("device-1", 3);
+        store("device-1", 6);
+        store("device-2", 100);
+
+        assertThat(gap.getSeqOrder()).isEqualTo(SeqOrder.GAP);
+        assertThat(gap.getSeqGap()).isEqualTo(3);
+        assertThat(late.getSeqOrder()).isEqualTo(SeqOrder.LATE);
+        assertThat(late.getSeqGap()).isNull();
+        // the late reading filled one of the three skipped sequence numbers
+        assertThat(tracker.getCounters("device-1")).isEqualTo(new SequenceCounters(6, 1, 2, 1, 0));
+        assertThat(tracker.getCounters("device-2")).isEqualTo(new SequenceCounters(100, 0, 0, 0, 0));
+        assertThat(tracker.getCounters("device-3")).isNull();
+        assertThat(meterRegistry.counter("iot.ingest.seq.gaps").count()).isEqualTo(1);
+        assertThat(meterRegistry.counter("iot.ingest.seq.missing").count()).isEqualTo(3);
+        assertThat(meterRegistry.counter("iot.ingest.seq.late").count()).isEqualTo(1);
+    }
+
+    @Test
+    void testMetersCountStoredReadingsOnly() {
+        store("device-1", 1);
+        track("device-1", 5);
+        track("device-1", 3);
+
+        assertThat(meterRegistry.counter("iot.ingest.seq.gaps").count()).isZero();
+        assertThat(meterRegistry.counter("iot.ingest.seq.late").count()).isZero();
+    }
+
+    @Test
+    void testDuplicatesAreCounted() {
+        store("device-1", 1);
+
+        assertThat(tracker.isDuplicate("device-1", 1)).isTrue();
+        assertThat(tracker.isDuplicate("device-1", 2)).isFalse();
+        tracker.markDuplicate(document("device-1", 0), null);
+
+        assertThat(tracker.getCounters("device-1").getDuplicates()).isEqualTo(2);
+        assertThat(tracker.isDuplicate("device-1", 0)).isTrue();
+    }
+
+    @Test
+    void testDuplicateFoundByIndexLeavesArrivalCountersUnchanged() {
+        store("device-1", 1);
+        store("device-1", 5);
+        SequenceCounters before = tracker.getCounters("device-1");
+
+        // a retry of seq 3, stored before the window was evicted, arrives late and is rejected by the index
+        DeviceDataDocument lateRetry = document("device-1", 3);
+        tracker.markDuplicate(lateRetry, tracker.track(lateRetry));
+        // a retry of seq 9, stored by another instance, skips sequence numbers and is rejected by the index
+        DeviceDataDocument gapRetry = document("device-1", 9);
+        tracker.markDuplicate(gapRetry, tracker.track(gapRetry));
+
+        assertThat(tracker.getCounters("device-1")).isEqualTo(new SequenceCounters(before.getHighWatermark(),
+                before.getGaps(), before.getMissing(), before.getLate(), 2));
+        assertThat(meterRegistry.counter("iot.ingest.seq.late").count()).isZero();
+        assertThat(meterRegistry.counter("iot.ingest.seq.gaps").count()).isEqualTo(1);
+        assertThat(meterRegistry.counter("iot.ingest.seq.missing").count()).isEqualTo(3);
+        // the next reading is classified as if the duplicates had not arrived
+        assertThat(store("device-1", 6).getSeqOrder()).isNull();
+    }
+
+    @Test
+    void testOrderIsNotTrackedWhenDisabled() {
+        properties.setTrackOrder(false);
+        track("device-1", 1);
+
+        assertThat(track("device-1", 5).getSeqOrder()).isNull();
+        assertThat(tracker.getCounters("device-1")).isNull();
+    }
+
+    @Test
+    void testWindowsStayWithinMaximum() {
+        properties.setMaxDevices(100);
+        SimpleMeterRegistry boundedRegistry = new SimpleMeterRegistry();
+        SequenceTracker bounded = new SequenceTracker(properties, boundedRegistry);
+
+        for (int i = 0; i < 10_000; i++) {
+            bounded.markSeen(document("device-" + i, 1));
+        }
+        bounded.cleanUp();
+
+        assertThat(boundedRegistry.get("iot.ingest.dedup.devices").gauge().value()).isLessThanOrEqualTo(100);
+    }
+
+    private DeviceDataDocument store(String deviceId, long seq) {
+        DeviceDataDocument document = track(deviceId, seq);
+        tracker.markSeen(document);
+        return document;
+    }
+
+    private DeviceDataDocument track(String deviceId, long seq) {
+        DeviceDataDocument document = document(deviceId, seq);
+        tracker.track(document);
+        return document;
+    }
+
+    private static DeviceDataDocument document(String deviceId, long seq) {
+        DeviceDataDocument document = new DeviceDataDocument();
+        document.setDeviceId(deviceId);
+        document.setSeq(seq);
+        return document;
+    }
+}
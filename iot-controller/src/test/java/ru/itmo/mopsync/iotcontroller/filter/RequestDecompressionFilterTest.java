@@ -0,0 +1,178 @@
+package ru.itmo.mopsync.iotcontroller.filter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.unit.DataSize;
+import ru.itmo.mopsync.iotcontroller.config.IngestCompressionProperties;
+import ru.itmo.mopsync.iotcontroller.exception.BaseException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RequestDecompressionFilterTest {
+
+    private static final String BODY = "{\"device_id\": \"sensor-1\", \"seq\": 1}";
+
+    private final IngestCompressionProperties properties = new IngestCompressionProperties();
+
+    @Test
+    void testBodyIsDecompressedOnBlockingRead() throws Exception {
+        HttpServletRequest filtered = filter(gzipRequest(gzip(BODY)));
+
+        assertThat(new String(filtered.getInputStream().readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(BODY);
+        assertThat(filtered.getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+    }
+
+    @Test
+    void testBodyIsDecompressedForReadListener() throws Exception {
+        NonBlockingRequest request = new NonBlockingRequest(gzipRequest(gzip(BODY)));
+        ServletInputStream in = filter(request).getInputStream();
+        ByteArrayOutputStream read = new ByteArrayOutputStream();
+        AtomicReference<String> completed = new AtomicReference<>();
+
+        in.setReadListener(new ReadListener() {
+            @Override
+            public void onDataAvailable() throws IOException {
+                byte[] chunk = new byte[16];
+                int n;
+                while (in.isReady() && (n = in.read(chunk)) >= 0) {
+                    read.write(chunk, 0, n);
+                }
+            }
+
+            @Override
+            public void onAllDataRead() {
+                completed.set(read.toString(StandardCharsets.UTF_8));
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                completed.set("error: " + t.getMessage());
+            }
+        });
+        assertThat(in.isReady()).isFalse();
+        request.deliver();
+
+        assertThat(completed.get()).isEqualTo(BODY);
+    }
+
+    @Test
+    void testReadListenerGetsErrorBeyondLimit() throws Exception {
+        properties.setMaxDecompressedSize(DataSize.ofBytes(16));
+        NonBlockingRequest request = new NonBlockingRequest(gzipRequest(gzip(BODY.repeat(10))));
+        ServletInputStream in = filter(request).getInputStream();
+        AtomicReference<Throwable> error = new AtomicReference<>();
+
+        in.setReadListener(new ReadListener() {
+            @Override
+            public void onDataAvailable() throws IOException {
+                while (in.isReady() && in.read() >= 0) {
+                    // drain
+                }
+            }
+
+            @Override
+            public void onAllDataRead() {
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                error.set(t);
+            }
+        });
+        request.deliver();
+
+        assertThat(error.get()).isInstanceOf(BaseException.class);
+    }
+
+    private HttpServletRequest filter(HttpServletRequest request) throws Exception {
+        AtomicReference<ServletRequest> filtered = new AtomicReference<>();
+        new RequestDecompressionFilter(properties, new SimpleMeterRegistry())
+                .doFilter(request, new MockHttpServletResponse(), (req, res) -> filtered.set(req));
+        return (HttpServletRequest) filtered.get();
+    }
+
+    private static MockHttpServletRequest gzipRequest(byte[] body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/device-data");
+        request.addHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        request.setContent(body);
+        return request;
+    }
+
+    private static byte[] gzip(String content) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Request whose body stream calls its read listener the way a container does once {@link #deliver()}
+     * is called, as if all data had arrived.
+     */
+    private static final class NonBlockingRequest extends HttpServletRequestWrapper {
+
+        private final ByteArrayInputStream body;
+        private ReadListener listener;
+
+        NonBlockingRequest(MockHttpServletRequest request) {
+            super(request);
+            this.body = new ByteArrayInputStream(request.getContentAsByteArray());
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return body.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return body.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return body.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return body.available() > 0;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    listener = readListener;
+                }
+            };
+        }
+
+        void deliver() {
+            try {
+                listener.onDataAvailable();
+                listener.onAllDataRead();
+            } catch (Throwable t) {
+                listener.onError(t);
+            }
+        }
+    }
+}
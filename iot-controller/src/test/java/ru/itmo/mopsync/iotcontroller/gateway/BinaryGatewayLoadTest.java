@@ -0,0 +1,228 @@
+package ru.itmo.mopsync.iotcontroller.gateway;
+
+import java.io.OutputStream;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.itmo.mopsync.iotcontroller.config.BinaryGatewayProperties;
+import ru.itmo.mopsync.iotcontroller.config.MetricSchemaProperties;
+import ru.itmo.mopsync.iotcontroller.controller.DeviceDataRequestValidator;
+import ru.itmo.mopsync.iotcontroller.exception.Errors;
+import ru.itmo.mopsync.iotcontroller.generated.model.DeviceDataRequest;
+import ru.itmo.mopsync.iotcontroller.metrics.IngestMetrics;
+import ru.itmo.mopsync.iotcontroller.schema.MetricSchemaRegistry;
+import ru.itmo.mopsync.iotcontroller.service.DeviceDataService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Load test of the binary gateway running entirely on localhost.
+ * DeviceDataService is stubbed, so the test measures decoding and dispatch throughput only.
+ */
+class BinaryGatewayLoadTest {
+
+    private static final int READINGS = 50_000;
+    private static final int FRAMES_PER_DATAGRAM = 10;
+    private static final String LIMITED_DEVICE = "device-limited";
+
+    private final AtomicInteger processed = new AtomicInteger();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private GatewayIngestProcessor processor;
+    private BinaryGatewayServer server;
+
+    @BeforeEach
+    void setUp() {
+        BinaryGatewayProperties properties = new BinaryGatewayProperties();
+        properties.setTcpPort(0);
+        properties.setUdpPort(0);
+        properties.setQueueCapacity(READINGS);
+
+        DeviceDataService deviceDataService = mock(DeviceDataService.class, withSettings().stubOnly());
+        doAnswer(invocation -> {
+            DeviceDataRequest request = invocation.getArgument(0);
+            if (LIMITED_DEVICE.equals(request.getDeviceId())) {
+                throw Errors.deviceRateLimitError(request.getDeviceId(), Duration.ofSeconds(1));
+            }
+            return processed.incrementAndGet();
+        }).when(deviceDataService).ingestDeviceData(any());
+
+        DeviceDataRequestValidator requestValidator = new DeviceDataRequestValidator(
+                new MetricSchemaRegistry(new MetricSchemaProperties(), meterRegistry));
+        processor = new GatewayIngestProcessor(properties, deviceDataService, requestValidator,
+                Validation.buildDefaultValidatorFactory().getValidator(), meterRegistry,
+                new IngestMetrics(meterRegistry));
+        server = new BinaryGatewayServer(properties, processor);
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        server.stop();
+        processor.destroy();
+    }
+
+    @Test
+    void testTcpThroughput() throws Exception {
+        ByteBuf frames = Unpooled.buffer();
+        for (int i = 0; i < READINGS; i++) {
+            BinaryReadingCodec.encode(reading(i), frames);
+        }
+        byte[] bytes = ByteBufUtil.getBytes(frames);
+
+        long start = System.nanoTime();
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getTcpPort())) {
+            OutputStream out = socket.getOutputStream();
+            out.write(bytes);
+            out.flush();
+            awaitProcessed(READINGS);
+        }
+        report("tcp", start, bytes.length);
+
+        assertThat(packets("tcp", "accepted")).isEqualTo(READINGS);
+        assertThat(packets("tcp", "invalid")).isZero();
+    }
+
+    @Test
+    void testUdpThroughput() throws Exception {
+        int datagrams = READINGS / FRAMES_PER_DATAGRAM;
+        long sentBytes = 0;
+
+        long start = System.nanoTime();
+        try (DatagramSocket socket = new DatagramSocket()) {
+            for (int d = 0; d < datagrams; d++) {
+                ByteBuf frames = Unpooled.buffer();
+                for (int f = 0; f < FRAMES_PER_DATAGRAM; f++) {
+                    BinaryReadingCodec.encode(reading(d * FRAMES_PER_DATAGRAM + f), frames);
+                }
+                byte[] bytes = ByteBufUtil.getBytes(frames);
+                socket.send(new DatagramPacket(bytes, bytes.length, InetAddress.getLoopbackAddress(),
+                        server.getUdpPort()));
+                sentBytes += bytes.length;
+                if (d % 10 == 0) {
+                    // UDP has no flow control, pace the sender so the loopback socket buffer does not overflow
+                    Thread.sleep(1);
+                }
+            }
+            awaitProcessed(READINGS);
+        }
+        report("udp", start, sentBytes);
+
+        // UDP gives no delivery guarantee, datagrams overflowing the socket buffer are lost silently
+        System.out.printf("Binary gateway udp: %.1f%% of readings lost%n",
+                100.0 * (READINGS - processed.get()) / READINGS);
+        assertThat(packets("udp", "accepted")).isPositive().isEqualTo(processed.get());
+        assertThat(packets("udp", "invalid")).isZero();
+    }
+
+    @Test
+    void testMalformedFramesAreCounted() throws Exception {
+        byte[] garbage = {0, 3, 42, 1, 2};
+        try (DatagramSocket socket = new DatagramSocket()) {
+            socket.send(new DatagramPacket(garbage, garbage.length, InetAddress.getLoopbackAddress(),
+                    server.getUdpPort()));
+        }
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (packets("udp", "invalid") == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(packets("udp", "invalid")).isEqualTo(1);
+        assertThat(processed).hasValue(0);
+    }
+
+    @Test
+    void testReadingsRejectedByRateLimitAreDropped() throws Exception {
+        ByteBuf frames = Unpooled.buffer();
+        BinaryReadingCodec.encode(reading(1).deviceId(LIMITED_DEVICE), frames);
+        BinaryReadingCodec.encode(reading(2), frames);
+        byte[] bytes = ByteBufUtil.getBytes(frames);
+
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getTcpPort())) {
+            OutputStream out = socket.getOutputStream();
+            out.write(bytes);
+            out.flush();
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (packets("tcp", "dropped") + packets("tcp", "accepted") < 2
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+        }
+
+        assertThat(packets("tcp", "dropped")).isEqualTo(1);
+        assertThat(packets("tcp", "accepted")).isEqualTo(1);
+        assertThat(processed).hasValue(1);
+    }
+
+    @Test
+    void testFailedUdpBindReleasesTcpPort() throws Exception {
+        int tcpPort;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            tcpPort = socket.getLocalPort();
+        }
+        BinaryGatewayProperties properties = new BinaryGatewayProperties();
+        properties.setTcpPort(tcpPort);
+        // the udp port of the running server is taken
+        properties.setUdpPort(server.getUdpPort());
+        BinaryGatewayServer conflicting = new BinaryGatewayServer(properties, processor);
+
+        assertThatThrownBy(conflicting::start).isInstanceOf(IllegalStateException.class);
+
+        assertThat(conflicting.isRunning()).isFalse();
+        conflicting.stop();
+        try (ServerSocket socket = new ServerSocket(tcpPort)) {
+            assertThat(socket.getLocalPort()).isEqualTo(tcpPort);
+        }
+    }
+
+    private void awaitProcessed(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 30_000;
+        int seen = -1;
+        while (processed.get() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+            if (processed.get() == seen) {
+                // nothing arrived since the last check, the rest of the readings were lost in transit
+                return;
+            }
+            seen = processed.get();
+        }
+    }
+
+    private void report(String transport, long startNanos, long bytes) {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        System.out.printf("Binary gateway %s: %d readings (%d bytes) in %.3f s, %.0f readings/s%n",
+                transport, processed.get(), bytes, seconds, processed.get() / seconds);
+    }
+
+    private double packets(String transport, String result) {
+        return meterRegistry.counter("iot.gateway.packets", "transport", transport, "result", result).count();
+    }
+
+    private static DeviceDataRequest reading(int seq) {
+        return new DeviceDataRequest()
+                .deviceId("device-" + seq % 100)
+                .timestamp(OffsetDateTime.now())
+                .seq((long) seq)
+                .metrics(Map.of("temperature", 20.5 + seq % 10, "humidity", 60, "status", "active"));
+    }
+}
@@ -0,0 +1,85 @@
+package ru.itmo.mopsync.iotcontroller.metrics;
+
+import java.nio.charset.StandardCharsets;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+import ru.itmo.mopsync.iotcontroller.controller.IngestRequestBodyAdvice;
+import ru.itmo.mopsync.iotcontroller.generated.model.DeviceDataRequest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class IngestMetricsTest {
+
+    private static final String READING = """
+            {
+              "device_id": "sensor-1",
+              "timestamp": "2026-01-01T12:00:00Z",
+              "seq": 1,
+              "metrics": {
+                "temperature": 21.5
+              }
+            }
+            """;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final IngestMetrics ingestMetrics = new IngestMetrics(meterRegistry);
+
+    @Test
+    void testStageTimersAndReadingSummaryAreRegistered() {
+        for (String stage : new String[] {IngestMetrics.DESERIALIZE, IngestMetrics.VALIDATE, IngestMetrics.SAVE,
+                IngestMetrics.PUBLISH}) {
+            assertThat(meterRegistry.get("iot.ingest.stage").tag("stage", stage).timer().count()).isZero();
+        }
+
+        ingestMetrics.recordStage(IngestMetrics.SAVE, 1_000_000);
+        ingestMetrics.recordMetricCount(3);
+
+        assertThat(ingestMetrics.stage(IngestMetrics.SAVE).count()).isEqualTo(1);
+        DistributionSummary metrics = meterRegistry.get("iot.ingest.reading.metrics").summary();
+        assertThat(metrics.count()).isEqualTo(1);
+        assertThat(metrics.totalAmount()).isEqualTo(3);
+    }
+
+    @Test
+    void testRequestBodyIsMeasuredByAdvice() throws Exception {
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new IngestController())
+                .setControllerAdvice(new IngestRequestBodyAdvice(ingestMetrics))
+                .build();
+        byte[] body = READING.getBytes(StandardCharsets.UTF_8);
+
+        mockMvc.perform(post("/ingest").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/ingest").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk());
+
+        assertThat(ingestMetrics.stage(IngestMetrics.DESERIALIZE).count()).isEqualTo(2);
+        DistributionSummary payloadSize = meterRegistry.get("iot.ingest.payload.size").tag("transport", "http")
+                .summary();
+        assertThat(payloadSize.count()).isEqualTo(2);
+        assertThat(payloadSize.totalAmount()).isEqualTo(2.0 * body.length);
+        DistributionSummary packetReadings = meterRegistry.get("iot.ingest.packet.readings")
+                .tag("transport", "http").summary();
+        assertThat(packetReadings.count()).isEqualTo(2);
+        assertThat(packetReadings.totalAmount()).isEqualTo(2);
+    }
+
+    /**
+     * Endpoint reading a DeviceDataRequest body, like the device data API.
+     */
+    @RestController
+    static class IngestController {
+        @PostMapping("/ingest")
+        void ingest(@RequestBody DeviceDataRequest request) {
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package ru.itmo.mopsync.iotcontroller.outbox;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import ru.itmo.mopsync.iotcontroller.config.OutboxProperties;
+import ru.itmo.mopsync.iotcontroller.config.PublisherProperties;
+import ru.itmo.mopsync.iotcontroller.config.RabbitQueueProperties;
+import ru.itmo.mopsync.iotcontroller.config.TransportProperties;
+import ru.itmo.mopsync.iotcontroller.model.DeviceDataDocument;
+import ru.itmo.mopsync.iotcontroller.model.DeviceDataNotification;
+import ru.itmo.mopsync.iotcontroller.publisher.ConfirmingPublisher;
+import ru.itmo.mopsync.iotcontroller.spool.SpoolRelay;
+import ru.itmo.mopsync.iotcontroller.storage.SegmentLog;
+import ru.itmo.mopsync.iotcontroller.transport.LocalLogTransport;
+import ru.itmo.mopsync.iotcontroller.transport.NotificationCodec;
+import ru.itmo.mopsync.iotcontroller.transport.RabbitMqTransport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OutboxRelayTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final RabbitTemplate rabbitTemplate = mock(RabbitTemplate.class);
+    private final List<String> published = new ArrayList<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final OutboxProperties properties = new OutboxProperties();
+    private OutboxRelay outboxRelay;
+
+    @BeforeEach
+    void setUp() {
+        properties.setInstanceId("instance-1");
+        properties.setBatchSize(2);
+        ConfirmingPublisher publisher = new ConfirmingPublisher(rabbitTemplate, new RabbitQueueProperties(),
+                new PublisherProperties(), meterRegistry);
+        outboxRelay = new OutboxRelay(properties, mongoTemplate,
+                new RabbitMqTransport(publisher, mock(SpoolRelay.class)), meterRegistry);
+        when(rabbitTemplate.getExchange()).thenReturn("");
+        brokerConfirms(true);
+    }
+
+    @Test
+    void testPendingEntriesArePublishedAndCleared() {
+        String first = new ObjectId().toHexString();
+        String second = new ObjectId().toHexString();
+        pending(first, second);
+
+        assertThat(outboxRelay.relayBatch()).isEqualTo(2);
+
+        assertThat(published).containsExactly(first, second);
+        verify(mongoTemplate).updateMulti(any(Query.class), eq(new Update().unset("outbox")),
+                eq(DeviceDataDocument.class));
+        assertThat(meterRegistry.get("iot.outbox.relayed").counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("iot.outbox.batch.size").summary().totalAmount()).isEqualTo(2);
+    }
+
+    @Test
+    void testOnlyEntriesOfThisInstanceAreRead() {
+        pending();
+
+        assertThat(outboxRelay.relayBatch()).isZero();
+
+        verify(mongoTemplate).find(argThat((Query query) ->
+                        "instance-1".equals(query.getQueryObject().get("outbox"))
+                                && query.getLimit() == 2),
+                eq(DeviceDataDocument.class));
+        verify(rabbitTemplate, never()).convertAndSend(anyString(), anyString(), any(Object.class),
+                any(CorrelationData.class));
+    }
+
+    @Test
+    void testNackedBatchStaysPending() {
+        pending(new ObjectId().toHexString(), new ObjectId().toHexString());
+        brokerConfirms(false);
+
+        assertThatThrownBy(outboxRelay::relayBatch).isInstanceOf(AmqpException.class);
+
+        verify(mongoTemplate, never()).updateMulti(any(Query.class), any(Update.class), eq(DeviceDataDocument.class));
+        assertThat(meterRegistry.get("iot.outbox.relayed").counter().count()).isZero();
+    }
+
+    @Test
+    void testPendingEntriesAreAppendedToLocalLog(@TempDir Path dir) throws IOException {
+        TransportProperties transportProperties = new TransportProperties();
+        transportProperties.setType(TransportProperties.TransportType.LOCAL);
+        transportProperties.setDir(dir.toString());
+        LocalLogTransport transport = new LocalLogTransport(transportProperties, meterRegistry);
+        OutboxRelay localRelay = new OutboxRelay(properties, mongoTemplate, transport, meterRegistry);
+        String first = new ObjectId().toHexString();
+        String second = new ObjectId().toHexString();
+        pending(first, second);
+
+        assertThat(localRelay.relayBatch()).isEqualTo(2);
+
+        List<String> appended = new ArrayList<>();
+        SegmentLog.openReadOnly(dir).scan(0,
+                (record, position) -> appended.add(NotificationCodec.decode(record).getDeviceDataId()));
+        assertThat(appended).containsExactly(first, second);
+        verify(mongoTemplate).updateMulti(any(Query.class), eq(new Update().unset("outbox")),
+                eq(DeviceDataDocument.class));
+        verify(rabbitTemplate, never()).convertAndSend(anyString(), anyString(), any(Object.class),
+                any(CorrelationData.class));
+        transport.destroy();
+    }
+
+    private void brokerConfirms(boolean ack) {
+        doAnswer(invocation -> {
+            published.add(invocation.<DeviceDataNotification>getArgument(2).getDeviceDataId());
+            invocation.<CorrelationData>getArgument(3).getFuture()
+                    .complete(new CorrelationData.Confirm(ack, ack ? null : "nack"));
+            return null;
+        }).when(rabbitTemplate).convertAndSend(anyString(), anyString(), any(Object.class),
+                any(CorrelationData.class));
+    }
+
+    private void pending(String... ids) {
+        List<DeviceDataDocument> documents = new ArrayList<>();
+        for (String id : ids) {
+            DeviceDataDocument document = new DeviceDataDocument();
+            document.setId(id);
+            documents.add(document);
+        }
+        when(mongoTemplate.find(any(Query.class), eq(DeviceDataDocument.class))).thenReturn(documents);
+    }
+}
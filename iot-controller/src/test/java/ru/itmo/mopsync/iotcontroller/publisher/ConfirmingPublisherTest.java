@@ -0,0 +1,101 @@
+package ru.itmo.mopsync.iotcontroller.publisher;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.AmqpConnectException;
+import org.springframework.amqp.AmqpTimeoutException;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import ru.itmo.mopsync.iotcontroller.config.PublisherProperties;
+import ru.itmo.mopsync.iotcontroller.config.RabbitQueueProperties;
+import ru.itmo.mopsync.iotcontroller.model.DeviceDataNotification;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ConfirmingPublisherTest {
+
+    private final RabbitTemplate rabbitTemplate = mock(RabbitTemplate.class);
+    private final List<CorrelationData> unconfirmed = new ArrayList<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ConfirmingPublisher publisher;
+
+    @BeforeEach
+    void setUp() {
+        PublisherProperties properties = new PublisherProperties();
+        properties.setMaxOutstanding(2);
+        properties.setWindowTimeout(Duration.ofMillis(50));
+        properties.setConfirmTimeout(Duration.ofMillis(200));
+        publisher = new ConfirmingPublisher(rabbitTemplate, new RabbitQueueProperties(), properties, meterRegistry);
+        when(rabbitTemplate.getExchange()).thenReturn("");
+        doAnswer(invocation -> unconfirmed.add(invocation.getArgument(3)))
+                .when(rabbitTemplate).convertAndSend(anyString(), anyString(), any(Object.class),
+                        any(CorrelationData.class));
+    }
+
+    @Test
+    void testPublishDoesNotWaitForConfirms() {
+        CompletableFuture<Void> first = publisher.publish(new DeviceDataNotification("id-1"));
+        CompletableFuture<Void> second = publisher.publish(new DeviceDataNotification("id-2"));
+
+        assertThat(first).isNotDone();
+        assertThat(second).isNotDone();
+        assertThat(meterRegistry.get("iot.publisher.window").gauge().value()).isEqualTo(2);
+
+        confirm(1, true);
+        confirm(0, false);
+
+        assertThat(second).isCompleted();
+        assertThat(first).isCompletedExceptionally();
+        assertThat(meterRegistry.get("iot.publisher.window").gauge().value()).isZero();
+        assertThat(meterRegistry.get("iot.publisher.nacks").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("iot.publisher.confirm.latency").timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    void testWindowBoundsUnconfirmedNotifications() {
+        publisher.publish(new DeviceDataNotification("id-1"));
+        publisher.publish(new DeviceDataNotification("id-2"));
+
+        assertThatThrownBy(() -> publisher.publish(new DeviceDataNotification("id-3"))).isInstanceOf(AmqpTimeoutException.class);
+        assertThat(meterRegistry.get("iot.publisher.window.full").counter().count()).isEqualTo(1);
+
+        confirm(0, true);
+        assertThat(publisher.publish(new DeviceDataNotification("id-3"))).isNotDone();
+    }
+
+    @Test
+    void testMissingConfirmTimesOut() {
+        CompletableFuture<Void> confirm = publisher.publish(new DeviceDataNotification("id-1"));
+
+        assertThat(confirm).failsWithin(Duration.ofSeconds(5));
+        assertThat(meterRegistry.get("iot.publisher.confirm.timeouts").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("iot.publisher.window").gauge().value()).isZero();
+    }
+
+    @Test
+    void testFailedSendFreesWindow() {
+        doThrow(new AmqpConnectException(new RuntimeException("refused")))
+                .when(rabbitTemplate).convertAndSend(anyString(), anyString(), any(Object.class),
+                        any(CorrelationData.class));
+
+        assertThatThrownBy(() -> publisher.publish(new DeviceDataNotification("id-1"))).isInstanceOf(AmqpConnectException.class);
+        assertThat(meterRegistry.get("iot.publisher.window").gauge().value()).isZero();
+    }
+
+    private void confirm(int index, boolean ack) {
+        unconfirmed.get(index).getFuture().complete(new CorrelationData.Confirm(ack, ack ? null : "nack"));
+    }
+}
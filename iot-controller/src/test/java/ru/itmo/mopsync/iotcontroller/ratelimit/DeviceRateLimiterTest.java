@@ -0,0 +1,40 @@
+package ru.itmo.mopsync.iotcontroller.ratelimit;
+
+import java.time.Duration;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import ru.itmo.mopsync.iotcontroller.config.RateLimitProperties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DeviceRateLimiterTest {
+
+    @Test
+    void testReadingsBeyondBurstAreRejected() {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.getDefaultLimit().setRate(1);
+        properties.getDefaultLimit().setBurst(2);
+        DeviceRateLimiter limiter = new DeviceRateLimiter(properties, new SimpleMeterRegistry());
+
+        assertThat(limiter.tryAcquire("sensor-1")).isZero();
+        assertThat(limiter.tryAcquire("sensor-1")).isZero();
+        assertThat(limiter.tryAcquire("sensor-1")).isPositive();
+        assertThat(limiter.tryAcquire("sensor-2")).isZero();
+    }
+
+    @Test
+    void testTrackedDevicesStayWithinMaximum() {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setMaxTrackedDevices(100);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        DeviceRateLimiter limiter = new DeviceRateLimiter(properties, meterRegistry);
+
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(limiter.tryAcquire("sensor-" + i)).isEqualTo(Duration.ZERO);
+        }
+        limiter.cleanUp();
+
+        assertThat(meterRegistry.get("iot.ratelimit.devices").gauge().value()).isLessThanOrEqualTo(100);
+    }
+}
@@ -0,0 +1,189 @@
+package ru.itmo.mopsync.iotcontroller.schema;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.FieldError;
+import ru.itmo.mopsync.iotcontroller.config.MetricSchemaProperties;
+import ru.itmo.mopsync.iotcontroller.controller.DeviceDataRequestValidator;
+import ru.itmo.mopsync.iotcontroller.generated.model.DeviceDataRequest;
+import ru.itmo.mopsync.iotcontroller.model.MetricValues;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MetricSchemaRegistryTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void testNumbersAreNormalizedToDoubles() {
+        DeviceDataRequestValidator validator = validator(thermostat(false));
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("temperature", 21);
+        metrics.put("setpoint", "22.5");
+        metrics.put("uptime", 12345678901L);
+        metrics.put("mode", "heat");
+        metrics.put("firmwareBuild", 42);
+        DeviceDataRequest request = request("thermostat-1", metrics);
+
+        BeanPropertyBindingResult errors = validate(validator, request);
+
+        assertThat(errors.hasErrors()).isFalse();
+        assertThat(request.getMetrics()).isInstanceOf(MetricValues.class)
+                .containsExactly(
+                        Map.entry("temperature", 21.0),
+                        Map.entry("setpoint", 22.5),
+                        Map.entry("uptime", 12345678901.0),
+                        Map.entry("mode", "heat"),
+                        Map.entry("firmwareBuild", 42));
+    }
+
+    @Test
+    void testMetricsReadByDeserializerAreNormalized() {
+        DeviceDataRequestValidator validator = validator(thermostat(false));
+        DeviceDataRequest request = request("thermostat-1", new MetricValues.Builder()
+                .addLong("temperature", 21)
+                .addObject("setpoint", "22")
+                .addObject("mode", "cool")
+                .build());
+
+        BeanPropertyBindingResult errors = validate(validator, request);
+
+        assertThat(errors.hasErrors()).isFalse();
+        assertThat(request.getMetrics()).containsExactly(
+                Map.entry("temperature", 21.0),
+                Map.entry("setpoint", 22.0),
+                Map.entry("mode", "cool"));
+    }
+
+    @Test
+    void testViolationsAreRejected() {
+        DeviceDataRequestValidator validator = validator(thermostat(false));
+
+        assertThat(message(validator, Map.of("temperature", 120.5, "mode", "heat")))
+                .isEqualTo("Metric 'temperature' must be at most 80.0");
+        assertThat(message(validator, Map.of("temperature", -50, "mode", "heat")))
+                .isEqualTo("Metric 'temperature' must be at least -40.0");
+        assertThat(message(validator, Map.of("temperature", "warm", "mode", "heat")))
+                .isEqualTo("Metric 'temperature' must be a number");
+        assertThat(message(validator, Map.of("temperature", "NaN", "mode", "heat")))
+                .isEqualTo("Metric 'temperature' must be finite");
+        assertThat(message(validator, Map.of("temperature", 20, "mode", 1)))
+                .isEqualTo("Metric 'mode' must be a string");
+        assertThat(message(validator, Map.of("setpoint", 20)))
+                .isEqualTo("Metric 'temperature' is required for device type 'thermostat'");
+        assertThat(meterRegistry.counter("iot.ingest.schema.rejected", "device_type", "thermostat").count())
+                .isEqualTo(6);
+    }
+
+    @Test
+    void testStrictSchemaRejectsUnknownMetrics() {
+        DeviceDataRequestValidator validator = validator(thermostat(true));
+
+        assertThat(message(validator, Map.of("temperature", 20, "humidity", 40)))
+                .isEqualTo("Metric 'humidity' is not in the schema of device type 'thermostat'");
+    }
+
+    @Test
+    void testDeviceTypeIsTakenFromLongestPrefixThenFromMeta() {
+        MetricSchemaProperties properties = new MetricSchemaProperties();
+        properties.getDeviceTypes().put("thermostat", thermostat(false));
+        MetricSchemaProperties.DeviceType outdoor = thermostat(false);
+        outdoor.getDevicePrefixes().set(0, "thermostat-outdoor-");
+        properties.getDeviceTypes().put("outdoor-thermostat", outdoor);
+        MetricSchemaRegistry registry = new MetricSchemaRegistry(properties, meterRegistry);
+
+        assertThat(schemaFor(registry, request("thermostat-1", Map.of())).getDeviceType())
+                .isEqualTo("thermostat");
+        assertThat(schemaFor(registry, request("thermostat-outdoor-1", Map.of())).getDeviceType())
+                .isEqualTo("outdoor-thermostat");
+        assertThat(schemaFor(registry, request("thermostat-1", Map.of()).meta(Map.of("type", "thermostat")))
+                .getDeviceType()).isEqualTo("thermostat");
+        assertThat(schemaFor(registry, request("sensor-1", Map.of()).meta(Map.of("type", "thermostat")))
+                .getDeviceType()).isEqualTo("thermostat");
+        assertThat(schemaFor(registry, request("sensor-1", Map.of()).meta(Map.of("type", "meter")))).isNull();
+        assertThat(schemaFor(registry, request("sensor-1", Map.of()))).isNull();
+
+        properties.setEnabled(false);
+        assertThat(schemaFor(registry, request("thermostat-1", Map.of()))).isNull();
+    }
+
+    @Test
+    void testMetaTypeContradictingPrefixIsRejected() {
+        DeviceDataRequestValidator validator = validator(thermostat(true));
+
+        for (String deviceType : new String[] {"anything-unknown", "sensor"}) {
+            DeviceDataRequest request = request("thermostat-1", Map.of("temperature", "hot"))
+                    .meta(Map.of("type", deviceType));
+            BeanPropertyBindingResult errors = validate(validator, request);
+
+            assertThat(errors.getFieldErrors()).singleElement().satisfies(error -> {
+                assertThat(error.getField()).isEqualTo("meta[type]");
+                assertThat(error.getDefaultMessage()).isEqualTo("Device type '" + deviceType
+                        + "' does not match the device type 'thermostat' of the device id");
+            });
+        }
+        assertThat(meterRegistry.counter("iot.ingest.schema.rejected", "device_type", "thermostat").count())
+                .isEqualTo(2);
+    }
+
+    @Test
+    void testReadingsWithoutSchemaAreKeptAsSent() {
+        DeviceDataRequestValidator validator = validator(thermostat(true));
+        Map<String, Object> metrics = Map.of("temperature", "hot", "humidity", 40);
+        DeviceDataRequest request = request("sensor-1", metrics);
+
+        assertThat(validate(validator, request).hasErrors()).isFalse();
+        assertThat(request.getMetrics()).isSameAs(metrics);
+    }
+
+    private DeviceDataRequestValidator validator(MetricSchemaProperties.DeviceType thermostat) {
+        MetricSchemaProperties properties = new MetricSchemaProperties();
+        properties.getDeviceTypes().put("thermostat", thermostat);
+        return new DeviceDataRequestValidator(new MetricSchemaRegistry(properties, meterRegistry));
+    }
+
+    private static MetricSchemaProperties.DeviceType thermostat(boolean strict) {
+        MetricSchemaProperties.DeviceType deviceType = new MetricSchemaProperties.DeviceType();
+        deviceType.getDevicePrefixes().add("thermostat-");
+        deviceType.setStrict(strict);
+        MetricSchemaProperties.Metric temperature = new MetricSchemaProperties.Metric();
+        temperature.setRequired(true);
+        temperature.setMin(-40.0);
+        temperature.setMax(80.0);
+        deviceType.getMetrics().put("temperature", temperature);
+        deviceType.getMetrics().put("setpoint", new MetricSchemaProperties.Metric());
+        deviceType.getMetrics().put("uptime", new MetricSchemaProperties.Metric());
+        MetricSchemaProperties.Metric mode = new MetricSchemaProperties.Metric();
+        mode.setType(MetricSchemaProperties.MetricType.STRING);
+        deviceType.getMetrics().put("mode", mode);
+        return deviceType;
+    }
+
+    private static DeviceDataRequest request(String deviceId, Map<String, Object> metrics) {
+        return new DeviceDataRequest().deviceId(deviceId).seq(1L).metrics(metrics);
+    }
+
+    private static CompiledSchema schemaFor(MetricSchemaRegistry registry, DeviceDataRequest request) {
+        BeanPropertyBindingResult errors = new BeanPropertyBindingResult(request, "deviceDataRequest");
+        CompiledSchema schema = registry.schemaFor(request, errors);
+        assertThat(errors.hasErrors()).isFalse();
+        return schema;
+    }
+
+    private static String message(DeviceDataRequestValidator validator, Map<String, Object> metrics) {
+        FieldError error = validate(validator, request("thermostat-1", metrics)).getFieldError();
+        assertThat(error).isNotNull();
+        return error.getDefaultMessage();
+    }
+
+    private static BeanPropertyBindingResult validate(DeviceDataRequestValidator validator,
+                                                      DeviceDataRequest request) {
+        BeanPropertyBindingResult errors = new BeanPropertyBindingResult(request, "deviceDataRequest");
+        validator.validate(request, errors);
+        return errors;
+    }
+}
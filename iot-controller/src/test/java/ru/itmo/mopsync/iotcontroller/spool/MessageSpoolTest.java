@@ -0,0 +1,114 @@
+package ru.itmo.mopsync.iotcontroller.spool;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MessageSpoolTest {
+
+    private static final int SEGMENT_SIZE = 256;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testRecordsAreConsumedInOrder() throws IOException {
+        MessageSpool spool = MessageSpool.open(dir, SEGMENT_SIZE, 4);
+        for (int i = 0; i < 5; i++) {
+            assertThat(spool.append(bytes("record-" + i), 1000 + i)).isTrue();
+        }
+
+        List<SpoolRecord> first = spool.peek(3);
+        assertThat(first).extracting(SpoolRecord::getPayload).map(MessageSpoolTest::text)
+                .containsExactly("record-0", "record-1", "record-2");
+        assertThat(first.get(0).getAppendedAt()).isEqualTo(1000);
+        // peek does not consume
+        assertThat(spool.peek(3)).hasSize(3);
+
+        spool.commit(first);
+        assertThat(spool.pendingRecords()).isEqualTo(2);
+        assertThat(spool.peek(10)).extracting(SpoolRecord::getPayload).map(MessageSpoolTest::text)
+                .containsExactly("record-3", "record-4");
+    }
+
+    @Test
+    void testRecoveryContinuesFromCheckpoint() throws IOException {
+        MessageSpool spool = MessageSpool.open(dir, SEGMENT_SIZE, 4);
+        for (int i = 0; i < 4; i++) {
+            spool.append(bytes("record-" + i), i);
+        }
+        spool.commit(spool.peek(1));
+        spool.close();
+
+        MessageSpool reopened = MessageSpool.open(dir, SEGMENT_SIZE, 4);
+        assertThat(reopened.pendingRecords()).isEqualTo(3);
+        reopened.append(bytes("record-4"), 4);
+        assertThat(reopened.peek(10)).extracting(SpoolRecord::getPayload).map(MessageSpoolTest::text)
+                .containsExactly("record-1", "record-2", "record-3", "record-4");
+    }
+
+    @Test
+    void testSegmentsRollOverAndAreDeletedWhenConsumed() throws IOException {
+        MessageSpool spool = MessageSpool.open(dir, SEGMENT_SIZE, 3);
+        byte[] payload = new byte[100];
+        int appended = 0;
+        while (spool.append(payload, appended)) {
+            appended++;
+        }
+        // two 116-byte records fit a 256-byte segment
+        assertThat(appended).isEqualTo(6);
+        assertThat(segmentFiles()).hasSize(3);
+
+        spool.commit(spool.peek(5));
+        assertThat(segmentFiles()).hasSize(1);
+        assertThat(spool.append(payload, appended)).isTrue();
+        assertThat(spool.peek(10)).hasSize(2);
+    }
+
+    @Test
+    void testTornRecordIsDroppedOnRecovery() throws IOException {
+        MessageSpool spool = MessageSpool.open(dir, SEGMENT_SIZE, 4);
+        spool.append(bytes("complete"), 1);
+        spool.append(bytes("torn"), 2);
+        spool.close();
+
+        // corrupt the payload of the second record as if the process died while writing it
+        Path segment = segmentFiles().get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, SEGMENT_SIZE);
+            int second = MessageSpool.HEADER_SIZE + "complete".length();
+            buffer.put(second + MessageSpool.HEADER_SIZE, (byte) 'X');
+        }
+
+        MessageSpool reopened = MessageSpool.open(dir, SEGMENT_SIZE, 4);
+        assertThat(reopened.pendingRecords()).isEqualTo(1);
+        reopened.append(bytes("next"), 3);
+        assertThat(reopened.peek(10)).extracting(SpoolRecord::getPayload).map(MessageSpoolTest::text)
+                .containsExactly("complete", "next");
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(file -> file.toString().endsWith(".seg")).sorted().toList();
+        }
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String text(byte[] bytes) {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
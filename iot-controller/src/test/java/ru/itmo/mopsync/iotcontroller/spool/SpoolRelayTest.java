@@ -0,0 +1,152 @@
+package ru.itmo.mopsync.iotcontroller.spool;
+
+import java.net.ConnectException;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.amqp.AmqpConnectException;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import ru.itmo.mopsync.iotcontroller.config.PublisherProperties;
+import ru.itmo.mopsync.iotcontroller.config.RabbitQueueProperties;
+import ru.itmo.mopsync.iotcontroller.config.SpoolProperties;
+import ru.itmo.mopsync.iotcontroller.model.DeviceDataDocument;
+import ru.itmo.mopsync.iotcontroller.model.DeviceDataNotification;
+import ru.itmo.mopsync.iotcontroller.publisher.ConfirmingPublisher;
+import ru.itmo.mopsync.iotcontroller.service.RabbitMqMessageSender;
+import ru.itmo.mopsync.iotcontroller.transport.RabbitMqTransport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SpoolRelayTest {
+
+    @TempDir
+    Path dir;
+
+    private final RabbitTemplate rabbitTemplate = mock(RabbitTemplate.class);
+    private final List<String> published = new ArrayList<>();
+    private final List<DeviceDataNotification> publishedNotifications = new ArrayList<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private SpoolRelay spoolRelay;
+    private RabbitMqMessageSender messageSender;
+
+    @BeforeEach
+    void setUp() {
+        SpoolProperties properties = new SpoolProperties();
+        properties.setDir(dir.toString());
+        properties.setBatchSize(2);
+        ConfirmingPublisher publisher = new ConfirmingPublisher(rabbitTemplate, new RabbitQueueProperties(),
+                new PublisherProperties(), meterRegistry);
+        spoolRelay = new SpoolRelay(properties, publisher, new ObjectMapper().findAndRegisterModules(),
+                meterRegistry);
+        messageSender = new RabbitMqMessageSender(new RabbitMqTransport(publisher, spoolRelay));
+        when(rabbitTemplate.getExchange()).thenReturn("");
+    }
+
+    @Test
+    void testNotificationsAreSpooledWhileBrokerIsDown() {
+        brokerDown();
+        messageSender.sendDeviceDataNotification("id-1");
+        messageSender.sendDeviceDataNotification("id-2");
+        messageSender.sendDeviceDataNotification("id-3");
+
+        assertThat(spoolRelay.shouldSpool()).isTrue();
+        assertThat(meterRegistry.get("iot.spool.records").gauge().value()).isEqualTo(3);
+        assertThatThrownBy(spoolRelay::drain).isInstanceOf(AmqpConnectException.class);
+
+        brokerUp();
+        // spooled notifications keep their place ahead of new ones
+        messageSender.sendDeviceDataNotification("id-4");
+        assertThat(published).isEmpty();
+
+        assertThat(spoolRelay.drain()).isEqualTo(2);
+        assertThat(spoolRelay.drain()).isEqualTo(2);
+        assertThat(spoolRelay.drain()).isZero();
+        assertThat(published).containsExactly("id-1", "id-2", "id-3", "id-4");
+        assertThat(spoolRelay.shouldSpool()).isFalse();
+        assertThat(meterRegistry.get("iot.spool.relayed").counter().count()).isEqualTo(4);
+
+        messageSender.sendDeviceDataNotification("id-5");
+        assertThat(published).containsExactly("id-1", "id-2", "id-3", "id-4", "id-5");
+    }
+
+    @Test
+    void testNackedBatchStaysSpooled() {
+        brokerDown();
+        messageSender.sendDeviceDataNotification("id-1");
+        brokerConfirms(false);
+
+        assertThatThrownBy(spoolRelay::drain).isInstanceOf(AmqpException.class).hasMessageContaining("nacked");
+        assertThat(meterRegistry.get("iot.spool.records").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void testNackedNotificationIsSpooled() {
+        brokerConfirms(false);
+        messageSender.sendDeviceDataNotification("id-1");
+
+        assertThat(published).containsExactly("id-1");
+        assertThat(meterRegistry.get("iot.spool.records").gauge().value()).isEqualTo(1);
+        assertThat(meterRegistry.get("iot.publisher.nacks").counter().count()).isEqualTo(1);
+
+        brokerUp();
+        assertThat(spoolRelay.drain()).isEqualTo(1);
+        assertThat(published).containsExactly("id-1", "id-1");
+    }
+
+    @Test
+    void testFullPayloadNotificationIsSpooled() {
+        DeviceDataDocument document = new DeviceDataDocument();
+        document.setId("id-1");
+        document.setDeviceId("device-1");
+        document.setTimestamp(OffsetDateTime.of(2026, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC));
+        document.setSeq(7L);
+        document.setMetrics(Map.of("temperature", 21.5, "mode", "heat"));
+        DeviceDataNotification notification = DeviceDataNotification.withPayload(document);
+        brokerDown();
+        messageSender.sendDeviceDataNotification(notification);
+        messageSender.sendDeviceDataNotification("id-2");
+
+        brokerUp();
+        assertThat(spoolRelay.drain()).isEqualTo(2);
+        assertThat(publishedNotifications).containsExactly(notification, new DeviceDataNotification("id-2"));
+    }
+
+    private void brokerDown() {
+        doThrow(new AmqpConnectException(new ConnectException("refused")))
+                .when(rabbitTemplate).convertAndSend(anyString(), anyString(), any(Object.class),
+                        any(CorrelationData.class));
+    }
+
+    private void brokerUp() {
+        brokerConfirms(true);
+    }
+
+    private void brokerConfirms(boolean ack) {
+        doAnswer(invocation -> {
+            publishedNotifications.add(invocation.getArgument(2));
+            published.add(invocation.<DeviceDataNotification>getArgument(2).getDeviceDataId());
+            invocation.<CorrelationData>getArgument(3).getFuture()
+                    .complete(new CorrelationData.Confirm(ack, ack ? null : "nack"));
+            return null;
+        }).when(rabbitTemplate).convertAndSend(anyString(), anyString(), any(Object.class),
+                any(CorrelationData.class));
+    }
+}
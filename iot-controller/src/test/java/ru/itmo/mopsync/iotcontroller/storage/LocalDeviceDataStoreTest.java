@@ -0,0 +1,140 @@
+package ru.itmo.mopsync.iotcontroller.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.util.unit.DataSize;
+import ru.itmo.mopsync.iotcontroller.config.MetricDictionaryProperties;
+import ru.itmo.mopsync.iotcontroller.config.OutboxProperties;
+import ru.itmo.mopsync.iotcontroller.config.RetentionProperties;
+import ru.itmo.mopsync.iotcontroller.config.RollupProperties;
+import ru.itmo.mopsync.iotcontroller.config.StorageProperties;
+import ru.itmo.mopsync.iotcontroller.model.DeviceDataDocument;
+import ru.itmo.mopsync.iotcontroller.model.SeqOrder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LocalDeviceDataStoreTest {
+
+    private static final int SEGMENT_SIZE = 512;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testReadingIsStoredWithAllFields() {
+        LocalDeviceDataStore store = store();
+        DeviceDataDocument reading = reading("sensor-1", 7);
+        reading.setMetrics(Map.of("temperature", 21.5, "count", 3, "total", 5_000_000_000L,
+                "state", "on", "door", true));
+        reading.setMeta(Map.of("firmware", "1.2"));
+        reading.setSeqOrder(SeqOrder.GAP);
+        reading.setSeqGap(2L);
+
+        store.insert(reading);
+
+        assertThat(store.findById(reading.getId())).contains(reading);
+        assertThat(store.findById(new ObjectId().toHexString())).isEmpty();
+    }
+
+    @Test
+    void testDuplicateSeqIsRejected() {
+        LocalDeviceDataStore store = store();
+        store.insert(reading("sensor-1", 1));
+
+        assertThatThrownBy(() -> store.insert(reading("sensor-1", 1))).isInstanceOf(DuplicateKeyException.class);
+        store.insert(reading("sensor-2", 1));
+    }
+
+    @Test
+    void testIndexIsRebuiltOnReopenAcrossSegments() {
+        LocalDeviceDataStore store = store();
+        List<DeviceDataDocument> readings = new ArrayList<>();
+        for (long seq = 1; seq <= 20; seq++) {
+            readings.add(store.insert(reading("sensor-1", seq)));
+        }
+        store.destroy();
+
+        LocalDeviceDataStore reopened = store();
+        for (DeviceDataDocument reading : readings) {
+            assertThat(reopened.findById(reading.getId())).contains(reading);
+        }
+        assertThatThrownBy(() -> reopened.insert(reading("sensor-1", 20))).isInstanceOf(DuplicateKeyException.class);
+        reopened.insert(reading("sensor-1", 21));
+    }
+
+    @Test
+    void testReadOnlyLogFollowsWriter() throws IOException {
+        SegmentLog writer = SegmentLog.open(dir, SEGMENT_SIZE);
+        SegmentLog reader = SegmentLog.openReadOnly(dir);
+        List<String> seen = new ArrayList<>();
+
+        writer.append(bytes("record-0"));
+        long position = reader.scan(0, (payload, at) -> seen.add(text(payload)));
+        for (int i = 1; i < 100; i++) {
+            writer.append(bytes("record-" + i));
+        }
+        position = reader.scan(position, (payload, at) -> seen.add(text(payload)));
+
+        assertThat(seen).hasSize(100).startsWith("record-0", "record-1").endsWith("record-99");
+        assertThat(reader.scan(position, (payload, at) -> seen.add(text(payload)))).isEqualTo(position);
+    }
+
+    @Test
+    void testMongoOnlyFeaturesAreRejected() {
+        OutboxProperties outbox = new OutboxProperties();
+        outbox.setEnabled(true);
+
+        assertThatThrownBy(() -> new LocalDeviceDataStore(storageProperties(), outbox, new RetentionProperties(),
+                new RollupProperties(), new MetricDictionaryProperties(), new SimpleMeterRegistry()))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("ingest.outbox.enabled")
+                .hasMessageContaining("ingest.rollup.enabled");
+    }
+
+    private LocalDeviceDataStore store() {
+        RollupProperties rollup = new RollupProperties();
+        rollup.setEnabled(false);
+        return new LocalDeviceDataStore(storageProperties(), new OutboxProperties(), new RetentionProperties(),
+                rollup, new MetricDictionaryProperties(), new SimpleMeterRegistry());
+    }
+
+    private StorageProperties storageProperties() {
+        StorageProperties properties = new StorageProperties();
+        properties.setType(StorageProperties.StorageType.LOCAL);
+        properties.setDir(dir.toString());
+        properties.setSegmentSize(DataSize.ofBytes(SEGMENT_SIZE));
+        return properties;
+    }
+
+    private static DeviceDataDocument reading(String deviceId, long seq) {
+        DeviceDataDocument document = new DeviceDataDocument();
+        document.setId(new ObjectId().toHexString());
+        document.setDeviceId(deviceId);
+        document.setSeq(seq);
+        document.setTimestamp(OffsetDateTime.of(2026, 1, 1, 0, 0, (int) seq % 60, 123_000, ZoneOffset.ofHours(3)));
+        document.setMetrics(Map.of("temperature", 20.0 + seq));
+        return document;
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String text(ByteBuffer payload) {
+        return StandardCharsets.UTF_8.decode(payload).toString();
+    }
+}
@@ -0,0 +1,92 @@
+package ru.itmo.mopsync.iotcontroller.transport;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+import ru.itmo.mopsync.iotcontroller.config.TransportProperties;
+import ru.itmo.mopsync.iotcontroller.model.DeviceDataNotification;
+import ru.itmo.mopsync.iotcontroller.storage.SegmentLog;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LocalLogTransportTest {
+
+    private static final int SEGMENT_SIZE = 256;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testNotificationsAreReadBackInOrder() throws IOException {
+        LocalLogTransport transport = transport(8);
+        String id = new ObjectId().toHexString();
+        DeviceDataNotification payload = new DeviceDataNotification(new ObjectId().toHexString(), "meter-1",
+                OffsetDateTime.of(2026, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC), 5L,
+                Map.of("power", 2.5, "state", "on"), Map.of("site", "a"));
+
+        transport.send(new DeviceDataNotification(id));
+        transport.send(new DeviceDataNotification("not-an-object-id"));
+        transport.send(payload);
+
+        List<DeviceDataNotification> read = new ArrayList<>();
+        SegmentLog.openReadOnly(dir).scan(0, (record, position) -> read.add(NotificationCodec.decode(record)));
+        assertThat(read).containsExactly(new DeviceDataNotification(id),
+                new DeviceDataNotification("not-an-object-id"), payload);
+    }
+
+    @Test
+    void testConsumerReadsBatchesFromItsOffsetAndOldSegmentsAreDeleted() throws IOException {
+        LocalLogTransport transport = transport(3);
+        SegmentLog reader = SegmentLog.openReadOnly(dir);
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            String id = new ObjectId().toHexString();
+            ids.add(id);
+            transport.send(new DeviceDataNotification(id));
+        }
+
+        List<String> read = new ArrayList<>();
+        long offset = reader.scan(0, 4, (record, position) -> read.add(decodeId(record)));
+        assertThat(read).containsExactlyElementsOf(ids.subList(0, 4));
+        offset = reader.scan(offset, 100, (record, position) -> read.add(decodeId(record)));
+        assertThat(read).containsExactlyElementsOf(ids);
+        reader.release(offset);
+
+        // a segment holds 13 records of 21 bytes, 3 segments are kept
+        for (int i = 0; i < 40; i++) {
+            transport.send(new DeviceDataNotification(new ObjectId().toHexString()));
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            assertThat(files).hasSize(3);
+        }
+        List<String> tail = new ArrayList<>();
+        reader.scan(offset, 100, (record, position) -> tail.add(decodeId(record)));
+        assertThat(tail).hasSizeLessThan(40).isNotEmpty();
+    }
+
+    private LocalLogTransport transport(int maxSegments) {
+        TransportProperties properties = new TransportProperties();
+        properties.setType(TransportProperties.TransportType.LOCAL);
+        properties.setDir(dir.toString());
+        properties.setSegmentSize(DataSize.ofBytes(SEGMENT_SIZE));
+        properties.setMaxSegments(maxSegments);
+        return new LocalLogTransport(properties, new SimpleMeterRegistry());
+    }
+
+    private static String decodeId(ByteBuffer record) {
+        return NotificationCodec.decode(record).getDeviceDataId();
+    }
+}
@@ -0,0 +1,32 @@
+package ru.itmo.mopsync.ruleengine.config;
+
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties for reading the device data a notification refers to.
+ * iot-controller publishes notifications concurrently with the insert of the document,
+ * so a notification may arrive shortly before its document is visible.
+ */
+@Data
+@Validated
+@Configuration
+@ConfigurationProperties(prefix = "rule-engine.device-data-lookup")
+public class DeviceDataLookupProperties {
+    /**
+     * Maximum number of reads of a document before the notification is dropped; a document that is still
+     * not visible was rejected as a duplicate or failed to insert.
+     */
+    @Min(1)
+    private int maxAttempts = 5;
+
+    /**
+     * Delay before the second read; every further read waits one delay longer.
+     */
+    private Duration retryDelay = Duration.ofMillis(20);
+}
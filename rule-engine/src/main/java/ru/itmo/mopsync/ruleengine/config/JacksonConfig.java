@@ -1,26 +1,28 @@
 package ru.itmo.mopsync.ruleengine.config;
 
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import ru.itmo.mopsync.ruleengine.converter.NotificationMessageConverter;
 
 /**
- * Configuration for Jackson JSON message conversion.
+ * Configuration for AMQP message conversion.
  */
 @Configuration
 public class JacksonConfig {
 
     /**
-     * Creates a JSON message converter bean.
+     * Creates the message converter bean.
      * Spring Boot will automatically use this for both RabbitTemplate and listener containers.
-     * This ensures messages are properly serialized/deserialized as JSON,
-     * matching the configuration in iot-controller.
+     * Messages are serialized as JSON; binary and JSON notifications of iot-controller are both
+     * deserialized, whichever format it is configured to write.
      *
-     * @return Jackson2JsonMessageConverter bean
+     * @return MessageConverter bean
      */
     @Bean
-    public Jackson2JsonMessageConverter jsonMessageConverter() {
-        return new Jackson2JsonMessageConverter();
+    public MessageConverter notificationMessageConverter() {
+        return new NotificationMessageConverter(new Jackson2JsonMessageConverter());
     }
 }
 
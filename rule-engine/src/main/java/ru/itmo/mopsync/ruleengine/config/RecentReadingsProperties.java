@@ -0,0 +1,31 @@
+package ru.itmo.mopsync.ruleengine.config;
+
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Configuration properties for the in-memory window of recent readings per device.
+ * Repeat rules are evaluated on the window first, so readings that iot-controller forwarded without
+ * storing them count too; rules repeating more readings than the window holds read MongoDB.
+ * The window is per instance and lost on restart, so forwarded readings received by another consumer
+ * or before a restart do not count.
+ */
+@Data
+@Validated
+@Configuration
+@ConfigurationProperties(prefix = "rule-engine.recent-readings")
+public class RecentReadingsProperties {
+    /**
+     * Whether recent readings are kept in memory.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Number of most recent sequence numbers kept per device.
+     */
+    @Min(1)
+    private int size = 16;
+}
@@ -0,0 +1,58 @@
+package ru.itmo.mopsync.ruleengine.config;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Configuration properties for the stores of readings and alerts.
+ * The local store reads the segment files iot-controller writes with {@code ingest.storage.type=local}
+ * and appends alerts to segment files of its own, for benchmarks and edge deployments without MongoDB.
+ * Rules are still read from MongoDB.
+ */
+@Data
+@Validated
+@Configuration
+@ConfigurationProperties(prefix = "rule-engine.storage")
+public class StorageProperties {
+    /**
+     * Store of readings and alerts.
+     */
+    @NotNull
+    private StorageType type = StorageType.MONGO;
+
+    /**
+     * Directory of the local store segment files of iot-controller.
+     */
+    @NotBlank
+    private String dir = "store";
+
+    /**
+     * Directory of the local alert segment files.
+     */
+    @NotBlank
+    private String alertsDir = "alerts";
+
+    /**
+     * Size of one memory-mapped local alert segment.
+     */
+    private DataSize alertSegmentSize = DataSize.ofMegabytes(16);
+
+    /**
+     * Store of readings and alerts.
+     */
+    public enum StorageType {
+        /**
+         * The device_data and alerts MongoDB collections.
+         */
+        MONGO,
+        /**
+         * Append-only segment files on local disk.
+         */
+        LOCAL
+    }
+}
@@ -0,0 +1,65 @@
+package ru.itmo.mopsync.ruleengine.config;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties for the transport of notifications from iot-controller.
+ * The local transport consumes the memory-mapped notification log iot-controller writes with
+ * {@code ingest.transport.type=local}, instead of the RabbitMQ queue.
+ */
+@Data
+@Validated
+@Configuration
+@ConfigurationProperties(prefix = "rule-engine.transport")
+public class TransportProperties {
+    /**
+     * Transport of notifications.
+     */
+    @NotNull
+    private TransportType type = TransportType.RABBITMQ;
+
+    /**
+     * Directory of the notification log segment files of iot-controller.
+     */
+    @NotBlank
+    private String dir = "notifications";
+
+    /**
+     * Name of the consumer; its offset is kept in the offsets subdirectory of the log.
+     */
+    @NotBlank
+    private String consumer = "rule-engine";
+
+    /**
+     * Maximum number of notifications processed before the offset is committed.
+     */
+    @Min(1)
+    private int batchSize = 500;
+
+    /**
+     * Pause of the consumer after reading the whole log, before looking for new notifications.
+     */
+    private Duration pollInterval = Duration.ofMillis(10);
+
+    /**
+     * Transport of notifications.
+     */
+    public enum TransportType {
+        /**
+         * RabbitMQ queue.
+         */
+        RABBITMQ,
+        /**
+         * Append-only notification log on local disk.
+         */
+        LOCAL
+    }
+}
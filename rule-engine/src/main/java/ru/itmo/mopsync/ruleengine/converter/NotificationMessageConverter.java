@@ -0,0 +1,51 @@
+package ru.itmo.mopsync.ruleengine.converter;
+
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.amqp.support.converter.MessageConverter;
+import ru.itmo.mopsync.ruleengine.transport.NotificationCodec;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * AMQP message converter that reads device data notifications iot-controller writes in the binary layout of
+ * {@link NotificationCodec} with {@code ingest.transport.format=binary}, and JSON messages of older
+ * iot-controller versions, by the content type of the message. Messages are always written as JSON.
+ */
+public class NotificationMessageConverter implements MessageConverter {
+
+    /**
+     * Content type of binary notifications.
+     */
+    public static final String CONTENT_TYPE_BINARY = "application/x-device-data-notification";
+
+    private final MessageConverter json;
+
+    /**
+     * Constructor for NotificationMessageConverter.
+     *
+     * @param json converter of JSON messages
+     */
+    public NotificationMessageConverter(MessageConverter json) {
+        this.json = json;
+    }
+
+    @Override
+    public Message toMessage(Object object, MessageProperties messageProperties) {
+        return json.toMessage(object, messageProperties);
+    }
+
+    @Override
+    public Object fromMessage(Message message) {
+        if (!CONTENT_TYPE_BINARY.equals(message.getMessageProperties().getContentType())) {
+            return json.fromMessage(message);
+        }
+        try {
+            return NotificationCodec.decode(ByteBuffer.wrap(message.getBody()));
+        } catch (IllegalArgumentException | BufferUnderflowException e) {
+            throw new MessageConversionException("Malformed binary device data notification", e);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package ru.itmo.mopsync.ruleengine.dictionary;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+import ru.itmo.mopsync.ruleengine.model.MetricNameDocument;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cached read-only view of the metric name dictionary maintained by iot-controller.
+ * Entries are never changed or removed, so cached entries never go stale.
+ */
+@Component
+@RequiredArgsConstructor
+public class MetricDictionary {
+
+    /**
+     * Field of dictionary-encoded metrics in stored readings, keyed by the decimal metric id.
+     */
+    public static final String ENCODED_FIELD = "m";
+
+    private final MongoTemplate mongoTemplate;
+    private final Map<Integer, String> namesById = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the metric name of the id.
+     *
+     * @param id metric id
+     * @return metric name
+     * @throws IllegalStateException if the id is not in the dictionary
+     */
+    public String nameOf(int id) {
+        String name = namesById.get(id);
+        if (name != null) {
+            return name;
+        }
+        MetricNameDocument entry = mongoTemplate.findById(id, MetricNameDocument.class);
+        if (entry == null) {
+            throw new IllegalStateException("Unknown metric id " + id);
+        }
+        namesById.put(id, entry.getName());
+        return entry.getName();
+    }
+}
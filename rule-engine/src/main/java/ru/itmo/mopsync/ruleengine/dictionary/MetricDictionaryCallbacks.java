@@ -0,0 +1,42 @@
+package ru.itmo.mopsync.ruleengine.dictionary;
+
+import org.bson.Document;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.mongodb.core.mapping.event.AfterConvertCallback;
+import org.springframework.stereotype.Component;
+import ru.itmo.mopsync.ruleengine.model.DeviceDataDocument;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Entity callback restoring metric names of readings stored with dictionary-encoded metrics,
+ * so rules are evaluated the same way for readings in either storage form.
+ */
+@Component
+public class MetricDictionaryCallbacks implements AfterConvertCallback<DeviceDataDocument> {
+
+    private final MetricDictionary dictionary;
+
+    /**
+     * Constructor for MetricDictionaryCallbacks.
+     *
+     * @param dictionary metric dictionary, lazy since callbacks are created with the MongoTemplate it uses
+     */
+    public MetricDictionaryCallbacks(@Lazy MetricDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    @Override
+    public DeviceDataDocument onAfterConvert(DeviceDataDocument entity, Document document, String collection) {
+        if (!(document.get(MetricDictionary.ENCODED_FIELD) instanceof Document encoded)) {
+            return entity;
+        }
+        Map<String, Object> metrics = entity.getMetrics() != null
+                ? new LinkedHashMap<>(entity.getMetrics())
+                : new LinkedHashMap<>();
+        encoded.forEach((id, value) -> metrics.put(dictionary.nameOf(Integer.parseInt(id)), value));
+        entity.setMetrics(metrics);
+        return entity;
+    }
+}
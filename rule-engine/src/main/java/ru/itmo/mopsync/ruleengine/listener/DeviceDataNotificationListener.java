@@ -7,9 +7,11 @@ import org.springframework.stereotype.Component;
 import ru.itmo.mopsync.ruleengine.exception.BaseException;
 import ru.itmo.mopsync.ruleengine.model.DeviceDataNotification;
 import ru.itmo.mopsync.ruleengine.service.DeviceDataProcessingService;
+import ru.itmo.mopsync.ruleengine.transport.LocalLogConsumer;
 
 /**
- * RabbitMQ listener for device data notifications.
+ * Listener for device data notifications: consumes the RabbitMQ queue, or is fed by
+ * {@link LocalLogConsumer} with the local transport, in which case the queue listener is not started.
  */
 @Slf4j
 @Component
@@ -20,16 +22,22 @@ public class DeviceDataNotificationListener {
 
     /**
      * Listens to device data notifications queue.
-     * Receives device data notification message and processes the device data.
+     * Receives device data notification message and processes the device data,
+     * read from the device data store or, for a reading that was not stored, carried by the notification.
      *
-     * @param notification device data notification containing MongoDB document ID
+     * @param notification device data notification containing the document ID or the reading
      */
-    @RabbitListener(queues = "${rabbitmq.queue.device-data:device-data-notifications}")
+    @RabbitListener(queues = "${rabbitmq.queue.device-data:device-data-notifications}",
+            autoStartup = "#{'${rule-engine.transport.type:rabbitmq}'.equalsIgnoreCase('rabbitmq')}")
     public void handleDeviceDataNotification(DeviceDataNotification notification) {
         String deviceDataId = notification.getDeviceDataId();
         log.debug("Received device data notification for id: {}", deviceDataId);
         try {
-            deviceDataProcessingService.processDeviceData(deviceDataId);
+            if (notification.hasPayload()) {
+                deviceDataProcessingService.processDeviceData(notification.toDocument());
+            } else {
+                deviceDataProcessingService.processDeviceData(deviceDataId);
+            }
         } catch (BaseException e) {
             log.error("Error processing device data with id: {} - {} ({})",
                     deviceDataId, e.getHumanMessage(), e.getMessage());
@@ -24,6 +24,9 @@ public class DeviceDataDocument {
     private String deviceId;
     private OffsetDateTime timestamp;
     private Long seq;
+    /**
+     * Metrics by name; readings written in dictionary mode store them under metric ids in the "m" field.
+     */
     private Map<String, Object> metrics;
     private Map<String, String> meta;
 }
@@ -4,8 +4,13 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.OffsetDateTime;
+import java.util.Map;
+
 /**
  * Message object for device data notifications received via RabbitMQ.
+ * A notification of a stored reading carries its id only; iot-controller announces readings it decimated
+ * (did not store) with the reading itself.
  */
 @Data
 @NoArgsConstructor
@@ -13,8 +18,39 @@ import lombok.NoArgsConstructor;
 public class DeviceDataNotification {
 
     /**
-     * MongoDB document ID of the device data.
+     * MongoDB document ID of the device data; not stored for a full-payload notification.
      */
     private String deviceDataId;
-}
+    private String deviceId;
+    private OffsetDateTime timestamp;
+    private Long seq;
+    private Map<String, Object> metrics;
+    private Map<String, String> meta;
+
+    /**
+     * Constructor for the notification of a stored reading.
+     *
+     * @param deviceDataId MongoDB document ID of the device data
+     */
+    public DeviceDataNotification(String deviceDataId) {
+        this.deviceDataId = deviceDataId;
+    }
 
+    /**
+     * Tells whether the notification carries the reading itself.
+     *
+     * @return true for a full-payload notification
+     */
+    public boolean hasPayload() {
+        return deviceId != null;
+    }
+
+    /**
+     * Converts a full-payload notification to the reading it carries.
+     *
+     * @return reading, not stored in MongoDB
+     */
+    public DeviceDataDocument toDocument() {
+        return new DeviceDataDocument(deviceDataId, deviceId, timestamp, seq, metrics, meta);
+    }
+}
@@ -0,0 +1,22 @@
+package ru.itmo.mopsync.ruleengine.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * MongoDB document mapping a metric name to its dictionary id (shared collection with iot-controller).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "metric_names")
+public class MetricNameDocument {
+
+    @Id
+    private Integer id;
+
+    private String name;
+}
@@ -6,7 +6,7 @@ import org.springframework.stereotype.Service;
 import ru.itmo.mopsync.ruleengine.model.Alert;
 import ru.itmo.mopsync.ruleengine.model.DeviceDataDocument;
 import ru.itmo.mopsync.ruleengine.model.Rule;
-import ru.itmo.mopsync.ruleengine.repository.AlertRepository;
+import ru.itmo.mopsync.ruleengine.storage.AlertStore;
 
 import java.time.OffsetDateTime;
 
@@ -18,7 +18,7 @@ import java.time.OffsetDateTime;
 @RequiredArgsConstructor
 public class AlertService {
 
-    private final AlertRepository alertRepository;
+    private final AlertStore alertStore;
 
     /**
      * Creates an alert instance when a rule is satisfied.
@@ -28,13 +28,13 @@ public class AlertService {
      */
     public void createAlert(Rule rule, DeviceDataDocument deviceData) {
         Alert alert = new Alert(
-                null, // ID will be generated by MongoDB
+                null, // ID will be generated by the store
                 rule.getId(),
                 deviceData.getId(),
                 OffsetDateTime.now()
         );
 
-        Alert saved = alertRepository.save(alert);
+        Alert saved = alertStore.save(alert);
         log.info("Created alert {} for rule {} and device data {}", saved.getId(), rule.getId(), deviceData.getId());
     }
 }
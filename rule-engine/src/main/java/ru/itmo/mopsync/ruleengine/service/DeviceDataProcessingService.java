@@ -3,13 +3,15 @@ package ru.itmo.mopsync.ruleengine.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import ru.itmo.mopsync.ruleengine.config.DeviceDataLookupProperties;
 import ru.itmo.mopsync.ruleengine.exception.Errors;
 import ru.itmo.mopsync.ruleengine.model.DeviceDataDocument;
 import ru.itmo.mopsync.ruleengine.model.Rule;
-import ru.itmo.mopsync.ruleengine.repository.DeviceDataRepository;
 import ru.itmo.mopsync.ruleengine.repository.RuleRepository;
+import ru.itmo.mopsync.ruleengine.storage.DeviceDataStore;
 
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Service for processing device data and evaluating rules.
@@ -19,24 +21,35 @@ import java.util.List;
 @RequiredArgsConstructor
 public class DeviceDataProcessingService {
 
-    private final DeviceDataRepository deviceDataRepository;
+    private final DeviceDataStore deviceDataStore;
     private final RuleRepository ruleRepository;
     private final RuleEvaluationService ruleEvaluationService;
     private final AlertService alertService;
+    private final DeviceDataLookupProperties lookupProperties;
+    private final RecentReadings recentReadings;
 
     /**
-     * Processes device data: finds applicable rules and evaluates them.
+     * Processes stored device data: reads it from the device data store, finds applicable rules and evaluates them.
+     * A notification whose document does not become visible within the lookup retries is dropped:
+     * iot-controller announces a reading while inserting it, so its insert was rejected as a duplicate
+     * of a reading announced before or failed, and the device retries a failed one.
      *
-     * @param deviceDataId MongoDB document ID of the device data
+     * @param deviceDataId ID of the stored device data
      */
     public void processDeviceData(String deviceDataId) {
         log.debug("Processing device data with id: {}", deviceDataId);
+        findDeviceData(deviceDataId).ifPresentOrElse(this::processDeviceData,
+                () -> log.debug("Device data {} was not stored, dropping its notification", deviceDataId));
+    }
 
-        DeviceDataDocument deviceData = deviceDataRepository.findById(deviceDataId)
-                .orElseThrow(() -> {
-                    log.warn("Device data not found with id: {}", deviceDataId);
-                    return Errors.deviceDataNotFoundError(deviceDataId);
-                });
+    /**
+     * Processes device data: finds applicable rules and evaluates them.
+     *
+     * @param deviceData reading, stored or carried by a full-payload notification
+     */
+    public void processDeviceData(DeviceDataDocument deviceData) {
+        String deviceDataId = deviceData.getId();
+        recentReadings.record(deviceData);
 
         String deviceId = deviceData.getDeviceId();
         if (deviceData.getMetrics() == null || deviceData.getMetrics().isEmpty()) {
@@ -64,4 +77,24 @@ public class DeviceDataProcessingService {
 
         log.debug("Finished processing device data with id: {}", deviceDataId);
     }
+
+    /**
+     * Reads the device data, retrying a few times with a growing delay:
+     * the notification may overtake the insert it announces.
+     */
+    private Optional<DeviceDataDocument> findDeviceData(String deviceDataId) {
+        for (int attempt = 1; ; attempt++) {
+            Optional<DeviceDataDocument> deviceData = deviceDataStore.findById(deviceDataId);
+            if (deviceData.isPresent() || attempt >= lookupProperties.getMaxAttempts()) {
+                return deviceData;
+            }
+            log.debug("Device data {} not visible yet, retrying", deviceDataId);
+            try {
+                Thread.sleep(lookupProperties.getRetryDelay().toMillis() * attempt);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw Errors.deviceDataNotFoundError(deviceDataId);
+            }
+        }
+    }
 }
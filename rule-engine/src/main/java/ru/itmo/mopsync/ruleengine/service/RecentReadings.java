@@ -0,0 +1,85 @@
+package ru.itmo.mopsync.ruleengine.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.itmo.mopsync.ruleengine.config.RecentReadingsProperties;
+import ru.itmo.mopsync.ruleengine.model.DeviceDataDocument;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory window of the most recent readings processed per device, indexed by sequence number.
+ * Holds the readings this instance received, stored or not; readings consumed by other instances
+ * are missing from it, and callers fall back to the device data store then.
+ *
+ * <p>The window is not shared and not persisted. Readings iot-controller decimated are forwarded but never
+ * stored, so when they were received by another consumer or before a restart, neither the window nor the store
+ * has them and a repeat rule spanning them is not satisfied. Decimated device groups get exact repeat rules
+ * only with a single consumer and for runs completed within its uptime.
+ */
+@Component
+@RequiredArgsConstructor
+public class RecentReadings {
+
+    private final RecentReadingsProperties properties;
+    private final Map<String, DeviceDataDocument[]> windows = new ConcurrentHashMap<>();
+
+    /**
+     * Remembers a processed reading.
+     *
+     * @param deviceData reading
+     */
+    public void record(DeviceDataDocument deviceData) {
+        if (!properties.isEnabled() || deviceData.getSeq() == null) {
+            return;
+        }
+        DeviceDataDocument[] window = windows.computeIfAbsent(deviceData.getDeviceId(),
+                id -> new DeviceDataDocument[properties.getSize()]);
+        synchronized (window) {
+            int slot = slot(window, deviceData.getSeq());
+            DeviceDataDocument current = window[slot];
+            if (current == null || current.getSeq() <= deviceData.getSeq()) {
+                window[slot] = deviceData;
+            }
+        }
+    }
+
+    /**
+     * Returns the readings with the given number of consecutive sequence numbers ending at a reading.
+     *
+     * @param deviceData latest reading of the run
+     * @param count      number of readings
+     * @return readings ordered by seq descending, or null if the window does not hold all of them
+     */
+    public List<DeviceDataDocument> findConsecutive(DeviceDataDocument deviceData, int count) {
+        DeviceDataDocument[] window = windows.get(deviceData.getDeviceId());
+        if (window == null || count > window.length || deviceData.getSeq() == null) {
+            return null;
+        }
+        List<DeviceDataDocument> readings = new ArrayList<>(count);
+        synchronized (window) {
+            for (long seq = deviceData.getSeq(); seq > deviceData.getSeq() - count; seq--) {
+                DeviceDataDocument reading = window[slot(window, seq)];
+                if (reading == null || reading.getSeq() != seq) {
+                    return null;
+                }
+                readings.add(reading);
+            }
+        }
+        return readings;
+    }
+
+    /**
+     * Forgets the readings of all devices.
+     */
+    public void clear() {
+        windows.clear();
+    }
+
+    private static int slot(DeviceDataDocument[] window, long seq) {
+        return (int) Math.floorMod(seq, (long) window.length);
+    }
+}
@@ -2,11 +2,10 @@ package ru.itmo.mopsync.ruleengine.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import ru.itmo.mopsync.ruleengine.model.DeviceDataDocument;
 import ru.itmo.mopsync.ruleengine.model.Rule;
-import ru.itmo.mopsync.ruleengine.repository.DeviceDataRepository;
+import ru.itmo.mopsync.ruleengine.storage.DeviceDataStore;
 
 import java.util.List;
 import java.util.Map;
@@ -24,7 +23,8 @@ public class RuleEvaluationService {
 
     private static final double EPSILON = 0.0001;
 
-    private final DeviceDataRepository deviceDataRepository;
+    private final DeviceDataStore deviceDataStore;
+    private final RecentReadings recentReadings;
 
     /**
      * Evaluates if a rule is satisfied for the given device data.
@@ -261,10 +261,13 @@ public class RuleEvaluationService {
         @SuppressWarnings("unchecked")
         Map<String, Object> innerRule = (Map<String, Object>) valueObj;
 
-        // Get limited packages for this device, ordered by sequence descending (most recent first)
-        // Limit to 'times' to avoid querying too much data
-        List<DeviceDataDocument> recentPackages = deviceDataRepository
-                .findByDeviceIdOrderBySeqDesc(deviceData.getDeviceId(), PageRequest.of(0, times));
+        // Take the packages ending at this one from memory: they include packages iot-controller did not store
+        List<DeviceDataDocument> recentPackages = recentReadings.findConsecutive(deviceData, times);
+        if (recentPackages == null) {
+            // Get limited packages for this device, ordered by sequence descending (most recent first)
+            // Limit to 'times' to avoid querying too much data
+            recentPackages = deviceDataStore.findLatest(deviceData.getDeviceId(), times);
+        }
 
         if (recentPackages.size() < times) {
             log.debug("Not enough packages for repeat rule. Required: {}, Available: {}", times, recentPackages.size());
@@ -272,8 +275,14 @@ public class RuleEvaluationService {
         }
 
         // Check the last 'times' packages (they are already sorted by seq descending)
-        // We assume they have correct consecutive seq numbers
+        Long previousSeq = null;
         for (DeviceDataDocument packageData : recentPackages) {
+            if (previousSeq != null && previousSeq - packageData.getSeq() != 1) {
+                log.debug("Packages {} and {} are not consecutive", packageData.getSeq(), previousSeq);
+                return false; // Sequence gap breaks the consecutive chain
+            }
+            previousSeq = packageData.getSeq();
+
             Object packageMetricValue = packageData.getMetrics().get(metricName);
             if (packageMetricValue == null) {
                 log.debug("Package doesn't have metric value for {}", metricName);
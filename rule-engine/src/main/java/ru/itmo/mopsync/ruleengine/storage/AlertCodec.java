@@ -0,0 +1,68 @@
+package ru.itmo.mopsync.ruleengine.storage;
+
+import org.bson.types.ObjectId;
+import ru.itmo.mopsync.ruleengine.model.Alert;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Encodes an alert into a record of the local alert store.
+ *
+ * <p>Layout (big-endian): version, the 12 ObjectId bytes, rule id, device data id (empty for none),
+ * epoch second, nanosecond and offset seconds of the timestamp. Strings are int-length-prefixed UTF-8.
+ */
+public final class AlertCodec {
+
+    static final byte VERSION = 1;
+
+    private AlertCodec() {
+    }
+
+    /**
+     * Encodes an alert.
+     *
+     * @param alert alert with an ObjectId hex id and a timestamp
+     * @return record payload
+     */
+    public static byte[] encode(Alert alert) {
+        byte[] ruleId = alert.getRuleId().getBytes(StandardCharsets.UTF_8);
+        byte[] deviceDataId = alert.getDeviceDataId() != null
+                ? alert.getDeviceDataId().getBytes(StandardCharsets.UTF_8) : new byte[0];
+        OffsetDateTime timestamp = alert.getTimestamp();
+        return ByteBuffer.allocate(1 + 12 + Integer.BYTES * 2 + ruleId.length + deviceDataId.length
+                        + Long.BYTES + Integer.BYTES * 2)
+                .put(VERSION)
+                .put(new ObjectId(alert.getId()).toByteArray())
+                .putInt(ruleId.length).put(ruleId)
+                .putInt(deviceDataId.length).put(deviceDataId)
+                .putLong(timestamp.toEpochSecond())
+                .putInt(timestamp.getNano())
+                .putInt(timestamp.getOffset().getTotalSeconds())
+                .array();
+    }
+
+    /**
+     * Decodes an alert.
+     *
+     * @param payload record payload, consumed from its position
+     * @return alert
+     */
+    public static Alert decode(ByteBuffer payload) {
+        byte version = payload.get();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported record version: " + version);
+        }
+        byte[] id = new byte[12];
+        payload.get(id);
+        String ruleId = DeviceDataCodec.readString(payload);
+        String deviceDataId = DeviceDataCodec.readString(payload);
+        Instant instant = Instant.ofEpochSecond(payload.getLong(), payload.getInt());
+        OffsetDateTime timestamp = OffsetDateTime.ofInstant(instant, ZoneOffset.ofTotalSeconds(payload.getInt()));
+        return new Alert(new ObjectId(id).toHexString(), ruleId, deviceDataId.isEmpty() ? null : deviceDataId,
+                timestamp);
+    }
+}
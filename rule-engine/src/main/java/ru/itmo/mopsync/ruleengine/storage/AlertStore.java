@@ -0,0 +1,26 @@
+package ru.itmo.mopsync.ruleengine.storage;
+
+import ru.itmo.mopsync.ruleengine.model.Alert;
+
+import java.util.List;
+
+/**
+ * Storage of alert instances, selected by {@code rule-engine.storage.type}.
+ */
+public interface AlertStore {
+
+    /**
+     * Stores a new alert.
+     *
+     * @param alert alert without id
+     * @return stored alert with its generated id
+     */
+    Alert save(Alert alert);
+
+    /**
+     * Returns all stored alerts.
+     *
+     * @return alerts
+     */
+    List<Alert> findAll();
+}
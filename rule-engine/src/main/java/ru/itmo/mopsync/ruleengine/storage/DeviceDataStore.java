@@ -0,0 +1,29 @@
+package ru.itmo.mopsync.ruleengine.storage;
+
+import ru.itmo.mopsync.ruleengine.model.DeviceDataDocument;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Read access to the readings stored by iot-controller, selected by {@code rule-engine.storage.type}.
+ */
+public interface DeviceDataStore {
+
+    /**
+     * Finds a stored reading.
+     *
+     * @param id reading id
+     * @return reading, or empty if it is not visible yet or not stored
+     */
+    Optional<DeviceDataDocument> findById(String id);
+
+    /**
+     * Finds the latest stored readings of a device.
+     *
+     * @param deviceId device identifier
+     * @param limit    maximum number of readings
+     * @return readings ordered by seq descending
+     */
+    List<DeviceDataDocument> findLatest(String deviceId, int limit);
+}
@@ -0,0 +1,62 @@
+package ru.itmo.mopsync.ruleengine.storage;
+
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.itmo.mopsync.ruleengine.config.StorageProperties;
+import ru.itmo.mopsync.ruleengine.model.Alert;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Appends alerts to a {@link SegmentLog} on local disk under ids generated here.
+ */
+@Component
+@ConditionalOnProperty(prefix = "rule-engine.storage", name = "type", havingValue = "local")
+public class LocalAlertStore implements AlertStore, DisposableBean {
+
+    private final SegmentLog segmentLog;
+
+    /**
+     * Constructor for LocalAlertStore.
+     *
+     * @param properties storage properties
+     */
+    public LocalAlertStore(StorageProperties properties) {
+        Path dir = Path.of(properties.getAlertsDir());
+        try {
+            this.segmentLog = SegmentLog.open(dir, (int) properties.getAlertSegmentSize().toBytes());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open local alert store in " + dir.toAbsolutePath(), e);
+        }
+    }
+
+    @Override
+    public Alert save(Alert alert) {
+        Alert saved = new Alert(new ObjectId().toHexString(), alert.getRuleId(), alert.getDeviceDataId(),
+                alert.getTimestamp());
+        try {
+            segmentLog.append(AlertCodec.encode(saved));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return saved;
+    }
+
+    @Override
+    public List<Alert> findAll() {
+        List<Alert> alerts = new ArrayList<>();
+        segmentLog.scan(0, (payload, position) -> alerts.add(AlertCodec.decode(payload)));
+        return alerts;
+    }
+
+    @Override
+    public void destroy() {
+        segmentLog.close();
+    }
+}
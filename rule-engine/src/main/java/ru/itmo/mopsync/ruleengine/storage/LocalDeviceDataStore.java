@@ -0,0 +1,94 @@
+package ru.itmo.mopsync.ruleengine.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.itmo.mopsync.ruleengine.config.StorageProperties;
+import ru.itmo.mopsync.ruleengine.model.DeviceDataDocument;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Reads the readings iot-controller appends to its local store, with an in-memory index of the record
+ * positions by id and by device and seq. The index follows the writer: it catches up with the records
+ * appended since the last scan when a reading is not found, and the lookup retries of
+ * {@code DeviceDataProcessingService} cover a notification that overtakes its record.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "rule-engine.storage", name = "type", havingValue = "local")
+public class LocalDeviceDataStore implements DeviceDataStore {
+
+    private final SegmentLog segmentLog;
+    private final Map<String, Long> positions = new ConcurrentHashMap<>();
+    private final Map<String, NavigableMap<Long, Long>> devices = new ConcurrentHashMap<>();
+    private long scanned;
+
+    /**
+     * Constructor for LocalDeviceDataStore.
+     *
+     * @param properties storage properties
+     */
+    public LocalDeviceDataStore(StorageProperties properties) {
+        Path dir = Path.of(properties.getDir());
+        try {
+            this.segmentLog = SegmentLog.openReadOnly(dir);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open local store in " + dir.toAbsolutePath(), e);
+        }
+        catchUp();
+        log.info("Opened local store in {} with {} readings", dir.toAbsolutePath(), positions.size());
+    }
+
+    @Override
+    public Optional<DeviceDataDocument> findById(String id) {
+        Long position = positions.get(id);
+        if (position == null) {
+            catchUp();
+            position = positions.get(id);
+        }
+        return position != null ? Optional.of(DeviceDataCodec.decode(segmentLog.read(position))) : Optional.empty();
+    }
+
+    @Override
+    public List<DeviceDataDocument> findLatest(String deviceId, int limit) {
+        NavigableMap<Long, Long> seqs = devices.get(deviceId);
+        if (seqs == null) {
+            return List.of();
+        }
+        List<DeviceDataDocument> readings = new ArrayList<>(limit);
+        for (long position : seqs.descendingMap().values()) {
+            if (readings.size() >= limit) {
+                break;
+            }
+            readings.add(DeviceDataCodec.decode(segmentLog.read(position)));
+        }
+        return readings;
+    }
+
+    /**
+     * Indexes the records appended since the last scan.
+     */
+    private synchronized void catchUp() {
+        scanned = segmentLog.scan(scanned, this::index);
+    }
+
+    private void index(ByteBuffer payload, long position) {
+        DeviceDataDocument document = DeviceDataCodec.decode(payload);
+        positions.put(document.getId(), position);
+        if (document.getSeq() != null) {
+            devices.computeIfAbsent(document.getDeviceId(), id -> new ConcurrentSkipListMap<>())
+                    .put(document.getSeq(), position);
+        }
+    }
+}
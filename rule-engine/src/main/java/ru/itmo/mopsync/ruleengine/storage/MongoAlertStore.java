@@ -0,0 +1,30 @@
+package ru.itmo.mopsync.ruleengine.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.itmo.mopsync.ruleengine.model.Alert;
+import ru.itmo.mopsync.ruleengine.repository.AlertRepository;
+
+import java.util.List;
+
+/**
+ * Stores alerts in the alerts MongoDB collection; the default store.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "rule-engine.storage", name = "type", havingValue = "mongo", matchIfMissing = true)
+public class MongoAlertStore implements AlertStore {
+
+    private final AlertRepository repository;
+
+    @Override
+    public Alert save(Alert alert) {
+        return repository.save(alert);
+    }
+
+    @Override
+    public List<Alert> findAll() {
+        return repository.findAll();
+    }
+}
@@ -0,0 +1,32 @@
+package ru.itmo.mopsync.ruleengine.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import ru.itmo.mopsync.ruleengine.model.DeviceDataDocument;
+import ru.itmo.mopsync.ruleengine.repository.DeviceDataRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Reads readings from the device_data MongoDB collection; the default store.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "rule-engine.storage", name = "type", havingValue = "mongo", matchIfMissing = true)
+public class MongoDeviceDataStore implements DeviceDataStore {
+
+    private final DeviceDataRepository repository;
+
+    @Override
+    public Optional<DeviceDataDocument> findById(String id) {
+        return repository.findById(id);
+    }
+
+    @Override
+    public List<DeviceDataDocument> findLatest(String deviceId, int limit) {
+        return repository.findByDeviceIdOrderBySeqDesc(deviceId, PageRequest.of(0, limit));
+    }
+}
@@ -0,0 +1,130 @@
+package ru.itmo.mopsync.ruleengine.transport;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import ru.itmo.mopsync.ruleengine.config.TransportProperties;
+import ru.itmo.mopsync.ruleengine.listener.DeviceDataNotificationListener;
+import ru.itmo.mopsync.ruleengine.model.DeviceDataNotification;
+import ru.itmo.mopsync.ruleengine.storage.SegmentLog;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Consumes the notification log iot-controller appends to with the local transport and hands the
+ * notifications to {@link DeviceDataNotificationListener}, one at a time and in append order, like the
+ * RabbitMQ listener container.
+ *
+ * <p>Notifications are decoded straight from the mapped segments in batches; the offset after a batch is
+ * committed to a memory-mapped offset file once the whole batch is processed, so a batch interrupted by a
+ * crash is processed again (at-least-once). Notifications in segments iot-controller deleted before they
+ * were read are skipped.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "rule-engine.transport", name = "type", havingValue = "local")
+public class LocalLogConsumer implements SmartLifecycle {
+
+    private static final String OFFSETS_DIR = "offsets";
+
+    private final TransportProperties properties;
+    private final DeviceDataNotificationListener listener;
+
+    private volatile boolean running;
+    private volatile ExecutorService executor;
+    private SegmentLog segmentLog;
+    private MappedByteBuffer offset;
+
+    @Override
+    public void start() {
+        Path dir = Path.of(properties.getDir());
+        try {
+            segmentLog = SegmentLog.openReadOnly(dir);
+            offset = mapOffset(dir.resolve(OFFSETS_DIR).resolve(properties.getConsumer() + ".offset"));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open notification log in " + dir.toAbsolutePath(), e);
+        }
+        log.info("Consuming notification log in {} as {}", dir.toAbsolutePath(), properties.getConsumer());
+        running = true;
+        executor = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("local-log-consumer-"));
+        executor.execute(this::consume);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        ExecutorService current = executor;
+        if (current != null) {
+            executor = null;
+            current.shutdownNow();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void consume() {
+        long position = offset.getLong(0);
+        while (running) {
+            try {
+                List<DeviceDataNotification> batch = new ArrayList<>(properties.getBatchSize());
+                long next = segmentLog.scan(position, properties.getBatchSize(),
+                        (record, at) -> decode(record, at, batch));
+                batch.forEach(listener::handleDeviceDataNotification);
+                if (next != position) {
+                    offset.putLong(0, next);
+                    segmentLog.release(next);
+                    position = next;
+                }
+                if (batch.isEmpty()) {
+                    Thread.sleep(properties.getPollInterval().toMillis());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Failed to read notification log, retrying", e);
+                try {
+                    Thread.sleep(properties.getPollInterval().toMillis());
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private static void decode(ByteBuffer record, long position, List<DeviceDataNotification> batch) {
+        try {
+            batch.add(NotificationCodec.decode(record));
+        } catch (IllegalArgumentException | BufferUnderflowException e) {
+            log.error("Skipping malformed notification at position {}: {}", position, e.getMessage());
+        }
+    }
+
+    private static MappedByteBuffer mapOffset(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, Long.BYTES);
+        }
+    }
+}
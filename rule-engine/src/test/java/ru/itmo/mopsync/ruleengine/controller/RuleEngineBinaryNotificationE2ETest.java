@@ -0,0 +1,31 @@
+package ru.itmo.mopsync.ruleengine.controller;
+
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import ru.itmo.mopsync.ruleengine.config.RabbitQueueProperties;
+import ru.itmo.mopsync.ruleengine.converter.NotificationMessageConverter;
+import ru.itmo.mopsync.ruleengine.model.DeviceDataNotification;
+import ru.itmo.mopsync.ruleengine.transport.NotificationCodec;
+
+/**
+ * Runs the end-to-end tests of {@link RuleEngineE2ETest} over binary notifications:
+ * messages are published the way iot-controller does with {@code ingest.transport.format=binary}.
+ */
+class RuleEngineBinaryNotificationE2ETest extends RuleEngineE2ETest {
+
+    @Autowired
+    private RabbitTemplate rabbitTemplate;
+
+    @Autowired
+    private RabbitQueueProperties rabbitQueueProperties;
+
+    @Override
+    void send(DeviceDataNotification notification) {
+        MessageProperties properties = new MessageProperties();
+        properties.setContentType(NotificationMessageConverter.CONTENT_TYPE_BINARY);
+        rabbitTemplate.send("", rabbitQueueProperties.getDeviceData(),
+                new Message(NotificationCodec.encode(notification), properties));
+    }
+}
@@ -1,23 +1,29 @@
 package ru.itmo.mopsync.ruleengine.controller;
 
 import java.time.OffsetDateTime;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
+import org.bson.Document;
+import org.bson.types.ObjectId;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.MongoTemplate;
 import ru.itmo.mopsync.ruleengine.config.RabbitQueueProperties;
 import ru.itmo.mopsync.ruleengine.model.Alert;
 import ru.itmo.mopsync.ruleengine.model.DeviceDataDocument;
 import ru.itmo.mopsync.ruleengine.model.DeviceDataNotification;
+import ru.itmo.mopsync.ruleengine.model.MetricNameDocument;
 import ru.itmo.mopsync.ruleengine.model.Rule;
 import ru.itmo.mopsync.ruleengine.repository.AlertRepository;
 import ru.itmo.mopsync.ruleengine.repository.DeviceDataRepository;
 import ru.itmo.mopsync.ruleengine.repository.RuleRepository;
+import ru.itmo.mopsync.ruleengine.service.RecentReadings;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.awaitility.Awaitility.await;
@@ -43,11 +49,18 @@ class RuleEngineE2ETest extends BaseDbTest {
     @Autowired
     private AlertRepository alertRepository;
 
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private RecentReadings recentReadings;
+
     @BeforeEach
     void setUp() {
         deviceDataRepository.deleteAll();
         ruleRepository.deleteAll();
         alertRepository.deleteAll();
+        recentReadings.clear();
     }
 
     @Test
@@ -228,10 +241,32 @@ class RuleEngineE2ETest extends BaseDbTest {
     @Test
     void testE2EWithInvalidDeviceDataId() {
         DeviceDataNotification notification = new DeviceDataNotification("non-existent-id");
-        rabbitTemplate.convertAndSend("", rabbitQueueProperties.getDeviceData(), notification);
+        send(notification);
         sendAndWaitForNoAlert("non-existent-id");
     }
 
+    @Test
+    void testE2EWithNotificationBeforeDeviceData() throws InterruptedException {
+        Rule rule = saveRule("device-1", "temperature", Map.of("type", "gt", "value", 25.0));
+        String id = new ObjectId().toHexString();
+        send(new DeviceDataNotification(id));
+        Thread.sleep(50);
+
+        DeviceDataDocument deviceData = new DeviceDataDocument();
+        deviceData.setId(id);
+        deviceData.setDeviceId("device-1");
+        deviceData.setSeq(1L);
+        deviceData.setTimestamp(OffsetDateTime.now());
+        deviceData.setMetrics(Map.of("temperature", 30.0));
+        deviceDataRepository.insert(deviceData);
+
+        await().atMost(10, TimeUnit.SECONDS).pollInterval(100, TimeUnit.MILLISECONDS).untilAsserted(() -> {
+            List<Alert> alerts = alertRepository.findAll();
+            assertThat(alerts).hasSize(1);
+            assertThat(alerts.get(0).getRuleId()).isEqualTo(rule.getId());
+        });
+    }
+
     @Test
     void testE2EWithNullRuleContent() {
         DeviceDataDocument deviceData = saveDeviceData("device-1", 1L, Map.of("temperature", 30.0));
@@ -312,6 +347,78 @@ class RuleEngineE2ETest extends BaseDbTest {
         sendAndWaitForNoAlert(latestData.getId());
     }
 
+    @Test
+    void testE2EWithRepeatRuleSeqGap() {
+        for (long seq : new long[]{1, 2, 4}) {
+            saveDeviceData("device-1", seq, Map.of("temperature", 30.0));
+        }
+        DeviceDataDocument latestData = getLatestDeviceData("device-1");
+        saveRule("device-1", "temperature", Map.of(
+                "type", "repeat",
+                "times", 3,
+                "value", Map.of("type", "gt", "value", 25.0)
+        ));
+        sendAndWaitForNoAlert(latestData.getId());
+    }
+
+    @Test
+    void testE2EWithFullPayloadNotification() {
+        Rule rule = saveRule("device-1", "temperature", Map.of("type", "gt", "value", 25.0));
+
+        // a reading decimated by iot-controller is not stored, the notification carries it
+        sendAndWaitForAlert(forwardedNotification("device-1", 1L, 30.0), rule.getId(), 1);
+        assertThat(deviceDataRepository.count()).isZero();
+    }
+
+    @Test
+    void testE2EWithRepeatRuleOverForwardedReadings() {
+        DeviceDataDocument stored = saveDeviceData("device-1", 1L, Map.of("temperature", 30.0));
+        Rule rule = saveRule("device-1", "temperature", Map.of(
+                "type", "repeat",
+                "times", 3,
+                "value", Map.of("type", "gt", "value", 25.0)
+        ));
+
+        send(new DeviceDataNotification(stored.getId()));
+        send(forwardedNotification("device-1", 2L, 31.0));
+        sendAndWaitForAlert(forwardedNotification("device-1", 3L, 32.0), rule.getId(), 1);
+    }
+
+    @Test
+    void testE2EWithRepeatRuleMissesForwardedReadingsOfAnotherInstance() {
+        Rule rule = saveRule("device-1", "temperature", Map.of(
+                "type", "repeat",
+                "times", 3,
+                "value", Map.of("type", "gt", "value", 25.0)
+        ));
+
+        send(forwardedNotification("device-1", 1L, 30.0));
+        send(forwardedNotification("device-1", 2L, 31.0));
+        awaitRecorded("device-1", 2L);
+        // known limitation: the window is per instance and forwarded readings are not stored, so after a restart
+        // or when another consumer received them, neither the window nor the store holds the start of the run
+        recentReadings.clear();
+        send(forwardedNotification("device-1", 3L, 32.0));
+        awaitRecorded("device-1", 3L);
+
+        assertThat(alertRepository.findAll()).isEmpty();
+    }
+
+    @Test
+    void testE2EWithDictionaryEncodedMetrics() {
+        mongoTemplate.save(new MetricNameDocument(0, "temperature"));
+        mongoTemplate.save(new MetricNameDocument(1, "status"));
+        ObjectId id = new ObjectId();
+        mongoTemplate.getCollection("device_data").insertOne(new Document("_id", id)
+                .append("deviceId", "device-1")
+                .append("timestamp", new Date())
+                .append("seq", 1L)
+                .append("m", new Document("0", 30.0).append("1", "active")));
+        Rule rule = saveRule("device-1", "temperature", Map.of("type", "gt", "value", 25.0));
+
+        sendAndWaitForAlert(id.toHexString(), rule.getId(), 1);
+    }
+
     @Test
     void testE2EWithDifferentDeviceId() {
         DeviceDataDocument deviceData = saveDeviceData("device-1", 1L, Map.of("temperature", 30.0));
@@ -346,9 +453,25 @@ class RuleEngineE2ETest extends BaseDbTest {
         return deviceDataRepository.findByDeviceIdOrderBySeqDesc(deviceId, PageRequest.of(0, 1)).get(0);
     }
 
-    private void sendAndWaitForAlert(String deviceDataId, String expectedRuleId, int expectedAlertCount) {
-        DeviceDataNotification notification = new DeviceDataNotification(deviceDataId);
+    private DeviceDataNotification forwardedNotification(String deviceId, Long seq, double temperature) {
+        return new DeviceDataNotification(new ObjectId().toHexString(), deviceId, OffsetDateTime.now(), seq,
+                Map.of("temperature", temperature), null);
+    }
+
+    /**
+     * Sends a notification to rule-engine; subclasses run the same tests over another transport.
+     */
+    void send(DeviceDataNotification notification) {
         rabbitTemplate.convertAndSend("", rabbitQueueProperties.getDeviceData(), notification);
+    }
+
+    private void sendAndWaitForAlert(String deviceDataId, String expectedRuleId, int expectedAlertCount) {
+        sendAndWaitForAlert(new DeviceDataNotification(deviceDataId), expectedRuleId, expectedAlertCount);
+    }
+
+    private void sendAndWaitForAlert(DeviceDataNotification notification, String expectedRuleId,
+                                     int expectedAlertCount) {
+        send(notification);
         await().atMost(10, TimeUnit.SECONDS).pollInterval(100, TimeUnit.MILLISECONDS).untilAsserted(() -> {
             List<Alert> alerts = alertRepository.findAll();
             assertThat(alerts).hasSize(expectedAlertCount);
@@ -358,9 +481,17 @@ class RuleEngineE2ETest extends BaseDbTest {
         });
     }
 
+    private void awaitRecorded(String deviceId, Long seq) {
+        DeviceDataDocument reading = new DeviceDataDocument();
+        reading.setDeviceId(deviceId);
+        reading.setSeq(seq);
+        await().atMost(10, TimeUnit.SECONDS).pollInterval(100, TimeUnit.MILLISECONDS)
+                .until(() -> recentReadings.findConsecutive(reading, 1) != null);
+    }
+
     private void sendAndWaitForNoAlert(String deviceDataId) {
         DeviceDataNotification notification = new DeviceDataNotification(deviceDataId);
-        rabbitTemplate.convertAndSend("", rabbitQueueProperties.getDeviceData(), notification);
+        send(notification);
         await().atMost(5, TimeUnit.SECONDS).untilAsserted(() -> {
             List<Alert> alerts = alertRepository.findAll();
             assertThat(alerts).isEmpty();
@@ -0,0 +1,144 @@
+package ru.itmo.mopsync.ruleengine.controller;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import ru.itmo.mopsync.ruleengine.config.RabbitQueueProperties;
+import ru.itmo.mopsync.ruleengine.model.Alert;
+import ru.itmo.mopsync.ruleengine.model.DeviceDataDocument;
+import ru.itmo.mopsync.ruleengine.model.DeviceDataNotification;
+import ru.itmo.mopsync.ruleengine.model.Rule;
+import ru.itmo.mopsync.ruleengine.repository.RuleRepository;
+import ru.itmo.mopsync.ruleengine.service.RecentReadings;
+import ru.itmo.mopsync.ruleengine.storage.AlertStore;
+import ru.itmo.mopsync.ruleengine.storage.DeviceDataCodec;
+import ru.itmo.mopsync.ruleengine.storage.LocalAlertStore;
+import ru.itmo.mopsync.ruleengine.storage.SegmentLog;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * End-to-end tests for rule-engine on the local store: readings are appended to the segment files
+ * the way iot-controller writes them, alerts go to local segment files.
+ */
+class RuleEngineLocalStorageE2ETest extends BaseDbTest {
+
+    @TempDir
+    static Path storageDir;
+
+    private static SegmentLog writer;
+
+    @Autowired
+    private RabbitTemplate rabbitTemplate;
+
+    @Autowired
+    private RabbitQueueProperties rabbitQueueProperties;
+
+    @Autowired
+    private RuleRepository ruleRepository;
+
+    @Autowired
+    private AlertStore alertStore;
+
+    @Autowired
+    private RecentReadings recentReadings;
+
+    @DynamicPropertySource
+    static void configureStorage(DynamicPropertyRegistry registry) {
+        registry.add("rule-engine.storage.type", () -> "local");
+        registry.add("rule-engine.storage.dir", () -> storageDir.resolve("store").toString());
+        registry.add("rule-engine.storage.alerts-dir", () -> storageDir.resolve("alerts").toString());
+    }
+
+    @BeforeAll
+    static void openWriter() throws IOException {
+        writer = SegmentLog.open(storageDir.resolve("store"), 64 * 1024);
+    }
+
+    @AfterAll
+    static void closeWriter() {
+        writer.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        ruleRepository.deleteAll();
+        recentReadings.clear();
+    }
+
+    @Test
+    void testLocalStoreSelected() {
+        assertThat(alertStore).isInstanceOf(LocalAlertStore.class);
+    }
+
+    @Test
+    void testE2EWithSatisfiedRule() throws IOException {
+        DeviceDataDocument deviceData = appendDeviceData("local-device-1", 1L, Map.of("temperature", 30.0));
+        Rule rule = saveRule("local-device-1", "temperature", Map.of("type", "gt", "value", 25.0));
+
+        send(deviceData.getId());
+
+        await().atMost(10, TimeUnit.SECONDS).untilAsserted(() -> assertThat(alertsOf(rule))
+                .extracting(Alert::getDeviceDataId).containsExactly(deviceData.getId()));
+    }
+
+    @Test
+    void testE2EWithRepeatRule() throws IOException {
+        Rule rule = saveRule("local-device-2", "temperature", Map.of(
+                "type", "repeat",
+                "times", 3,
+                "value", Map.of("type", "gt", "value", 25.0)
+        ));
+        DeviceDataDocument latest = null;
+        for (long seq = 1; seq <= 3; seq++) {
+            latest = appendDeviceData("local-device-2", seq, Map.of("temperature", 30.0));
+        }
+
+        // only the latest reading is announced, the earlier ones are read from the store
+        send(latest.getId());
+
+        String latestId = latest.getId();
+        await().atMost(10, TimeUnit.SECONDS).untilAsserted(() -> assertThat(alertsOf(rule))
+                .extracting(Alert::getDeviceDataId).containsExactly(latestId));
+    }
+
+    private DeviceDataDocument appendDeviceData(String deviceId, Long seq, Map<String, Object> metrics)
+            throws IOException {
+        DeviceDataDocument deviceData = new DeviceDataDocument(new ObjectId().toHexString(), deviceId,
+                OffsetDateTime.now(), seq, metrics, null);
+        writer.append(DeviceDataCodec.encode(deviceData));
+        return deviceData;
+    }
+
+    private Rule saveRule(String deviceId, String metricName, Map<String, Object> ruleContent) {
+        Rule rule = new Rule();
+        rule.setDeviceId(deviceId);
+        rule.setMetricName(metricName);
+        rule.setRuleContent(ruleContent);
+        return ruleRepository.save(rule);
+    }
+
+    private void send(String deviceDataId) {
+        rabbitTemplate.convertAndSend("", rabbitQueueProperties.getDeviceData(),
+                new DeviceDataNotification(deviceDataId));
+    }
+
+    private List<Alert> alertsOf(Rule rule) {
+        return alertStore.findAll().stream().filter(alert -> alert.getRuleId().equals(rule.getId())).toList();
+    }
+}
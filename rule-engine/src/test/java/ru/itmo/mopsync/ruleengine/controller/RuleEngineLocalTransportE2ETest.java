@@ -0,0 +1,51 @@
+package ru.itmo.mopsync.ruleengine.controller;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.util.FileSystemUtils;
+import ru.itmo.mopsync.ruleengine.model.DeviceDataNotification;
+import ru.itmo.mopsync.ruleengine.storage.SegmentLog;
+import ru.itmo.mopsync.ruleengine.transport.NotificationCodec;
+
+/**
+ * Runs the end-to-end tests of {@link RuleEngineE2ETest} over the local notification log:
+ * notifications are appended the way iot-controller does with the local transport.
+ */
+class RuleEngineLocalTransportE2ETest extends RuleEngineE2ETest {
+
+    private static final Path LOG_DIR = Path.of("target", "local-transport-e2e");
+
+    private static SegmentLog writer;
+
+    @DynamicPropertySource
+    static void configureTransport(DynamicPropertyRegistry registry) {
+        registry.add("rule-engine.transport.type", () -> "local");
+        registry.add("rule-engine.transport.dir", LOG_DIR::toString);
+    }
+
+    @BeforeAll
+    static void openWriter() throws IOException {
+        // offsets of a previous run point into deleted segments
+        FileSystemUtils.deleteRecursively(LOG_DIR);
+        writer = SegmentLog.open(LOG_DIR, 64 * 1024, 4);
+    }
+
+    @AfterAll
+    static void closeWriter() {
+        writer.close();
+    }
+
+    @Override
+    void send(DeviceDataNotification notification) {
+        try {
+            writer.append(NotificationCodec.encode(notification));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}